@@ -39,14 +39,19 @@ public class AudioCommand extends BaseCommand {
     public static final CommandInfo INFO = new BaseCommandInfo("audio",
             "audio <file> - plays the specified file", CommandType.TYPE_GLOBAL);
 
+    /** The engine used to play files. */
+    private final AudioEngine engine;
+
     /**
      * Creates a new instance of this command.
      *
      * @param controller The controller to use for command information.
+     * @param engine     The engine used to play files.
      */
     @Inject
-    public AudioCommand(final CommandController controller) {
+    public AudioCommand(final CommandController controller, final AudioEngine engine) {
         super(controller);
+        this.engine = engine;
     }
 
     @Override
@@ -55,8 +60,8 @@ public class AudioCommand extends BaseCommand {
         final String filename = args.getArgumentsAsString();
         final File file = new File(filename);
         if (file.exists()) {
-            if (AudioPlayer.isValid(file)) {
-                new AudioPlayer(file).play();
+            if (engine.isValid(file)) {
+                engine.play(file);
             } else {
                 showError(origin, args.isSilent(), "Invalid file type");
             }
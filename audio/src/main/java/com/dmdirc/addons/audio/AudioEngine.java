@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.audio;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Plays audio files, keeping recently used sounds decoded in memory.
+ */
+@Singleton
+public class AudioEngine {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AudioEngine.class);
+    /** Cache of decoded files. */
+    private final ClipCache cache;
+    /** Mixer to play clips with. */
+    private final AudioMixer mixer;
+
+    @Inject
+    public AudioEngine(final ClipCache cache, final AudioMixer mixer) {
+        this.cache = cache;
+        this.mixer = mixer;
+    }
+
+    /**
+     * Checks if the given file is a supported audio file. Only the file's header is read; the
+     * file is decoded when it is first played.
+     *
+     * @param file The file to check.
+     *
+     * @return True if the file can be played, false otherwise.
+     */
+    public boolean isValid(final File file) {
+        try {
+            cache.check(file);
+            return true;
+        } catch (IOException ex) {
+            LOG.debug("Unable to play {}: {}", file, ex.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Starts playing the given file.
+     *
+     * @param file The file to play.
+     *
+     * @return True if the file was started, false if it couldn't be decoded or was ignored.
+     */
+    public boolean play(final File file) {
+        try {
+            return mixer.play(file.getAbsolutePath(), cache.get(file));
+        } catch (IOException ex) {
+            LOG.debug("Unable to decode {}: {}", file, ex.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Stops playing all sounds and releases any cached clips.
+     */
+    public void shutdown() {
+        mixer.stop();
+        cache.clear();
+    }
+
+}
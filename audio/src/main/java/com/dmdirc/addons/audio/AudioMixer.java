@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.audio;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.dmdirc.util.LogUtils.USER_ERROR;
+
+/**
+ * Plays clips by mixing them together on a single long-lived thread that feeds one
+ * {@link SourceDataLine}.
+ *
+ * <p>At most a fixed number of clips play at once; starting another stops the oldest. Requests to
+ * play a sound that was started only a few milliseconds earlier are ignored. The line is closed
+ * when nothing has been played for a while, and reopened when it's next needed.
+ */
+@Singleton
+public class AudioMixer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AudioMixer.class);
+    /** The default maximum number of clips to play at once. */
+    private static final int POLYPHONY = 8;
+    /** The default time in which repeated requests for the same sound are ignored, in ms. */
+    private static final long DEBOUNCE = 40;
+    /** The number of frames to mix at a time (about 10ms). */
+    private static final int BUFFER_FRAMES = 441;
+    /** The time to keep the line open after the last clip finishes, in ms. */
+    private static final long IDLE_TIMEOUT = 5000;
+    /** Clock used to debounce sounds, in ms. */
+    private final LongSupplier clock;
+    /** The maximum number of clips to play at once. */
+    private final int polyphony;
+    /** The time in which repeated requests for the same sound are ignored, in ms. */
+    private final long debounce;
+    /** Buffer used to sum samples while mixing, reused between blocks. */
+    private int[] sums = new int[0];
+    /** The clips currently being played, oldest first. */
+    private final Deque<Voice> voices = new ArrayDeque<>();
+    /** The times sounds were last started, keyed on the sound. */
+    private final Map<Object, Long> lastStarted = new HashMap<>();
+    /** The thread doing the mixing, if started. */
+    private Thread thread;
+    /** Whether the mixer has been stopped. */
+    private boolean stopped;
+    /** The number of clips that were started. */
+    private long started;
+    /** The number of clips that were ignored because the same sound was just started. */
+    private long debounced;
+    /** The number of clips that were stopped early to keep within the polyphony limit. */
+    private long dropped;
+
+    @Inject
+    public AudioMixer() {
+        this(() -> System.nanoTime() / 1000000, POLYPHONY, DEBOUNCE);
+    }
+
+    @VisibleForTesting
+    AudioMixer(final LongSupplier clock, final int polyphony, final long debounce) {
+        this.clock = clock;
+        this.polyphony = polyphony;
+        this.debounce = debounce;
+    }
+
+    /**
+     * Starts playing the given clip.
+     *
+     * @param key  An object identifying the sound, used to ignore repeated requests.
+     * @param clip The clip to play.
+     *
+     * @return True if the clip was started, false if it was ignored.
+     */
+    public boolean play(final Object key, final PcmClip clip) {
+        if (!enqueue(key, clip)) {
+            return false;
+        }
+        synchronized (this) {
+            if (thread == null && !stopped) {
+                thread = new Thread(this::run, "Audio mixer");
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stops all playing clips and the mixer thread. The mixer can't be used after it has been
+     * stopped.
+     */
+    public void stop() {
+        final Thread mixer;
+        synchronized (this) {
+            stopped = true;
+            voices.clear();
+            mixer = thread;
+            notifyAll();
+        }
+        if (mixer != null) {
+            try {
+                mixer.join(1000);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public synchronized long getStarted() {
+        return started;
+    }
+
+    public synchronized long getDebounced() {
+        return debounced;
+    }
+
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Adds a clip to the set of clips being played, unless it's been debounced.
+     *
+     * @param key  An object identifying the sound.
+     * @param clip The clip to play.
+     *
+     * @return True if the clip was added, false if it was ignored.
+     */
+    @VisibleForTesting
+    synchronized boolean enqueue(final Object key, final PcmClip clip) {
+        if (stopped) {
+            return false;
+        }
+
+        final long now = clock.getAsLong();
+        final Long last = lastStarted.get(key);
+        if (last != null && now - last < debounce) {
+            debounced++;
+            return false;
+        }
+        lastStarted.put(key, now);
+        if (lastStarted.size() > polyphony * 4) {
+            lastStarted.values().removeIf(time -> now - time >= debounce);
+        }
+
+        if (voices.size() >= polyphony) {
+            voices.removeFirst();
+            dropped++;
+        }
+        voices.addLast(new Voice(clip));
+        started++;
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Mixes the next block of all playing clips into the given buffer, removing any clips that
+     * have finished.
+     *
+     * @param buffer The buffer to mix into, which must be a multiple of the number of channels.
+     *
+     * @return The number of frames mixed into the buffer, or 0 if nothing is playing.
+     */
+    @VisibleForTesting
+    synchronized int mix(final short[] buffer) {
+        if (sums.length != buffer.length) {
+            sums = new int[buffer.length];
+        } else {
+            Arrays.fill(sums, 0);
+        }
+        int frames = 0;
+        final Iterator<Voice> iterator = voices.iterator();
+        while (iterator.hasNext()) {
+            final Voice voice = iterator.next();
+            final short[] samples = voice.clip.getSamples();
+            final int count = Math.min(sums.length, samples.length - voice.position);
+            for (int i = 0; i < count; i++) {
+                sums[i] += samples[voice.position + i];
+            }
+            voice.position += count;
+            frames = Math.max(frames, count / PcmClip.CHANNELS);
+            if (voice.position >= samples.length) {
+                iterator.remove();
+            }
+        }
+        for (int i = 0; i < frames * PcmClip.CHANNELS; i++) {
+            buffer[i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, sums[i]));
+        }
+        return frames;
+    }
+
+    /**
+     * Waits for clips to be played, mixing and writing them to the line until the mixer is
+     * stopped.
+     */
+    private void run() {
+        final short[] buffer = new short[BUFFER_FRAMES * PcmClip.CHANNELS];
+        final byte[] bytes = new byte[buffer.length * 2];
+        SourceDataLine line = null;
+        try {
+            while (!isStopped()) {
+                if (!awaitVoices(line == null ? 0 : IDLE_TIMEOUT)) {
+                    if (line != null) {
+                        line.close();
+                        line = null;
+                    }
+                    continue;
+                }
+                if (line == null) {
+                    line = openLine();
+                    continue;
+                }
+
+                final int frames = mix(buffer);
+                if (frames == 0) {
+                    continue;
+                }
+                for (int i = 0; i < frames * PcmClip.CHANNELS; i++) {
+                    bytes[i * 2] = (byte) buffer[i];
+                    bytes[i * 2 + 1] = (byte) (buffer[i] >> 8);
+                }
+                line.write(bytes, 0, frames * PcmClip.CHANNELS * 2);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (line != null) {
+                line.close();
+            }
+        }
+    }
+
+    /**
+     * Waits until there are clips to play. If the line is idle for longer than the given timeout,
+     * it is closed and the wait continues until there is something to play.
+     *
+     * @param timeout The time to wait before closing the open line, in ms, or 0 if there is no
+     *                open line.
+     *
+     * @return True if there are clips to play, false if the line should be closed or the mixer
+     * has been stopped.
+     *
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    private synchronized boolean awaitVoices(final long timeout) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + timeout;
+        while (voices.isEmpty() && !stopped) {
+            final long remaining = deadline - System.currentTimeMillis();
+            if (timeout > 0 && remaining <= 0) {
+                return false;
+            }
+            wait(timeout > 0 ? remaining : 0);
+        }
+        return !stopped;
+    }
+
+    private synchronized boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * Opens a line to play mixed clips on. If no line is available, discards the playing clips.
+     *
+     * @return The opened line, or {@code null} if no line is available.
+     */
+    private SourceDataLine openLine() {
+        try {
+            final SourceDataLine line = AudioSystem.getSourceDataLine(PcmClip.FORMAT);
+            line.open(PcmClip.FORMAT, BUFFER_FRAMES * PcmClip.FORMAT.getFrameSize() * 4);
+            line.start();
+            return line;
+        } catch (LineUnavailableException | IllegalArgumentException | SecurityException ex) {
+            LOG.info(USER_ERROR, "Unable to open audio line: {}", ex.getMessage(), ex);
+            synchronized (this) {
+                voices.clear();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A clip that is being played.
+     */
+    private static class Voice {
+
+        /** The clip being played. */
+        private final PcmClip clip;
+        /** The index of the next sample to play. */
+        private int position;
+
+        Voice(final PcmClip clip) {
+            this.clip = clip;
+        }
+
+    }
+
+}
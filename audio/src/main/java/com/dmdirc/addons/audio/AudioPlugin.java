@@ -27,6 +27,9 @@ import dagger.ObjectGraph;
  */
 public class AudioPlugin extends BaseCommandPlugin {
 
+    /** The engine used to play files. */
+    private AudioEngine engine;
+
     @Override
     public void load(final PluginInfo pluginInfo, final ObjectGraph graph) {
         super.load(pluginInfo, graph);
@@ -34,6 +37,13 @@ public class AudioPlugin extends BaseCommandPlugin {
         setObjectGraph(graph.plus(new AudioPluginModule()));
         registerCommand(AudioCommand.class, AudioCommand.INFO);
         registerCommand(BeepCommand.class, BeepCommand.INFO);
+        engine = getObjectGraph().get(AudioEngine.class);
+    }
+
+    @Override
+    public void onUnload() {
+        engine.shutdown();
+        super.onUnload();
     }
 
 }
@@ -29,7 +29,8 @@ import dagger.Provides;
 /**
  * Dependency injection module for the audio plugin.
  */
-@Module(injects = {AudioCommand.class, BeepCommand.class}, addsTo = ClientModule.class)
+@Module(injects = {AudioCommand.class, BeepCommand.class, AudioEngine.class},
+        addsTo = ClientModule.class)
 public class AudioPluginModule {
 
     @Provides
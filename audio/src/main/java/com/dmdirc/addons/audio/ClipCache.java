@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.audio;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Cache of decoded sound files, evicting the least recently used clips once they take up more
+ * than a fixed amount of memory. Clips are reloaded if the file is modified. Files that would
+ * decode to more than the whole cache's budget are rejected rather than decoded.
+ */
+@Singleton
+public class ClipCache {
+
+    /** The maximum approximate size of all cached clips, in bytes. */
+    private static final long MAXIMUM_WEIGHT = 16L * 1024 * 1024;
+    /** The maximum approximate size of all cached clips, in bytes. */
+    private final long maximumWeight;
+    /** Cache of decoded clips. */
+    private final Cache<Key, PcmClip> cache;
+
+    @Inject
+    public ClipCache() {
+        this(MAXIMUM_WEIGHT);
+    }
+
+    @VisibleForTesting
+    ClipCache(final long maximumWeight) {
+        this.maximumWeight = maximumWeight;
+        cache = CacheBuilder.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher((Key key, PcmClip clip) -> clip.getSize())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Gets the decoded contents of the given file, decoding it if it isn't already cached.
+     *
+     * @param file The file to decode.
+     *
+     * @return The decoded clip.
+     *
+     * @throws IOException If the file could not be read, is not a supported audio file, or is too
+     * large to cache.
+     */
+    public PcmClip get(final File file) throws IOException {
+        try {
+            return cache.get(new Key(file), () -> decode(file));
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    /**
+     * Checks whether the given file looks like a supported audio file that is small enough to
+     * cache. Only the file's header is read.
+     *
+     * @param file The file to check.
+     *
+     * @throws IOException If the file could not be read, is not a supported audio file, or is too
+     * large to cache.
+     */
+    public void check(final File file) throws IOException {
+        final AudioFileFormat format;
+        try {
+            format = AudioSystem.getAudioFileFormat(file);
+        } catch (UnsupportedAudioFileException ex) {
+            throw new IOException("Unsupported audio file: " + file, ex);
+        }
+        if (!PcmClip.isSupported(format.getFormat())) {
+            throw new IOException("Unable to convert " + format.getFormat() + " to PCM");
+        }
+        if (PcmClip.getSize(format.getFormat(), format.getFrameLength()) > maximumWeight) {
+            throw new IOException("Audio file is too large: " + file);
+        }
+    }
+
+    /**
+     * Retrieves statistics about the cache's performance.
+     *
+     * @return The cache's statistics.
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Removes all clips from the cache.
+     */
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    private PcmClip decode(final File file) throws IOException {
+        try (AudioInputStream stream = AudioSystem.getAudioInputStream(file)) {
+            return PcmClip.decode(stream, maximumWeight);
+        } catch (UnsupportedAudioFileException ex) {
+            throw new IOException("Unsupported audio file: " + file, ex);
+        }
+    }
+
+    /**
+     * Identifies a particular version of a file.
+     */
+    private static class Key {
+
+        private final String path;
+        private final long modified;
+        private final long length;
+
+        Key(final File file) {
+            this.path = file.getAbsolutePath();
+            this.modified = file.lastModified();
+            this.length = file.length();
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return modified == other.modified && length == other.length
+                    && path.equals(other.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, modified, length);
+        }
+
+    }
+
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.audio;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+/**
+ * A sound that has been fully decoded into PCM samples in the {@link #FORMAT mixer's format}.
+ */
+public class PcmClip {
+
+    /** The sample rate all clips are converted to. */
+    public static final float SAMPLE_RATE = 44100f;
+    /** The number of channels all clips are converted to. */
+    public static final int CHANNELS = 2;
+    /** The format of the samples in a clip. */
+    public static final AudioFormat FORMAT = new AudioFormat(SAMPLE_RATE, 16, CHANNELS, true,
+            false);
+    /** Interleaved samples, in {@link #FORMAT}. */
+    private final short[] samples;
+
+    /**
+     * Creates a new clip with the given samples.
+     *
+     * @param samples Interleaved samples, in {@link #FORMAT}.
+     */
+    public PcmClip(final short[] samples) {
+        this.samples = samples;
+    }
+
+    /**
+     * Decodes all of the given stream into a new clip.
+     *
+     * @param stream The stream to decode.
+     *
+     * @return A new clip containing the decoded stream.
+     *
+     * @throws IOException If the stream could not be read, or could not be converted to PCM.
+     */
+    public static PcmClip decode(final AudioInputStream stream) throws IOException {
+        return decode(stream, Long.MAX_VALUE);
+    }
+
+    /**
+     * Decodes all of the given stream into a new clip, giving up if the clip would be larger than
+     * the given size.
+     *
+     * @param stream  The stream to decode.
+     * @param maxSize The maximum {@link #getSize() size} of the decoded clip, in bytes.
+     *
+     * @return A new clip containing the decoded stream.
+     *
+     * @throws IOException If the stream could not be read, could not be converted to PCM, or
+     * would decode to a clip larger than the maximum size.
+     */
+    public static PcmClip decode(final AudioInputStream stream, final long maxSize)
+            throws IOException {
+        final AudioFormat source = stream.getFormat();
+        final AudioFormat pcm = getPcmFormat(source);
+        final AudioInputStream converted;
+        try {
+            converted = AudioSystem.getAudioInputStream(pcm, stream);
+        } catch (IllegalArgumentException ex) {
+            throw new IOException("Unable to convert " + source + " to PCM", ex);
+        }
+
+        if (getSize(source, stream.getFrameLength()) > maxSize) {
+            throw new IOException("Clip is too large to decode");
+        }
+        final double maxFrames = Math.ceil(
+                (double) maxSize / FORMAT.getFrameSize() * source.getSampleRate() / SAMPLE_RATE);
+        final byte[] bytes = readFully(converted,
+                (long) Math.min(Long.MAX_VALUE, maxFrames * pcm.getFrameSize()));
+        final short[] samples = new short[bytes.length / 2];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) ((bytes[i * 2] & 0xff) | (bytes[i * 2 + 1] << 8));
+        }
+        final PcmClip clip = new PcmClip(convert(samples, source.getChannels(),
+                source.getSampleRate()));
+        if (clip.getSize() > maxSize) {
+            throw new IOException("Clip is too large to decode");
+        }
+        return clip;
+    }
+
+    /**
+     * Converts interleaved 16-bit samples to {@link #CHANNELS} channels at {@link #SAMPLE_RATE},
+     * resampling with linear interpolation if needed.
+     *
+     * @param samples  The interleaved samples to convert.
+     * @param channels The number of channels in the samples.
+     * @param rate     The sample rate of the samples.
+     *
+     * @return The converted samples.
+     */
+    @VisibleForTesting
+    static short[] convert(final short[] samples, final int channels, final float rate) {
+        final int inFrames = samples.length / channels;
+        final double step = rate / SAMPLE_RATE;
+        final int outFrames = (int) Math.round(inFrames / step);
+        final short[] out = new short[outFrames * CHANNELS];
+        for (int frame = 0; frame < outFrames; frame++) {
+            final double position = frame * step;
+            final int index = Math.min((int) position, inFrames - 1);
+            final int next = Math.min(index + 1, inFrames - 1);
+            final double fraction = position - index;
+            for (int channel = 0; channel < CHANNELS; channel++) {
+                // Mono sources are copied to both channels, extra channels are dropped.
+                final int sourceChannel = Math.min(channel, channels - 1);
+                final int a = samples[index * channels + sourceChannel];
+                final int b = samples[next * channels + sourceChannel];
+                out[frame * CHANNELS + channel] = (short) Math.round(a + (b - a) * fraction);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Checks whether audio in the given format can be decoded into a clip.
+     *
+     * @param format The format of the audio.
+     *
+     * @return True if the audio can be decoded, false otherwise.
+     */
+    public static boolean isSupported(final AudioFormat format) {
+        return format.getChannels() > 0 && format.getSampleRate() > 0
+                && AudioSystem.isConversionSupported(getPcmFormat(format), format);
+    }
+
+    /**
+     * Estimates the {@link #getSize() size} of the clip that audio in the given format would
+     * decode to.
+     *
+     * @param format The format of the audio.
+     * @param frames The number of frames of audio, or {@link AudioSystem#NOT_SPECIFIED} if not
+     *               known.
+     *
+     * @return The approximate size of the decoded clip in bytes, or 0 if it isn't known.
+     */
+    public static long getSize(final AudioFormat format, final long frames) {
+        if (frames == AudioSystem.NOT_SPECIFIED || frames <= 0 || format.getSampleRate() <= 0) {
+            return 0;
+        }
+        return Math.round(frames * (SAMPLE_RATE / format.getSampleRate()))
+                * FORMAT.getFrameSize();
+    }
+
+    /**
+     * Gets the interleaved samples in this clip. The returned array must not be modified.
+     *
+     * @return The samples in this clip.
+     */
+    public short[] getSamples() {
+        return samples;
+    }
+
+    /**
+     * Gets the number of frames in this clip.
+     *
+     * @return The number of frames in this clip.
+     */
+    public int getFrames() {
+        return samples.length / CHANNELS;
+    }
+
+    /**
+     * Gets the approximate number of bytes of memory used by this clip.
+     *
+     * @return The size of this clip, in bytes.
+     */
+    public int getSize() {
+        return samples.length * 2;
+    }
+
+    private static AudioFormat getPcmFormat(final AudioFormat source) {
+        return new AudioFormat(source.getSampleRate(), 16, source.getChannels(), true, false);
+    }
+
+    private static byte[] readFully(final InputStream stream, final long limit)
+            throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[8192];
+        int read;
+        while ((read = stream.read(buffer)) != -1) {
+            if (out.size() + (long) read > limit) {
+                throw new IOException("Clip is too large to decode");
+            }
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+}
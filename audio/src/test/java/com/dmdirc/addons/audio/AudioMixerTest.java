@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.audio;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AudioMixerTest {
+
+    private long time;
+    private AudioMixer mixer;
+
+    @Before
+    public void setUp() {
+        time = 1000;
+        mixer = new AudioMixer(() -> time, 2, 40);
+    }
+
+    @Test
+    public void testMixesClipsTogether() {
+        mixer.enqueue("a", new PcmClip(new short[]{1, 2, 3, 4}));
+        mixer.enqueue("b", new PcmClip(new short[]{10, 20}));
+        final short[] buffer = new short[8];
+        assertEquals(2, mixer.mix(buffer));
+        assertArrayEquals(new short[]{11, 22, 3, 4, 0, 0, 0, 0}, buffer);
+        assertEquals(0, mixer.mix(buffer));
+    }
+
+    @Test
+    public void testContinuesLongClipsOverSeveralBuffers() {
+        mixer.enqueue("a", new PcmClip(new short[]{1, 2, 3, 4, 5, 6}));
+        final short[] buffer = new short[4];
+        assertEquals(2, mixer.mix(buffer));
+        assertArrayEquals(new short[]{1, 2, 3, 4}, buffer);
+        assertEquals(1, mixer.mix(buffer));
+        assertEquals(5, buffer[0]);
+        assertEquals(6, buffer[1]);
+        assertEquals(0, mixer.mix(buffer));
+    }
+
+    @Test
+    public void testClearsSumsBetweenBuffers() {
+        mixer.enqueue("a", new PcmClip(new short[]{1, 2, 3, 4, 5, 6}));
+        mixer.enqueue("b", new PcmClip(new short[]{10, 20}));
+        final short[] buffer = new short[4];
+        assertEquals(2, mixer.mix(buffer));
+        assertArrayEquals(new short[]{11, 22, 3, 4}, buffer);
+        assertEquals(1, mixer.mix(buffer));
+        assertEquals(5, buffer[0]);
+        assertEquals(6, buffer[1]);
+    }
+
+    @Test
+    public void testClampsMixedSamples() {
+        mixer.enqueue("a", new PcmClip(new short[]{30000, -30000}));
+        mixer.enqueue("b", new PcmClip(new short[]{30000, -30000}));
+        final short[] buffer = new short[2];
+        mixer.mix(buffer);
+        assertArrayEquals(new short[]{Short.MAX_VALUE, Short.MIN_VALUE}, buffer);
+    }
+
+    @Test
+    public void testDebouncesRepeatedSounds() {
+        assertTrue(mixer.enqueue("a", new PcmClip(new short[]{1, 1})));
+        time += 10;
+        assertFalse(mixer.enqueue("a", new PcmClip(new short[]{1, 1})));
+        assertTrue(mixer.enqueue("b", new PcmClip(new short[]{1, 1})));
+        time += 40;
+        assertTrue(mixer.enqueue("a", new PcmClip(new short[]{1, 1})));
+        assertEquals(1, mixer.getDebounced());
+    }
+
+    @Test
+    public void testDropsOldestClipOverPolyphonyLimit() {
+        mixer.enqueue("a", new PcmClip(new short[]{1, 1}));
+        mixer.enqueue("b", new PcmClip(new short[]{10, 10}));
+        mixer.enqueue("c", new PcmClip(new short[]{100, 100}));
+        final short[] buffer = new short[2];
+        mixer.mix(buffer);
+        assertArrayEquals(new short[]{110, 110}, buffer);
+        assertEquals(1, mixer.getDropped());
+        assertEquals(3, mixer.getStarted());
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.dmdirc.addons.audio;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ClipCacheTest {
+
+    @Rule public final TemporaryFolder folder = new TemporaryFolder();
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        // 100 frames of 8-bit mono, which decodes to 400 bytes.
+        final AudioFormat format = new AudioFormat(PcmClip.SAMPLE_RATE, 8, 1, true, false);
+        final byte[] data = new byte[100];
+        file = folder.newFile("sound.wav");
+        AudioSystem.write(new AudioInputStream(new ByteArrayInputStream(data), format, data.length),
+                AudioFileFormat.Type.WAVE, file);
+    }
+
+    @Test
+    public void testChecksWithoutDecoding() throws IOException {
+        final ClipCache cache = new ClipCache(1024);
+        cache.check(file);
+        assertEquals(0, cache.getStats().requestCount());
+    }
+
+    @Test(expected = IOException.class)
+    public void testCheckRejectsUnsupportedFile() throws IOException {
+        final File text = folder.newFile("sound.txt");
+        Files.write(text.toPath(), "Not a sound".getBytes("UTF-8"));
+        new ClipCache(1024).check(text);
+    }
+
+    @Test(expected = IOException.class)
+    public void testCheckRejectsFileLargerThanCache() throws IOException {
+        new ClipCache(399).check(file);
+    }
+
+    @Test
+    public void testDecodesAndCachesFile() throws IOException {
+        final ClipCache cache = new ClipCache(1024 * 1024);
+        final PcmClip clip = cache.get(file);
+        assertEquals(100, clip.getFrames());
+        assertSame(clip, cache.get(file));
+        assertEquals(1, cache.getStats().missCount());
+    }
+
+    @Test(expected = IOException.class)
+    public void testGetRejectsFileLargerThanCache() throws IOException {
+        new ClipCache(399).get(file);
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.audio;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PcmClipTest {
+
+    @Test
+    public void testConvertsMonoToStereo() {
+        assertArrayEquals(new short[]{1, 1, 2, 2},
+                PcmClip.convert(new short[]{1, 2}, 1, PcmClip.SAMPLE_RATE));
+    }
+
+    @Test
+    public void testDropsExtraChannels() {
+        assertArrayEquals(new short[]{1, 2, 4, 5},
+                PcmClip.convert(new short[]{1, 2, 3, 4, 5, 6}, 3, PcmClip.SAMPLE_RATE));
+    }
+
+    @Test
+    public void testResamplesLinearly() {
+        assertArrayEquals(new short[]{0, 0, 5, 5, 10, 10, 10, 10},
+                PcmClip.convert(new short[]{0, 10}, 1, PcmClip.SAMPLE_RATE / 2));
+    }
+
+    @Test
+    public void testDecodesEightBitMono() throws Exception {
+        final AudioFormat format = new AudioFormat(PcmClip.SAMPLE_RATE, 8, 1, true, false);
+        final byte[] data = {0, 1, -1};
+        final PcmClip clip = PcmClip.decode(new AudioInputStream(new ByteArrayInputStream(data),
+                format, data.length));
+        assertEquals(3, clip.getFrames());
+        final short[] samples = clip.getSamples();
+        assertEquals(256, samples[2], 8);
+        assertEquals(samples[2], samples[3]);
+        assertEquals(-256, samples[4], 8);
+        assertEquals(samples[4], samples[5]);
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsClipLargerThanLimit() throws Exception {
+        final AudioFormat format = new AudioFormat(PcmClip.SAMPLE_RATE, 16, 2, true, false);
+        final byte[] data = new byte[400];
+        PcmClip.decode(new AudioInputStream(new ByteArrayInputStream(data), format, 100), 399);
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsClipOfUnknownLengthLargerThanLimit() throws Exception {
+        final AudioFormat format = new AudioFormat(PcmClip.SAMPLE_RATE, 16, 2, true, false);
+        final byte[] data = new byte[400];
+        PcmClip.decode(new AudioInputStream(new ByteArrayInputStream(data), format,
+                AudioSystem.NOT_SPECIFIED), 399);
+    }
+
+    @Test
+    public void testDecodesClipAtLimit() throws Exception {
+        final AudioFormat format = new AudioFormat(PcmClip.SAMPLE_RATE, 16, 2, true, false);
+        final byte[] data = new byte[400];
+        assertEquals(100, PcmClip.decode(new AudioInputStream(new ByteArrayInputStream(data),
+                format, AudioSystem.NOT_SPECIFIED), 400).getFrames());
+    }
+
+    @Test
+    public void testEstimatesDecodedSize() {
+        final AudioFormat format = new AudioFormat(PcmClip.SAMPLE_RATE / 2, 8, 1, true, false);
+        assertEquals(800, PcmClip.getSize(format, 100));
+        assertEquals(0, PcmClip.getSize(format, AudioSystem.NOT_SPECIFIED));
+    }
+
+    @Test
+    public void testIsSupported() {
+        assertTrue(PcmClip.isSupported(new AudioFormat(22050f, 8, 1, false, false)));
+        assertFalse(PcmClip.isSupported(new AudioFormat(22050f, 8, 0, false, false)));
+    }
+
+}
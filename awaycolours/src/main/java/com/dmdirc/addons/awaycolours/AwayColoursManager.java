@@ -29,7 +29,10 @@ import com.dmdirc.plugins.PluginDomain;
 import com.dmdirc.ui.messages.ColourManager;
 import com.dmdirc.util.colours.Colour;
 
+import java.util.concurrent.ScheduledExecutorService;
+
 import javax.inject.Inject;
+import javax.inject.Named;
 
 import net.engio.mbassy.listener.Handler;
 
@@ -41,15 +44,20 @@ public class AwayColoursManager {
     private final EventBus eventBus;
     private final ConfigBinder binder;
     private final ColourManager colourManager;
+    private final ScheduledExecutorService executorService;
+    private final ChannelRefreshCoalescer refresher;
     private Colour colour = Colour.BLACK;
 
     @Inject
     public AwayColoursManager(final EventBus eventBus,
             @GlobalConfig final AggregateConfigProvider config,
             @PluginDomain(AwayColoursPlugin.class) final String domain,
-            @GlobalConfig final ColourManager colourManager) {
+            @GlobalConfig final ColourManager colourManager,
+            @Named("awaycolours") final ScheduledExecutorService executorService) {
         this.eventBus = eventBus;
         this.colourManager = colourManager;
+        this.executorService = executorService;
+        refresher = new ChannelRefreshCoalescer(executorService);
         binder = config.getBinder().withDefaultDomain(domain);
     }
 
@@ -61,6 +69,8 @@ public class AwayColoursManager {
     public void unload() {
         eventBus.unsubscribe(this);
         binder.unbind(this);
+        refresher.stop();
+        executorService.shutdown();
     }
 
     @ConfigBinding(key = "colour")
@@ -71,12 +81,12 @@ public class AwayColoursManager {
     @Handler
     public void handleAwayEvent(final ChannelUserAwayEvent event) {
         event.getUser().setDisplayProperty(DisplayProperty.FOREGROUND_COLOUR, colour);
-        event.getChannel().refreshClients();
+        refresher.markDirty(event.getChannel());
     }
 
     @Handler
     public void handleBackEvent(final ChannelUserBackEvent event) {
         event.getUser().removeDisplayProperty(DisplayProperty.FOREGROUND_COLOUR);
-        event.getChannel().refreshClients();
+        refresher.markDirty(event.getChannel());
     }
 }
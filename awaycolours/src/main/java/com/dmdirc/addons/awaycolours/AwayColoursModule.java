@@ -19,6 +19,11 @@ package com.dmdirc.addons.awaycolours;
 
 import com.dmdirc.ClientModule;
 import com.dmdirc.plugins.PluginDomain;
+import com.dmdirc.util.LoggingScheduledExecutorService;
+
+import java.util.concurrent.ScheduledExecutorService;
+
+import javax.inject.Named;
 
 import dagger.Module;
 import dagger.Provides;
@@ -40,4 +45,10 @@ public class AwayColoursModule {
     public String getSettingsDomain() {
         return domain;
     }
+
+    @Provides
+    @Named("awaycolours")
+    public ScheduledExecutorService getExecutorService() {
+        return new LoggingScheduledExecutorService(1, "awaycolours");
+    }
 }
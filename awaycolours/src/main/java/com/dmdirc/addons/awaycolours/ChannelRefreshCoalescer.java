@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.awaycolours;
+
+import com.dmdirc.interfaces.GroupChat;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects channels whose nicklists need refreshing, and refreshes each of them once per tick.
+ *
+ * <p>A WHO sweep of a large channel can produce hundreds of away changes in a burst; rather than
+ * refreshing the whole nicklist for each one, the channel is marked dirty and refreshed once when
+ * the tick expires.
+ */
+public class ChannelRefreshCoalescer {
+
+    /** The time to wait before refreshing dirty channels, in milliseconds. */
+    static final long TICK = 100;
+    /** Executor to schedule refreshes on. */
+    private final ScheduledExecutorService executorService;
+    /** Channels waiting to be refreshed. */
+    private final Set<GroupChat> dirty = new LinkedHashSet<>();
+    /** The scheduled refresh, if any. */
+    private ScheduledFuture<?> future;
+
+    public ChannelRefreshCoalescer(final ScheduledExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    /**
+     * Marks the given channel as needing a refresh, scheduling one if there isn't already one
+     * pending.
+     *
+     * @param channel The channel to refresh.
+     */
+    public synchronized void markDirty(final GroupChat channel) {
+        dirty.add(channel);
+        if (future == null) {
+            future = executorService.schedule(this::flush, TICK, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Refreshes all dirty channels immediately.
+     */
+    public void flush() {
+        final List<GroupChat> channels;
+        synchronized (this) {
+            channels = new ArrayList<>(dirty);
+            dirty.clear();
+            future = null;
+        }
+        channels.forEach(GroupChat::refreshClients);
+    }
+
+    /**
+     * Cancels any scheduled refresh, and refreshes all dirty channels immediately.
+     */
+    public void stop() {
+        synchronized (this) {
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+        flush();
+    }
+
+}
@@ -28,13 +28,23 @@ import com.dmdirc.config.provider.AggregateConfigProvider;
 import com.dmdirc.ui.messages.ColourManager;
 import com.dmdirc.util.colours.Colour;
 
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -49,6 +59,8 @@ public class AwayColoursManagerTest {
     @Mock private GroupChatUser user;
     @Mock private Channel channel;
     @Mock private ColourManager colourManager;
+    @Mock private ScheduledExecutorService executorService;
+    @Mock private ScheduledFuture<?> future;
     private AwayColoursManager instance;
     private String red;
     private Colour redColour;
@@ -69,7 +81,10 @@ public class AwayColoursManagerTest {
         when(binder.withDefaultDomain(anyString())).thenReturn(binder);
         when(colourManager.getColourFromString(red, Colour.GRAY)).thenReturn(redColour);
         when(colourManager.getColourFromString(black, Colour.GRAY)).thenReturn(blackColour);
-        instance = new AwayColoursManager(eventBus, config, "test", colourManager);
+        doReturn(future).when(executorService).schedule(any(Runnable.class), anyLong(),
+                any(TimeUnit.class));
+        instance = new AwayColoursManager(eventBus, config, "test", colourManager,
+                executorService);
     }
 
     @Test
@@ -82,6 +97,7 @@ public class AwayColoursManagerTest {
     public void testUnload() throws Exception {
         instance.unload();
         verify(eventBus).unsubscribe(instance);
+        verify(executorService).shutdown();
     }
 
     @Test
@@ -106,4 +122,17 @@ public class AwayColoursManagerTest {
         instance.handleAwayEvent(awayEvent);
         verify(user).setDisplayProperty(DisplayProperty.FOREGROUND_COLOUR, redColour);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testRefreshIsCoalesced() throws Exception {
+        instance.handleAwayEvent(awayEvent);
+        instance.handleBackEvent(backEvent);
+        instance.handleAwayEvent(awayEvent);
+        verify(channel, never()).refreshClients();
+        verify(executorService, times(1)).schedule(any(Runnable.class), anyLong(),
+                eq(TimeUnit.MILLISECONDS));
+        instance.unload();
+        verify(future).cancel(false);
+        verify(channel, times(1)).refreshClients();
+    }
+}
@@ -34,14 +34,17 @@ import com.google.common.annotations.VisibleForTesting;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 import javax.inject.Inject;
+import javax.inject.Singleton;
 
 import net.engio.mbassy.listener.Handler;
 
 /**
  * Provides channel who support in DMDirc.
  */
+@Singleton
 public class ChannelWhoManager {
 
     private final String domain;
@@ -73,6 +76,10 @@ public class ChannelWhoManager {
         eventBus.unsubscribe(this);
     }
 
+    public Optional<ConnectionHandler> getConnectionHandler(final Connection connection) {
+        return Optional.ofNullable(connectionHandlers.get(connection));
+    }
+
     private void addConnectionHandler(final Connection connection) {
         connectionHandlers.computeIfAbsent(connection, connectionHandlerFactory::get);
     }
@@ -101,6 +108,14 @@ public class ChannelWhoManager {
                 new NumericalValidator(0, Integer.MAX_VALUE), domain, "whointerval",
                 "Who Interval", "The interval WHO requests will be sent to channels",
                 event.getModel().getConfigManager(), event.getModel().getIdentity()));
+        category.addSetting(new PreferencesSetting(PreferencesType.INTEGER,
+                new NumericalValidator(1, Integer.MAX_VALUE), domain, "whorate",
+                "Who Rate", "The maximum number of WHO requests to send per minute",
+                event.getModel().getConfigManager(), event.getModel().getIdentity()));
+        category.addSetting(new PreferencesSetting(PreferencesType.INTEGER,
+                new NumericalValidator(1, Integer.MAX_VALUE), domain, "whoburst",
+                "Who Burst", "The maximum number of WHO requests to send at once",
+                event.getModel().getConfigManager(), event.getModel().getIdentity()));
         event.getModel().getCategory("Plugins").addSubCategory(category);
     }
 
@@ -18,14 +18,14 @@
 package com.dmdirc.addons.channelwho;
 
 import com.dmdirc.plugins.PluginInfo;
-import com.dmdirc.plugins.implementations.BasePlugin;
+import com.dmdirc.plugins.implementations.BaseCommandPlugin;
 
 import dagger.ObjectGraph;
 
 /**
  * Base Plugin for to provide Channel WHO support.
  */
-public class ChannelWhoPlugin extends BasePlugin {
+public class ChannelWhoPlugin extends BaseCommandPlugin {
 
     private ChannelWhoManager manager;
 
@@ -35,15 +35,18 @@ public class ChannelWhoPlugin extends BasePlugin {
 
         setObjectGraph(graph.plus(new ChannelWhoModule(pluginInfo.getDomain())));
         manager = getObjectGraph().get(ChannelWhoManager.class);
+        registerCommand(WhoStatsCommand.class, WhoStatsCommand.INFO);
     }
 
     @Override
     public void onLoad() {
         manager.load();
+        super.onLoad();
     }
 
     @Override
     public void onUnload() {
         manager.unload();
+        super.onUnload();
     }
 }
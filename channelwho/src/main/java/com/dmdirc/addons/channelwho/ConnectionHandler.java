@@ -19,7 +19,10 @@ package com.dmdirc.addons.channelwho;
 
 import com.dmdirc.config.binding.ConfigBinder;
 import com.dmdirc.config.binding.ConfigBinding;
+import com.dmdirc.events.BaseChannelActionEvent;
+import com.dmdirc.events.BaseChannelMessageEvent;
 import com.dmdirc.events.ChannelUserAwayEvent;
+import com.dmdirc.events.ChannelUserBackEvent;
 import com.dmdirc.events.DisplayProperty;
 import com.dmdirc.events.ServerNumericEvent;
 import com.dmdirc.interfaces.Connection;
@@ -32,10 +35,12 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import net.engio.mbassy.listener.Handler;
 
@@ -51,7 +56,12 @@ public class ConnectionHandler {
     private final String domain;
     private final ScheduledExecutorService executorService;
     private final ConfigBinder configBinder;
+    private final WhoScheduler scheduler;
     private ScheduledFuture<?> future;
+    private ScheduledFuture<?> drainFuture;
+    private int interval;
+    private int rate = 20;
+    private int burst = 5;
 
     public ConnectionHandler(
             final AggregateConfigProvider config,
@@ -65,6 +75,7 @@ public class ConnectionHandler {
         this.executorService = executorService;
         configBinder = config.getBinder().withDefaultDomain(domain);
         users = HashMultimap.create();
+        scheduler = new WhoScheduler(System::currentTimeMillis, rate, burst);
     }
 
     public void load() {
@@ -79,20 +90,50 @@ public class ConnectionHandler {
         if (future != null) {
             future.cancel(false);
         }
+        cancelDrain();
+    }
+
+    public WhoScheduler getScheduler() {
+        return scheduler;
     }
 
     @VisibleForTesting
     void checkWho() {
-        connection.getGroupChatManager().getChannels().forEach(channel -> {
-            if (channel.getWindowModel().getConfigManager().getOptionBool(domain, "sendwho")) {
-                channel.requestUsersInfo();
+        final List<GroupChat> channels = connection.getGroupChatManager().getChannels().stream()
+                .filter(c -> c.getWindowModel().getConfigManager().getOptionBool(domain, "sendwho"))
+                .collect(Collectors.toList());
+        scheduler.planRound(channels, interval);
+        synchronized (this) {
+            if (drainFuture == null) {
+                drain();
             }
-        });
+        }
+    }
+
+    /**
+     * Sends the next WHO request if one is due, and schedules itself to run again while requests
+     * remain queued.
+     */
+    private synchronized void drain() {
+        drainFuture = null;
+        scheduler.poll().ifPresent(GroupChat::requestUsersInfo);
+        if (scheduler.hasPending()) {
+            drainFuture = executorService.schedule(this::drain, scheduler.getDelay(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void cancelDrain() {
+        if (drainFuture != null) {
+            drainFuture.cancel(false);
+            drainFuture = null;
+        }
     }
 
     @VisibleForTesting
     @ConfigBinding(key="whointerval")
     void handleWhoInterval(final int value) {
+        interval = value;
         if (future != null) {
             future.cancel(false);
         }
@@ -100,11 +141,52 @@ public class ConnectionHandler {
                 TimeUnit.MILLISECONDS);
     }
 
+    @VisibleForTesting
+    @ConfigBinding(key="whorate")
+    void handleWhoRate(final int value) {
+        rate = value;
+        scheduler.setLimits(rate, burst);
+    }
+
+    @VisibleForTesting
+    @ConfigBinding(key="whoburst")
+    void handleWhoBurst(final int value) {
+        burst = value;
+        scheduler.setLimits(rate, burst);
+    }
+
+    @VisibleForTesting
+    @Handler
+    void handleChannelMessage(final BaseChannelMessageEvent event) {
+        if (event.getChannel().getConnection().equals(Optional.of(connection))) {
+            scheduler.markActive(event.getChannel());
+        }
+    }
+
+    @VisibleForTesting
+    @Handler
+    void handleChannelAction(final BaseChannelActionEvent event) {
+        if (event.getChannel().getConnection().equals(Optional.of(connection))) {
+            scheduler.markActive(event.getChannel());
+        }
+    }
+
+    @VisibleForTesting
+    @Handler
+    void handleBackEvent(final ChannelUserBackEvent event) {
+        if (event.getChannel().getConnection().equals(Optional.of(connection))) {
+            scheduler.markChanged(event.getChannel());
+        }
+    }
+
     @VisibleForTesting
     @Handler
     void handleAwayEvent(final ChannelUserAwayEvent event) {
-        if (event.getChannel().getConnection().equals(Optional.of(connection))
-                && !event.getReason().isPresent()) {
+        if (!event.getChannel().getConnection().equals(Optional.of(connection))) {
+            return;
+        }
+        scheduler.markChanged(event.getChannel());
+        if (!event.getReason().isPresent()) {
             event.setDisplayProperty(DisplayProperty.DO_NOT_DISPLAY, true);
             final boolean notseen = !users.containsKey(event.getUser().getNickname());
             users.put(event.getUser().getNickname(), event.getUser());
@@ -118,7 +200,11 @@ public class ConnectionHandler {
     @VisibleForTesting
     @Handler
     void handleServerNumericEvent(final ServerNumericEvent event) {
-        if (event.getConnection().equals(connection) && event.getNumeric() == 301) {
+        if (event.getConnection().equals(connection) && event.getNumeric() == 352) {
+            scheduler.replyReceived();
+        } else if (event.getConnection().equals(connection) && event.getNumeric() == 315) {
+            scheduler.requestCompleted(event.getArgs()[3]);
+        } else if (event.getConnection().equals(connection) && event.getNumeric() == 301) {
             final String nickname = event.getArgs()[3];
             final String reason = event.getArgs()[4];
             users.removeAll(nickname).forEach(u -> eventBus.publishAsync(
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.channelwho;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A token bucket rate limiter. Tokens are added continuously at a fixed rate up to a maximum burst size, and each
+ * permitted action consumes one token.
+ */
+public class TokenBucket {
+
+    /** Supplier of the current time, in milliseconds. */
+    private final LongSupplier clock;
+    /** The maximum number of tokens that can be held. */
+    private double capacity;
+    /** The number of milliseconds it takes to gain a token. */
+    private double millisPerToken;
+    /** The number of tokens currently available. */
+    private double tokens;
+    /** The time tokens were last added. */
+    private long lastRefill;
+
+    /**
+     * Creates a new, full, token bucket.
+     *
+     * @param clock         Supplier of the current time, in milliseconds.
+     * @param ratePerMinute The number of tokens gained each minute.
+     * @param burst         The maximum number of tokens that can be held.
+     */
+    public TokenBucket(final LongSupplier clock, final int ratePerMinute, final int burst) {
+        this.clock = clock;
+        this.lastRefill = clock.getAsLong();
+        this.capacity = Math.max(1, burst);
+        this.millisPerToken = 60000.0 / Math.max(1, ratePerMinute);
+        this.tokens = capacity;
+    }
+
+    /**
+     * Changes the rate and burst size of this bucket. Tokens already held are kept, up to the new burst size.
+     *
+     * @param ratePerMinute The number of tokens gained each minute.
+     * @param burst         The maximum number of tokens that can be held.
+     */
+    public synchronized void setLimits(final int ratePerMinute, final int burst) {
+        refill();
+        capacity = Math.max(1, burst);
+        millisPerToken = 60000.0 / Math.max(1, ratePerMinute);
+        tokens = Math.min(tokens, capacity);
+    }
+
+    /**
+     * Attempts to take a token from the bucket.
+     *
+     * @return True if a token was available and has been consumed, false otherwise.
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens--;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Calculates how long it will be until a token is available.
+     *
+     * @return The number of milliseconds until {@link #tryAcquire()} will next succeed, or 0 if it would succeed now.
+     */
+    public synchronized long getDelay() {
+        refill();
+        return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) * millisPerToken);
+    }
+
+    private void refill() {
+        final long now = clock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) / millisPerToken);
+        lastRefill = now;
+    }
+
+}
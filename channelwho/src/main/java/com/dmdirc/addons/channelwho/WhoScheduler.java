@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.channelwho;
+
+import com.dmdirc.interfaces.GroupChat;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides which {@link GroupChat}s to send WHO requests to, and when.
+ *
+ * <p>Each interval a new round is planned: channels that weren't reached in the previous round are queued first, then
+ * recently active channels, and channels whose away states haven't changed for several rounds are skipped for an
+ * increasing number of rounds. Queued channels are then released
+ * one at a time, spaced evenly across the interval and subject to a token bucket rate limit.
+ */
+public class WhoScheduler {
+
+    /** The maximum number of consecutive rounds a quiet channel may be skipped for. */
+    private static final int MAX_SKIP = 8;
+    /** Supplier of the current time, in milliseconds. */
+    private final LongSupplier clock;
+    /** Rate limiter for outgoing WHO requests. */
+    private final TokenBucket bucket;
+    /** Channels waiting to be sent a WHO in the current round. */
+    private final Deque<GroupChat> queue = new ArrayDeque<>();
+    /** State for each known channel. */
+    private final Map<GroupChat, ChannelState> states = new HashMap<>();
+    /** The number of WHO requests sent. */
+    private final AtomicLong sent = new AtomicLong();
+    /** The number of WHO requests skipped because the channel was quiet. */
+    private final AtomicLong skipped = new AtomicLong();
+    /** The number of WHO reply lines received. */
+    private final AtomicLong replies = new AtomicLong();
+    /** The number of WHO requests that have been completed. */
+    private final AtomicLong completed = new AtomicLong();
+    /** The time to leave between requests in the current round, in milliseconds. */
+    private long spacing;
+
+    /**
+     * Creates a new scheduler.
+     *
+     * @param clock         Supplier of the current time, in milliseconds.
+     * @param ratePerMinute The maximum sustained number of WHO requests per minute.
+     * @param burst         The maximum number of WHO requests that may be sent in a burst.
+     */
+    public WhoScheduler(final LongSupplier clock, final int ratePerMinute, final int burst) {
+        this.clock = clock;
+        this.bucket = new TokenBucket(clock, ratePerMinute, burst);
+    }
+
+    /**
+     * Changes the rate limits applied to WHO requests.
+     *
+     * @param ratePerMinute The maximum sustained number of WHO requests per minute.
+     * @param burst         The maximum number of WHO requests that may be sent in a burst.
+     */
+    public void setLimits(final int ratePerMinute, final int burst) {
+        bucket.setLimits(ratePerMinute, burst);
+    }
+
+    /**
+     * Plans a new round of WHO requests. Channels left over from the previous round that still want requests are kept at
+     * the front of the queue, so every channel is eventually sent a request even if the rate limit doesn't allow all of
+     * them to be sent in one round.
+     *
+     * @param channels The channels that want to be sent WHO requests.
+     * @param interval The time the round should be spread over, in milliseconds.
+     */
+    public synchronized void planRound(final Collection<GroupChat> channels, final long interval) {
+        final Set<GroupChat> wanted = new HashSet<>(channels);
+        states.keySet().retainAll(wanted);
+
+        final Set<GroupChat> carried = new LinkedHashSet<>(queue);
+        carried.retainAll(wanted);
+
+        final List<GroupChat> round = new ArrayList<>(channels.size());
+        for (GroupChat channel : channels) {
+            if (carried.contains(channel)) {
+                continue;
+            }
+            final ChannelState state = states.computeIfAbsent(channel, c -> new ChannelState());
+            if (state.skipRemaining > 0 && !state.changed) {
+                state.skipRemaining--;
+                skipped.incrementAndGet();
+            } else {
+                round.add(channel);
+            }
+        }
+
+        // The sort is stable, so channels with no recorded activity keep their original order.
+        round.sort(Comparator.comparingLong((GroupChat c) -> states.get(c).lastActivity).reversed());
+        queue.clear();
+        queue.addAll(carried);
+        queue.addAll(round);
+        spacing = queue.isEmpty() ? 0 : interval / queue.size();
+    }
+
+    /**
+     * Takes the next channel to send a WHO request to, if one is due and the rate limit allows it.
+     *
+     * @return The channel to send a request to, or empty if nothing should be sent now.
+     */
+    public synchronized Optional<GroupChat> poll() {
+        if (queue.isEmpty() || !bucket.tryAcquire()) {
+            return Optional.empty();
+        }
+
+        final GroupChat channel = queue.poll();
+        final ChannelState state = states.get(channel);
+        state.awaitingReply = true;
+        state.changed = false;
+        sent.incrementAndGet();
+        return Optional.of(channel);
+    }
+
+    /**
+     * Determines whether any channels are still waiting to be sent a request this round.
+     *
+     * @return True if there are queued channels, false otherwise.
+     */
+    public synchronized boolean hasPending() {
+        return !queue.isEmpty();
+    }
+
+    /**
+     * Calculates how long to wait before the next call to {@link #poll()}.
+     *
+     * @return The delay before the next request should be sent, in milliseconds.
+     */
+    public synchronized long getDelay() {
+        return Math.max(spacing, bucket.getDelay());
+    }
+
+    /**
+     * Records that a channel has been used, so that it is prioritised in future rounds.
+     *
+     * @param channel The channel that saw activity.
+     */
+    public synchronized void markActive(final GroupChat channel) {
+        states.computeIfAbsent(channel, c -> new ChannelState()).lastActivity = clock.getAsLong();
+    }
+
+    /**
+     * Records that the away state of a user in a channel has changed.
+     *
+     * @param channel The channel containing the user.
+     */
+    public synchronized void markChanged(final GroupChat channel) {
+        final ChannelState state = states.get(channel);
+        if (state != null) {
+            state.changed = true;
+            state.quietRounds = 0;
+            state.skipRemaining = 0;
+        }
+    }
+
+    /**
+     * Records that a WHO reply line has been received.
+     */
+    public void replyReceived() {
+        replies.incrementAndGet();
+    }
+
+    /**
+     * Records that the reply to a WHO request has finished. If none of the channel's users changed away state, the
+     * channel will be skipped for an increasing number of future rounds.
+     *
+     * @param channelName The name of the channel the request was for.
+     */
+    public synchronized void requestCompleted(final String channelName) {
+        completed.incrementAndGet();
+        states.entrySet().stream()
+                .filter(e -> e.getValue().awaitingReply)
+                .filter(e -> channelName.equalsIgnoreCase(e.getKey().getName()))
+                .forEach(e -> {
+                    final ChannelState state = e.getValue();
+                    state.awaitingReply = false;
+                    if (state.changed) {
+                        state.quietRounds = 0;
+                    } else {
+                        state.quietRounds++;
+                        state.skipRemaining = Math.min(MAX_SKIP, (1 << Math.min(state.quietRounds, 4)) - 1);
+                    }
+                    state.changed = false;
+                });
+    }
+
+    public long getSent() {
+        return sent.get();
+    }
+
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    public long getReplies() {
+        return replies.get();
+    }
+
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    /** Scheduling state for a single channel. */
+    private static class ChannelState {
+        /** The time the channel last saw activity. */
+        private long lastActivity;
+        /** Whether a WHO has been sent that hasn't finished yet. */
+        private boolean awaitingReply;
+        /** Whether a user's away state has changed since the last WHO was sent. */
+        private boolean changed;
+        /** The number of consecutive WHOs that have found no changes. */
+        private int quietRounds;
+        /** The number of rounds to skip before sending another WHO. */
+        private int skipRemaining;
+    }
+
+}
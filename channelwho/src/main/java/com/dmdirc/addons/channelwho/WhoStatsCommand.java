@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.channelwho;
+
+import com.dmdirc.commandparser.BaseCommandInfo;
+import com.dmdirc.commandparser.CommandArguments;
+import com.dmdirc.commandparser.CommandInfo;
+import com.dmdirc.commandparser.CommandType;
+import com.dmdirc.commandparser.commands.BaseCommand;
+import com.dmdirc.commandparser.commands.context.CommandContext;
+import com.dmdirc.commandparser.commands.context.ServerCommandContext;
+import com.dmdirc.interfaces.CommandController;
+import com.dmdirc.interfaces.WindowModel;
+
+import java.util.Optional;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+
+/**
+ * Shows statistics about the WHO requests sent on a connection.
+ */
+public class WhoStatsCommand extends BaseCommand {
+
+    /** A command info object for this command. */
+    public static final CommandInfo INFO = new BaseCommandInfo("whostats",
+            "whostats - shows how many channel WHO requests have been sent on this server",
+            CommandType.TYPE_SERVER);
+    /** The manager to read statistics from. */
+    private final ChannelWhoManager manager;
+
+    @Inject
+    public WhoStatsCommand(final CommandController controller, final ChannelWhoManager manager) {
+        super(controller);
+        this.manager = manager;
+    }
+
+    @Override
+    public void execute(@Nonnull final WindowModel origin, final CommandArguments args,
+            final CommandContext context) {
+        final Optional<ConnectionHandler> handler = manager.getConnectionHandler(
+                ((ServerCommandContext) context).getConnection());
+        if (!handler.isPresent()) {
+            showError(origin, args.isSilent(), "Channel WHOs are not active on this server");
+            return;
+        }
+
+        final WhoScheduler scheduler = handler.get().getScheduler();
+        showOutput(origin, args.isSilent(), "WHO requests sent: " + scheduler.getSent()
+                + ", skipped (no changes): " + scheduler.getSkipped()
+                + ", completed: " + scheduler.getCompleted()
+                + ", reply lines handled: " + scheduler.getReplies());
+    }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.channelwho;
+
+import com.dmdirc.interfaces.GroupChat;
+
+import com.google.common.collect.Lists;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class WhoSchedulerTest {
+
+    @Mock private GroupChat channel1;
+    @Mock private GroupChat channel2;
+    @Mock private GroupChat channel3;
+    @Mock private GroupChat channel4;
+    @Mock private GroupChat channel5;
+    private long time;
+    private WhoScheduler instance;
+
+    @Before
+    public void setUp() throws Exception {
+        when(channel1.getName()).thenReturn("#one");
+        when(channel2.getName()).thenReturn("#two");
+        when(channel3.getName()).thenReturn("#three");
+        time = 100000;
+        instance = new WhoScheduler(() -> time, 60, 2);
+    }
+
+    @Test
+    public void testSpreadsRequestsAcrossInterval() {
+        instance.planRound(Lists.newArrayList(channel1, channel2), 60000);
+        assertEquals(Optional.of(channel1), instance.poll());
+        assertTrue(instance.hasPending());
+        assertEquals(30000, instance.getDelay());
+        assertEquals(Optional.of(channel2), instance.poll());
+        assertFalse(instance.hasPending());
+        assertEquals(2, instance.getSent());
+    }
+
+    @Test
+    public void testRateLimited() {
+        instance.planRound(Lists.newArrayList(channel1, channel2, channel3), 0);
+        assertEquals(Optional.of(channel1), instance.poll());
+        assertEquals(Optional.of(channel2), instance.poll());
+        assertEquals(Optional.empty(), instance.poll());
+        assertEquals(1000, instance.getDelay());
+        time += 1000;
+        assertEquals(Optional.of(channel3), instance.poll());
+    }
+
+    @Test
+    public void testActiveChannelsFirst() {
+        instance.markActive(channel3);
+        time += 10;
+        instance.markActive(channel2);
+        instance.planRound(Lists.newArrayList(channel1, channel2, channel3), 0);
+        assertEquals(Optional.of(channel2), instance.poll());
+        assertEquals(Optional.of(channel3), instance.poll());
+    }
+
+    @Test
+    public void testQuietChannelsSkipped() {
+        instance.planRound(Lists.newArrayList(channel1, channel2), 0);
+        instance.poll();
+        instance.poll();
+        instance.markChanged(channel2);
+        instance.requestCompleted("#one");
+        instance.requestCompleted("#two");
+
+        time += 60000;
+        instance.planRound(Lists.newArrayList(channel1, channel2), 0);
+        assertEquals(Optional.of(channel2), instance.poll());
+        assertFalse(instance.hasPending());
+        assertEquals(1, instance.getSkipped());
+    }
+
+    @Test
+    public void testChangedChannelNotSkipped() {
+        instance.planRound(Lists.newArrayList(channel1), 0);
+        instance.poll();
+        instance.requestCompleted("#one");
+        instance.markChanged(channel1);
+
+        instance.planRound(Lists.newArrayList(channel1), 0);
+        assertEquals(Optional.of(channel1), instance.poll());
+        assertEquals(0, instance.getSkipped());
+    }
+
+    @Test
+    public void testUnsentChannelsCarriedIntoNextRound() {
+        final List<GroupChat> channels = Lists.newArrayList(channel1, channel2, channel3, channel4, channel5);
+        instance = new WhoScheduler(() -> time, 2, 2);
+
+        final Set<GroupChat> sent = new HashSet<>();
+        for (int round = 0; round < 3; round++) {
+            instance.planRound(channels, 60000);
+            Optional<GroupChat> channel = instance.poll();
+            while (channel.isPresent()) {
+                sent.add(channel.get());
+                channel = instance.poll();
+            }
+            time += 60000;
+        }
+
+        assertEquals(new HashSet<>(channels), sent);
+        assertEquals(6, instance.getSent());
+    }
+
+    @Test
+    public void testNewRoundReplacesOldRound() {
+        instance.planRound(Lists.newArrayList(channel1, channel2), 0);
+        instance.planRound(Lists.newArrayList(channel3), 0);
+        assertEquals(Optional.of(channel3), instance.poll());
+        assertFalse(instance.hasPending());
+    }
+
+}
@@ -17,6 +17,7 @@
 
 package com.dmdirc.addons.contactlist;
 
+import com.dmdirc.addons.ui_swing.events.WindowEventRouter;
 import com.dmdirc.commandparser.BaseCommandInfo;
 import com.dmdirc.commandparser.CommandArguments;
 import com.dmdirc.commandparser.CommandInfo;
@@ -26,16 +27,22 @@ import com.dmdirc.commandparser.commands.IntelligentCommand;
 import com.dmdirc.commandparser.commands.context.ChannelCommandContext;
 import com.dmdirc.commandparser.commands.context.CommandContext;
 import com.dmdirc.interfaces.CommandController;
-import com.dmdirc.events.eventbus.EventBus;
 import com.dmdirc.interfaces.WindowModel;
 import com.dmdirc.ui.input.AdditionalTabTargets;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
+import javax.inject.Singleton;
 
 /**
  * Generates a contact list for the channel the command is used in.
  */
+@Singleton
 public class ContactListCommand extends BaseCommand implements IntelligentCommand {
 
     /** A command info object for this command. */
@@ -43,7 +50,12 @@ public class ContactListCommand extends BaseCommand implements IntelligentComman
             "contactlist - show a contact list for the current channel",
             CommandType.TYPE_CHANNEL);
 
-    private final EventBus eventBus;
+    private final WindowEventRouter router;
+    /** The routes this command added to the router. */
+    private final List<WindowEventRouter.RouteRegistration> routes;
+    /** Listeners created by this command, held weakly so closed windows can be collected. */
+    private final Set<ContactListListener> listeners =
+            Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
 
     /**
      * Creates a new instance of this command.
@@ -53,9 +65,10 @@ public class ContactListCommand extends BaseCommand implements IntelligentComman
     @Inject
     public ContactListCommand(
             final CommandController controller,
-            final EventBus eventBus) {
+            final WindowEventRouter router) {
         super(controller);
-        this.eventBus = eventBus;
+        this.router = router;
+        routes = ContactListListener.addRoutes(router);
     }
 
     @Override
@@ -64,11 +77,23 @@ public class ContactListCommand extends BaseCommand implements IntelligentComman
         final ChannelCommandContext chanContext = (ChannelCommandContext) context;
 
         final ContactListListener listener =
-                new ContactListListener(chanContext.getGroupChat(), eventBus);
+                new ContactListListener(chanContext.getGroupChat(), router);
         listener.addListeners();
+        listeners.add(listener);
         chanContext.getGroupChat().getUsers().forEach(listener::clientAdded);
     }
 
+    /**
+     * Removes the listeners created by this command, and the routes it added to the router.
+     */
+    public void onUnload() {
+        synchronized (listeners) {
+            listeners.forEach(ContactListListener::removeListeners);
+            listeners.clear();
+        }
+        routes.forEach(WindowEventRouter.RouteRegistration::remove);
+    }
+
     @Override
     public AdditionalTabTargets getSuggestions(final int arg,
             final IntelligentCommandContext context) {
@@ -17,92 +17,159 @@
 
 package com.dmdirc.addons.contactlist;
 
+import com.dmdirc.addons.ui_swing.events.WindowEventRouter;
 import com.dmdirc.events.ChannelUserAwayEvent;
 import com.dmdirc.events.ChannelUserBackEvent;
 import com.dmdirc.events.FrameClosingEvent;
 import com.dmdirc.events.NickListClientAddedEvent;
 import com.dmdirc.events.NickListClientsChangedEvent;
-import com.dmdirc.events.eventbus.EventBus;
 import com.dmdirc.interfaces.GroupChat;
 import com.dmdirc.interfaces.GroupChatUser;
 import com.dmdirc.interfaces.PrivateChat;
+import com.dmdirc.interfaces.WindowModel;
 
-import net.engio.mbassy.listener.Handler;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.swing.Timer;
 
 /**
  * Listens for contact list related events.
  */
 public class ContactListListener {
 
+    /** The time to collect changes for before updating icons, in milliseconds. */
+    private static final int TICK = 100;
     /** The group chat this listener is for. */
     private final GroupChat groupChat;
-    /** Event bus to register listeners with. */
-    private final EventBus eventBus;
+    /** Router to receive events for the group chat from. */
+    private final WindowEventRouter router;
+    /** The subscriptions added by {@link #addListeners()}. */
+    private final List<WindowEventRouter.Subscription> subscriptions = new ArrayList<>();
+    /** Users whose query icons need updating. */
+    private final Set<GroupChatUser> dirty = new LinkedHashSet<>();
+    /** Timer used to update icons once changes have been collected. */
+    private final Timer timer;
 
     /**
      * Creates a new ContactListListener for the specified group chat.
      *
      * @param groupChat The group chat to show a contact list for
+     * @param router    The router to receive events for the group chat from
      */
-    public ContactListListener(final GroupChat groupChat, final EventBus eventBus) {
+    public ContactListListener(final GroupChat groupChat, final WindowEventRouter router) {
         this.groupChat = groupChat;
-        this.eventBus = eventBus;
+        this.router = router;
+        timer = new Timer(TICK, e -> flush());
+        timer.setRepeats(false);
+    }
+
+    /**
+     * Adds the routes needed by contact list listeners to the given router.
+     *
+     * @param router The router to add routes to
+     *
+     * @return The added routes, which should be removed when they are no longer needed
+     */
+    public static List<WindowEventRouter.RouteRegistration> addRoutes(
+            final WindowEventRouter router) {
+        return Arrays.asList(
+                router.addRoute(NickListClientsChangedEvent.class,
+                        NickListClientsChangedEvent::getChannel),
+                router.addRoute(NickListClientAddedEvent.class,
+                        NickListClientAddedEvent::getChannel),
+                router.addRoute(ChannelUserAwayEvent.class, ChannelUserAwayEvent::getChannel),
+                router.addRoute(ChannelUserBackEvent.class, ChannelUserBackEvent::getChannel));
     }
 
     /**
      * Adds all necessary listeners for this contact list listener to function.
      */
     public void addListeners() {
-        eventBus.subscribe(this);
+        subscriptions.add(router.subscribe(NickListClientsChangedEvent.class, groupChat,
+                this::handleClientsUpdated));
+        subscriptions.add(router.subscribe(NickListClientAddedEvent.class, groupChat,
+                this::handleClientAdded));
+        subscriptions.add(router.subscribe(ChannelUserAwayEvent.class, groupChat,
+                this::handleUserAway));
+        subscriptions.add(router.subscribe(ChannelUserBackEvent.class, groupChat,
+                this::handleUserBack));
+        subscriptions.add(router.subscribe(FrameClosingEvent.class, groupChat.getWindowModel(),
+                this::windowClosing));
     }
 
     /**
      * Removes the listeners added by {@link #addListeners()}.
      */
     public void removeListeners() {
-        eventBus.unsubscribe(this);
+        subscriptions.forEach(WindowEventRouter.Subscription::unsubscribe);
+        subscriptions.clear();
+        timer.stop();
+        synchronized (dirty) {
+            dirty.clear();
+        }
     }
 
-    @Handler
-    public void handleClientsUpdated(final NickListClientsChangedEvent event) {
-        if (event.getChannel().equals(groupChat)) {
-            event.getUsers().forEach(this::clientAdded);
-        }
+    void handleClientsUpdated(final NickListClientsChangedEvent event) {
+        event.getUsers().forEach(this::clientAdded);
     }
 
-    @Handler
-    public void handleClientAdded(final NickListClientAddedEvent event) {
-        if (event.getChannel().equals(groupChat)) {
-            clientAdded(event.getUser());
-        }
+    void handleClientAdded(final NickListClientAddedEvent event) {
+        clientAdded(event.getUser());
     }
 
-    @Handler
-    public void handleUserAway(final ChannelUserAwayEvent event) {
-        if (event.getChannel().equals(groupChat)) {
-            clientAdded(event.getUser());
-        }
+    void handleUserAway(final ChannelUserAwayEvent event) {
+        clientAdded(event.getUser());
+    }
+
+    void handleUserBack(final ChannelUserBackEvent event) {
+        clientAdded(event.getUser());
+    }
+
+    void windowClosing(final FrameClosingEvent event) {
+        removeListeners();
     }
 
-    @Handler
-    public void handleUserBack(final ChannelUserBackEvent event) {
-        if (event.getChannel().equals(groupChat)) {
-            clientAdded(event.getUser());
+    /**
+     * Marks the given client's query icon as needing an update. Updates are collected for a short
+     * time and applied together, so a burst of away changes only updates each query once.
+     *
+     * @param client The client whose state has changed
+     */
+    void clientAdded(final GroupChatUser client) {
+        final boolean start;
+        synchronized (dirty) {
+            start = dirty.isEmpty();
+            dirty.add(client);
+        }
+        if (start) {
+            timer.restart();
         }
     }
 
-    @Handler
-    public void windowClosing(final FrameClosingEvent event) {
-        if (event.getSource().equals(groupChat.getWindowModel())) {
-            removeListeners();
+    /**
+     * Updates the query icons for all clients that have changed.
+     */
+    private void flush() {
+        final List<GroupChatUser> clients;
+        synchronized (dirty) {
+            clients = new ArrayList<>(dirty);
+            dirty.clear();
         }
+        clients.forEach(this::updateIcon);
     }
 
-    void clientAdded(final GroupChatUser client) {
+    private void updateIcon(final GroupChatUser client) {
         final PrivateChat query =
             groupChat.getConnection().get().getQuery(client.getNickname(), false);
-        query.getWindowModel()
-            .setIcon("query-" + client.getUser().getAwayState().name().toLowerCase());
+        final WindowModel window = query.getWindowModel();
+        final String icon = "query-" + client.getUser().getAwayState().name().toLowerCase();
+        if (!icon.equals(window.getIcon())) {
+            window.setIcon(icon);
+        }
     }
 
 }
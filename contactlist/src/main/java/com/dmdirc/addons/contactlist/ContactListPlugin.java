@@ -35,4 +35,10 @@ public class ContactListPlugin extends BaseCommandPlugin {
         registerCommand(ContactListCommand.class, ContactListCommand.INFO);
     }
 
+    @Override
+    public void onUnload() {
+        super.onUnload();
+        getObjectGraph().get(ContactListCommand.class).onUnload();
+    }
+
 }
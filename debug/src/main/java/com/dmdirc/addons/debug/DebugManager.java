@@ -17,6 +17,7 @@
 
 package com.dmdirc.addons.debug;
 
+import com.dmdirc.addons.debug.profiling.EventBusProfiler;
 import com.dmdirc.config.GlobalConfig;
 import com.dmdirc.config.provider.AggregateConfigProvider;
 import com.dmdirc.events.ServerConnectingEvent;
@@ -44,11 +45,15 @@ public class DebugManager {
 
     private final EventBus eventBus;
 
+    private final EventBusProfiler profiler;
+
     @Inject
     public DebugManager(@PluginDomain(DebugPlugin.class) final String domain,
             @GlobalConfig final AggregateConfigProvider globalConfig, final RawWindowFactory windowFactory,
-            final WindowManager windowManager, final EventBus eventBus) {
+            final WindowManager windowManager, final EventBus eventBus,
+            final EventBusProfiler profiler) {
         this.domain = domain;
+        this.profiler = profiler;
         this.windowManager = windowManager;
         this.eventBus = eventBus;
         this.config = globalConfig;
@@ -57,10 +62,14 @@ public class DebugManager {
 
     public void load() {
         eventBus.subscribe(this);
+        if (config.getOptionBool(domain, "profile")) {
+            profiler.start();
+        }
     }
 
     public void unload() {
         eventBus.unsubscribe(this);
+        profiler.shutdown();
     }
 
     @Handler
@@ -30,6 +30,7 @@ import com.dmdirc.addons.debug.commands.GlobalConfigInfo;
 import com.dmdirc.addons.debug.commands.Identities;
 import com.dmdirc.addons.debug.commands.MemInfo;
 import com.dmdirc.addons.debug.commands.Notify;
+import com.dmdirc.addons.debug.commands.Profile;
 import com.dmdirc.addons.debug.commands.RunGC;
 import com.dmdirc.addons.debug.commands.ServerInfo;
 import com.dmdirc.addons.debug.commands.Services;
@@ -39,8 +40,11 @@ import com.dmdirc.addons.debug.commands.Threads;
 import com.dmdirc.addons.debug.commands.Time;
 import com.dmdirc.plugins.PluginDomain;
 import com.dmdirc.plugins.PluginInfo;
+import com.dmdirc.util.LoggingScheduledExecutorService;
 import dagger.Module;
 import dagger.Provides;
+import java.util.concurrent.ScheduledExecutorService;
+import javax.inject.Named;
 
 /**
  * Dependency injection module for the debug plugin.
@@ -59,6 +63,12 @@ public class DebugModule {
         return pluginInfo.getDomain();
     }
 
+    @Provides
+    @Named("debug")
+    public ScheduledExecutorService getExecutorService() {
+        return new LoggingScheduledExecutorService(1, "debug");
+    }
+
     @Provides(type = Provides.Type.SET)
     public DebugCommand getCommand(final Benchmark command) {
         return command;
@@ -114,6 +124,11 @@ public class DebugModule {
         return command;
     }
 
+    @Provides(type = Provides.Type.SET)
+    public DebugCommand getCommand(final Profile command) {
+        return command;
+    }
+
     @Provides(type = Provides.Type.SET)
     public DebugCommand getCommand(final RunGC command) {
         return command;
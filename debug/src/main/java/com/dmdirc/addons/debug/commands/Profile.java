@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.debug.commands;
+
+import com.dmdirc.CustomWindow;
+import com.dmdirc.addons.debug.Debug;
+import com.dmdirc.addons.debug.DebugCommand;
+import com.dmdirc.addons.debug.profiling.EventBusProfiler;
+import com.dmdirc.addons.debug.profiling.EventTypeStats;
+import com.dmdirc.addons.debug.profiling.LatencyHistogram;
+import com.dmdirc.commandparser.CommandArguments;
+import com.dmdirc.commandparser.commands.IntelligentCommand;
+import com.dmdirc.commandparser.commands.context.CommandContext;
+import com.dmdirc.config.GlobalConfig;
+import com.dmdirc.config.provider.AggregateConfigProvider;
+import com.dmdirc.events.eventbus.EventBus;
+import com.dmdirc.interfaces.WindowModel;
+import com.dmdirc.ui.WindowManager;
+import com.dmdirc.ui.input.AdditionalTabTargets;
+import com.dmdirc.ui.messages.BackBufferFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+/**
+ * Controls the event bus profiler, and shows or exports the statistics it gathers.
+ */
+public class Profile extends DebugCommand implements IntelligentCommand {
+
+    /** The maximum number of event types to show at once. */
+    private static final int MAX_ROWS = 20;
+    /** The default time between samples in a watch window, in seconds. */
+    private static final int DEFAULT_INTERVAL = 5;
+    private final EventBusProfiler profiler;
+    private final AggregateConfigProvider globalConfig;
+    private final WindowManager windowManager;
+    private final EventBus globalEventBus;
+    private final BackBufferFactory backBufferFactory;
+
+    /**
+     * Creates a new instance of the command.
+     */
+    @Inject
+    public Profile(
+            final Provider<Debug> commandProvider,
+            final EventBusProfiler profiler,
+            @GlobalConfig final AggregateConfigProvider globalConfig,
+            final WindowManager windowManager,
+            final EventBus globalEventBus,
+            final BackBufferFactory backBufferFactory) {
+        super(commandProvider);
+        this.profiler = profiler;
+        this.globalConfig = globalConfig;
+        this.windowManager = windowManager;
+        this.globalEventBus = globalEventBus;
+        this.backBufferFactory = backBufferFactory;
+    }
+
+    @Override
+    public String getName() {
+        return "profile";
+    }
+
+    @Override
+    public String getUsage() {
+        return "<start|stop|reset|show|watch [seconds]|export <file>> - profiles the event bus";
+    }
+
+    @Override
+    public void execute(@Nonnull final WindowModel origin,
+            final CommandArguments args, final CommandContext context) {
+        final String[] arguments = args.getArguments();
+        final String action = arguments.length == 0 ? "" : arguments[0].toLowerCase(Locale.ROOT);
+        switch (action) {
+            case "start":
+                profiler.start();
+                showOutput(origin, args.isSilent(), "Event bus profiling started.");
+                break;
+            case "stop":
+                profiler.stop();
+                showOutput(origin, args.isSilent(), "Event bus profiling stopped.");
+                break;
+            case "reset":
+                profiler.reset();
+                showOutput(origin, args.isSilent(), "Event bus statistics reset.");
+                break;
+            case "show":
+                showStats(origin, args.isSilent());
+                break;
+            case "watch":
+                watch(arguments.length > 1 ? arguments[1] : null, origin, args.isSilent());
+                break;
+            case "export":
+                if (arguments.length > 1) {
+                    export(Paths.get(args.getArgumentsAsString(1)), origin, args.isSilent());
+                    break;
+                }
+                // Fall through to show usage.
+            default:
+                showUsage(origin, args.isSilent(), getName(), getUsage());
+                break;
+        }
+    }
+
+    private void showStats(final WindowModel target, final boolean isSilent) {
+        if (!profiler.isRunning()) {
+            showOutput(target, isSilent, "Event bus profiling is not running.");
+        }
+        showOutput(target, isSilent, formatStats(null));
+    }
+
+    private void watch(final String interval, final WindowModel origin, final boolean isSilent) {
+        final int seconds;
+        try {
+            seconds = interval == null ? DEFAULT_INTERVAL : Integer.parseInt(interval);
+        } catch (NumberFormatException ex) {
+            showError(origin, isSilent, "Invalid interval: " + interval);
+            return;
+        }
+        if (seconds < 1) {
+            showError(origin, isSilent, "Interval must be at least one second.");
+            return;
+        }
+
+        profiler.start();
+        final CustomWindow window = new CustomWindow("Event bus profile", "Event bus profile",
+                globalConfig, globalEventBus, backBufferFactory);
+        windowManager.addWindow(window);
+
+        final Map<String, Long> previous = new HashMap<>();
+        profiler.watch(window, () -> showOutput(window, false, formatStats(previous)), seconds);
+    }
+
+    private void export(final Path file, final WindowModel origin, final boolean isSilent) {
+        try {
+            profiler.export(file);
+            showOutput(origin, isSilent, "Event bus statistics written to " + file);
+        } catch (IOException ex) {
+            showError(origin, isSilent, "Unable to write statistics: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Formats the most frequently published event types into a table.
+     *
+     * @param previous The publish counts seen at the last sample, used to calculate rates, or
+     *                 {@code null} to show totals since the last reset. Updated with the current
+     *                 counts.
+     *
+     * @return A table of event statistics.
+     */
+    private String formatStats(final Map<String, Long> previous) {
+        final List<EventTypeStats> stats = profiler.getStats();
+        final int rows = Math.min(MAX_ROWS, stats.size());
+        final String[][] data = new String[rows][];
+        for (int i = 0; i < rows; i++) {
+            final EventTypeStats stat = stats.get(i);
+            final LatencyHistogram handler = stat.getHandlerTime();
+            final LatencyHistogram delay = stat.getQueueDelay();
+            final long published = stat.getPublished();
+            final String count;
+            if (previous == null) {
+                count = Long.toString(published);
+            } else {
+                final Long last = previous.put(stat.getName(), published);
+                count = "+" + (last == null ? published : published - last);
+            }
+            data[i] = new String[]{
+                stat.getName(),
+                count,
+                format(handler.getMean(TimeUnit.MICROSECONDS)),
+                format(handler.getPercentile(99, TimeUnit.MICROSECONDS)),
+                format(handler.getMax(TimeUnit.MICROSECONDS)),
+                format(delay.getPercentile(99, TimeUnit.MILLISECONDS)),
+            };
+        }
+        return doTable(new String[]{"Event", "Published", "Mean (us)", "p99 (us)", "Max (us)",
+            "Delay p99 (ms)"}, data);
+    }
+
+    private static String format(final double value) {
+        return String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    @Override
+    public AdditionalTabTargets getSuggestions(final int arg,
+            final IntelligentCommandContext context) {
+        final AdditionalTabTargets res = new AdditionalTabTargets();
+        res.excludeAll();
+        if (arg == 0) {
+            res.add("start");
+            res.add("stop");
+            res.add("reset");
+            res.add("show");
+            res.add("watch");
+            res.add("export");
+        }
+        return res;
+    }
+
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.debug.profiling;
+
+import com.dmdirc.events.FrameClosingEvent;
+import com.dmdirc.events.eventbus.BaseEvent;
+import com.dmdirc.events.eventbus.EventBus;
+import com.dmdirc.interfaces.WindowModel;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import net.engio.mbassy.listener.Handler;
+import net.engio.mbassy.listener.Listener;
+import net.engio.mbassy.listener.References;
+
+/**
+ * Profiles the global event bus, recording how often each type of event is published, how long its
+ * handlers take to run, and how long it waits before they start.
+ *
+ * <p>The profiler registers a handler that runs before all others and one that runs after all
+ * others, so the time between them is the time taken by every other handler. The queue delay is
+ * the time between the event being created and the first handler running. Statistics are kept in
+ * lock-free counters so the profiler can be left running.
+ */
+@Singleton
+@Listener(references = References.Strong)
+public class EventBusProfiler {
+
+    /** Queue delays longer than this are assumed to be events with historical timestamps. */
+    private static final long MAX_QUEUE_DELAY = TimeUnit.MINUTES.toNanos(1);
+    /** The bus to profile. */
+    private final EventBus eventBus;
+    /** Executor used to sample statistics. */
+    private final ScheduledExecutorService executorService;
+    /** Statistics for each type of event. */
+    private final ConcurrentMap<Class<?>, EventTypeStats> stats = new ConcurrentHashMap<>();
+    /** The times the events currently being handled on each thread started being handled. */
+    private final ThreadLocal<Map<BaseEvent, Long>> started =
+            ThreadLocal.withInitial(IdentityHashMap::new);
+    /** Tasks sampling the statistics. */
+    private final List<ScheduledFuture<?>> samplers = new ArrayList<>();
+    /** Sampling tasks that write to a window, keyed on that window. */
+    private final Map<WindowModel, ScheduledFuture<?>> watches = new HashMap<>();
+    /** Listener that cancels watches when their windows close. */
+    private final WatchCanceller watchCanceller = new WatchCanceller();
+    /** Whether the profiler is subscribed to the bus. */
+    private boolean running;
+    /** The time the statistics were last reset, in ms since the epoch. */
+    private volatile long resetTime = System.currentTimeMillis();
+
+    @Inject
+    public EventBusProfiler(final EventBus eventBus,
+            @Named("debug") final ScheduledExecutorService executorService) {
+        this.eventBus = eventBus;
+        this.executorService = executorService;
+    }
+
+    /**
+     * Starts profiling the bus, if the profiler isn't already running.
+     */
+    public synchronized void start() {
+        if (!running) {
+            running = true;
+            eventBus.subscribe(this);
+        }
+    }
+
+    /**
+     * Stops profiling the bus. Statistics gathered so far are kept.
+     */
+    public synchronized void stop() {
+        if (running) {
+            running = false;
+            eventBus.unsubscribe(this);
+        }
+    }
+
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops profiling and sampling. The profiler can't be used after it has been shut down.
+     */
+    public synchronized void shutdown() {
+        stop();
+        executorService.shutdownNow();
+        samplers.clear();
+        if (!watches.isEmpty()) {
+            watches.clear();
+            eventBus.unsubscribe(watchCanceller);
+        }
+    }
+
+    /**
+     * Discards all statistics gathered so far.
+     */
+    public void reset() {
+        stats.values().forEach(EventTypeStats::reset);
+        resetTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Gets the time the statistics were last reset.
+     *
+     * @return The reset time, in milliseconds since the epoch.
+     */
+    public long getResetTime() {
+        return resetTime;
+    }
+
+    /**
+     * Gets the statistics for all event types that have been published, most frequent first.
+     *
+     * @return Statistics for each event type.
+     */
+    public List<EventTypeStats> getStats() {
+        final List<EventTypeStats> result = new ArrayList<>(stats.values());
+        result.sort(Comparator.comparingLong(EventTypeStats::getPublished).reversed());
+        return result;
+    }
+
+    /**
+     * Runs the given task periodically until it is cancelled or the profiler is shut down.
+     *
+     * @param task    The task to run.
+     * @param seconds The time between runs, in seconds.
+     *
+     * @return A future that can be used to cancel the task.
+     */
+    public synchronized ScheduledFuture<?> sample(final Runnable task, final long seconds) {
+        samplers.removeIf(ScheduledFuture::isDone);
+        final ScheduledFuture<?> future = executorService.scheduleAtFixedRate(task, seconds,
+                seconds, TimeUnit.SECONDS);
+        samplers.add(future);
+        return future;
+    }
+
+    /**
+     * Runs the given task periodically until the given window is closed, the task is cancelled or
+     * the profiler is shut down.
+     *
+     * @param window  The window the task writes to.
+     * @param task    The task to run.
+     * @param seconds The time between runs, in seconds.
+     *
+     * @return A future that can be used to cancel the task.
+     */
+    public synchronized ScheduledFuture<?> watch(final WindowModel window, final Runnable task,
+            final long seconds) {
+        final ScheduledFuture<?> future = sample(task, seconds);
+        if (watches.isEmpty()) {
+            eventBus.subscribe(watchCanceller);
+        }
+        final ScheduledFuture<?> previous = watches.put(window, future);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+        return future;
+    }
+
+    /**
+     * Gets the number of windows that statistics are being sampled into.
+     *
+     * @return The number of watched windows.
+     */
+    public synchronized int getWatchCount() {
+        return watches.size();
+    }
+
+    private synchronized void cancelWatch(final WindowModel window) {
+        final ScheduledFuture<?> future = watches.remove(window);
+        if (future != null) {
+            future.cancel(false);
+            if (watches.isEmpty()) {
+                eventBus.unsubscribe(watchCanceller);
+            }
+        }
+    }
+
+    /**
+     * Writes the current statistics to a CSV file, with one row per event type.
+     *
+     * @param file The file to write to.
+     *
+     * @throws IOException If the file could not be written.
+     */
+    public void export(final Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("event,published,handler_mean_us,handler_p50_us,handler_p99_us,"
+                    + "handler_max_us,delay_count,delay_mean_ms,delay_p99_ms,delay_max_ms");
+            writer.newLine();
+            for (EventTypeStats stat : getStats()) {
+                final LatencyHistogram handler = stat.getHandlerTime();
+                final LatencyHistogram delay = stat.getQueueDelay();
+                writer.write(String.format(Locale.ROOT,
+                        "%s,%d,%.1f,%.1f,%.1f,%.1f,%d,%.2f,%.2f,%.2f",
+                        stat.getName(), stat.getPublished(),
+                        handler.getMean(TimeUnit.MICROSECONDS),
+                        handler.getPercentile(50, TimeUnit.MICROSECONDS),
+                        handler.getPercentile(99, TimeUnit.MICROSECONDS),
+                        handler.getMax(TimeUnit.MICROSECONDS),
+                        delay.getCount(),
+                        delay.getMean(TimeUnit.MILLISECONDS),
+                        delay.getPercentile(99, TimeUnit.MILLISECONDS),
+                        delay.getMax(TimeUnit.MILLISECONDS)));
+                writer.newLine();
+            }
+        }
+    }
+
+    @Handler(priority = Integer.MAX_VALUE)
+    public void handleEventStarted(final BaseEvent event) {
+        started.get().put(event, System.nanoTime());
+        final EventTypeStats stat = getStats(event.getClass());
+        stat.published();
+
+        final long delay = Duration.between(event.getTimestamp(), LocalDateTime.now()).toNanos();
+        if (delay >= 0 && delay < MAX_QUEUE_DELAY) {
+            stat.getQueueDelay().record(delay);
+        }
+    }
+
+    @Handler(priority = Integer.MIN_VALUE)
+    public void handleEventFinished(final BaseEvent event) {
+        final Long start = started.get().remove(event);
+        if (start != null) {
+            getStats(event.getClass()).getHandlerTime().record(System.nanoTime() - start);
+        }
+    }
+
+    @VisibleForTesting
+    EventTypeStats getStats(final Class<?> type) {
+        final EventTypeStats stat = stats.get(type);
+        return stat == null
+                ? stats.computeIfAbsent(type, t -> new EventTypeStats(t.getSimpleName()))
+                : stat;
+    }
+
+    /**
+     * Stops sampling statistics into windows when they are closed. A single listener is shared by
+     * all watches, and is only subscribed while there are some.
+     */
+    @Listener(references = References.Strong)
+    class WatchCanceller {
+
+        @Handler
+        public void handleFrameClosing(final FrameClosingEvent event) {
+            cancelWatch(event.getSource());
+        }
+
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.debug.profiling;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics gathered about a single type of event.
+ */
+public class EventTypeStats {
+
+    /** The name of the event type. */
+    private final String name;
+    /** The number of times the event was published. */
+    private final LongAdder published = new LongAdder();
+    /** Time taken to run all handlers for the event. */
+    private final LatencyHistogram handlerTime = new LatencyHistogram();
+    /** Time between the event being created and its handlers starting. */
+    private final LatencyHistogram queueDelay = new LatencyHistogram();
+
+    public EventTypeStats(final String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getPublished() {
+        return published.sum();
+    }
+
+    public LatencyHistogram getHandlerTime() {
+        return handlerTime;
+    }
+
+    public LatencyHistogram getQueueDelay() {
+        return queueDelay;
+    }
+
+    /**
+     * Records that an event of this type has been published.
+     */
+    void published() {
+        published.increment();
+    }
+
+    /**
+     * Discards all gathered statistics.
+     */
+    void reset() {
+        published.reset();
+        handlerTime.reset();
+        queueDelay.reset();
+    }
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.debug.profiling;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of durations.
+ *
+ * <p>Durations are recorded in nanoseconds into buckets whose width grows exponentially, with four
+ * buckets per power of two, so percentiles are accurate to within 25%. Durations over about a
+ * minute are all counted in the last bucket.
+ */
+public class LatencyHistogram {
+
+    /** The number of bits used to pick a bucket within each power of two. */
+    private static final int SUB_BITS = 2;
+    /** The number of buckets for each power of two. */
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    /** The largest power of two that is tracked separately. */
+    private static final int MAX_EXPONENT = 36;
+    /** The largest value that can be recorded; larger values are clamped to this. */
+    private static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+    /** The number of values recorded in each bucket. */
+    private final AtomicLongArray buckets = new AtomicLongArray(getBucket(MAX_VALUE) + 1);
+    /** The number of values recorded. */
+    private final LongAdder count = new LongAdder();
+    /** The sum of all values recorded. */
+    private final LongAdder total = new LongAdder();
+    /** The largest value recorded. */
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos The duration to record, in nanoseconds.
+     */
+    public void record(final long nanos) {
+        final long value = Math.max(0, Math.min(MAX_VALUE, nanos));
+        buckets.incrementAndGet(getBucket(value));
+        count.increment();
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the mean of all recorded durations.
+     *
+     * @param unit The unit to return the mean in.
+     *
+     * @return The mean duration, or 0 if nothing has been recorded.
+     */
+    public double getMean(final TimeUnit unit) {
+        final long recorded = count.sum();
+        return recorded == 0 ? 0 : (double) total.sum() / recorded / unit.toNanos(1);
+    }
+
+    /**
+     * Gets the largest recorded duration.
+     *
+     * @param unit The unit to return the duration in.
+     *
+     * @return The largest duration, or 0 if nothing has been recorded.
+     */
+    public double getMax(final TimeUnit unit) {
+        return (double) max.get() / unit.toNanos(1);
+    }
+
+    /**
+     * Gets an upper bound for the given percentile of recorded durations.
+     *
+     * @param percentile The percentile to get, between 0 and 100.
+     * @param unit       The unit to return the duration in.
+     *
+     * @return The percentile, or 0 if nothing has been recorded.
+     */
+    public double getPercentile(final double percentile, final TimeUnit unit) {
+        long remaining = (long) Math.ceil(getCount() * percentile / 100);
+        if (remaining == 0) {
+            return 0;
+        }
+        for (int i = 0; i < buckets.length(); i++) {
+            remaining -= buckets.get(i);
+            if (remaining <= 0) {
+                return (double) Math.min(max.get(), getUpperBound(i)) / unit.toNanos(1);
+            }
+        }
+        return getMax(unit);
+    }
+
+    /**
+     * Discards all recorded durations.
+     */
+    public void reset() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        total.reset();
+        max.reset();
+    }
+
+    /**
+     * Gets the index of the bucket the given value is counted in.
+     *
+     * @param value The value, which must be between 0 and {@link #MAX_VALUE}.
+     *
+     * @return The index of the bucket for the value.
+     */
+    static int getBucket(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Gets the largest value counted in the given bucket.
+     *
+     * @param bucket The index of the bucket.
+     *
+     * @return The largest value that is counted in the bucket.
+     */
+    static long getUpperBound(final int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        final long sub = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+    }
+
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.debug.profiling;
+
+import com.dmdirc.events.FrameClosingEvent;
+import com.dmdirc.events.eventbus.BaseEvent;
+import com.dmdirc.events.eventbus.EventBus;
+import com.dmdirc.interfaces.WindowModel;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EventBusProfilerTest {
+
+    @Rule public final TemporaryFolder folder = new TemporaryFolder();
+    @Mock private EventBus eventBus;
+    @Mock private ScheduledExecutorService executorService;
+    @Mock private BaseEvent event;
+    @Mock private WindowModel window;
+    @Mock private WindowModel otherWindow;
+    @Mock private Runnable task;
+    @Mock private ScheduledFuture<Object> future;
+    private EventBusProfiler profiler;
+
+    @Before
+    public void setUp() {
+        when(event.getTimestamp()).thenReturn(LocalDateTime.now());
+        when(executorService.scheduleAtFixedRate(task, 5, 5, TimeUnit.SECONDS))
+                .thenAnswer(invocation -> future);
+        profiler = new EventBusProfiler(eventBus, executorService);
+    }
+
+    @Test
+    public void testStartSubscribesOnce() {
+        profiler.start();
+        profiler.start();
+        assertTrue(profiler.isRunning());
+        verify(eventBus, times(1)).subscribe(profiler);
+        profiler.stop();
+        assertFalse(profiler.isRunning());
+        verify(eventBus).unsubscribe(profiler);
+    }
+
+    @Test
+    public void testWatchCancelledWhenWindowCloses() {
+        final ArgumentCaptor<Object> listener = ArgumentCaptor.forClass(Object.class);
+        profiler.watch(window, task, 5);
+        profiler.watch(otherWindow, task, 5);
+        verify(eventBus).subscribe(listener.capture());
+        final EventBusProfiler.WatchCanceller canceller =
+                (EventBusProfiler.WatchCanceller) listener.getValue();
+
+        canceller.handleFrameClosing(new FrameClosingEvent(window));
+        verify(future).cancel(false);
+        assertEquals(1, profiler.getWatchCount());
+        verify(eventBus, never()).unsubscribe(canceller);
+
+        canceller.handleFrameClosing(new FrameClosingEvent(otherWindow));
+        assertEquals(0, profiler.getWatchCount());
+        verify(eventBus).unsubscribe(canceller);
+    }
+
+    @Test
+    public void testShutdownRemovesWatches() {
+        final ArgumentCaptor<Object> listener = ArgumentCaptor.forClass(Object.class);
+        profiler.watch(window, task, 5);
+        verify(eventBus).subscribe(listener.capture());
+
+        profiler.shutdown();
+
+        assertEquals(0, profiler.getWatchCount());
+        verify(eventBus).unsubscribe(listener.getValue());
+        verify(executorService).shutdownNow();
+    }
+
+    @Test
+    public void testRecordsPublishesAndHandlerTime() {
+        profiler.handleEventStarted(event);
+        profiler.handleEventFinished(event);
+        profiler.handleEventStarted(event);
+        profiler.handleEventFinished(event);
+
+        final List<EventTypeStats> stats = profiler.getStats();
+        assertEquals(1, stats.size());
+        assertEquals(2, stats.get(0).getPublished());
+        assertEquals(2, stats.get(0).getHandlerTime().getCount());
+        assertEquals(2, stats.get(0).getQueueDelay().getCount());
+    }
+
+    @Test
+    public void testIgnoresHistoricalTimestamps() {
+        when(event.getTimestamp()).thenReturn(LocalDateTime.now().minusHours(1));
+        profiler.handleEventStarted(event);
+        profiler.handleEventFinished(event);
+        final EventTypeStats stats = profiler.getStats().get(0);
+        assertEquals(1, stats.getPublished());
+        assertEquals(0, stats.getQueueDelay().getCount());
+    }
+
+    @Test
+    public void testIgnoresFinishWithoutStart() {
+        profiler.handleEventFinished(event);
+        assertEquals(0, profiler.getStats(event.getClass()).getHandlerTime().getCount());
+    }
+
+    @Test
+    public void testReset() {
+        profiler.handleEventStarted(event);
+        profiler.handleEventFinished(event);
+        profiler.reset();
+        assertEquals(0, profiler.getStats().get(0).getPublished());
+    }
+
+    @Test
+    public void testExport() throws Exception {
+        profiler.handleEventStarted(event);
+        profiler.handleEventFinished(event);
+        final Path file = folder.newFile().toPath();
+        profiler.export(file);
+
+        final List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).startsWith("event,published,"));
+        assertTrue(lines.get(1).startsWith(event.getClass().getSimpleName() + ",1,"));
+    }
+
+}
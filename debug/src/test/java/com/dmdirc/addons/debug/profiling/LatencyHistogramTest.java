@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.debug.profiling;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    private LatencyHistogram histogram;
+
+    @Before
+    public void setUp() {
+        histogram = new LatencyHistogram();
+    }
+
+    @Test
+    public void testBucketBounds() {
+        for (long value = 0; value < 100000; value++) {
+            final int bucket = LatencyHistogram.getBucket(value);
+            assertTrue(value <= LatencyHistogram.getUpperBound(bucket));
+            assertTrue(bucket == 0 || value > LatencyHistogram.getUpperBound(bucket - 1));
+        }
+    }
+
+    @Test
+    public void testSummaryStatistics() {
+        histogram.record(1000);
+        histogram.record(2000);
+        histogram.record(6000);
+        assertEquals(3, histogram.getCount());
+        assertEquals(3, histogram.getMean(TimeUnit.MICROSECONDS), 0.001);
+        assertEquals(6, histogram.getMax(TimeUnit.MICROSECONDS), 0.001);
+    }
+
+    @Test
+    public void testPercentilesWithinBucketPrecision() {
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1000L);
+        }
+        final double p50 = histogram.getPercentile(50, TimeUnit.NANOSECONDS);
+        assertTrue(p50 >= 50000 && p50 <= 50000 * 1.25);
+        assertEquals(100000, histogram.getPercentile(100, TimeUnit.NANOSECONDS), 0.001);
+    }
+
+    @Test
+    public void testClampsOutOfRangeValues() {
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(2, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(50, TimeUnit.NANOSECONDS), 0.001);
+    }
+
+    @Test
+    public void testReset() {
+        histogram.record(1000);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(99, TimeUnit.NANOSECONDS), 0.001);
+    }
+
+}
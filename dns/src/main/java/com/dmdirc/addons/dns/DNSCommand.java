@@ -30,11 +30,10 @@ import com.google.common.net.InetAddresses;
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
 import java.net.InetAddress;
-import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.List;
 
 /**
  * Performs DNS lookups for nicknames, hostnames or IPs.
@@ -43,17 +42,22 @@ public class DNSCommand extends BaseCommand {
 
     /** A command info object for this command. */
     public static final CommandInfo INFO = new BaseCommandInfo("dns",
-            "dns <IP|hostname> - Performs DNS lookup of the specified ip/hostname/nickname",
+            "dns <IP|hostname> [IP|hostname...] - Performs DNS lookup of the specified ips/hostnames",
             CommandType.TYPE_GLOBAL);
 
+    /** The resolver to perform lookups with. */
+    private final DnsResolver resolver;
+
     /**
      * Creates a new instance of this command.
      *
      * @param controller The controller to use for command information.
+     * @param resolver   The resolver to perform lookups with.
      */
     @Inject
-    public DNSCommand(final CommandController controller) {
+    public DNSCommand(final CommandController controller, final DnsResolver resolver) {
         super(controller);
+        this.resolver = resolver;
     }
 
     @Override
@@ -64,49 +68,40 @@ public class DNSCommand extends BaseCommand {
             return;
         }
 
-        showOutput(origin, args.isSilent(), "Resolving: " + args.getArguments()[0]);
-        new Timer("DNS Command Timer").schedule(new TimerTask() {
-
-            @Override
-            public void run() {
-                resolve(origin, args.isSilent(), args.getArguments()[0]);
+        final List<String> targets = Arrays.asList(args.getArguments());
+        final Collection<String> addresses = new ArrayList<>();
+        final Collection<String> hostnames = new ArrayList<>();
+        for (String target : targets) {
+            if (InetAddresses.isInetAddress(target)) {
+                addresses.add(target);
+            } else {
+                hostnames.add(target);
             }
-        }, 0);
-    }
-
-    private void resolve(@Nonnull final WindowModel origin, final boolean isSilent,
-            final String arg) {
-        try {
-            final InetAddress address = InetAddresses.forString(arg);
-            showOutput(origin, isSilent, "Resolved: "
-                    + arg + ": " + address.getCanonicalHostName());
-        } catch (IllegalArgumentException ex) {
-            showOutput(origin, isSilent, "Resolved: "
-                    + arg + ": " + getIPs(arg));
         }
+
+        showOutput(origin, args.isSilent(), "Resolving: " + args.getArgumentsAsString());
+        resolver.getHostnames(addresses).thenAcceptBoth(resolver.getAddresses(hostnames),
+                (names, ips) -> {
+                    for (String target : targets) {
+                        final String result = names.containsKey(target)
+                                ? names.get(target).orElse(target) : getIPs(ips.get(target));
+                        showOutput(origin, args.isSilent(), "Resolved: " + target + ": " + result);
+                    }
+                });
     }
 
     /**
-     * Returns the IP(s) for a hostname.
+     * Formats the IP(s) for a hostname.
      *
-     * @param hostname Hostname to resolve.
+     * @param ips The hostname's resolved IPs.
      *
      * @return Resolved IP(s)
      */
-    private String getIPs(final String hostname) {
+    private String getIPs(final Collection<InetAddress> ips) {
         final Collection<String> results = new ArrayList<>();
-
-        try {
-            final InetAddress[] ips = InetAddress.getAllByName(hostname);
-
-            for (InetAddress ip : ips) {
-                results.add(ip.getHostAddress());
-            }
-
-        } catch (UnknownHostException ex) {
-            return "[]";
+        for (InetAddress ip : ips) {
+            results.add(ip.getHostAddress());
         }
-
         return results.toString();
     }
 
@@ -14,14 +14,43 @@
  * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
  * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  */
-
 package com.dmdirc.addons.dns;
 
 import com.dmdirc.ClientModule;
+import com.dmdirc.plugins.PluginDomain;
+import com.dmdirc.plugins.PluginInfo;
+import com.dmdirc.util.LoggingScheduledExecutorService;
+
+import java.util.concurrent.ExecutorService;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
 
 import dagger.Module;
+import dagger.Provides;
 
-@Module(injects = DNSCommand.class, addsTo = ClientModule.class)
+@Module(injects = {DNSCommand.class, DnsResolver.class}, addsTo = ClientModule.class)
 public class DNSModule {
 
+    /** The number of lookups that may be performed at once. */
+    private static final int RESOLVER_THREADS = 4;
+    private final PluginInfo pluginInfo;
+
+    public DNSModule(final PluginInfo pluginInfo) {
+        this.pluginInfo = pluginInfo;
+    }
+
+    @Provides
+    @PluginDomain(DNSPlugin.class)
+    public String getSettingsDomain() {
+        return pluginInfo.getDomain();
+    }
+
+    @Provides
+    @Singleton
+    @Named("dns")
+    public ExecutorService getExecutorService() {
+        return new LoggingScheduledExecutorService(RESOLVER_THREADS, "dns");
+    }
+
 }
@@ -17,6 +17,7 @@
 
 package com.dmdirc.addons.dns;
 
+import com.dmdirc.plugins.Exported;
 import com.dmdirc.plugins.PluginInfo;
 import com.dmdirc.plugins.implementations.BaseCommandPlugin;
 
@@ -27,11 +28,32 @@ import dagger.ObjectGraph;
  */
 public final class DNSPlugin extends BaseCommandPlugin {
 
+    /** The resolver used by the command, and exported to other plugins. */
+    private DnsResolver resolver;
+
     @Override
     public void load(final PluginInfo pluginInfo, final ObjectGraph graph) {
         super.load(pluginInfo, graph);
 
-        setObjectGraph(graph.plus(new DNSModule()));
+        setObjectGraph(graph.plus(new DNSModule(pluginInfo)));
+        resolver = getObjectGraph().get(DnsResolver.class);
         registerCommand(DNSCommand.class, DNSCommand.INFO);
     }
+
+    @Override
+    public void onUnload() {
+        super.onUnload();
+        resolver.shutdown();
+    }
+
+    /**
+     * Returns the caching DNS resolver. This method is exported for use in other plugins.
+     *
+     * @return The plugin's DNS resolver
+     */
+    @Exported
+    public DnsResolver getResolver() {
+        return resolver;
+    }
+
 }
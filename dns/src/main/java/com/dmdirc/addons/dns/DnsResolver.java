@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.dmdirc.addons.dns;
+
+import com.dmdirc.config.GlobalConfig;
+import com.dmdirc.config.provider.AggregateConfigProvider;
+import com.dmdirc.plugins.PluginDomain;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.net.InetAddresses;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves host names and addresses in the background, caching the results.
+ *
+ * <p>Successful and failed lookups are cached for separately configured times. Concurrent requests for the same name
+ * share a single lookup, and lookups run on a small fixed pool of threads. This is exported by the plugin so that
+ * other plugins can share the same cache.
+ */
+@Singleton
+public class DnsResolver {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DnsResolver.class);
+    /** The maximum number of results to cache. */
+    private static final long MAXIMUM_SIZE = 1000;
+    /** Cache of lookup results. */
+    private final Cache<Key, Result> cache;
+    /** Lookups that are currently in progress. */
+    private final ConcurrentMap<Key, CompletableFuture<?>> inFlight;
+    /** Executor to perform lookups on. */
+    private final ExecutorService executorService;
+    /** Global configuration to read settings from. */
+    private final AggregateConfigProvider config;
+    /** This plugin's settings domain. */
+    private final String domain;
+    /** Clock used to expire results, in milliseconds. */
+    private final LongSupplier clock;
+    /** Function used to look up the addresses of a host name. */
+    private final Function<String, List<InetAddress>> addressLookup;
+    /** Function used to look up the host name of an address. */
+    private final Function<InetAddress, Optional<String>> hostnameLookup;
+
+    @Inject
+    public DnsResolver(@Named("dns") final ExecutorService executorService,
+            @GlobalConfig final AggregateConfigProvider config,
+            @PluginDomain(DNSPlugin.class) final String domain) {
+        this(executorService, config, domain, System::currentTimeMillis,
+                DnsResolver::lookupAddresses, DnsResolver::lookupHostname);
+    }
+
+    @VisibleForTesting
+    DnsResolver(final ExecutorService executorService, final AggregateConfigProvider config,
+            final String domain, final LongSupplier clock,
+            final Function<String, List<InetAddress>> addressLookup,
+            final Function<InetAddress, Optional<String>> hostnameLookup) {
+        this.executorService = executorService;
+        this.config = config;
+        this.domain = domain;
+        this.clock = clock;
+        this.addressLookup = addressLookup;
+        this.hostnameLookup = hostnameLookup;
+        cache = CacheBuilder.newBuilder().maximumSize(MAXIMUM_SIZE).build();
+        inFlight = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Resolves the addresses of a host name.
+     *
+     * @param hostname The host name to resolve
+     *
+     * @return A future that completes with the host's addresses, or an empty list if it couldn't be resolved
+     */
+    public CompletableFuture<List<InetAddress>> getAddresses(final String hostname) {
+        return get(new Key(false, hostname.toLowerCase(Locale.ENGLISH)),
+                () -> addressLookup.apply(hostname), addresses -> !addresses.isEmpty());
+    }
+
+    /**
+     * Resolves the host name of an IP address.
+     *
+     * @param address The textual IP address to resolve
+     *
+     * @return A future that completes with the address's host name, or an empty optional if it doesn't have one
+     */
+    public CompletableFuture<Optional<String>> getHostname(final String address) {
+        if (!InetAddresses.isInetAddress(address)) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        final InetAddress inetAddress = InetAddresses.forString(address);
+        return get(new Key(true, InetAddresses.toAddrString(inetAddress)),
+                () -> hostnameLookup.apply(inetAddress), Optional::isPresent);
+    }
+
+    /**
+     * Resolves the addresses of many host names at once, for example those of every user in a channel. Duplicate
+     * names are only looked up once.
+     *
+     * @param hostnames The host names to resolve
+     *
+     * @return A future that completes with a map of each host name to its addresses, in the order given. Names that
+     * couldn't be looked up map to an empty list.
+     */
+    public CompletableFuture<Map<String, List<InetAddress>>> getAddresses(
+            final Collection<String> hostnames) {
+        return getAll(hostnames, this::getAddresses, Collections.emptyList());
+    }
+
+    /**
+     * Resolves the host names of many IP addresses at once. Duplicate addresses are only looked up once.
+     *
+     * @param addresses The textual IP addresses to resolve
+     *
+     * @return A future that completes with a map of each address to its host name, in the order given. Addresses
+     * that couldn't be looked up map to an empty optional.
+     */
+    public CompletableFuture<Map<String, Optional<String>>> getHostnames(
+            final Collection<String> addresses) {
+        return getAll(addresses, this::getHostname, Optional.empty());
+    }
+
+    /**
+     * Removes all results from the cache.
+     */
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Removes all results from the cache, and stops performing any new lookups.
+     */
+    public void shutdown() {
+        executorService.shutdown();
+        clear();
+    }
+
+    private <T> CompletableFuture<Map<String, T>> getAll(final Collection<String> names,
+            final Function<String, CompletableFuture<T>> lookup, final T failed) {
+        final Map<String, CompletableFuture<T>> futures = new LinkedHashMap<>();
+        // One failed lookup mustn't fail the whole batch.
+        names.forEach(name -> futures.computeIfAbsent(name,
+                n -> lookup.apply(n).exceptionally(ex -> failed)));
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[futures.size()]))
+                .thenApply(v -> {
+                    final Map<String, T> results = new LinkedHashMap<>();
+                    futures.forEach((name, future) -> results.put(name, future.join()));
+                    return results;
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> get(final Key key, final Supplier<T> lookup,
+            final Predicate<T> isFound) {
+        final Result cached = cache.getIfPresent(key);
+        if (cached != null) {
+            if (cached.expires > clock.getAsLong()) {
+                return CompletableFuture.completedFuture((T) cached.value);
+            }
+            cache.asMap().remove(key, cached);
+        }
+
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        final CompletableFuture<?> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            // Callers get their own stage, so completing or cancelling it can't affect the others.
+            return ((CompletableFuture<T>) existing).thenApply(Function.identity());
+        }
+
+        try {
+            executorService.execute(() -> {
+                try {
+                    final T value = lookup.get();
+                    cache.put(key, new Result(value, clock.getAsLong()
+                            + getTtl(isFound.test(value))));
+                    future.complete(value);
+                } catch (RuntimeException ex) {
+                    LOG.debug("Unable to resolve {}", key.name, ex);
+                    future.completeExceptionally(ex);
+                } finally {
+                    inFlight.remove(key, future);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(ex);
+        }
+        return future.thenApply(Function.identity());
+    }
+
+    /**
+     * Gets the time a result should be cached for.
+     *
+     * @param found Whether the lookup found a result
+     *
+     * @return The time to cache the result, in milliseconds
+     */
+    private long getTtl(final boolean found) {
+        return TimeUnit.SECONDS.toMillis(config.getOptionInt(domain,
+                found ? "cache.ttl" : "cache.negativettl"));
+    }
+
+    private static List<InetAddress> lookupAddresses(final String hostname) {
+        LOG.trace("Resolving host name: {}", hostname);
+        try {
+            return Collections.unmodifiableList(Arrays.asList(InetAddress.getAllByName(hostname)));
+        } catch (UnknownHostException ex) {
+            return Collections.emptyList();
+        }
+    }
+
+    private static Optional<String> lookupHostname(final InetAddress address) {
+        LOG.trace("Resolving address: {}", address);
+        final String hostname = address.getCanonicalHostName();
+        // If there's no PTR record, the canonical host name is just the textual address.
+        return InetAddresses.isInetAddress(hostname) ? Optional.empty() : Optional.of(hostname);
+    }
+
+    /**
+     * Identifies a lookup.
+     */
+    private static class Key {
+
+        private final boolean reverse;
+        private final String name;
+
+        Key(final boolean reverse, final String name) {
+            this.reverse = reverse;
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return reverse == other.reverse && name.equals(other.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode() * 31 + (reverse ? 1 : 0);
+        }
+
+    }
+
+    /**
+     * A cached lookup result.
+     */
+    private static class Result {
+
+        private final Object value;
+        private final long expires;
+
+        Result(final Object value, final long expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+
+    }
+
+}
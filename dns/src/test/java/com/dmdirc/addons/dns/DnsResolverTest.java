@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.dmdirc.addons.dns;
+
+import com.dmdirc.config.provider.AggregateConfigProvider;
+
+import com.google.common.net.InetAddresses;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DnsResolverTest {
+
+    private static final InetAddress ADDRESS = InetAddresses.forString("192.0.2.1");
+    @Mock private AggregateConfigProvider config;
+    @Mock private ExecutorService queuedExecutor;
+    private final Map<String, Integer> lookups = new HashMap<>();
+    private long time;
+    private DnsResolver instance;
+
+    @Before
+    public void setUp() {
+        when(config.getOptionInt("dns", "cache.ttl")).thenReturn(300);
+        when(config.getOptionInt("dns", "cache.negativettl")).thenReturn(30);
+        instance = getResolver(MoreExecutors.newDirectExecutorService());
+    }
+
+    @Test
+    public void testCachesAddresses() {
+        assertEquals(Collections.singletonList(ADDRESS),
+                instance.getAddresses("example.com").join());
+        time += 299999;
+        assertEquals(Collections.singletonList(ADDRESS),
+                instance.getAddresses("EXAMPLE.com").join());
+        assertEquals(1, getLookups("example.com"));
+    }
+
+    @Test
+    public void testExpiresAddressesAfterTtl() {
+        instance.getAddresses("example.com").join();
+        time += 300000;
+        instance.getAddresses("example.com").join();
+        assertEquals(2, getLookups("example.com"));
+    }
+
+    @Test
+    public void testCachesFailedLookupsForNegativeTtl() {
+        assertTrue(instance.getAddresses("missing.example.com").join().isEmpty());
+        time += 29999;
+        instance.getAddresses("missing.example.com").join();
+        assertEquals(1, getLookups("missing.example.com"));
+        time += 1;
+        instance.getAddresses("missing.example.com").join();
+        assertEquals(2, getLookups("missing.example.com"));
+    }
+
+    @Test
+    public void testCachesHostnames() {
+        assertEquals(Optional.of("example.com"), instance.getHostname("192.0.2.1").join());
+        assertEquals(Optional.of("example.com"), instance.getHostname("192.0.2.1").join());
+        assertEquals(1, getLookups("192.0.2.1"));
+        assertEquals(Optional.empty(), instance.getHostname("not an address").join());
+    }
+
+    @Test
+    public void testCoalescesLookupsInFlight() {
+        instance = getResolver(queuedExecutor);
+        final CompletableFuture<List<InetAddress>> first = instance.getAddresses("example.com");
+        final CompletableFuture<List<InetAddress>> second = instance.getAddresses("example.com");
+        assertNotSame(first, second);
+        assertFalse(first.isDone());
+
+        // Cancelling one caller's future mustn't affect the shared lookup.
+        first.cancel(false);
+        final ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(queuedExecutor).execute(captor.capture());
+        captor.getValue().run();
+
+        assertEquals(Collections.singletonList(ADDRESS), second.join());
+        assertEquals(1, getLookups("example.com"));
+    }
+
+    @Test
+    public void testBatchMapsFailuresToEmptyResults() {
+        final Map<String, List<InetAddress>> results = instance.getAddresses(
+                Arrays.asList("example.com", "broken.example.com", "example.com")).join();
+        assertEquals(2, results.size());
+        assertEquals(Collections.singletonList(ADDRESS), results.get("example.com"));
+        assertTrue(results.get("broken.example.com").isEmpty());
+    }
+
+    @Test
+    public void testBatchAfterShutdownReturnsEmptyResults() {
+        instance.shutdown();
+        final Map<String, Optional<String>> results =
+                instance.getHostnames(Collections.singletonList("192.0.2.1")).join();
+        assertEquals(Optional.empty(), results.get("192.0.2.1"));
+    }
+
+    private DnsResolver getResolver(final ExecutorService executorService) {
+        return new DnsResolver(executorService, config, "dns", () -> time,
+                hostname -> {
+                    lookups.merge(hostname.toLowerCase(), 1, Integer::sum);
+                    if (hostname.startsWith("broken")) {
+                        throw new IllegalStateException("Lookup failed");
+                    }
+                    return hostname.startsWith("missing") ? Collections.emptyList()
+                            : Collections.singletonList(ADDRESS);
+                },
+                address -> {
+                    lookups.merge(address.getHostAddress(), 1, Integer::sum);
+                    return Optional.of("example.com");
+                });
+    }
+
+    private int getLookups(final String name) {
+        return lookups.getOrDefault(name, 0);
+    }
+
+}
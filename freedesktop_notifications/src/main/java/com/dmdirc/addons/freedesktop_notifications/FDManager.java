@@ -32,11 +32,13 @@ import com.dmdirc.plugins.PluginDomain;
 import com.dmdirc.plugins.PluginInfo;
 import com.dmdirc.plugins.implementations.PluginFilesHelper;
 import com.dmdirc.ui.messages.StyledMessageUtils;
-import com.dmdirc.util.io.StreamUtils;
 import com.google.common.base.Strings;
 import com.google.common.html.HtmlEscapers;
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 import net.engio.mbassy.listener.Handler;
 import org.slf4j.Logger;
@@ -48,6 +50,8 @@ import static com.dmdirc.util.LogUtils.USER_ERROR;
 public class FDManager implements ConfigChangeListener {
 
     private static final Logger LOG = LoggerFactory.getLogger(FDManager.class);
+    /** The maximum number of shown notifications to remember for replacement. */
+    private static final int MAX_SHOWN = 32;
     /** Global configuration. */
     private final AggregateConfigProvider config;
     /** User configuration. */
@@ -65,6 +69,14 @@ public class FDManager implements ConfigChangeListener {
     private boolean escapehtml;
     /** Strip codes. */
     private boolean stripcodes;
+    /** Replace notifications with the same title while they're still shown. */
+    private boolean replace;
+    /** Executor to deliver notifications on, so callers never wait for the daemon. */
+    private final ExecutorService executorService;
+    /** The daemon to send notifications to, if connected. */
+    private volatile NotificationDaemon daemon;
+    /** Notifications that may still be shown. Only used on the delivery thread. */
+    private final ShownNotifications shown = new ShownNotifications(MAX_SHOWN);
 
     @Inject
     public FDManager(
@@ -72,57 +84,65 @@ public class FDManager implements ConfigChangeListener {
             @UserConfig final ConfigProvider userConfig,
             @PluginDomain(FreeDesktopNotificationsPlugin.class) final String domain,
             final PluginFilesHelper filesHelper,
-            @PluginDomain(FreeDesktopNotificationsPlugin.class) final PluginInfo pluginInfo) {
+            @PluginDomain(FreeDesktopNotificationsPlugin.class) final PluginInfo pluginInfo,
+            @Named("fdnotify") final ExecutorService executorService) {
         this.domain = domain;
         this.config = config;
         this.userConfig = userConfig;
         this.filesHelper = filesHelper;
         this.pluginInfo = pluginInfo;
+        this.executorService = executorService;
     }
 
     /**
-     * Used to show a notification using this plugin.
+     * Used to show a notification using this plugin. The notification is delivered in the
+     * background.
      *
      * @param title   Title of dialog if applicable
      * @param message Message to show
      *
-     * @return True if the notification was shown.
+     * @return True if the notification was queued to be shown.
      */
     public boolean showNotification(final String title, final String message) {
-        if (filesHelper.getFilesDir() == null) {
+        if (daemon == null) {
             return false;
         }
 
-        final String[] args = {
-            "/usr/bin/env",
-            "python",
-            filesHelper.getFilesDirString() + "notify.py",
-            "-a",
-            "DMDirc",
-            "-i",
-            icon,
-            "-t",
-            Integer.toString(timeout * 1000),
-            "-s",
-            Strings.isNullOrEmpty(title) ? "Notification from DMDirc" : prepareString(title),
-            prepareString(message)
-        };
-
+        final String summary = Strings.isNullOrEmpty(title) ? "Notification from DMDirc"
+                : prepareString(title);
+        final String body = prepareString(message);
+        final String notificationIcon = icon;
+        final int notificationTimeout = timeout * 1000;
+        final boolean replaceShown = replace;
         try {
-            final Process myProcess = Runtime.getRuntime().exec(args);
-            StreamUtils.readStream(myProcess.getErrorStream());
-            StreamUtils.readStream(myProcess.getInputStream());
-            try {
-                myProcess.waitFor();
-            } catch (InterruptedException e) {
-                //Not a problem, carry on
-            }
+            executorService.execute(() -> deliver(summary, body, notificationIcon,
+                    notificationTimeout, replaceShown));
             return true;
-        } catch (SecurityException | IOException e) {
-            LOG.info(USER_ERROR, "Unable to show notification", e);
+        } catch (RejectedExecutionException ex) {
+            // The plugin is being unloaded.
+            return false;
+        }
+    }
+
+    /**
+     * Sends a notification to the daemon. Called on the delivery thread.
+     */
+    private void deliver(final String summary, final String body, final String notificationIcon,
+            final int notificationTimeout, final boolean replaceShown) {
+        final NotificationDaemon target = daemon;
+        if (target == null) {
+            return;
         }
 
-        return false;
+        final long now = System.currentTimeMillis();
+        final long replacesId = replaceShown ? shown.getReplacesId(summary, now) : 0;
+        try {
+            final long id = target.notify(replacesId, "DMDirc", notificationIcon, summary, body,
+                    notificationTimeout);
+            shown.add(summary, id, now + notificationTimeout);
+        } catch (IOException e) {
+            LOG.info(USER_ERROR, "Unable to show notification", e);
+        }
     }
 
     /**
@@ -148,6 +168,7 @@ public class FDManager implements ConfigChangeListener {
         icon = config.getOption(domain, "general.icon");
         escapehtml = config.getOptionBool(domain, "advanced.escapehtml");
         stripcodes = config.getOptionBool(domain, "advanced.stripcodes");
+        replace = config.getOptionBool(domain, "general.replace");
     }
 
     @Override
@@ -167,13 +188,41 @@ public class FDManager implements ConfigChangeListener {
             LOG.warn(USER_ERROR, "Unable to extract files for Free desktop notifications: {}",
                     ex.getMessage(), ex);
         }
+        connect();
     }
 
     public void onUnLoad() {
         config.removeListener(this);
+        final NotificationDaemon target = daemon;
+        daemon = null;
+        if (target != null) {
+            // Close the daemon after any notifications already queued have been delivered.
+            executorService.execute(() -> {
+                target.close();
+                shown.clear();
+            });
+        }
+        executorService.shutdown();
     }
 
+    /**
+     * Connects to the notification daemon, preferring an in-process connection to the session bus
+     * and falling back to a long-lived helper process if that isn't possible.
+     */
+    private void connect() {
+        try {
+            daemon = SessionNotificationDaemon.connect();
+            return;
+        } catch (IOException | RuntimeException ex) {
+            LOG.info("Unable to connect to the session bus, using notification helper: {}",
+                    ex.getMessage());
+        }
 
+        if (filesHelper.getFilesDir() != null) {
+            daemon = new HelperNotificationDaemon("/usr/bin/env", "python",
+                    filesHelper.getFilesDirString() + "notify.py", "--server");
+        }
+    }
 
     @Handler
     public void showConfig(final ClientPrefsOpenedEvent event) {
@@ -190,6 +239,11 @@ public class FDManager implements ConfigChangeListener {
                 pluginInfo.getDomain(), "general.icon", "icon",
                 "Path to icon to use on the notification.",
                 manager.getConfigManager(), manager.getIdentity()));
+        general.addSetting(new PreferencesSetting(PreferencesType.BOOLEAN,
+                pluginInfo.getDomain(), "general.replace", "Replace notifications",
+                "Update a notification that is still shown instead of showing another with the "
+                        + "same title?",
+                manager.getConfigManager(), manager.getIdentity()));
         general.addSetting(new PreferencesSetting(PreferencesType.BOOLEAN,
                 pluginInfo.getDomain(), "advanced.escapehtml", "Escape HTML",
                 "Some Implementations randomly parse HTML, escape it before showing?",
@@ -22,7 +22,11 @@ import com.dmdirc.plugins.PluginDomain;
 import com.dmdirc.plugins.PluginInfo;
 import com.dmdirc.plugins.PluginManager;
 import com.dmdirc.plugins.implementations.PluginFilesHelper;
+import com.dmdirc.util.LoggingScheduledExecutorService;
 
+import java.util.concurrent.ExecutorService;
+
+import javax.inject.Named;
 import javax.inject.Singleton;
 
 import dagger.Module;
@@ -55,4 +59,11 @@ public class FDModule {
         return pluginInfo;
     }
 
+    @Provides
+    @Singleton
+    @Named("fdnotify")
+    public ExecutorService getExecutorService() {
+        return new LoggingScheduledExecutorService(1, "fdnotify");
+    }
+
 }
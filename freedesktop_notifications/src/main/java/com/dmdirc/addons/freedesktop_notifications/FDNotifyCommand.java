@@ -55,7 +55,7 @@ public final class FDNotifyCommand extends BaseCommand {
     @Override
     public void execute(@Nonnull final WindowModel origin, final CommandArguments args,
             final CommandContext context) {
-        new Thread(() -> manager.showNotification("", args.getArgumentsAsString())).start();
+        manager.showNotification("", args.getArgumentsAsString());
     }
 
 }
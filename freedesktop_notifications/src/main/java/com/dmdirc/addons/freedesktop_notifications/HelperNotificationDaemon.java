@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.dmdirc.addons.freedesktop_notifications;
+
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link NotificationDaemon} that passes notifications to a long-lived helper process, which
+ * forwards them to the daemon.
+ *
+ * <p>Each request is written to the helper's stdin as a four byte big-endian length followed by
+ * that many bytes of UTF-8 encoded fields separated by NUL characters. The helper replies to each
+ * request with a single line containing either the notification ID, or an error message prefixed
+ * with an exclamation mark. If the helper dies, or doesn't reply in time, it is restarted the next
+ * time it is needed.
+ */
+public class HelperNotificationDaemon implements NotificationDaemon {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HelperNotificationDaemon.class);
+    /** The default time to wait for the helper to reply, in milliseconds. */
+    private static final long REPLY_TIMEOUT = 5000;
+    /** Marker queued by the reader thread when the helper's output ends. */
+    private static final String END_OF_OUTPUT = new String("");
+    /** Starts the helper process. */
+    private final ProcessStarter starter;
+    /** The time to wait for the helper to reply, in milliseconds. */
+    private final long replyTimeout;
+    /** The running helper, if any. */
+    private Process process;
+    /** Stream to write requests to. */
+    private DataOutputStream output;
+    /** Replies read from the running helper. */
+    private BlockingQueue<String> replies;
+    /** The number of times the helper has been started. */
+    private int starts;
+
+    /**
+     * Creates a new helper daemon. The helper is not started until it is first needed.
+     *
+     * @param command The command used to start the helper.
+     */
+    public HelperNotificationDaemon(final String... command) {
+        this(getStarter(Arrays.asList(command)), REPLY_TIMEOUT);
+    }
+
+    /**
+     * Creates a new helper daemon. The helper is not started until it is first needed.
+     *
+     * @param starter      Starts the helper process.
+     * @param replyTimeout The time to wait for the helper to reply, in milliseconds.
+     */
+    HelperNotificationDaemon(final ProcessStarter starter, final long replyTimeout) {
+        this.starter = starter;
+        this.replyTimeout = replyTimeout;
+    }
+
+    @Override
+    public synchronized long notify(final long replacesId, final String appName,
+            final String icon, final String summary, final String body, final int timeout)
+            throws IOException {
+        final byte[] frame = String.join("\0", Long.toString(replacesId), appName, icon, summary,
+                body, Integer.toString(timeout)).getBytes(StandardCharsets.UTF_8);
+        try {
+            return send(frame);
+        } catch (RejectedException ex) {
+            throw ex;
+        } catch (TimeoutException ex) {
+            // Don't wait for a second timeout; the helper is restarted on the next request.
+            stop();
+            throw ex;
+        } catch (IOException ex) {
+            LOG.debug("Notification helper failed, restarting: {}", ex.getMessage());
+            stop();
+            return send(frame);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        stop();
+    }
+
+    /**
+     * Gets the number of times the helper process has been started.
+     *
+     * @return The number of times the helper has been started.
+     */
+    public synchronized int getStarts() {
+        return starts;
+    }
+
+    private long send(final byte[] frame) throws IOException {
+        if (process == null || !process.isAlive()) {
+            start();
+        }
+
+        output.writeInt(frame.length);
+        output.write(frame);
+        output.flush();
+
+        final String reply;
+        try {
+            reply = replies.poll(replyTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for notification helper", ex);
+        }
+        if (reply == null) {
+            throw new TimeoutException();
+        }
+        if (reply == END_OF_OUTPUT) {
+            throw new IOException("Notification helper exited");
+        }
+        if (reply.startsWith("!")) {
+            throw new RejectedException(reply.substring(1));
+        }
+        try {
+            return Long.parseLong(reply.trim());
+        } catch (NumberFormatException ex) {
+            throw new IOException("Unexpected reply from notification helper: " + reply, ex);
+        }
+    }
+
+    private void start() throws IOException {
+        stop();
+        process = starter.start();
+        output = new DataOutputStream(process.getOutputStream());
+        replies = new LinkedBlockingQueue<>();
+        final BufferedReader input = new BufferedReader(new InputStreamReader(
+                process.getInputStream(), StandardCharsets.UTF_8));
+        final BlockingQueue<String> queue = replies;
+        final Thread reader = new Thread(() -> readReplies(input, queue),
+                "Notification helper reader");
+        reader.setDaemon(true);
+        reader.start();
+        starts++;
+    }
+
+    private void stop() {
+        if (process != null) {
+            try {
+                // Closing stdin asks the helper to exit cleanly.
+                output.close();
+            } catch (IOException ex) {
+                LOG.trace("Unable to close notification helper input", ex);
+            }
+            process.destroy();
+            process = null;
+            output = null;
+            replies = null;
+        }
+    }
+
+    /**
+     * Reads reply lines from a helper until its output ends. Each helper has its own queue, so
+     * late replies from a helper that has been stopped are never seen.
+     */
+    private static void readReplies(final BufferedReader input,
+            final BlockingQueue<String> queue) {
+        try {
+            String line = input.readLine();
+            while (line != null) {
+                queue.add(line);
+                line = input.readLine();
+            }
+        } catch (IOException ex) {
+            LOG.trace("Unable to read from notification helper", ex);
+        } finally {
+            queue.add(END_OF_OUTPUT);
+        }
+    }
+
+    private static ProcessStarter getStarter(final List<String> command) {
+        return () -> {
+            LOG.debug("Starting notification helper: {}", command);
+            return new ProcessBuilder(command)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+        };
+    }
+
+    /**
+     * Starts a helper process.
+     */
+    @FunctionalInterface
+    interface ProcessStarter {
+
+        /**
+         * Starts a new helper process.
+         *
+         * @return The started process.
+         *
+         * @throws IOException If the process couldn't be started.
+         */
+        Process start() throws IOException;
+
+    }
+
+    /**
+     * Thrown when the helper is working, but the daemon rejected a notification.
+     */
+    private static class RejectedException extends IOException {
+
+        private static final long serialVersionUID = 1;
+
+        RejectedException(final String message) {
+            super(message);
+        }
+
+    }
+
+    /**
+     * Thrown when the helper doesn't reply to a request in time.
+     */
+    private static class TimeoutException extends IOException {
+
+        private static final long serialVersionUID = 1;
+
+        TimeoutException() {
+            super("Timed out waiting for notification helper");
+        }
+
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.freedesktop_notifications;
+
+import java.io.IOException;
+
+/**
+ * A long-lived connection to a FreeDesktop notification daemon.
+ */
+public interface NotificationDaemon {
+
+    /**
+     * Shows a notification, or updates one that is already being shown.
+     *
+     * @param replacesId The ID of the notification to replace, or 0 to show a new one.
+     * @param appName    The name of the application sending the notification.
+     * @param icon       The name or path of the icon to show.
+     * @param summary    The summary of the notification.
+     * @param body       The body of the notification.
+     * @param timeout    The time to show the notification for, in milliseconds.
+     *
+     * @return The ID the daemon assigned to the notification.
+     *
+     * @throws IOException If the daemon could not be contacted.
+     */
+    long notify(long replacesId, String appName, String icon, String summary, String body,
+            int timeout) throws IOException;
+
+    /**
+     * Closes the connection to the daemon. The daemon may not be used after it has been closed.
+     */
+    void close();
+
+}
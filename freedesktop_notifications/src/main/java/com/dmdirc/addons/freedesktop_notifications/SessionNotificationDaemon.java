@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.freedesktop_notifications;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.exceptions.DBusExecutionException;
+import org.freedesktop.dbus.types.UInt32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link NotificationDaemon} that talks to the daemon directly over a long-lived connection to
+ * the D-Bus session bus. If the connection is lost it is re-established on the next notification.
+ */
+public class SessionNotificationDaemon implements NotificationDaemon {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SessionNotificationDaemon.class);
+    /** The well-known name notification daemons register on the bus. */
+    private static final String BUS_NAME = "org.freedesktop.Notifications";
+    /** The object path notification daemons export their interface on. */
+    private static final String OBJECT_PATH = "/org/freedesktop/Notifications";
+    /** The connection to the session bus. */
+    private DBusConnection connection;
+    /** The notification daemon on the bus. */
+    private Notifications notifications;
+
+    /**
+     * Creates a new daemon wrapping the given connection.
+     *
+     * @param connection The connection to the session bus.
+     *
+     * @throws DBusException If the notification daemon could not be bound.
+     */
+    private SessionNotificationDaemon(final DBusConnection connection) throws DBusException {
+        bind(connection);
+    }
+
+    /**
+     * Opens a new private connection to the session bus.
+     *
+     * @return A new daemon connected to the session bus.
+     *
+     * @throws IOException If the session bus could not be connected to.
+     */
+    public static SessionNotificationDaemon connect() throws IOException {
+        try {
+            return new SessionNotificationDaemon(openConnection());
+        } catch (DBusException ex) {
+            throw new IOException("Unable to connect to the session bus", ex);
+        }
+    }
+
+    @Override
+    public synchronized long notify(final long replacesId, final String appName,
+            final String icon, final String summary, final String body, final int timeout)
+            throws IOException {
+        try {
+            return send(replacesId, appName, icon, summary, body, timeout);
+        } catch (DBusExecutionException ex) {
+            if (connection.isConnected()) {
+                throw new IOException(ex);
+            }
+        }
+
+        LOG.debug("Lost connection to the session bus, reconnecting");
+        try {
+            bind(openConnection());
+            return send(replacesId, appName, icon, summary, body, timeout);
+        } catch (DBusException | DBusExecutionException ex) {
+            throw new IOException("Unable to reconnect to the session bus", ex);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        connection.disconnect();
+    }
+
+    private long send(final long replacesId, final String appName, final String icon,
+            final String summary, final String body, final int timeout) {
+        return notifications.Notify(appName, new UInt32(replacesId), icon, summary, body,
+                new String[0], Collections.emptyMap(), timeout).longValue();
+    }
+
+    private void bind(final DBusConnection newConnection) throws DBusException {
+        if (connection != null) {
+            connection.disconnect();
+        }
+        connection = newConnection;
+        notifications = newConnection.getRemoteObject(BUS_NAME, OBJECT_PATH, Notifications.class);
+    }
+
+    private static DBusConnection openConnection() throws DBusException {
+        return DBusConnection.newConnection(DBusConnection.DBusBusType.SESSION);
+    }
+
+}
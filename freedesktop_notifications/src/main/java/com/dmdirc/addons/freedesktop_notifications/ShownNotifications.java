@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.dmdirc.addons.freedesktop_notifications;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the IDs of recently shown notifications, so that a later notification with the same
+ * summary can replace one that is still on screen.
+ *
+ * <p>Only the most recently used summaries are remembered. This class is not thread safe.
+ */
+class ShownNotifications {
+
+    /** Notifications that may still be shown, keyed on their summary. */
+    private final Map<String, ShownNotification> shown;
+
+    /**
+     * Creates a new set of shown notifications.
+     *
+     * @param capacity The maximum number of summaries to remember.
+     */
+    ShownNotifications(final int capacity) {
+        shown = new LinkedHashMap<String, ShownNotification>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, ShownNotification> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Gets the ID of the notification a new one with the given summary should replace.
+     *
+     * @param summary The summary of the new notification.
+     * @param now     The current time, in milliseconds since the epoch.
+     *
+     * @return The ID of a notification with the same summary that is still shown, or 0 if there
+     * isn't one.
+     */
+    long getReplacesId(final String summary, final long now) {
+        final ShownNotification previous = shown.get(summary);
+        if (previous == null) {
+            return 0;
+        }
+        if (previous.expires <= now) {
+            shown.remove(summary);
+            return 0;
+        }
+        return previous.id;
+    }
+
+    /**
+     * Records that a notification has been shown.
+     *
+     * @param summary The summary of the notification.
+     * @param id      The ID the daemon assigned to the notification.
+     * @param expires The time the notification will be closed, in milliseconds since the epoch.
+     */
+    void add(final String summary, final long id, final long expires) {
+        shown.put(summary, new ShownNotification(id, expires));
+    }
+
+    /**
+     * Forgets all shown notifications.
+     */
+    void clear() {
+        shown.clear();
+    }
+
+    /**
+     * Gets the number of notifications currently remembered.
+     *
+     * @return The number of remembered notifications.
+     */
+    int size() {
+        return shown.size();
+    }
+
+    /**
+     * A notification that has been shown by the daemon.
+     */
+    private static class ShownNotification {
+
+        /** The ID the daemon assigned to the notification. */
+        private final long id;
+        /** The time the notification will be closed, in milliseconds since the epoch. */
+        private final long expires;
+
+        ShownNotification(final long id, final long expires) {
+            this.id = id;
+            this.expires = expires;
+        }
+
+    }
+
+}
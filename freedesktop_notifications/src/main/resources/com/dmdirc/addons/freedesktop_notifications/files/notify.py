@@ -10,12 +10,37 @@ TIMEOUT        = 2000        # 0 means, never hide the message; value greater th
 
 import sys
 import getopt
+import struct
 import dbus
 
 def main():
+    if len(sys.argv) > 1 and sys.argv[1] == '--server':
+        serve()
+        return
     dbus = DBus()
     args = CmdLine(sys.argv[1:])
-    dbus.notify(app_name=args.getApplication(), app_icon=args.getIcon(), summary=args.getSummary(), body=args.getBody(), timeout=args.getTime())
+    sys.stdout.write('%d\n' % dbus.notify(app_name=args.getApplication(), app_icon=args.getIcon(), summary=args.getSummary(), body=args.getBody(), timeout=args.getTime()))
+
+def serve():
+    """Read framed requests from stdin until it is closed, writing one reply line per request"""
+    stdin = getattr(sys.stdin, 'buffer', sys.stdin)
+    notifier = None
+    while True:
+        header = stdin.read(4)
+        if len(header) < 4:
+            return
+        frame = stdin.read(struct.unpack('>I', header)[0])
+        try:
+            replaces_id, app_name, app_icon, summary, body, timeout = frame.decode('utf-8').split('\0')
+            if notifier is None:
+                notifier = DBus()
+            reply = '%d' % notifier.notify(app_name=app_name, replaces_id=dbus.UInt32(int(replaces_id)), app_icon=app_icon, summary=summary, body=body, timeout=int(timeout))
+        except Exception as e:
+            # Reconnect on the next request, in case the bus went away.
+            notifier = None
+            reply = '!' + ' '.join(str(e).splitlines())
+        sys.stdout.write(reply + '\n')
+        sys.stdout.flush()
 
 class CmdLine():
     def __init__(self, argv):
@@ -75,7 +100,8 @@ class CmdLine():
 
 def usage():
     """print usage message"""
-    print 'Usage: notify.py [-a|--app=<application>] [-i|--icon=<icon name or path>] [-t|--time=<time>] [-s|--summary=<summary>] [<message>]'
+    sys.stdout.write('Usage: notify.py [-a|--app=<application>] [-i|--icon=<icon name or path>] [-t|--time=<time>] [-s|--summary=<summary>] [<message>]\n')
+    sys.stdout.write('       notify.py --server\n')
 
 class DBus():
     """Wrapper class for notify daemon dbus interface"""
@@ -84,7 +110,7 @@ class DBus():
         self.__notify = dbus.SessionBus().get_object('org.freedesktop.Notifications', '/org/freedesktop/Notifications')
     
     def notify(self, app_name='', replaces_id=dbus.UInt32(), event_id='', app_icon='', summary='', body='', actions=dbus.Array(signature='s'), hints=dbus.Dictionary(signature='sv'), timeout=0):
-        print self.__notify.Notify(app_name, replaces_id, app_icon, summary, body, actions, hints, timeout)
+        return self.__notify.Notify(app_name, replaces_id, app_icon, summary, body, actions, hints, timeout)
 
     def closeNotification(self, event_id):
         self.__notify.CloseNotification(event_id)
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.dmdirc.addons.freedesktop_notifications;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HelperNotificationDaemonTest {
+
+    /** Reply that makes the fake helper exit instead of replying. */
+    private static final String EXIT = "exit";
+    private final List<FakeHelper> helpers = new ArrayList<>();
+    private final List<List<String>> requests = new CopyOnWriteArrayList<>();
+    private HelperNotificationDaemon daemon;
+
+    @After
+    public void tearDown() {
+        if (daemon != null) {
+            daemon.close();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testFramesRequest() throws IOException {
+        daemon = getDaemon(1000, fields -> "42");
+        assertEquals(42, daemon.notify(7, "DMDirc", "icon.png", "Summ\u00e4ry", "Body", 5000));
+        assertEquals(Arrays.asList("7", "DMDirc", "icon.png", "Summ\u00e4ry", "Body", "5000"),
+                requests.get(0));
+        assertEquals(1, daemon.getStarts());
+    }
+
+    @Test(timeout = 5000)
+    public void testReusesHelper() throws IOException {
+        daemon = getDaemon(1000, fields -> fields.get(3));
+        assertEquals(1, daemon.notify(0, "DMDirc", "", "1", "", 0));
+        assertEquals(2, daemon.notify(0, "DMDirc", "", "2", "", 0));
+        assertEquals(1, daemon.getStarts());
+    }
+
+    @Test(timeout = 5000)
+    public void testRejectedNotification() throws IOException {
+        daemon = getDaemon(1000, fields -> "0".equals(fields.get(3)) ? "!No daemon" : "5");
+        try {
+            daemon.notify(0, "DMDirc", "", "0", "", 0);
+            fail("Expected rejection");
+        } catch (IOException ex) {
+            assertEquals("No daemon", ex.getMessage());
+        }
+        assertEquals(5, daemon.notify(0, "DMDirc", "", "1", "", 0));
+        assertEquals(1, daemon.getStarts());
+    }
+
+    @Test(timeout = 5000)
+    public void testRestartsHelperThatExits() throws IOException {
+        daemon = getDaemon(1000, fields -> helpers.size() == 1 ? EXIT : "9");
+        assertEquals(9, daemon.notify(0, "DMDirc", "", "Summary", "", 0));
+        assertEquals(2, daemon.getStarts());
+        assertEquals(2, requests.size());
+    }
+
+    @Test(timeout = 5000)
+    public void testRestartsHelperAfterTimeout() throws IOException {
+        daemon = getDaemon(100, fields -> helpers.size() == 1 ? null : "3");
+        try {
+            daemon.notify(0, "DMDirc", "", "Summary", "", 0);
+            fail("Expected timeout");
+        } catch (IOException ex) {
+            // Expected
+        }
+        assertFalse(helpers.get(0).isAlive());
+        assertEquals(1, daemon.getStarts());
+
+        assertEquals(3, daemon.notify(0, "DMDirc", "", "Summary", "", 0));
+        assertEquals(2, daemon.getStarts());
+        assertTrue(helpers.get(1).isAlive());
+    }
+
+    private HelperNotificationDaemon getDaemon(final long timeout,
+            final Function<List<String>, String> responder) {
+        return new HelperNotificationDaemon(() -> {
+            final FakeHelper helper = new FakeHelper(responder);
+            helpers.add(helper);
+            return helper;
+        }, timeout);
+    }
+
+    /**
+     * A helper process that decodes requests in a background thread and replies using a
+     * function. A {@code null} reply is never sent.
+     */
+    private class FakeHelper extends Process {
+
+        private final PipedOutputStream stdin = new PipedOutputStream();
+        private final PipedInputStream stdout = new PipedInputStream();
+        private volatile boolean alive = true;
+
+        FakeHelper(final Function<List<String>, String> responder) throws IOException {
+            final DataInputStream requestStream = new DataInputStream(new PipedInputStream(stdin));
+            final PipedOutputStream replyStream = new PipedOutputStream(stdout);
+            final Thread thread = new Thread(() -> {
+                try {
+                    while (alive) {
+                        final byte[] frame = new byte[requestStream.readInt()];
+                        requestStream.readFully(frame);
+                        final List<String> fields = Arrays.asList(
+                                new String(frame, StandardCharsets.UTF_8).split("\0", -1));
+                        requests.add(fields);
+                        final String reply = responder.apply(fields);
+                        if (EXIT.equals(reply)) {
+                            break;
+                        } else if (reply != null) {
+                            replyStream.write((reply + '\n').getBytes(StandardCharsets.UTF_8));
+                            replyStream.flush();
+                        }
+                    }
+                } catch (IOException ex) {
+                    // Input closed
+                } finally {
+                    alive = false;
+                    try {
+                        replyStream.close();
+                    } catch (IOException ex) {
+                        // Ignore
+                    }
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return stdin;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return stdout;
+        }
+
+        @Override
+        public InputStream getErrorStream() {
+            return null;
+        }
+
+        @Override
+        public int waitFor() {
+            return 0;
+        }
+
+        @Override
+        public int exitValue() {
+            if (alive) {
+                throw new IllegalThreadStateException();
+            }
+            return 0;
+        }
+
+        @Override
+        public void destroy() {
+            alive = false;
+            try {
+                stdin.close();
+                stdout.close();
+            } catch (IOException ex) {
+                // Ignore
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.dmdirc.addons.freedesktop_notifications;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ShownNotificationsTest {
+
+    private final ShownNotifications shown = new ShownNotifications(2);
+
+    @Test
+    public void testUnknownSummary() {
+        assertEquals(0, shown.getReplacesId("Summary", 1000));
+    }
+
+    @Test
+    public void testReplacesShownNotification() {
+        shown.add("Summary", 12, 5000);
+        assertEquals(12, shown.getReplacesId("Summary", 4999));
+        assertEquals(0, shown.getReplacesId("Other", 4999));
+    }
+
+    @Test
+    public void testDoesNotReplaceExpiredNotification() {
+        shown.add("Summary", 12, 5000);
+        assertEquals(0, shown.getReplacesId("Summary", 5000));
+        assertEquals(0, shown.size());
+    }
+
+    @Test
+    public void testLatestIdIsReplaced() {
+        shown.add("Summary", 12, 5000);
+        shown.add("Summary", 13, 6000);
+        assertEquals(13, shown.getReplacesId("Summary", 5500));
+    }
+
+    @Test
+    public void testForgetsLeastRecentlyUsed() {
+        shown.add("One", 1, 5000);
+        shown.add("Two", 2, 5000);
+        shown.getReplacesId("One", 1000);
+        shown.add("Three", 3, 5000);
+        assertEquals(2, shown.size());
+        assertEquals(1, shown.getReplacesId("One", 1000));
+        assertEquals(0, shown.getReplacesId("Two", 1000));
+        assertEquals(3, shown.getReplacesId("Three", 1000));
+    }
+
+    @Test
+    public void testClear() {
+        shown.add("Summary", 12, 5000);
+        shown.clear();
+        assertEquals(0, shown.getReplacesId("Summary", 1000));
+    }
+
+}
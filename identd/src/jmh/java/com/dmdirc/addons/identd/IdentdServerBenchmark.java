@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.dmdirc.addons.identd;
+
+import com.dmdirc.config.provider.AggregateConfigProvider;
+import com.dmdirc.interfaces.Connection;
+import com.dmdirc.interfaces.ConnectionManager;
+import com.dmdirc.parser.interfaces.Parser;
+import com.dmdirc.util.system.SystemInfo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Measures the number of ident queries per second the {@link IdentdServer} can answer for a client on the loopback
+ * interface, both with a new connection per query (as IRC servers do) and with queries pipelined on one connection.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class IdentdServerBenchmark {
+
+    private static final String DOMAIN = "plugin-Identd";
+    private static final int BATCH_SIZE = 100;
+    private static final int FIRST_PORT = 10000;
+
+    @Param({"1", "100"})
+    private int connections;
+
+    private IdentdServer server;
+    private Socket pipelinedSocket;
+    private BufferedReader pipelinedReader;
+    private byte[] batch;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void startServer() throws IOException {
+        final AggregateConfigProvider config = mock(AggregateConfigProvider.class,
+                withSettings().stubOnly());
+        when(config.getOptionInt(DOMAIN, "advanced.port")).thenReturn(0);
+        when(config.getOptionInt(DOMAIN, "advanced.maxConnections")).thenReturn(1024);
+        when(config.getOptionInt(DOMAIN, "advanced.readTimeout")).thenReturn(60);
+        when(config.getOptionInt(DOMAIN, "advanced.sourceRate")).thenReturn(Integer.MAX_VALUE);
+        when(config.getOptionInt(DOMAIN, "advanced.sourceBurst")).thenReturn(Integer.MAX_VALUE);
+        when(config.getOptionBool(DOMAIN, "general.useCustomName")).thenReturn(true);
+        when(config.getOption(DOMAIN, "general.customName")).thenReturn("benchmark");
+
+        final SystemInfo systemInfo = mock(SystemInfo.class, withSettings().stubOnly());
+        when(systemInfo.getProperty("os.name")).thenReturn("linux");
+
+        final List<Connection> servers = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            // Stub only, so recorded invocations don't accumulate over the run.
+            final Parser parser = mock(Parser.class, withSettings().stubOnly());
+            when(parser.getLocalPort()).thenReturn(FIRST_PORT + i);
+            final Connection connection = mock(Connection.class, withSettings().stubOnly());
+            when(connection.getParser()).thenReturn(Optional.of(parser));
+            servers.add(connection);
+        }
+        final ConnectionManager connectionManager = mock(ConnectionManager.class);
+        when(connectionManager.getConnections()).thenReturn(servers);
+        final ConnectionPortIndex portIndex = new ConnectionPortIndex(connectionManager);
+        portIndex.reset();
+
+        server = new IdentdServer(portIndex, config, DOMAIN, systemInfo);
+        server.startServer();
+
+        final StringBuilder requests = new StringBuilder();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            requests.append(FIRST_PORT + i % connections).append(", 6667\r\n");
+        }
+        batch = requests.toString().getBytes(StandardCharsets.ISO_8859_1);
+        pipelinedSocket = connect();
+        pipelinedReader = reader(pipelinedSocket);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() throws IOException {
+        pipelinedSocket.close();
+        server.stopServer();
+    }
+
+    @Benchmark
+    public String connectionPerQuery() throws IOException {
+        next = (next + 1) % connections;
+        try (Socket socket = connect()) {
+            final OutputStream out = socket.getOutputStream();
+            out.write(((FIRST_PORT + next) + ", 6667\r\n").getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            return reader(socket).readLine();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public String pipelined() throws IOException {
+        final OutputStream out = pipelinedSocket.getOutputStream();
+        out.write(batch);
+        out.flush();
+        String response = null;
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            response = pipelinedReader.readLine();
+        }
+        return response;
+    }
+
+    private Socket connect() throws IOException {
+        final Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+        // Reset rather than close, so thousands of sockets don't pile up in TIME_WAIT.
+        socket.setSoLinger(true, 0);
+        return socket;
+    }
+
+    private static BufferedReader reader(final Socket socket) throws IOException {
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                StandardCharsets.ISO_8859_1));
+    }
+
+}
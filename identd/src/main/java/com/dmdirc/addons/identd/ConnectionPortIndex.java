@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.dmdirc.addons.identd;
+
+import com.dmdirc.interfaces.Connection;
+import com.dmdirc.interfaces.ConnectionManager;
+import com.dmdirc.parser.interfaces.Parser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Index of connections by the local port they are connected from.
+ *
+ * <p>A connection's local port isn't known until its socket has connected, which is usually only just before the
+ * server sends its ident query. Connections whose port isn't known yet are kept aside and checked when a lookup misses,
+ * so lookups never have to scan every connection the client has open.
+ */
+@Singleton
+public class ConnectionPortIndex {
+
+    /** Server manager to build the initial index from. */
+    private final ConnectionManager connectionManager;
+    /** Map of local ports to the connections using them. */
+    private final Map<Integer, Connection> connections = new HashMap<>();
+    /** Map of connections to the local port they were indexed under. */
+    private final Map<Connection, Integer> ports = new HashMap<>();
+    /** Connections whose local port wasn't known when they were added. */
+    private final Set<Connection> pending = new HashSet<>();
+
+    @Inject
+    public ConnectionPortIndex(final ConnectionManager connectionManager) {
+        this.connectionManager = connectionManager;
+    }
+
+    /**
+     * Discards the index, and rebuilds it from the connections the client currently has.
+     */
+    public synchronized void reset() {
+        clear();
+        connectionManager.getConnections().forEach(this::update);
+    }
+
+    /**
+     * Discards the index.
+     */
+    public synchronized void clear() {
+        connections.clear();
+        ports.clear();
+        pending.clear();
+    }
+
+    /**
+     * Adds a connection to the index, or updates it if the connection's local port may have changed.
+     *
+     * @param connection The connection to add
+     */
+    public synchronized void update(final Connection connection) {
+        remove(connection);
+        if (!index(connection)) {
+            pending.add(connection);
+        }
+    }
+
+    /**
+     * Removes a connection from the index.
+     *
+     * @param connection The connection to remove
+     */
+    public synchronized void remove(final Connection connection) {
+        pending.remove(connection);
+        final Integer port = ports.remove(connection);
+        if (port != null) {
+            connections.remove(port, connection);
+        }
+    }
+
+    /**
+     * Retrieves the connection that is using the specified local port.
+     *
+     * @param port The local port to look up
+     *
+     * @return The connection using the port, or {@code null} if there isn't one
+     */
+    public synchronized Connection get(final int port) {
+        final Connection connection = connections.get(port);
+        if (connection != null && getLocalPort(connection) == port) {
+            return connection;
+        }
+        if (connection != null) {
+            // The connection has reconnected from a different port without us being told.
+            remove(connection);
+            pending.add(connection);
+        }
+
+        for (Connection candidate : new ArrayList<>(pending)) {
+            if (index(candidate)) {
+                pending.remove(candidate);
+            }
+        }
+        return connections.get(port);
+    }
+
+    /**
+     * Returns the number of connections that are waiting for their local port to be known.
+     *
+     * @return The number of pending connections
+     */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Indexes the connection under its current local port, if it's known.
+     *
+     * @param connection The connection to index
+     *
+     * @return True if the connection was indexed, false if its port isn't known
+     */
+    private boolean index(final Connection connection) {
+        final int port = getLocalPort(connection);
+        if (port <= 0) {
+            return false;
+        }
+        final Connection previous = connections.put(port, connection);
+        if (previous != null && previous != connection) {
+            ports.remove(previous);
+            pending.add(previous);
+        }
+        ports.put(connection, port);
+        return true;
+    }
+
+    private static int getLocalPort(final Connection connection) {
+        return connection.getParser().map(Parser::getLocalPort).orElse(-1);
+    }
+
+}
@@ -20,82 +20,153 @@ package com.dmdirc.addons.identd;
 import com.dmdirc.config.provider.AggregateConfigProvider;
 import com.dmdirc.config.provider.ReadOnlyConfigProvider;
 import com.dmdirc.interfaces.Connection;
-import com.dmdirc.interfaces.ConnectionManager;
 import com.dmdirc.interfaces.User;
-import com.dmdirc.util.LogUtils;
 import com.dmdirc.util.io.StreamUtils;
 import com.dmdirc.util.system.SystemInfo;
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
-import java.net.Socket;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * The IdentClient responds to an ident request.
+ * The IdentClient holds the state of a single connection to the ident server, and responds to the requests made on
+ * it. It doesn't block or own a thread; the server reads and writes it when its channel is ready.
  */
-public class IdentClient implements Runnable {
-
-    private static final Logger LOG = LoggerFactory.getLogger(IdentClient.class);
-    /** The IdentdServer that owns this Client. */
-    private final IdentdServer server;
-    /** The Socket that we are in charge of. */
-    private final Socket socket;
-    /** The Thread in use for this client. */
-    private volatile Thread thread;
-    /** Server manager. */
-    private final ConnectionManager connectionManager;
+public class IdentClient {
+
+    /** The longest request we will accept, in bytes. */
+    private static final int MAX_REQUEST_LENGTH = 1024;
+    /** The character set requests and responses are encoded in. */
+    private static final Charset CHARSET = StandardCharsets.ISO_8859_1;
+    /** The channel that we are in charge of. */
+    private final SocketChannel channel;
+    /** Index of connections by their local port. */
+    private final ConnectionPortIndex portIndex;
     /** Global configuration to read settings from. */
     private final AggregateConfigProvider config;
     /** This plugin's settings domain. */
     private final String domain;
     /** System wrapper to use. */
     private final SystemInfo systemInfo;
+    /** Buffer of data read from the client that doesn't yet form a complete request. */
+    private final ByteBuffer input = ByteBuffer.allocate(MAX_REQUEST_LENGTH);
+    /** Buffer of responses that haven't yet been written to the client. */
+    private ByteBuffer output = ByteBuffer.allocate(0);
+    /** Whether the client has finished sending requests. */
+    private boolean endOfInput;
+    /** The time the client last sent us anything, in milliseconds. */
+    private long lastActivity;
 
     /**
      * Create the IdentClient.
      */
-    public IdentClient(final IdentdServer server, final Socket socket,
-            final ConnectionManager connectionManager, final AggregateConfigProvider config,
-            final String domain, final SystemInfo systemInfo) {
-        this.server = server;
-        this.socket = socket;
-        this.connectionManager = connectionManager;
+    public IdentClient(final SocketChannel channel, final ConnectionPortIndex portIndex,
+            final AggregateConfigProvider config, final String domain, final SystemInfo systemInfo) {
+        this.channel = channel;
+        this.portIndex = portIndex;
         this.config = config;
         this.domain = domain;
         this.systemInfo = systemInfo;
     }
 
     /**
-     * Starts this ident client in a new thread.
+     * Reads whatever data is available from the client, and returns any complete requests that have been received.
+     * If the client has closed its side of the connection, any trailing unterminated request is also returned.
+     *
+     * @return The requests received, in the order they were sent
+     *
+     * @throws IOException If the channel couldn't be read, or the client sent an overlong request
      */
-    public void start() {
-        thread = new Thread(this);
-        thread.start();
+    public List<String> read() throws IOException {
+        if (channel.read(input) < 0) {
+            endOfInput = true;
+        }
+
+        final List<String> requests = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < input.position(); i++) {
+            if (input.get(i) == '\n') {
+                requests.add(decode(start, i));
+                start = i + 1;
+            }
+        }
+        if (endOfInput && start < input.position()) {
+            requests.add(decode(start, input.position()));
+            start = input.position();
+        }
+
+        input.flip();
+        input.position(start);
+        input.compact();
+        if (!input.hasRemaining()) {
+            throw new IOException("Request too long");
+        }
+        return requests;
     }
 
     /**
-     * Process this connection.
+     * Queues the response to the given request to be written to the client.
+     *
+     * @param request The request to respond to
      */
-    @Override
-    public void run() {
-        final Thread thisThread = Thread.currentThread();
-        try (PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
-                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
-            final String inputLine;
-            if ((inputLine = in.readLine()) != null) {
-                out.println(getIdentResponse(inputLine, config));
-            }
-        } catch (IOException e) {
-            if (thisThread == thread) {
-                LOG.error(LogUtils.USER_ERROR, "ClientSocket Error: {}", e.getMessage(), e);
-            }
-        } finally {
-            StreamUtils.close(socket);
-            server.delClient(this);
+    public void respond(final String request) {
+        final byte[] response = (getIdentResponse(request, config) + "\r\n").getBytes(CHARSET);
+        if (output.hasRemaining()) {
+            final ByteBuffer combined = ByteBuffer.allocate(output.remaining() + response.length);
+            combined.put(output).put(response).flip();
+            output = combined;
+        } else {
+            output = ByteBuffer.wrap(response);
+        }
+    }
+
+    /**
+     * Writes as many of the queued responses as the channel will currently accept.
+     *
+     * @return True if all responses have been written, false if some are still queued
+     *
+     * @throws IOException If the channel couldn't be written
+     */
+    public boolean write() throws IOException {
+        if (output.hasRemaining()) {
+            channel.write(output);
         }
+        return !output.hasRemaining();
+    }
+
+    /**
+     * Determines whether the client has finished sending requests.
+     *
+     * @return True if the client has closed its side of the connection
+     */
+    public boolean isEndOfInput() {
+        return endOfInput;
+    }
+
+    /**
+     * Returns the address of the client.
+     *
+     * @return The client's address
+     */
+    public InetAddress getAddress() {
+        return channel.socket().getInetAddress();
+    }
+
+    public long getLastActivity() {
+        return lastActivity;
+    }
+
+    public void setLastActivity(final long lastActivity) {
+        this.lastActivity = lastActivity;
+    }
+
+    private String decode(final int start, final int end) {
+        final int length = end > start && input.get(end - 1) == '\r' ? end - start - 1 : end - start;
+        return new String(input.array(), start, length, CHARSET);
     }
 
     /**
@@ -127,7 +198,7 @@ public class IdentClient implements Runnable {
             return String.format("%d , %d : ERROR : INVALID-PORT", myPort, theirPort);
         }
 
-        final Connection connection = getConnectionByPort(myPort);
+        final Connection connection = portIndex.get(myPort);
         if (!config.getOptionBool(domain, "advanced.alwaysOn") && (connection == null
                 || config.getOptionBool(domain, "advanced.isNoUser"))) {
             return String.format("%d , %d : ERROR : NO-USER", myPort, theirPort);
@@ -210,30 +281,7 @@ public class IdentClient implements Runnable {
      * Close this IdentClient.
      */
     public void close() {
-        if (thread != null) {
-            final Thread tmpThread = thread;
-            thread = null;
-            if (tmpThread != null) {
-                tmpThread.interrupt();
-            }
-            StreamUtils.close(socket);
-        }
-    }
-
-    /**
-     * Retrieves the server that is bound to the specified local port.
-     *
-     * @param port Port to check for
-     *
-     * @return The server instance listening on the given port
-     */
-    protected Connection getConnectionByPort(final int port) {
-        for (Connection connection : connectionManager.getConnections()) {
-            if (connection.getParser().get().getLocalPort() == port) {
-                return connection;
-            }
-        }
-        return null;
+        StreamUtils.close(channel);
     }
 
 }
@@ -27,11 +27,13 @@ import com.dmdirc.events.ClientPrefsOpenedEvent;
 import com.dmdirc.events.ServerConnectErrorEvent;
 import com.dmdirc.events.ServerConnectedEvent;
 import com.dmdirc.events.ServerConnectingEvent;
+import com.dmdirc.events.ServerDisconnectedEvent;
 import com.dmdirc.interfaces.Connection;
 import com.dmdirc.events.eventbus.EventBus;
 import com.dmdirc.config.provider.AggregateConfigProvider;
 import com.dmdirc.plugins.PluginDomain;
 import com.dmdirc.plugins.PluginInfo;
+import com.dmdirc.util.validators.NumericalValidator;
 import com.dmdirc.util.validators.PortValidator;
 import java.util.ArrayList;
 import java.util.List;
@@ -48,6 +50,8 @@ public class IdentdManager {
     private final String domain;
     /** Ident server. */
     private final IdentdServer server;
+    /** Index of connections by their local port. */
+    private final ConnectionPortIndex portIndex;
     /** Event bus to subscribe to events on. */
     private final EventBus eventBus;
     private final PluginInfo pluginInfo;
@@ -56,12 +60,14 @@ public class IdentdManager {
     public IdentdManager(@GlobalConfig final AggregateConfigProvider config,
             @PluginDomain(IdentdPlugin.class) final String domain,
             @PluginDomain(IdentdPlugin.class) final PluginInfo pluginInfo,
-            final IdentdServer server, final EventBus eventBus) {
+            final IdentdServer server, final ConnectionPortIndex portIndex,
+            final EventBus eventBus) {
         this.pluginInfo = pluginInfo;
         connections = new ArrayList<>();
         this.config = config;
         this.domain = domain;
         this.server = server;
+        this.portIndex = portIndex;
         this.eventBus = eventBus;
     }
 
@@ -69,6 +75,7 @@ public class IdentdManager {
      * Called when the plugin is loaded.
      */
     public void onLoad() {
+        portIndex.reset();
         eventBus.subscribe(this);
 
         if (config.getOptionBool(domain, "advanced.alwaysOn")) {
@@ -83,10 +90,12 @@ public class IdentdManager {
         eventBus.unsubscribe(this);
         server.stopServer();
         connections.clear();
+        portIndex.clear();
     }
 
     @Handler
     public void handleServerConnecting(final ServerConnectingEvent event) {
+        portIndex.update(event.getConnection());
         synchronized (connections) {
             if (connections.isEmpty()) {
                 server.startServer();
@@ -97,14 +106,21 @@ public class IdentdManager {
 
     @Handler
     public void handleServerConnected(final ServerConnectedEvent event) {
+        portIndex.update(event.getConnection());
         handleServerRemoved(event.getConnection());
     }
 
     @Handler
     public void handleServerConnectError(final ServerConnectErrorEvent event) {
+        portIndex.remove(event.getConnection());
         handleServerRemoved(event.getConnection());
     }
 
+    @Handler
+    public void handleServerDisconnected(final ServerDisconnectedEvent event) {
+        portIndex.remove(event.getConnection());
+    }
+
     private void handleServerRemoved(final Connection connection) {
         synchronized (connections) {
             connections.remove(connection);
@@ -161,6 +177,26 @@ public class IdentdManager {
                 + " this is probably useless if changed unless you port forward"
                 + " ident to a different port", manager.getConfigManager(),
                 manager.getIdentity()));
+        advanced.addSetting(new PreferencesSetting(PreferencesType.INTEGER,
+                new NumericalValidator(1, Integer.MAX_VALUE), domain, "advanced.maxConnections",
+                "Maximum connections", "The maximum number of ident requests"
+                + " that will be served at once", manager.getConfigManager(),
+                manager.getIdentity()));
+        advanced.addSetting(new PreferencesSetting(PreferencesType.INTEGER,
+                new NumericalValidator(1, Integer.MAX_VALUE), domain, "advanced.readTimeout",
+                "Read timeout", "The number of seconds a connection may stay"
+                + " idle before it is closed", manager.getConfigManager(),
+                manager.getIdentity()));
+        advanced.addSetting(new PreferencesSetting(PreferencesType.INTEGER,
+                new NumericalValidator(1, Integer.MAX_VALUE), domain, "advanced.sourceRate",
+                "Requests per minute", "The number of ident requests each"
+                + " address may make per minute", manager.getConfigManager(),
+                manager.getIdentity()));
+        advanced.addSetting(new PreferencesSetting(PreferencesType.INTEGER,
+                new NumericalValidator(1, Integer.MAX_VALUE), domain, "advanced.sourceBurst",
+                "Request burst", "The number of ident requests each address"
+                + " may make at once", manager.getConfigManager(),
+                manager.getIdentity()));
         advanced.addSetting(new PreferencesSetting(PreferencesType.BOOLEAN,
                 domain, "advanced.useCustomSystem", "Use custom OS",
                 "By default the plugin uses 'UNIX' or 'WIN32' as the system "
@@ -14,19 +14,21 @@
  * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
  * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  */
-
 package com.dmdirc.addons.identd;
 
 import com.dmdirc.config.GlobalConfig;
-import com.dmdirc.interfaces.ConnectionManager;
 import com.dmdirc.config.provider.AggregateConfigProvider;
 import com.dmdirc.plugins.PluginDomain;
+import com.dmdirc.util.io.StreamUtils;
 import com.dmdirc.util.system.SystemInfo;
 import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.util.ArrayList;
-import java.util.List;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
 import javax.inject.Inject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,19 +36,22 @@ import org.slf4j.LoggerFactory;
 import static com.dmdirc.util.LogUtils.USER_ERROR;
 
 /**
- * The IdentdServer watches over the ident port when required
+ * The IdentdServer watches over the ident port when required.
+ *
+ * <p>All clients are served from a single selector thread. The number of simultaneous clients is capped, each source
+ * address is rate limited, and clients that stay idle for longer than the read timeout are disconnected.
  */
-public final class IdentdServer implements Runnable {
+public final class IdentdServer {
 
     private static final Logger LOG = LoggerFactory.getLogger(IdentdServer.class);
-    /** The Thread in use for this server */
-    private volatile Thread myThread;
-    /** The current socket in use for this server */
-    private ServerSocket serverSocket;
-    /** Arraylist of all the clients we have */
-    private final List<IdentClient> clientList = new ArrayList<>();
-    /** Server manager. */
-    private final ConnectionManager connectionManager;
+    /** How often to check for clients that have timed out, in milliseconds. */
+    private static final long SWEEP_INTERVAL = 1000;
+    /** How long to wait for the server to stop, in milliseconds. */
+    private static final long STOP_TIMEOUT = 1000;
+    /** The listener that is currently running, if any. */
+    private volatile Listener listener;
+    /** Index of connections by their local port. */
+    private final ConnectionPortIndex portIndex;
     /** Have we failed to start this server previously? */
     private boolean failed;
     /** Global configuration to read plugin's from. */
@@ -59,118 +64,243 @@ public final class IdentdServer implements Runnable {
     /**
      * Create the IdentdServer.
      *
-     * @param connectionManager Server manager to iterate over servers
+     * @param portIndex     Index of connections by their local port
      * @param config        Global config
      * @param domain        This plugin's setting domain
      */
     @Inject
-    public IdentdServer(final ConnectionManager connectionManager,
+    public IdentdServer(final ConnectionPortIndex portIndex,
             @GlobalConfig final AggregateConfigProvider config,
             @PluginDomain(IdentdPlugin.class) final String domain,
             final SystemInfo systemInfo) {
-        this.connectionManager = connectionManager;
+        this.portIndex = portIndex;
         this.config = config;
         this.domain = domain;
         this.systemInfo = systemInfo;
     }
 
     /**
-     * Run this IdentdServer.
+     * Check if the server is currently running
+     *
+     * @return True if the server is running
      */
-    @Override
-    public void run() {
-        final Thread thisThread = Thread.currentThread();
-        while (myThread == thisThread) {
-            try {
-                final Socket clientSocket = serverSocket.accept();
-                final IdentClient client = new IdentClient(this, clientSocket, connectionManager,
-                        config, domain, systemInfo);
-                client.start();
-                addClient(client);
-            } catch (IOException e) {
-                if (myThread == thisThread) {
-                    LOG.error(USER_ERROR, "Accepting client failed: {}", e.getMessage(), e);
-                }
-            }
-        }
+    public boolean isRunning() {
+        return listener != null;
     }
 
     /**
-     * Add an IdentClient to the clientList
+     * Returns the local port the server is listening on.
      *
-     * @param client Client to add
+     * @return The port being listened on, or -1 if the server isn't running
      */
-    public void addClient(final IdentClient client) {
-        synchronized (clientList) {
-            clientList.add(client);
-        }
+    public int getLocalPort() {
+        final Listener current = listener;
+        return current == null ? -1 : current.serverChannel.socket().getLocalPort();
     }
 
     /**
-     * Remove an IdentClient from the clientList
-     *
-     * @param client Client to remove
+     * Start the ident server
      */
-    public void delClient(final IdentClient client) {
-        synchronized (clientList) {
-            for (int i = 0; i < clientList.size(); ++i) {
-                if (clientList.get(i) == client) {
-                    clientList.remove(i);
-                    break;
+    public synchronized void startServer() {
+        if (!failed && listener == null) {
+            Selector selector = null;
+            ServerSocketChannel serverChannel = null;
+            try {
+                final int identPort = config.getOptionInt(domain, "advanced.port");
+                selector = Selector.open();
+                serverChannel = ServerSocketChannel.open();
+                serverChannel.configureBlocking(false);
+                serverChannel.bind(new InetSocketAddress(identPort));
+                serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+                listener = new Listener(selector, serverChannel,
+                        config.getOptionInt(domain, "advanced.maxConnections"),
+                        TimeUnit.SECONDS.toMillis(config.getOptionInt(domain, "advanced.readTimeout")),
+                        new SourceRateLimiter(System::currentTimeMillis,
+                                config.getOptionInt(domain, "advanced.sourceRate"),
+                                config.getOptionInt(domain, "advanced.sourceBurst")));
+                listener.thread.start();
+            } catch (IOException e) {
+                LOG.error(USER_ERROR, "Unable to start identd server: {}", e.getMessage(), e);
+                StreamUtils.close(serverChannel);
+                StreamUtils.close(selector);
+                if ("Permission denied".equals(e.getMessage())) {
+                    failed = true;
                 }
             }
         }
     }
 
     /**
-     * Check if the server is currently running
-     *
-     * @return True if the server is running
+     * Stop the ident server
      */
-    public boolean isRunning() {
-        return myThread != null;
+    public synchronized void stopServer() {
+        if (listener != null) {
+            final Listener tmpListener = listener;
+            listener = null;
+            tmpListener.stop();
+        }
     }
 
     /**
-     * Start the ident server
+     * Accepts and serves clients on a single thread until it is stopped.
      */
-    public void startServer() {
-        if (!failed && myThread == null) {
+    private class Listener implements Runnable {
+
+        /** The thread the listener runs on. */
+        private final Thread thread;
+        /** The selector used to wait for clients. */
+        private final Selector selector;
+        /** The channel clients connect to. */
+        private final ServerSocketChannel serverChannel;
+        /** The maximum number of clients that may be connected at once. */
+        private final int maxConnections;
+        /** The time a client may go without sending anything before it's disconnected, in milliseconds. */
+        private final long readTimeout;
+        /** Limiter for requests from each source. */
+        private final SourceRateLimiter rateLimiter;
+        /** Whether the listener has been asked to stop. */
+        private volatile boolean stopped;
+        /** The number of clients currently connected. */
+        private int clientCount;
+        /** The next time to check for clients that have timed out. */
+        private long nextSweep;
+
+        Listener(final Selector selector, final ServerSocketChannel serverChannel,
+                final int maxConnections, final long readTimeout, final SourceRateLimiter rateLimiter) {
+            this.selector = selector;
+            this.serverChannel = serverChannel;
+            this.maxConnections = maxConnections;
+            this.readTimeout = readTimeout;
+            this.rateLimiter = rateLimiter;
+            this.thread = new Thread(this, "Identd server");
+        }
+
+        /**
+         * Stops the listener, and waits briefly for it to release the port.
+         */
+        void stop() {
+            stopped = true;
+            selector.wakeup();
             try {
-                final int identPort = config.getOptionInt(domain, "advanced.port");
-                serverSocket = new ServerSocket(identPort);
-                myThread = new Thread(this);
-                myThread.start();
+                thread.join(STOP_TIMEOUT);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!stopped) {
+                    selector.select(SWEEP_INTERVAL);
+                    final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        final SelectionKey key = keys.next();
+                        keys.remove();
+                        if (key.isValid()) {
+                            handle(key);
+                        }
+                    }
+                    sweep();
+                }
             } catch (IOException e) {
-                LOG.error(USER_ERROR, "Unable to start identd server: {}", e.getMessage(), e);
-                if ("Permission denied".equals(e.getMessage())) {
-                    failed = true;
+                if (!stopped) {
+                    LOG.error(USER_ERROR, "Identd server failed: {}", e.getMessage(), e);
                 }
+            } finally {
+                selector.keys().forEach(this::close);
+                StreamUtils.close(serverChannel);
+                StreamUtils.close(selector);
             }
         }
-    }
 
-    /**
-     * Stop the ident server
-     */
-    public void stopServer() {
-        if (myThread != null) {
-            final Thread tmpThread = myThread;
-            myThread = null;
-            if (tmpThread != null) {
-                tmpThread.interrupt();
+        private void handle(final SelectionKey key) throws IOException {
+            if (key.isAcceptable()) {
+                accept();
+                return;
             }
+
+            final IdentClient client = (IdentClient) key.attachment();
             try {
-                serverSocket.close();
+                if (key.isReadable()) {
+                    client.setLastActivity(System.currentTimeMillis());
+                    for (String request : client.read()) {
+                        if (!rateLimiter.tryAcquire(client.getAddress())) {
+                            LOG.info("Dropping ident client {}: too many requests", client.getAddress());
+                            close(key);
+                            return;
+                        }
+                        client.respond(request);
+                    }
+                }
+                final boolean flushed = client.write();
+                if (flushed && client.isEndOfInput()) {
+                    close(key);
+                } else {
+                    key.interestOps((client.isEndOfInput() ? 0 : SelectionKey.OP_READ)
+                            | (flushed ? 0 : SelectionKey.OP_WRITE));
+                }
             } catch (IOException e) {
-                LOG.info("Unable to close socket: {}", e.getMessage(), e);
+                LOG.debug("Ident client error: {}", e.getMessage(), e);
+                close(key);
             }
+        }
 
-            synchronized (clientList) {
-                clientList.forEach(IdentClient::close);
-                clientList.clear();
+        private void accept() throws IOException {
+            SocketChannel channel;
+            while ((channel = serverChannel.accept()) != null) {
+                if (clientCount >= maxConnections) {
+                    LOG.info("Rejecting ident client {}: too many connections",
+                            channel.socket().getInetAddress());
+                    StreamUtils.close(channel);
+                    continue;
+                }
+                try {
+                    channel.configureBlocking(false);
+                    // Responses are always complete, so there's nothing to gain from waiting to coalesce them.
+                    channel.socket().setTcpNoDelay(true);
+                    final IdentClient client = new IdentClient(channel, portIndex, config, domain,
+                            systemInfo);
+                    client.setLastActivity(System.currentTimeMillis());
+                    channel.register(selector, SelectionKey.OP_READ, client);
+                    clientCount++;
+                } catch (IOException e) {
+                    LOG.debug("Unable to accept ident client: {}", e.getMessage(), e);
+                    StreamUtils.close(channel);
+                }
             }
         }
+
+        /**
+         * Disconnects any clients that have timed out, and forgets sources that are no longer limited.
+         */
+        private void sweep() {
+            final long now = System.currentTimeMillis();
+            if (now < nextSweep) {
+                return;
+            }
+            nextSweep = now + SWEEP_INTERVAL;
+            for (SelectionKey key : selector.keys()) {
+                final Object attachment = key.attachment();
+                if (attachment instanceof IdentClient
+                        && now - ((IdentClient) attachment).getLastActivity() >= readTimeout) {
+                    LOG.debug("Ident client {} timed out", ((IdentClient) attachment).getAddress());
+                    close(key);
+                }
+            }
+            rateLimiter.prune();
+        }
+
+        private void close(final SelectionKey key) {
+            key.cancel();
+            if (key.attachment() instanceof IdentClient) {
+                ((IdentClient) key.attachment()).close();
+                key.attach(null);
+                clientCount--;
+            }
+        }
+
     }
 
 }
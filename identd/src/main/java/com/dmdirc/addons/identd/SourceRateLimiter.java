@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.dmdirc.addons.identd;
+
+import java.net.InetAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the rate of ident queries accepted from each source address. Each source has a token bucket that fills at a
+ * fixed rate up to a maximum burst size, and each query consumes one token.
+ *
+ * <p>This class is not thread safe; it is only used from the ident server's selector thread.
+ */
+public class SourceRateLimiter {
+
+    /** Supplier of the current time, in milliseconds. */
+    private final LongSupplier clock;
+    /** The maximum number of tokens each source can hold. */
+    private final double capacity;
+    /** The number of milliseconds it takes a source to gain a token. */
+    private final double millisPerToken;
+    /** The buckets for each source we've seen recently. */
+    private final Map<InetAddress, Bucket> buckets = new HashMap<>();
+
+    /**
+     * Creates a new rate limiter.
+     *
+     * @param clock         Supplier of the current time, in milliseconds.
+     * @param ratePerMinute The number of queries each source may make each minute.
+     * @param burst         The number of queries each source may make at once.
+     */
+    public SourceRateLimiter(final LongSupplier clock, final int ratePerMinute, final int burst) {
+        this.clock = clock;
+        this.capacity = Math.max(1, burst);
+        this.millisPerToken = 60000.0 / Math.max(1, ratePerMinute);
+    }
+
+    /**
+     * Attempts to take a token for a query from the given source.
+     *
+     * @param source The address the query came from
+     *
+     * @return True if the query is permitted, false if the source has exceeded its rate
+     */
+    public boolean tryAcquire(final InetAddress source) {
+        final long now = clock.getAsLong();
+        final Bucket bucket = buckets.computeIfAbsent(source, s -> new Bucket(capacity, now));
+        bucket.refill(now);
+        if (bucket.tokens >= 1) {
+            bucket.tokens--;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Forgets any sources whose buckets have refilled, as they are no different to sources we haven't seen.
+     */
+    public void prune() {
+        final long now = clock.getAsLong();
+        buckets.values().removeIf(bucket -> {
+            bucket.refill(now);
+            return bucket.tokens >= capacity;
+        });
+    }
+
+    /**
+     * Returns the number of sources currently being tracked.
+     *
+     * @return The number of tracked sources
+     */
+    public int getSourceCount() {
+        return buckets.size();
+    }
+
+    /**
+     * The tokens held for a single source.
+     */
+    private class Bucket {
+
+        /** The number of tokens currently available. */
+        private double tokens;
+        /** The time tokens were last added. */
+        private long lastRefill;
+
+        Bucket(final double tokens, final long lastRefill) {
+            this.tokens = tokens;
+            this.lastRefill = lastRefill;
+        }
+
+        void refill(final long now) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) / millisPerToken);
+            lastRefill = now;
+        }
+
+    }
+
+}
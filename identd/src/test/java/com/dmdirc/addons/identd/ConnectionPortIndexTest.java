@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.dmdirc.addons.identd;
+
+import com.dmdirc.interfaces.Connection;
+import com.dmdirc.interfaces.ConnectionManager;
+import com.dmdirc.parser.irc.IRCParser;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConnectionPortIndexTest {
+
+    @Mock private ConnectionManager connectionManager;
+    @Mock private Connection connection1;
+    @Mock private Connection connection2;
+    @Mock private IRCParser parser1;
+    @Mock private IRCParser parser2;
+    private ConnectionPortIndex index;
+
+    @Before
+    public void setUp() {
+        when(connection1.getParser()).thenReturn(Optional.of(parser1));
+        when(connection2.getParser()).thenReturn(Optional.of(parser2));
+        when(parser1.getLocalPort()).thenReturn(1000);
+        when(parser2.getLocalPort()).thenReturn(2000);
+        when(connectionManager.getConnections()).thenReturn(Arrays.asList(connection1, connection2));
+        index = new ConnectionPortIndex(connectionManager);
+    }
+
+    @Test
+    public void testResetIndexesExistingConnections() {
+        index.reset();
+
+        assertSame(connection1, index.get(1000));
+        assertSame(connection2, index.get(2000));
+        assertNull(index.get(3000));
+    }
+
+    @Test
+    public void testLookupDoesNotScanConnections() {
+        index.update(connection1);
+
+        assertSame(connection1, index.get(1000));
+        assertNull(index.get(2000));
+        verify(connectionManager, never()).getConnections();
+        verify(connection2, never()).getParser();
+    }
+
+    @Test
+    public void testPendingConnectionIndexedOnceConnected() {
+        when(parser1.getLocalPort()).thenReturn(0);
+        index.update(connection1);
+        assertEquals(1, index.getPendingCount());
+
+        when(parser1.getLocalPort()).thenReturn(1000);
+
+        assertSame(connection1, index.get(1000));
+        assertEquals(0, index.getPendingCount());
+    }
+
+    @Test
+    public void testChangedPortIsReindexed() {
+        index.update(connection1);
+        when(parser1.getLocalPort()).thenReturn(1001);
+
+        assertNull(index.get(1000));
+        assertSame(connection1, index.get(1001));
+    }
+
+    @Test
+    public void testRemove() {
+        index.update(connection1);
+        index.remove(connection1);
+
+        assertNull(index.get(1000));
+        assertEquals(0, index.getPendingCount());
+    }
+
+}
@@ -64,7 +64,9 @@ public class IdentClientTest {
         when(user.getNickname()).thenReturn("nickname");
         when(user.getUsername()).thenReturn(Optional.of("username"));
 
-        return new IdentClient(null, null, sm, config, "plugin-Identd", systemInfo);
+        final ConnectionPortIndex portIndex = new ConnectionPortIndex(sm);
+        portIndex.reset();
+        return new IdentClient(null, portIndex, config, "plugin-Identd", systemInfo);
     }
 
     @Test
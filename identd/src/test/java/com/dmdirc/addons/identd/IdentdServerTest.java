@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.dmdirc.addons.identd;
+
+import com.dmdirc.config.provider.AggregateConfigProvider;
+import com.dmdirc.interfaces.ConnectionManager;
+import com.dmdirc.util.system.SystemInfo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class IdentdServerTest {
+
+    private static final String DOMAIN = "plugin-Identd";
+
+    @Mock private AggregateConfigProvider config;
+    @Mock private ConnectionManager connectionManager;
+    @Mock private SystemInfo systemInfo;
+    private IdentdServer server;
+
+    @Before
+    public void setUp() {
+        when(connectionManager.getConnections()).thenReturn(Collections.emptyList());
+        when(config.getOptionInt(DOMAIN, "advanced.port")).thenReturn(0);
+        when(config.getOptionInt(DOMAIN, "advanced.maxConnections")).thenReturn(2);
+        when(config.getOptionInt(DOMAIN, "advanced.readTimeout")).thenReturn(1);
+        when(config.getOptionInt(DOMAIN, "advanced.sourceRate")).thenReturn(60);
+        when(config.getOptionInt(DOMAIN, "advanced.sourceBurst")).thenReturn(3);
+        when(config.getOptionBool(DOMAIN, "advanced.alwaysOn")).thenReturn(true);
+        when(systemInfo.getProperty("user.name")).thenReturn("test");
+        when(systemInfo.getProperty("os.name")).thenReturn("linux");
+
+        server = new IdentdServer(new ConnectionPortIndex(connectionManager), config, DOMAIN,
+                systemInfo);
+        server.startServer();
+    }
+
+    @After
+    public void tearDown() {
+        server.stopServer();
+    }
+
+    @Test
+    public void testStartAndStop() {
+        assertTrue(server.isRunning());
+        assertTrue(server.getLocalPort() > 0);
+
+        server.stopServer();
+
+        assertFalse(server.isRunning());
+        assertEquals(-1, server.getLocalPort());
+    }
+
+    @Test
+    public void testRespondsToRequest() throws IOException {
+        try (Client client = new Client()) {
+            client.send("50, 60\r\n");
+
+            assertEquals("50 , 60 : USERID : UNIX : test", client.readLine());
+        }
+    }
+
+    @Test
+    public void testRespondsToPipelinedRequests() throws IOException {
+        try (Client client = new Client()) {
+            client.send("50, 60\r\n51, 61\r\n52,");
+            client.send(" 62\r\n");
+
+            assertEquals("50 , 60 : USERID : UNIX : test", client.readLine());
+            assertEquals("51 , 61 : USERID : UNIX : test", client.readLine());
+            assertEquals("52 , 62 : USERID : UNIX : test", client.readLine());
+        }
+    }
+
+    @Test
+    public void testRespondsToUnterminatedRequest() throws IOException {
+        try (Client client = new Client()) {
+            client.send("50, 60");
+            client.socket.shutdownOutput();
+
+            assertEquals("50 , 60 : USERID : UNIX : test", client.readLine());
+            assertNull(client.readLine());
+        }
+    }
+
+    @Test
+    public void testConnectionsAreCapped() throws IOException {
+        try (Client client1 = new Client(); Client client2 = new Client()) {
+            client1.send("50, 60\r\n");
+            client2.send("50, 60\r\n");
+            client1.readLine();
+            client2.readLine();
+
+            try (Client client3 = new Client()) {
+                assertNull(client3.readLine());
+            }
+        }
+    }
+
+    @Test
+    public void testRequestsAreRateLimited() throws IOException {
+        try (Client client = new Client()) {
+            client.send("50, 60\r\n50, 60\r\n50, 60\r\n");
+            client.readLine();
+            client.readLine();
+            client.readLine();
+
+            client.send("50, 60\r\n");
+            assertNull(client.readLine());
+        }
+    }
+
+    @Test
+    public void testIdleClientsTimeOut() throws IOException {
+        try (Client client = new Client()) {
+            final long start = System.currentTimeMillis();
+
+            assertNull(client.readLine());
+            assertTrue(System.currentTimeMillis() - start < 4000);
+        }
+    }
+
+    private class Client implements AutoCloseable {
+
+        private final Socket socket;
+        private final BufferedReader reader;
+
+        Client() throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+            socket.setSoTimeout(5000);
+            reader = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.ISO_8859_1));
+        }
+
+        void send(final String data) throws IOException {
+            final OutputStream out = socket.getOutputStream();
+            out.write(data.getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+        }
+
+        String readLine() throws IOException {
+            return reader.readLine();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+
+    }
+
+}
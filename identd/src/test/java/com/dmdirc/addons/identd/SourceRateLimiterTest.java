@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.dmdirc.addons.identd;
+
+import java.net.InetAddress;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SourceRateLimiterTest {
+
+    private InetAddress source1;
+    private InetAddress source2;
+    private long time;
+    private SourceRateLimiter limiter;
+
+    @Before
+    public void setUp() throws Exception {
+        source1 = InetAddress.getByAddress(new byte[]{10, 0, 0, 1});
+        source2 = InetAddress.getByAddress(new byte[]{10, 0, 0, 2});
+        limiter = new SourceRateLimiter(() -> time, 60, 2);
+    }
+
+    @Test
+    public void testBurstIsLimited() {
+        assertTrue(limiter.tryAcquire(source1));
+        assertTrue(limiter.tryAcquire(source1));
+        assertFalse(limiter.tryAcquire(source1));
+    }
+
+    @Test
+    public void testSourcesAreLimitedSeparately() {
+        limiter.tryAcquire(source1);
+        limiter.tryAcquire(source1);
+
+        assertFalse(limiter.tryAcquire(source1));
+        assertTrue(limiter.tryAcquire(source2));
+    }
+
+    @Test
+    public void testTokensRefill() {
+        limiter.tryAcquire(source1);
+        limiter.tryAcquire(source1);
+        time += 1000;
+
+        assertTrue(limiter.tryAcquire(source1));
+        assertFalse(limiter.tryAcquire(source1));
+    }
+
+    @Test
+    public void testPruneForgetsRefilledSources() {
+        limiter.tryAcquire(source1);
+        limiter.tryAcquire(source2);
+        limiter.tryAcquire(source2);
+        time += 1000;
+
+        limiter.prune();
+
+        assertEquals(1, limiter.getSourceCount());
+    }
+
+}
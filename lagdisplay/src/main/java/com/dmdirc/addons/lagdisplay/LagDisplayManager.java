@@ -45,9 +45,8 @@ import com.dmdirc.config.provider.AggregateConfigProvider;
 import com.dmdirc.config.provider.ConfigChangeListener;
 import com.dmdirc.plugins.PluginDomain;
 import com.dmdirc.plugins.PluginInfo;
-import com.dmdirc.util.collections.RollingList;
+import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.WeakHashMap;
@@ -74,16 +73,17 @@ public class LagDisplayManager implements ConfigChangeListener {
     private final PluginInfo pluginInfo;
     /** Config to read global settings from. */
     private final AggregateConfigProvider globalConfig;
-    /** A cache of ping times. */
-    private final Map<Connection, String> pings = new WeakHashMap<>();
-    /** Ping history. */
-    private final Map<Connection, RollingList<Long>> history = new HashMap<>();
+    /** Lag recorders for each connection. */
+    private final Map<Connection, LagRecorder> recorders =
+            Collections.synchronizedMap(new WeakHashMap<>());
     /** Whether or not to show a graph in the info popup. */
     private boolean showGraph = true;
     /** Whether or not to show labels on that graph. */
     private boolean showLabels = true;
-    /** The length of history to keep per-server. */
+    /** The length of history to graph per-server. */
     private int historySize = 100;
+    /** The number of samples to retain per-server for statistics. */
+    private int retention = 8640;
     /** The panel currently in use. Null before {@link #load()} or after {@link #unload()}. */
     private LagDisplayPanel panel;
 
@@ -126,21 +126,34 @@ public class LagDisplayManager implements ConfigChangeListener {
         showGraph = globalConfig.getOptionBool(domain, "graph");
         showLabels = globalConfig.getOptionBool(domain, "labels");
         historySize = globalConfig.getOptionInt(domain, "history");
+        retention = globalConfig.getOptionInt(domain, "retention");
     }
 
     /**
-     * Retrieves the history of the specified server. If there is no history, a new list is added to
-     * the history map and returned.
+     * Retrieves the lag recorder for the specified server. If there is no recorder, a new one is
+     * created and returned.
+     *
+     * @param connection The connection whose recorder is being requested
+     *
+     * @return The recorder for the specified server
+     */
+    public LagRecorder getRecorder(final Connection connection) {
+        return recorders.computeIfAbsent(connection,
+                c -> new LagRecorder(Math.max(historySize, retention)));
+    }
+
+    /**
+     * Retrieves the recent history of the specified server, for graphing.
      *
      * @param connection The connection whose history is being requested
      *
-     * @return The history for the specified server
+     * @return The most recent lag values for the specified server, oldest first
      */
-    protected RollingList<Long> getHistory(final Connection connection) {
-        if (!history.containsKey(connection)) {
-            history.put(connection, new RollingList<>(historySize));
+    protected long[] getHistory(final Connection connection) {
+        if (connection == null) {
+            return new long[0];
         }
-        return history.get(connection);
+        return getRecorder(connection).getRecent(historySize);
     }
 
     /**
@@ -190,15 +203,13 @@ public class LagDisplayManager implements ConfigChangeListener {
         if (useAlternate && args[3].startsWith("LAGCHECK_")) {
             try {
                 final long sent = Long.parseLong(args[3].substring(9));
-                final Long duration = new Date().getTime() - sent;
-                final String value = formatTime(duration);
-                pings.put(event.getConnection(), value);
-                getHistory(event.getConnection()).add(duration);
+                final long now = new Date().getTime();
+                getRecorder(event.getConnection()).record(now, now - sent);
                 if (isActive) {
-                    panel.getComponent().setText(value);
+                    panel.getComponent().setText(getTime(event.getConnection()));
                 }
             } catch (NumberFormatException ex) {
-                pings.remove(event.getConnection());
+                getRecorder(event.getConnection()).clearCurrent();
             }
             event.setDisplayProperty(DisplayProperty.DO_NOT_DISPLAY, true);
 
@@ -209,12 +220,12 @@ public class LagDisplayManager implements ConfigChangeListener {
     @Handler
     public void handleServerDisconnected(final ServerDisconnectedEvent event) {
         final boolean isActive = isActiveWindow(event.getConnection());
+        getRecorder(event.getConnection()).clearCurrent();
         if (isActive) {
-                panel.getComponent().setText("Not connected");
-                pings.remove(event.getConnection());
-            }
+            panel.getComponent().setText("Not connected");
+        }
 
-            panel.refreshDialog();
+        panel.refreshDialog();
     }
 
     @Handler
@@ -224,13 +235,11 @@ public class LagDisplayManager implements ConfigChangeListener {
             return;
         }
         final boolean isActive = isActiveWindow(event.getConnection());
-        final String value = formatTime(event.getPing());
 
-        getHistory(event.getConnection()).add(event.getPing());
-        pings.put(event.getConnection(), value);
+        getRecorder(event.getConnection()).record(new Date().getTime(), event.getPing());
 
         if (isActive) {
-            panel.getComponent().setText(value);
+            panel.getComponent().setText(getTime(event.getConnection()));
         }
 
         panel.refreshDialog();
@@ -243,12 +252,11 @@ public class LagDisplayManager implements ConfigChangeListener {
             return;
         }
         final boolean isActive = isActiveWindow(event.getConnection());
-        final String value = formatTime(event.getPing()) + '+';
 
-        pings.put(event.getConnection(), value);
+        getRecorder(event.getConnection()).recordPending(event.getPing());
 
         if (isActive) {
-            panel.getComponent().setText(value);
+            panel.getComponent().setText(getTime(event.getConnection()));
         }
 
         panel.refreshDialog();
@@ -271,19 +279,21 @@ public class LagDisplayManager implements ConfigChangeListener {
      * @return A String representation of the current lag, or "Unknown"
      */
     public String getTime(final Connection connection) {
-        return pings.get(connection) == null ? "Unknown" : pings.get(connection);
+        final LagRecorder recorder = recorders.get(connection);
+        if (recorder == null || recorder.getCurrent() < 0) {
+            return "Unknown";
+        }
+        return formatTime(recorder.getCurrent()) + (recorder.isPending() ? "+" : "");
     }
 
     /**
      * Formats the specified time so it's a nice size to display in the label.
      *
-     * @param object An uncast Long representing the time to be formatted
+     * @param time The time to be formatted, in milliseconds
      *
      * @return Formatted time string
      */
-    protected String formatTime(final Object object) {
-        final Long time = (Long) object;
-
+    protected String formatTime(final long time) {
         if (time >= 10000) {
             return Math.round(time / 1000.0) + "s";
         } else {
@@ -326,6 +336,10 @@ public class LagDisplayManager implements ConfigChangeListener {
                 pluginInfo.getDomain(), "history", "Graph points", "Number of data points "
                 + "to plot on the graph, if enabled.",
                 manager.getConfigManager(), manager.getIdentity()));
+        cat.addSetting(new PreferencesSetting(PreferencesType.INTEGER,
+                pluginInfo.getDomain(), "retention", "Samples retained", "Number of lag "
+                + "samples to keep per server for the /lagstats command.",
+                manager.getConfigManager(), manager.getIdentity()));
         manager.getCategory("Plugins").addSubCategory(cat);
     }
 
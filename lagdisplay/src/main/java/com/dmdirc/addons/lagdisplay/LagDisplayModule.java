@@ -27,7 +27,7 @@ import dagger.Provides;
 /**
  * DI module for the lag display plugin.
  */
-@Module(injects = LagDisplayManager.class, addsTo = SwingModule.class)
+@Module(injects = {LagDisplayManager.class, LagStatsCommand.class}, addsTo = SwingModule.class)
 public class LagDisplayModule {
 
     private final PluginInfo pluginInfo;
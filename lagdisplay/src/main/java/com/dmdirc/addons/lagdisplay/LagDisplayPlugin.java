@@ -18,14 +18,14 @@
 package com.dmdirc.addons.lagdisplay;
 
 import com.dmdirc.plugins.PluginInfo;
-import com.dmdirc.plugins.implementations.BasePlugin;
+import com.dmdirc.plugins.implementations.BaseCommandPlugin;
 
 import dagger.ObjectGraph;
 
 /**
  * Displays the current server's lag in the status bar.
  */
-public final class LagDisplayPlugin extends BasePlugin {
+public final class LagDisplayPlugin extends BaseCommandPlugin {
 
     /** The manager currently in use. */
     private LagDisplayManager manager;
@@ -35,16 +35,19 @@ public final class LagDisplayPlugin extends BasePlugin {
         super.load(pluginInfo, graph);
 
         setObjectGraph(graph.plus(new LagDisplayModule(pluginInfo)));
+        registerCommand(LagStatsCommand.class, LagStatsCommand.INFO);
         manager = getObjectGraph().get(LagDisplayManager.class);
     }
 
     @Override
     public void onLoad() {
         manager.load();
+        super.onLoad();
     }
 
     @Override
     public void onUnload() {
         manager.unload();
+        super.onUnload();
     }
 }
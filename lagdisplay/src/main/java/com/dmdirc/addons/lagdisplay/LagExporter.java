@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.lagdisplay;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes the contents of a {@link LagRecorder} in machine-readable formats.
+ */
+public enum LagExporter {
+
+    /** Comma separated values, one sample per line. */
+    CSV {
+        @Override
+        public void export(final Writer writer, final String server, final LagRecorder recorder,
+                final long now, final long... windows) throws IOException {
+            writer.write("timestamp,lag\n");
+            final long[] samples = recorder.getSamples();
+            for (int i = 0; i < samples.length; i += 2) {
+                writer.write(samples[i] + "," + samples[i + 1] + '\n');
+            }
+        }
+    },
+    /** A JSON document containing both statistics and samples. */
+    JSON {
+        @Override
+        public void export(final Writer writer, final String server, final LagRecorder recorder,
+                final long now, final long... windows) throws IOException {
+            writer.write("{\"server\":\"" + escape(server) + "\",\"timestamp\":" + now
+                    + ",\"statistics\":[");
+            for (int i = 0; i < windows.length; i++) {
+                final LagStatistics stats = recorder.getStatistics(now, windows[i]);
+                writer.write((i > 0 ? "," : "") + "{\"window\":" + stats.getWindow()
+                        + ",\"count\":" + stats.getCount()
+                        + ",\"p50\":" + stats.getP50()
+                        + ",\"p95\":" + stats.getP95()
+                        + ",\"p99\":" + stats.getP99()
+                        + ",\"max\":" + stats.getMax() + '}');
+            }
+            writer.write("],\"samples\":[");
+            final long[] samples = recorder.getSamples();
+            for (int i = 0; i < samples.length; i += 2) {
+                writer.write((i > 0 ? "," : "") + '[' + samples[i] + ',' + samples[i + 1] + ']');
+            }
+            writer.write("]}\n");
+        }
+    };
+
+    /**
+     * Writes the recorder's data to the given writer.
+     *
+     * @param writer   The writer to output to.
+     * @param server   The name of the server the data was recorded for.
+     * @param recorder The recorder to export.
+     * @param now      The current time, in milliseconds since the epoch.
+     * @param windows  The windows, in milliseconds, to include statistics for, if supported by the format.
+     *
+     * @throws IOException If the data couldn't be written.
+     */
+    public abstract void export(Writer writer, String server, LagRecorder recorder, long now,
+            long... windows) throws IOException;
+
+    /**
+     * Escapes a string for inclusion in a JSON string literal.
+     *
+     * @param value The value to be escaped.
+     *
+     * @return The escaped value.
+     */
+    private static String escape(final String value) {
+        final StringBuilder builder = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < 0x20) {
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.lagdisplay;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of non-negative latency values using logarithmically sized buckets.
+ *
+ * <p>Values below 16 are counted exactly. Larger values are split into 8 buckets per power of two, so any reported
+ * percentile is within 12.5% of the true value. The histogram uses a fixed amount of memory regardless of how many
+ * values are recorded.
+ */
+public class LagHistogram {
+
+    /** The number of bits of each value used to pick a bucket within a power of two. */
+    private static final int SUB_BUCKET_BITS = 3;
+    /** The number of buckets within each power of two. */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /** Values below this are given their own bucket. */
+    private static final int LINEAR_LIMIT = SUB_BUCKETS << 1;
+    /** The total number of buckets needed to cover every non-negative long. */
+    private static final int BUCKETS = bucketFor(Long.MAX_VALUE) + 1;
+    /** The count of values in each bucket. */
+    private final long[] counts = new long[BUCKETS];
+    /** The total number of values recorded. */
+    private long count;
+    /** The largest value recorded. */
+    private long max;
+
+    /**
+     * Records a value in the histogram. Negative values are treated as zero.
+     *
+     * @param value The value to be recorded.
+     */
+    public void record(final long value) {
+        final long clamped = Math.max(0, value);
+        counts[bucketFor(clamped)]++;
+        count++;
+        max = Math.max(max, clamped);
+    }
+
+    /**
+     * Removes all values from the histogram.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        max = 0;
+    }
+
+    /**
+     * Gets the number of values recorded.
+     *
+     * @return The number of values in the histogram.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the largest value recorded.
+     *
+     * @return The exact maximum value, or 0 if the histogram is empty.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Gets the value below which the given percentage of recorded values fall.
+     *
+     * @param percentile The percentile to retrieve, between 0 and 100.
+     *
+     * @return The upper bound of the bucket containing the percentile, capped at the maximum recorded value, or 0 if
+     * the histogram is empty.
+     */
+    public long getValueAtPercentile(final double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+
+        final long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(max, upperBound(i));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Determines which bucket a value belongs in.
+     *
+     * @param value The non-negative value to be bucketed.
+     *
+     * @return The index of the bucket for the value.
+     */
+    static int bucketFor(final long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_LIMIT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Determines the largest value that belongs in a bucket.
+     *
+     * @param bucket The index of the bucket.
+     *
+     * @return The largest value that would be placed in the bucket.
+     */
+    static long upperBound(final int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+
+        final int exponent = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+        final long subBucket = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+        final int shift = exponent - SUB_BUCKET_BITS;
+        return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+
+}
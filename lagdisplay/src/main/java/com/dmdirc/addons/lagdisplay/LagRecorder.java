@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.lagdisplay;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Records the lag of a single connection.
+ *
+ * <p>Samples are stored as (timestamp, lag) pairs of primitive longs in a fixed-size ring buffer held outside of the
+ * Java heap, so long retention periods don't add to garbage collection pressure.
+ */
+public class LagRecorder {
+
+    /** The number of longs used to store each sample. */
+    private static final int SAMPLE_WIDTH = 2;
+    /** The maximum number of samples retained. */
+    private final int capacity;
+    /** The retained samples, as alternating timestamps and lag values. */
+    private final LongBuffer samples;
+    /** Histogram re-used when calculating statistics. */
+    private final LagHistogram scratch = new LagHistogram();
+    /** The index the next sample will be written to. */
+    private int next;
+    /** The number of samples currently retained. */
+    private int size;
+    /** The most recent lag value, or -1 if unknown. */
+    private long current = -1;
+    /** Whether the current lag value is a lower bound while waiting for a ping reply. */
+    private boolean pending;
+
+    /**
+     * Creates a new recorder.
+     *
+     * @param capacity The maximum number of samples to retain.
+     */
+    public LagRecorder(final int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.samples = ByteBuffer.allocateDirect(this.capacity * SAMPLE_WIDTH * Long.BYTES)
+                .asLongBuffer();
+    }
+
+    /**
+     * Records a completed lag measurement.
+     *
+     * @param timestamp The time the measurement completed, in milliseconds since the epoch.
+     * @param lag       The measured lag, in milliseconds.
+     */
+    public synchronized void record(final long timestamp, final long lag) {
+        samples.put(next * SAMPLE_WIDTH, timestamp);
+        samples.put(next * SAMPLE_WIDTH + 1, lag);
+        next = (next + 1) % capacity;
+        size = Math.min(size + 1, capacity);
+        current = lag;
+        pending = false;
+    }
+
+    /**
+     * Records that a ping has not yet been answered. The value is displayed but not retained.
+     *
+     * @param lag The time elapsed since the ping was sent, in milliseconds.
+     */
+    public synchronized void recordPending(final long lag) {
+        current = lag;
+        pending = true;
+    }
+
+    /**
+     * Forgets the current lag value, for example after a disconnection. Retained samples are kept.
+     */
+    public synchronized void clearCurrent() {
+        current = -1;
+        pending = false;
+    }
+
+    /**
+     * Gets the most recent lag value.
+     *
+     * @return The most recent lag, or -1 if unknown.
+     */
+    public synchronized long getCurrent() {
+        return current;
+    }
+
+    /**
+     * Determines whether the current lag value is still waiting for a ping reply.
+     *
+     * @return True if the current value is a lower bound, false otherwise.
+     */
+    public synchronized boolean isPending() {
+        return pending;
+    }
+
+    /**
+     * Gets the number of samples currently retained.
+     *
+     * @return The number of retained samples.
+     */
+    public synchronized int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the most recent lag values.
+     *
+     * @param count The maximum number of values to return.
+     *
+     * @return Up to {@code count} lag values, oldest first.
+     */
+    public synchronized long[] getRecent(final int count) {
+        final int length = Math.max(0, Math.min(count, size));
+        final long[] result = new long[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = samples.get(index(size - length + i) * SAMPLE_WIDTH + 1);
+        }
+        return result;
+    }
+
+    /**
+     * Gets all retained samples.
+     *
+     * @return An array of alternating timestamps and lag values, oldest first.
+     */
+    public synchronized long[] getSamples() {
+        final long[] result = new long[size * SAMPLE_WIDTH];
+        for (int i = 0; i < size; i++) {
+            result[i * SAMPLE_WIDTH] = samples.get(index(i) * SAMPLE_WIDTH);
+            result[i * SAMPLE_WIDTH + 1] = samples.get(index(i) * SAMPLE_WIDTH + 1);
+        }
+        return result;
+    }
+
+    /**
+     * Calculates statistics over the samples recorded within a window of time.
+     *
+     * @param now    The current time, in milliseconds since the epoch.
+     * @param window The length of the window in milliseconds, or 0 to include all retained samples.
+     *
+     * @return Statistics for the samples within the window.
+     */
+    public synchronized LagStatistics getStatistics(final long now, final long window) {
+        scratch.reset();
+        // Walk backwards from the newest sample so we can stop as soon as we leave the window.
+        for (int i = size - 1; i >= 0; i--) {
+            final int offset = index(i) * SAMPLE_WIDTH;
+            if (window > 0 && samples.get(offset) < now - window) {
+                break;
+            }
+            scratch.record(samples.get(offset + 1));
+        }
+        return new LagStatistics(window, scratch);
+    }
+
+    /**
+     * Converts a logical sample number into a position in the ring buffer.
+     *
+     * @param sample The sample number, where 0 is the oldest retained sample.
+     *
+     * @return The index of the sample in the ring buffer.
+     */
+    private int index(final int sample) {
+        return (next - size + sample + capacity) % capacity;
+    }
+
+}
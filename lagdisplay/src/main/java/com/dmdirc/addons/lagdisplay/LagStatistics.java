@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.lagdisplay;
+
+/**
+ * A summary of the lag recorded for a connection over some window of time.
+ */
+public final class LagStatistics {
+
+    /** The length of the window, in milliseconds, or 0 for all retained samples. */
+    private final long window;
+    /** The number of samples in the window. */
+    private final long count;
+    /** The median lag. */
+    private final long p50;
+    /** The 95th percentile lag. */
+    private final long p95;
+    /** The 99th percentile lag. */
+    private final long p99;
+    /** The maximum lag. */
+    private final long max;
+
+    /**
+     * Creates a new set of statistics from the given histogram.
+     *
+     * @param window    The length of the window, in milliseconds, or 0 for all retained samples.
+     * @param histogram The histogram of samples within the window.
+     */
+    public LagStatistics(final long window, final LagHistogram histogram) {
+        this.window = window;
+        this.count = histogram.getCount();
+        this.p50 = histogram.getValueAtPercentile(50);
+        this.p95 = histogram.getValueAtPercentile(95);
+        this.p99 = histogram.getValueAtPercentile(99);
+        this.max = histogram.getMax();
+    }
+
+    public long getWindow() {
+        return window;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public long getP95() {
+        return p95;
+    }
+
+    public long getP99() {
+        return p99;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+}
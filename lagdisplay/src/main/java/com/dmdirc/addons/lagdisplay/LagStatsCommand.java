@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.lagdisplay;
+
+import com.dmdirc.commandparser.BaseCommandInfo;
+import com.dmdirc.commandparser.CommandArguments;
+import com.dmdirc.commandparser.CommandInfo;
+import com.dmdirc.commandparser.CommandType;
+import com.dmdirc.commandparser.commands.BaseCommand;
+import com.dmdirc.commandparser.commands.IntelligentCommand;
+import com.dmdirc.commandparser.commands.context.CommandContext;
+import com.dmdirc.commandparser.commands.context.ServerCommandContext;
+import com.dmdirc.interfaces.CommandController;
+import com.dmdirc.interfaces.Connection;
+import com.dmdirc.interfaces.WindowModel;
+import com.dmdirc.ui.input.AdditionalTabTargets;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+
+/**
+ * Shows lag statistics for the current server, or exports them to a file.
+ */
+public class LagStatsCommand extends BaseCommand implements IntelligentCommand {
+
+    /** A command info object for this command. */
+    public static final CommandInfo INFO = new BaseCommandInfo("lagstats",
+            "lagstats [--export <csv|json> <file>] - shows lag percentiles for this server, "
+            + "or exports the recorded lag to a file",
+            CommandType.TYPE_SERVER);
+    /** The windows statistics are shown for, in milliseconds. 0 means all retained samples. */
+    private static final long[] WINDOWS = {
+            TimeUnit.MINUTES.toMillis(1),
+            TimeUnit.MINUTES.toMillis(5),
+            TimeUnit.MINUTES.toMillis(15),
+            TimeUnit.HOURS.toMillis(1),
+            0,
+    };
+    /** The manager to read lag information from. */
+    private final LagDisplayManager manager;
+
+    /**
+     * Creates a new instance of this command.
+     *
+     * @param controller The controller to use for command information.
+     * @param manager    The manager to read lag information from.
+     */
+    @Inject
+    public LagStatsCommand(final CommandController controller, final LagDisplayManager manager) {
+        super(controller);
+        this.manager = manager;
+    }
+
+    @Override
+    public void execute(@Nonnull final WindowModel origin,
+            final CommandArguments args, final CommandContext context) {
+        final Connection connection = ((ServerCommandContext) context).getConnection();
+        final LagRecorder recorder = manager.getRecorder(connection);
+
+        if (args.getArguments().length == 0) {
+            doStats(origin, args.isSilent(), recorder);
+        } else if (args.getArguments().length >= 3 && "--export".equals(args.getArguments()[0])) {
+            doExport(origin, args.isSilent(), connection, recorder, args.getArguments()[1],
+                    args.getArgumentsAsString(2));
+        } else {
+            showUsage(origin, args.isSilent(), INFO.getName(), INFO.getHelp());
+        }
+    }
+
+    private void doStats(final WindowModel origin, final boolean isSilent,
+            final LagRecorder recorder) {
+        if (recorder.getSize() == 0) {
+            showError(origin, isSilent, "No lag has been recorded for this server");
+            return;
+        }
+
+        final long now = new Date().getTime();
+        for (long window : WINDOWS) {
+            final LagStatistics stats = recorder.getStatistics(now, window);
+            if (stats.getCount() == 0) {
+                continue;
+            }
+            showOutput(origin, isSilent, String.format("%s: %d samples, p50 %s, p95 %s, p99 %s, max %s",
+                    window == 0 ? "All" : "Last " + TimeUnit.MILLISECONDS.toMinutes(window) + "m",
+                    stats.getCount(),
+                    manager.formatTime(stats.getP50()),
+                    manager.formatTime(stats.getP95()),
+                    manager.formatTime(stats.getP99()),
+                    manager.formatTime(stats.getMax())));
+        }
+    }
+
+    private void doExport(final WindowModel origin, final boolean isSilent,
+            final Connection connection, final LagRecorder recorder, final String format,
+            final String file) {
+        final LagExporter exporter;
+        try {
+            exporter = LagExporter.valueOf(format.toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException ex) {
+            showError(origin, isSilent, "Unknown export format: " + format);
+            return;
+        }
+
+        try (Writer writer = Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8)) {
+            exporter.export(writer, connection.getAddress(), recorder, new Date().getTime(),
+                    WINDOWS);
+            showOutput(origin, isSilent, "Exported " + recorder.getSize() + " samples to " + file);
+        } catch (IOException ex) {
+            showError(origin, isSilent, "Unable to export lag: " + ex.getMessage());
+        }
+    }
+
+    @Override
+    public AdditionalTabTargets getSuggestions(final int arg,
+            final IntelligentCommandContext context) {
+        final AdditionalTabTargets targets = new AdditionalTabTargets();
+
+        targets.excludeAll();
+        if (arg == 0) {
+            targets.add("--export");
+        } else if (arg == 1 && "--export".equals(context.getPreviousArgs().get(0))) {
+            targets.add("csv");
+            targets.add("json");
+        }
+
+        return targets;
+    }
+
+}
@@ -18,7 +18,6 @@
 package com.dmdirc.addons.lagdisplay;
 
 import com.dmdirc.addons.ui_swing.interfaces.ActiveFrameManager;
-import com.dmdirc.util.collections.RollingList;
 
 import java.awt.Color;
 import java.awt.Dimension;
@@ -28,7 +27,6 @@ import java.awt.Rectangle;
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 
 import javax.swing.JPanel;
 
@@ -41,8 +39,8 @@ public class PingHistoryPanel extends JPanel {
     private static final long serialVersionUID = 1;
     /** The manager that this panel is for. */
     protected final LagDisplayManager manager;
-    /** The history that we're graphing. */
-    protected final RollingList<Long> history;
+    /** The history that we're graphing, oldest first. */
+    protected final long[] history;
     /** The maximum ping value. */
     protected long maximum;
 
@@ -66,7 +64,7 @@ public class PingHistoryPanel extends JPanel {
             history = manager.getHistory(null);
         }
 
-        for (Long value : history.getList()) {
+        for (long value : history) {
             maximum = Math.max(value, maximum);
         }
     }
@@ -81,23 +79,22 @@ public class PingHistoryPanel extends JPanel {
         g.setFont(g.getFont().deriveFont(10f));
 
         final float pixelsperpointX = (getWidth() - 3)
-                / (float) (history.getList().size() == 1 ? 1
-                : history.getList().size() - 1);
+                / (float) (history.length == 1 ? 1 : history.length - 1);
         final float pixelsperpointY = (getHeight() - 10) / (float) maximum;
 
-        if (history.isEmpty()) {
+        if (history.length == 0) {
             g.drawString("No data", getWidth() / 2 - 25, getHeight() / 2 + 5);
         }
 
         long last1 = -1;
         long last2 = -1;
-        final List<Long> list = history.getList();
+        final long[] list = history;
         final Collection<Rectangle> rects = new ArrayList<>();
 
         float lastX = -1;
         float lastY = -1;
-        for (int i = 0; i < list.size(); i++) {
-            final Long value = list.get(i);
+        for (int i = 0; i < list.length; i++) {
+            final long value = list[i];
 
             final float x = lastX == -1 ? 2 : lastX + pixelsperpointX;
             final float y = getHeight() - 5 - value * pixelsperpointY;
@@ -122,7 +119,7 @@ public class PingHistoryPanel extends JPanel {
 
                 // Check left
                 for (int j = Math.max(0, i - points); j < i - 1; j++) {
-                    if (list.get(j) > diffy) {
+                    if (list[j] > diffy) {
                         failed = true;
                         break;
                     }
@@ -133,8 +130,8 @@ public class PingHistoryPanel extends JPanel {
                     failed = posX + width > getWidth();
 
                     // Check right
-                    for (int j = i; j < Math.min(list.size(), i + points); j++) {
-                        if (list.get(j) > diffy) {
+                    for (int j = i; j < Math.min(list.length, i + points); j++) {
+                        if (list[j] > diffy) {
                             failed = true;
                             break;
                         }
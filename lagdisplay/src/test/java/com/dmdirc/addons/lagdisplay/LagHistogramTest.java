@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.lagdisplay;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LagHistogramTest {
+
+    @Test
+    public void testEmptyHistogram() {
+        final LagHistogram histogram = new LagHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        final LagHistogram histogram = new LagHistogram();
+        for (int i = 1; i <= 10; i++) {
+            histogram.record(i);
+        }
+        assertEquals(10, histogram.getCount());
+        assertEquals(5, histogram.getValueAtPercentile(50));
+        assertEquals(10, histogram.getValueAtPercentile(99));
+        assertEquals(10, histogram.getMax());
+    }
+
+    @Test
+    public void testLargeValuesWithinPrecision() {
+        final LagHistogram histogram = new LagHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 10);
+        }
+        assertWithin(5000, histogram.getValueAtPercentile(50));
+        assertWithin(9500, histogram.getValueAtPercentile(95));
+        assertWithin(9900, histogram.getValueAtPercentile(99));
+        assertEquals(10000, histogram.getMax());
+    }
+
+    @Test
+    public void testBucketsCoverAllValues() {
+        long previous = -1;
+        for (long value : new long[]{0, 1, 15, 16, 17, 18, 1000, 1L << 40, Long.MAX_VALUE}) {
+            final int bucket = LagHistogram.bucketFor(value);
+            assertTrue(LagHistogram.upperBound(bucket) >= value);
+            assertTrue(bucket >= previous);
+            previous = bucket;
+        }
+    }
+
+    @Test
+    public void testReset() {
+        final LagHistogram histogram = new LagHistogram();
+        histogram.record(100);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+
+    private static void assertWithin(final long expected, final long actual) {
+        assertTrue(actual >= expected && actual <= expected * 1.125);
+    }
+
+}
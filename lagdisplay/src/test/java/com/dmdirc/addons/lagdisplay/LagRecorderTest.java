@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.lagdisplay;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LagRecorderTest {
+
+    @Test
+    public void testCurrentValue() {
+        final LagRecorder recorder = new LagRecorder(10);
+        assertEquals(-1, recorder.getCurrent());
+        recorder.record(1000, 50);
+        assertEquals(50, recorder.getCurrent());
+        assertFalse(recorder.isPending());
+        recorder.recordPending(200);
+        assertEquals(200, recorder.getCurrent());
+        assertTrue(recorder.isPending());
+        assertEquals(1, recorder.getSize());
+        recorder.clearCurrent();
+        assertEquals(-1, recorder.getCurrent());
+        assertEquals(1, recorder.getSize());
+    }
+
+    @Test
+    public void testRecentWrapsAround() {
+        final LagRecorder recorder = new LagRecorder(3);
+        for (int i = 1; i <= 5; i++) {
+            recorder.record(i, i * 10);
+        }
+        assertEquals(3, recorder.getSize());
+        assertArrayEquals(new long[]{30, 40, 50}, recorder.getRecent(10));
+        assertArrayEquals(new long[]{40, 50}, recorder.getRecent(2));
+        assertArrayEquals(new long[]{3, 30, 4, 40, 5, 50}, recorder.getSamples());
+    }
+
+    @Test
+    public void testStatisticsWindow() {
+        final LagRecorder recorder = new LagRecorder(100);
+        recorder.record(1000, 5000);
+        for (int i = 0; i < 10; i++) {
+            recorder.record(10000 + i, 10);
+        }
+
+        final LagStatistics recent = recorder.getStatistics(10010, 1000);
+        assertEquals(10, recent.getCount());
+        assertEquals(10, recent.getMax());
+        assertEquals(10, recent.getP99());
+
+        final LagStatistics all = recorder.getStatistics(10010, 0);
+        assertEquals(11, all.getCount());
+        assertEquals(5000, all.getMax());
+        assertEquals(10, all.getP50());
+    }
+
+}
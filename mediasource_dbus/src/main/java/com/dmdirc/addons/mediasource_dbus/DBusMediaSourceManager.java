@@ -38,6 +38,9 @@ import static com.dmdirc.util.LogUtils.USER_ERROR;
 
 /**
  * Provides a media source for DBUS players.
+ *
+ * <p>Where possible a single connection to the session bus is kept open and players are tracked in memory by an
+ * {@link MprisPlayerRegistry}. If the session bus can't be reached, players are polled using qdbus instead.
  */
 public class DBusMediaSourceManager {
 
@@ -48,6 +51,8 @@ public class DBusMediaSourceManager {
     private final List<MediaSource> sources;
     /** The path to qdbus. */
     private String qdbus;
+    /** The registry of players on the session bus, if connected. */
+    private MprisPlayerRegistry registry;
 
     @Inject
     public DBusMediaSourceManager() {
@@ -59,6 +64,20 @@ public class DBusMediaSourceManager {
      * Called when the plugin is loaded to initialise settings.
      */
     public void onLoad() {
+        MprisBus bus = null;
+        try {
+            bus = SessionMprisBus.connect();
+            final MprisPlayerRegistry sessionRegistry = new MprisPlayerRegistry(bus);
+            sessionRegistry.start();
+            registry = sessionRegistry;
+            return;
+        } catch (IOException ex) {
+            if (bus != null) {
+                bus.close();
+            }
+            LOG.info(USER_ERROR, "Unable to use the DBUS session bus, falling back to qdbus", ex);
+        }
+
         if (new File("/usr/bin/qdbus").exists()) {
             qdbus = "/usr/bin/qdbus";
         } else if (new File("/bin/qdbus").exists()) {
@@ -70,6 +89,10 @@ public class DBusMediaSourceManager {
      * Called when the plugin is unloaded to uninitialise settings.
      */
     public void onUnload() {
+        if (registry != null) {
+            registry.stop();
+            registry = null;
+        }
         sources.clear();
         mprisSources.clear();
     }
@@ -80,6 +103,14 @@ public class DBusMediaSourceManager {
      * @return List of available MPRIS media sources.
      */
     public List<MediaSource> getSources() {
+        if (registry != null) {
+            return Collections.unmodifiableList(registry.getSources());
+        }
+
+        if (qdbus == null) {
+            return Collections.emptyList();
+        }
+
         for (String mpris : doDBusCall("org.mpris.*", "/", "/")) {
             try {
                 final String service = mpris.substring(10);
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.mediasource_dbus;
+
+import com.dmdirc.addons.nowplaying.MediaSource;
+import com.dmdirc.addons.nowplaying.MediaSourceState;
+import com.dmdirc.util.DateUtils;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * A media source for an MPRIS player whose state is kept up to date by an {@link MprisPlayerRegistry}.
+ *
+ * <p>All reads are served from memory; no bus calls are made when the now playing plugin asks for information.
+ */
+public class MPRISBusSource implements MediaSource {
+
+    /** The well-known bus name of the player. */
+    private final String busName;
+    /** The unique bus name of the connection that owns the player. */
+    private final String owner;
+    /** The identity reported by the player. */
+    private String identity = "";
+    /** The playback status reported by the player. */
+    private String status = "";
+    /** The metadata for the current track, flattened to strings. */
+    private Map<String, String> metadata = Collections.emptyMap();
+    /** The last known playback position, in microseconds. */
+    private long position;
+    /** The value of {@link System#nanoTime()} when the position was last known. */
+    private long positionTimestamp;
+    /** The playback rate reported by the player. */
+    private double rate = 1.0;
+
+    /**
+     * Creates a new source for the given player.
+     *
+     * @param busName The well-known bus name of the player.
+     * @param owner   The unique bus name of the connection that owns the player.
+     */
+    public MPRISBusSource(final String busName, final String owner) {
+        this.busName = busName;
+        this.owner = owner;
+    }
+
+    /**
+     * Gets the well-known bus name of the player.
+     *
+     * @return This player's bus name.
+     */
+    public String getBusName() {
+        return busName;
+    }
+
+    /**
+     * Gets the unique bus name of the connection that owns the player.
+     *
+     * @return The owner of this player's bus name.
+     */
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * Updates this source with properties from the root MPRIS interface.
+     *
+     * @param properties The properties that have changed.
+     */
+    synchronized void updateRoot(final Map<String, Object> properties) {
+        if (properties.containsKey("Identity")) {
+            identity = String.valueOf(properties.get("Identity"));
+        }
+    }
+
+    /**
+     * Updates this source with properties from the MPRIS player interface.
+     *
+     * @param properties The properties that have changed.
+     */
+    @SuppressWarnings("unchecked")
+    synchronized void updatePlayer(final Map<String, Object> properties) {
+        if (properties.containsKey("PlaybackStatus")) {
+            status = String.valueOf(properties.get("PlaybackStatus"));
+        }
+
+        if (properties.get("Metadata") instanceof Map) {
+            final Map<String, String> newMetadata = new HashMap<>();
+            ((Map<String, Object>) properties.get("Metadata")).forEach(
+                    (key, value) -> newMetadata.put(key, flatten(value)));
+            metadata = newMetadata;
+        }
+
+        if (properties.get("Rate") instanceof Number) {
+            rate = ((Number) properties.get("Rate")).doubleValue();
+        }
+
+        if (properties.get("Position") instanceof Number) {
+            updatePosition(((Number) properties.get("Position")).longValue());
+        }
+    }
+
+    /**
+     * Records the player's current position.
+     *
+     * @param microseconds The position reported by the player, in microseconds.
+     */
+    synchronized void updatePosition(final long microseconds) {
+        position = microseconds;
+        positionTimestamp = System.nanoTime();
+    }
+
+    /**
+     * Flattens a property value into a string for display.
+     *
+     * @param value The value to be flattened.
+     *
+     * @return A string representation of the value.
+     */
+    private static String flatten(final Object value) {
+        if (value instanceof Collection) {
+            return ((Collection<?>) value).stream().map(String::valueOf)
+                    .collect(Collectors.joining(", "));
+        } else if (value instanceof Object[]) {
+            return flatten(Arrays.asList((Object[]) value));
+        }
+        return String.valueOf(value);
+    }
+
+    @Override
+    public synchronized MediaSourceState getState() {
+        if (identity.isEmpty()) {
+            return MediaSourceState.CLOSED;
+        } else if (status.equalsIgnoreCase("Playing")) {
+            return MediaSourceState.PLAYING;
+        } else if (status.equalsIgnoreCase("Paused")) {
+            return MediaSourceState.PAUSED;
+        } else if (status.equalsIgnoreCase("Stopped")) {
+            return MediaSourceState.STOPPED;
+        } else {
+            return MediaSourceState.NOTKNOWN;
+        }
+    }
+
+    @Override
+    public synchronized String getAppName() {
+        return identity.replace(' ', '_');
+    }
+
+    /**
+     * Utility method to return the value of the specified metadata key if it exists, or "Unknown" if it doesn't.
+     *
+     * @param key The key to be retrieved
+     *
+     * @return The value of the specified key or "Unknown".
+     */
+    protected synchronized String getData(final String key) {
+        final String value = metadata.get(key);
+        return value == null ? "Unknown" : value;
+    }
+
+    @Override
+    public String getArtist() {
+        return getData("xesam:artist");
+    }
+
+    @Override
+    public String getTitle() {
+        return getData("xesam:title");
+    }
+
+    @Override
+    public String getAlbum() {
+        return getData("xesam:album");
+    }
+
+    @Override
+    public String getLength() {
+        try {
+            final long len = Long.parseLong(getData("mpris:length"));
+            return DateUtils.formatDurationAsTime((int) TimeUnit.MICROSECONDS.toSeconds(len));
+        } catch (final NumberFormatException nfe) {
+            return "Unknown";
+        }
+    }
+
+    @Override
+    public synchronized String getTime() {
+        long current = position;
+        if (status.equalsIgnoreCase("Playing")) {
+            // MPRIS players don't signal position changes during normal playback, so extrapolate
+            // from the last known position.
+            current += (long) (TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - positionTimestamp) * rate);
+        }
+
+        if (current <= 0) {
+            return "Unknown";
+        }
+        return DateUtils.formatDurationAsTime((int) TimeUnit.MICROSECONDS.toSeconds(current));
+    }
+
+    @Override
+    public String getFormat() {
+        return "Unknown";
+    }
+
+    @Override
+    public String getBitrate() {
+        return "Unknown";
+    }
+
+}
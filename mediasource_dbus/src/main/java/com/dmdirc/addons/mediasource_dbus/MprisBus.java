@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.mediasource_dbus;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A long-lived connection to a message bus that MPRIS players are published on.
+ *
+ * <p>Values returned from, and passed to listeners by, implementations are plain Java objects: variants are unwrapped,
+ * D-Bus arrays are represented as {@link java.util.List}s and dictionaries as {@link Map}s.
+ */
+public interface MprisBus {
+
+    /**
+     * Registers a listener to be told about name owner and property changes on the bus.
+     *
+     * @param listener The listener to register.
+     *
+     * @throws IOException If the bus could not subscribe to the relevant signals.
+     */
+    void addListener(MprisBusListener listener) throws IOException;
+
+    /**
+     * Lists all names currently registered on the bus.
+     *
+     * @return The well-known and unique names on the bus.
+     *
+     * @throws IOException If the bus could not be queried.
+     */
+    Collection<String> listNames() throws IOException;
+
+    /**
+     * Retrieves the unique name that currently owns the given well-known name.
+     *
+     * @param name The well-known name to look up.
+     *
+     * @return The unique name of the owner.
+     *
+     * @throws IOException If the name has no owner or the bus could not be queried.
+     */
+    String getNameOwner(String name) throws IOException;
+
+    /**
+     * Retrieves all properties of an interface on the MPRIS object exported by the given name.
+     *
+     * @param name  The name of the service to query.
+     * @param iface The interface to retrieve properties for.
+     *
+     * @return A map of property names to their values.
+     *
+     * @throws IOException If the properties could not be retrieved.
+     */
+    Map<String, Object> getAllProperties(String name, String iface) throws IOException;
+
+    /**
+     * Retrieves a single property of an interface on the MPRIS object exported by the given name.
+     *
+     * @param name     The name of the service to query.
+     * @param iface    The interface the property belongs to.
+     * @param property The name of the property.
+     *
+     * @return The value of the property.
+     *
+     * @throws IOException If the property could not be retrieved.
+     */
+    Object getProperty(String name, String iface, String property) throws IOException;
+
+    /**
+     * Closes the connection to the bus. No further listener calls will be made.
+     */
+    void close();
+
+}
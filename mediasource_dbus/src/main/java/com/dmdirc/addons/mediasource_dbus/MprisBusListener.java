@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.mediasource_dbus;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Receives signals from an {@link MprisBus}.
+ */
+public interface MprisBusListener {
+
+    /**
+     * Called when the owner of a name on the bus changes.
+     *
+     * @param name     The name whose owner changed.
+     * @param oldOwner The unique name of the previous owner, or an empty string if there was none.
+     * @param newOwner The unique name of the new owner, or an empty string if the name has been released.
+     */
+    void nameOwnerChanged(String name, String oldOwner, String newOwner);
+
+    /**
+     * Called when an object on the bus reports that some of its properties have changed.
+     *
+     * @param sender      The unique name of the connection that sent the signal.
+     * @param iface       The interface the properties belong to.
+     * @param changed     The properties that changed, with their new values.
+     * @param invalidated The properties that changed but whose new values were not sent.
+     */
+    void propertiesChanged(String sender, String iface, Map<String, Object> changed,
+            Collection<String> invalidated);
+
+}
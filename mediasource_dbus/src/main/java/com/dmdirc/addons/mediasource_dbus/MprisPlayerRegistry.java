@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.mediasource_dbus;
+
+import com.dmdirc.addons.nowplaying.MediaSource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.dmdirc.util.LogUtils.USER_ERROR;
+
+/**
+ * Maintains an in-memory model of the MPRIS players on a bus.
+ *
+ * <p>Players are discovered once when the registry is started, and then kept up to date using the
+ * {@code NameOwnerChanged} and {@code PropertiesChanged} signals.
+ */
+public class MprisPlayerRegistry implements MprisBusListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MprisPlayerRegistry.class);
+    /** The prefix of bus names used by MPRIS players. */
+    static final String NAME_PREFIX = "org.mpris.MediaPlayer2.";
+    /** The root MPRIS interface. */
+    static final String ROOT_INTERFACE = "org.mpris.MediaPlayer2";
+    /** The MPRIS player interface. */
+    static final String PLAYER_INTERFACE = "org.mpris.MediaPlayer2.Player";
+    /** The bus players are found on. */
+    private final MprisBus bus;
+    /** Known players, keyed on their well-known bus name. */
+    private final Map<String, MPRISBusSource> players = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new registry that will track players on the given bus.
+     *
+     * @param bus The bus to track players on.
+     */
+    public MprisPlayerRegistry(final MprisBus bus) {
+        this.bus = bus;
+    }
+
+    /**
+     * Subscribes to signals on the bus and discovers any players that are already running.
+     *
+     * @throws IOException If the bus could not be subscribed to or queried.
+     */
+    public void start() throws IOException {
+        bus.addListener(this);
+        for (String name : bus.listNames()) {
+            if (name.startsWith(NAME_PREFIX)) {
+                try {
+                    addPlayer(name, bus.getNameOwner(name));
+                } catch (IOException ex) {
+                    // The player went away between listing and querying it; NameOwnerChanged will
+                    // tell us if it comes back.
+                    LOG.debug("Unable to query MPRIS player {}", name, ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes the bus and forgets all known players.
+     */
+    public void stop() {
+        bus.close();
+        players.clear();
+    }
+
+    /**
+     * Gets the players currently known to this registry.
+     *
+     * @return A snapshot of the known players.
+     */
+    public List<MediaSource> getSources() {
+        return new ArrayList<>(players.values());
+    }
+
+    @Override
+    public void nameOwnerChanged(final String name, final String oldOwner, final String newOwner) {
+        if (!name.startsWith(NAME_PREFIX)) {
+            return;
+        }
+
+        if (!oldOwner.isEmpty()) {
+            players.remove(name);
+        }
+
+        if (!newOwner.isEmpty()) {
+            try {
+                addPlayer(name, newOwner);
+            } catch (IOException ex) {
+                LOG.info(USER_ERROR, "Unable to query MPRIS player {}", name, ex);
+            }
+        }
+    }
+
+    @Override
+    public void propertiesChanged(final String sender, final String iface,
+            final Map<String, Object> changed, final Collection<String> invalidated) {
+        for (MPRISBusSource player : players.values()) {
+            if (player.getOwner().equals(sender)) {
+                updatePlayer(player, iface, changed, invalidated);
+            }
+        }
+    }
+
+    /**
+     * Updates a known player in response to a property change signal.
+     *
+     * @param player      The player to update.
+     * @param iface       The interface whose properties changed.
+     * @param changed     The properties that changed, with their new values.
+     * @param invalidated The properties that changed but whose new values were not sent.
+     */
+    private void updatePlayer(final MPRISBusSource player, final String iface,
+            final Map<String, Object> changed, final Collection<String> invalidated) {
+        try {
+            if (ROOT_INTERFACE.equals(iface)) {
+                player.updateRoot(invalidated.isEmpty() ? changed
+                        : bus.getAllProperties(player.getBusName(), ROOT_INTERFACE));
+            } else if (PLAYER_INTERFACE.equals(iface)) {
+                if (invalidated.isEmpty()) {
+                    player.updatePlayer(changed);
+                    if (changed.containsKey("PlaybackStatus") || changed.containsKey("Metadata")
+                            || changed.containsKey("Rate")) {
+                        // Position is never signalled, so resynchronise it whenever playback
+                        // is likely to have jumped.
+                        updatePosition(player);
+                    }
+                } else {
+                    player.updatePlayer(bus.getAllProperties(player.getBusName(), PLAYER_INTERFACE));
+                }
+            }
+        } catch (IOException ex) {
+            LOG.debug("Unable to update MPRIS player {}", player.getBusName(), ex);
+        }
+    }
+
+    /**
+     * Fetches the current position of the given player.
+     *
+     * @param player The player to update.
+     *
+     * @throws IOException If the position could not be retrieved.
+     */
+    private void updatePosition(final MPRISBusSource player) throws IOException {
+        final Object position = bus.getProperty(player.getBusName(), PLAYER_INTERFACE, "Position");
+        if (position instanceof Number) {
+            player.updatePosition(((Number) position).longValue());
+        }
+    }
+
+    /**
+     * Creates a new player and populates its initial state from the bus.
+     *
+     * @param name  The well-known bus name of the player.
+     * @param owner The unique bus name of the player's owner.
+     *
+     * @throws IOException If the player's properties could not be retrieved.
+     */
+    private void addPlayer(final String name, final String owner) throws IOException {
+        final MPRISBusSource player = new MPRISBusSource(name, owner);
+        player.updateRoot(bus.getAllProperties(name, ROOT_INTERFACE));
+        player.updatePlayer(bus.getAllProperties(name, PLAYER_INTERFACE));
+        players.put(name, player);
+    }
+
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.mediasource_dbus;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.exceptions.DBusExecutionException;
+import org.freedesktop.dbus.interfaces.DBus;
+import org.freedesktop.dbus.interfaces.Properties;
+import org.freedesktop.dbus.types.Variant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An {@link MprisBus} backed by a single, long-lived connection to the D-Bus session bus.
+ */
+public class SessionMprisBus implements MprisBus {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SessionMprisBus.class);
+    /** The object path MPRIS players export their interfaces on. */
+    private static final String OBJECT_PATH = "/org/mpris/MediaPlayer2";
+    /** The connection to the session bus. */
+    private final DBusConnection connection;
+    /** The bus daemon itself. */
+    private final DBus daemon;
+
+    /**
+     * Creates a new bus wrapping the given connection.
+     *
+     * @param connection The connection to the session bus.
+     *
+     * @throws DBusException If the bus daemon could not be bound.
+     */
+    private SessionMprisBus(final DBusConnection connection) throws DBusException {
+        this.connection = connection;
+        this.daemon = connection.getRemoteObject("org.freedesktop.DBus", "/org/freedesktop/DBus",
+                DBus.class);
+    }
+
+    /**
+     * Opens a new private connection to the session bus.
+     *
+     * @return A new bus connected to the session bus.
+     *
+     * @throws IOException If the session bus could not be connected to.
+     */
+    public static SessionMprisBus connect() throws IOException {
+        try {
+            return new SessionMprisBus(DBusConnection.newConnection(DBusConnection.DBusBusType.SESSION));
+        } catch (DBusException ex) {
+            throw new IOException("Unable to connect to the session bus", ex);
+        }
+    }
+
+    @Override
+    public void addListener(final MprisBusListener listener) throws IOException {
+        try {
+            connection.addSigHandler(DBus.NameOwnerChanged.class,
+                    signal -> listener.nameOwnerChanged(signal.name, signal.oldOwner, signal.newOwner));
+            connection.addSigHandler(Properties.PropertiesChanged.class, signal -> {
+                if (OBJECT_PATH.equals(signal.getPath())) {
+                    listener.propertiesChanged(signal.getSource(), signal.getInterfaceName(),
+                            unwrapMap(signal.getPropertiesChanged()), signal.getPropertiesRemoved());
+                }
+            });
+        } catch (DBusException ex) {
+            throw new IOException("Unable to subscribe to bus signals", ex);
+        }
+    }
+
+    @Override
+    public Collection<String> listNames() throws IOException {
+        try {
+            return Arrays.asList(daemon.ListNames());
+        } catch (DBusExecutionException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    @Override
+    public String getNameOwner(final String name) throws IOException {
+        try {
+            return daemon.GetNameOwner(name);
+        } catch (DBusExecutionException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getAllProperties(final String name, final String iface)
+            throws IOException {
+        try {
+            return unwrapMap(getProperties(name).GetAll(iface));
+        } catch (DBusExecutionException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    @Override
+    public Object getProperty(final String name, final String iface, final String property)
+            throws IOException {
+        try {
+            final Object value = getProperties(name).Get(iface, property);
+            return unwrap(value);
+        } catch (DBusExecutionException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            connection.close();
+        } catch (IOException ex) {
+            LOG.debug("Unable to close session bus connection", ex);
+        }
+    }
+
+    /**
+     * Gets a proxy for the properties interface of the MPRIS object on the given service.
+     *
+     * @param name The name of the service.
+     *
+     * @return A proxy for the service's properties.
+     *
+     * @throws IOException If the proxy could not be created.
+     */
+    private Properties getProperties(final String name) throws IOException {
+        try {
+            return connection.getRemoteObject(name, OBJECT_PATH, Properties.class);
+        } catch (DBusException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    /**
+     * Unwraps all values in a map of variants.
+     *
+     * @param map The map to unwrap.
+     *
+     * @return A new map containing unwrapped values.
+     */
+    private static Map<String, Object> unwrapMap(final Map<?, ?> map) {
+        final Map<String, Object> result = new HashMap<>(map.size());
+        map.forEach((key, value) -> result.put(String.valueOf(key), unwrap(value)));
+        return result;
+    }
+
+    /**
+     * Recursively unwraps variants, arrays and containers into plain Java objects.
+     *
+     * @param value The value to unwrap.
+     *
+     * @return The unwrapped value.
+     */
+    private static Object unwrap(final Object value) {
+        if (value instanceof Variant) {
+            return unwrap(((Variant<?>) value).getValue());
+        } else if (value instanceof Map) {
+            return unwrapMap((Map<?, ?>) value);
+        } else if (value instanceof Collection) {
+            final List<Object> result = new ArrayList<>(((Collection<?>) value).size());
+            ((Collection<?>) value).forEach(item -> result.add(unwrap(item)));
+            return result;
+        } else if (value instanceof Object[]) {
+            return unwrap(Arrays.asList((Object[]) value));
+        }
+        return value;
+    }
+
+}
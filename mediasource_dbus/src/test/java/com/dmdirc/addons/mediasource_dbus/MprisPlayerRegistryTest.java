@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.mediasource_dbus;
+
+import com.dmdirc.addons.nowplaying.MediaSource;
+import com.dmdirc.addons.nowplaying.MediaSourceState;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MprisPlayerRegistryTest {
+
+    private StubBus bus;
+    private MprisPlayerRegistry registry;
+
+    @Before
+    public void setUp() throws IOException {
+        bus = new StubBus();
+        bus.addPlayer("org.mpris.MediaPlayer2.vlc", ":1.10", "VLC media player", "Playing");
+        bus.names.put("org.freedesktop.Notifications", ":1.2");
+        registry = new MprisPlayerRegistry(bus);
+        registry.start();
+    }
+
+    @Test
+    public void testDiscoversExistingPlayers() {
+        final List<MediaSource> sources = registry.getSources();
+        assertEquals(1, sources.size());
+        assertEquals("VLC_media_player", sources.get(0).getAppName());
+        assertEquals(MediaSourceState.PLAYING, sources.get(0).getState());
+        assertEquals("Artist", sources.get(0).getArtist());
+        assertEquals("Title", sources.get(0).getTitle());
+    }
+
+    @Test
+    public void testReadsDoNotQueryBus() {
+        final MediaSource source = registry.getSources().get(0);
+        final int calls = bus.calls;
+        source.getState();
+        source.getArtist();
+        source.getTime();
+        registry.getSources();
+        assertEquals(calls, bus.calls);
+    }
+
+    @Test
+    public void testNewPlayerAdded() {
+        bus.addPlayer("org.mpris.MediaPlayer2.mpd", ":1.20", "Music Player Daemon", "Paused");
+        bus.listener.nameOwnerChanged("org.mpris.MediaPlayer2.mpd", "", ":1.20");
+        assertEquals(2, registry.getSources().size());
+    }
+
+    @Test
+    public void testPlayerRemoved() {
+        bus.listener.nameOwnerChanged("org.mpris.MediaPlayer2.vlc", ":1.10", "");
+        assertTrue(registry.getSources().isEmpty());
+    }
+
+    @Test
+    public void testIgnoresNonMprisNames() {
+        bus.listener.nameOwnerChanged("org.freedesktop.Notifications", "", ":1.30");
+        assertEquals(1, registry.getSources().size());
+    }
+
+    @Test
+    public void testPropertiesChanged() {
+        final MediaSource source = registry.getSources().get(0);
+        final Map<String, Object> changed = new HashMap<>();
+        changed.put("PlaybackStatus", "Paused");
+        changed.put("Metadata", Collections.singletonMap("xesam:artist",
+                Arrays.asList("First", "Second")));
+        bus.listener.propertiesChanged(":1.10", MprisPlayerRegistry.PLAYER_INTERFACE, changed,
+                Collections.emptyList());
+        assertSame(source, registry.getSources().get(0));
+        assertEquals(MediaSourceState.PAUSED, source.getState());
+        assertEquals("First, Second", source.getArtist());
+        assertEquals("Unknown", source.getTitle());
+    }
+
+    @Test
+    public void testPropertiesChangedFromOtherSenderIgnored() {
+        bus.listener.propertiesChanged(":1.99", MprisPlayerRegistry.PLAYER_INTERFACE,
+                Collections.singletonMap("PlaybackStatus", "Stopped"), Collections.emptyList());
+        assertEquals(MediaSourceState.PLAYING, registry.getSources().get(0).getState());
+    }
+
+    @Test
+    public void testInvalidatedPropertiesRefetched() {
+        bus.properties.get("org.mpris.MediaPlayer2.vlc" + '/' + MprisPlayerRegistry.PLAYER_INTERFACE)
+                .put("PlaybackStatus", "Stopped");
+        bus.listener.propertiesChanged(":1.10", MprisPlayerRegistry.PLAYER_INTERFACE,
+                Collections.emptyMap(), Collections.singletonList("PlaybackStatus"));
+        assertEquals(MediaSourceState.STOPPED, registry.getSources().get(0).getState());
+    }
+
+    /** A local stand-in for the session bus. */
+    private static class StubBus implements MprisBus {
+
+        private final Map<String, String> names = new HashMap<>();
+        private final Map<String, Map<String, Object>> properties = new HashMap<>();
+        private MprisBusListener listener;
+        private int calls;
+
+        private void addPlayer(final String name, final String owner, final String identity,
+                final String status) {
+            names.put(name, owner);
+            properties.put(name + '/' + MprisPlayerRegistry.ROOT_INTERFACE,
+                    new HashMap<>(Collections.singletonMap("Identity", identity)));
+            final Map<String, Object> metadata = new HashMap<>();
+            metadata.put("xesam:artist", Collections.singletonList("Artist"));
+            metadata.put("xesam:title", "Title");
+            final Map<String, Object> player = new HashMap<>();
+            player.put("PlaybackStatus", status);
+            player.put("Metadata", metadata);
+            player.put("Position", 1000000L);
+            properties.put(name + '/' + MprisPlayerRegistry.PLAYER_INTERFACE, player);
+        }
+
+        @Override
+        public void addListener(final MprisBusListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public Collection<String> listNames() {
+            calls++;
+            return names.keySet();
+        }
+
+        @Override
+        public String getNameOwner(final String name) throws IOException {
+            calls++;
+            if (!names.containsKey(name)) {
+                throw new IOException("No such name");
+            }
+            return names.get(name);
+        }
+
+        @Override
+        public Map<String, Object> getAllProperties(final String name, final String iface)
+                throws IOException {
+            calls++;
+            final Map<String, Object> result = properties.get(name + '/' + iface);
+            if (result == null) {
+                throw new IOException("No such object");
+            }
+            return new HashMap<>(result);
+        }
+
+        @Override
+        public Object getProperty(final String name, final String iface, final String property)
+                throws IOException {
+            return getAllProperties(name, iface).get(property);
+        }
+
+        @Override
+        public void close() {
+            listener = null;
+        }
+
+    }
+
+}
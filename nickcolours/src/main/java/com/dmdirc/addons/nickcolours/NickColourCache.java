@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.dmdirc.addons.nickcolours;
+
+import com.dmdirc.parser.interfaces.StringConverter;
+import com.dmdirc.util.colours.Colour;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.Optional;
+
+/**
+ * Bounded cache of the colours resolved for nicknames from the user's colour table and the random colour palette.
+ *
+ * <p>The cache is discarded whenever the table, the palette, or whether random colours are used changes.
+ */
+public class NickColourCache {
+
+    /** Cache of "network nickname" keys to resolved colours. */
+    private final Cache<String, Optional<Colour>> cache;
+    /** The user's compiled colour table. */
+    private volatile NickColourTable table = NickColourTable.empty();
+    /** The palette of random colours. */
+    private volatile Colour[] palette = new Colour[0];
+    /** Whether nicknames without an entry in the table are given a random colour. */
+    private volatile boolean useRandomColour;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maximumSize The maximum number of nicknames to cache colours for.
+     */
+    public NickColourCache(final long maximumSize) {
+        cache = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+    }
+
+    public void setTable(final NickColourTable table) {
+        this.table = table;
+        cache.invalidateAll();
+    }
+
+    public void setPalette(final Colour... palette) {
+        this.palette = palette.clone();
+        cache.invalidateAll();
+    }
+
+    public void setUseRandomColour(final boolean useRandomColour) {
+        this.useRandomColour = useRandomColour;
+        cache.invalidateAll();
+    }
+
+    /**
+     * Retrieves the colour for a nickname. An entry in the colour table takes precedence over a random colour.
+     *
+     * @param converter The string converter to use to compare names.
+     * @param network   The lower case name of the network the user is on.
+     * @param nickname  The nickname of the user.
+     *
+     * @return The colour for the user, if they should be coloured.
+     */
+    public Optional<Colour> getColour(final StringConverter converter, final String network,
+            final String nickname) {
+        final String key = network + ' ' + nickname;
+        final Optional<Colour> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Optional<Colour> colour = table.getColour(converter, network, nickname);
+        if (!colour.isPresent() && useRandomColour) {
+            colour = Optional.of(getRandomColour(nickname));
+        }
+        cache.put(key, colour);
+        return colour;
+    }
+
+    /**
+     * Retrieves the colour for a nickname from the colour table only, ignoring random colours.
+     *
+     * @param converter The string converter to use to compare names.
+     * @param network   The lower case name of the network the user is on.
+     * @param nickname  The nickname of the user.
+     *
+     * @return The colour for the user, if one has been set.
+     */
+    public Optional<Colour> getTableColour(final StringConverter converter, final String network,
+            final String nickname) {
+        return table.getColour(converter, network, nickname);
+    }
+
+    /**
+     * Retrieves the pseudo-random palette colour for a nickname.
+     *
+     * @param nickname The nickname to get a colour for.
+     *
+     * @return The nickname's colour from the palette.
+     */
+    public Colour getRandomColour(final CharSequence nickname) {
+        final Colour[] colours = palette;
+        return colours[getHash(nickname) % colours.length];
+    }
+
+    /**
+     * Returns the number of nicknames currently cached.
+     *
+     * @return The number of cached nicknames.
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * Calculates the hash used to pick a nickname's random colour. The hash only depends on the characters in the
+     * nickname, so the colour is the same on every network and after restarts.
+     *
+     * @param nickname The nickname to hash.
+     *
+     * @return A non-negative hash of the nickname.
+     */
+    static int getHash(final CharSequence nickname) {
+        int hash = 0;
+        for (int i = 0; i < nickname.length(); i++) {
+            hash += nickname.charAt(i);
+        }
+        return hash & Integer.MAX_VALUE;
+    }
+
+}
@@ -35,6 +35,7 @@ import com.dmdirc.events.ChannelJoinEvent;
 import com.dmdirc.events.ClientPrefsOpenedEvent;
 import com.dmdirc.events.DisplayProperty;
 import com.dmdirc.events.eventbus.EventBus;
+import com.dmdirc.interfaces.Connection;
 import com.dmdirc.interfaces.GroupChatUser;
 import com.dmdirc.interfaces.User;
 import com.dmdirc.config.provider.AggregateConfigProvider;
@@ -46,9 +47,14 @@ import com.dmdirc.util.colours.Colour;
 import java.awt.Color;
 import java.awt.Window;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Provider;
 import javax.inject.Singleton;
 import net.engio.mbassy.listener.Handler;
@@ -61,6 +67,8 @@ public class NickColourManager {
 
     private static final String[] DEFAULT_RANDOM_COLOURS =
             {"E90E7F", "8E55E9", "B30E0E", "18B33C", "58ADB3", "9E54B3", "B39875", "3176B3"};
+    /** The maximum number of nicknames to cache colours for. */
+    private static final long MAXIMUM_CACHED_COLOURS = 10000;
 
     /** Manager to parse colours with. */
     private final ColourManager colourManager;
@@ -71,11 +79,13 @@ public class NickColourManager {
     private final NickColourYamlStore nickColourYamlStore;
     private final Path path;
     private final PluginInfo pluginInfo;
-    private String[] randColours = DEFAULT_RANDOM_COLOURS;
-    private boolean useowncolour;
-    private String owncolour;
-    private boolean userandomcolour;
+    /** Executor used to colour large batches of users off the event thread. */
+    private final ExecutorService executorService;
+    private volatile boolean useowncolour;
+    private volatile Colour owncolour;
     private Map<String, Color> nickColours;
+    /** Cache of colours resolved from the compiled form of {@link #nickColours} and the random colours. */
+    private final NickColourCache colourCache = new NickColourCache(MAXIMUM_CACHED_COLOURS);
 
     @Inject
     public NickColourManager(
@@ -87,7 +97,8 @@ public class NickColourManager {
             @PluginDomain(NickColourPlugin.class) final PluginInfo pluginInfo,
             final EventBus eventBus,
             final NickColourYamlStore nickColourYamlStore,
-            @Directory(DirectoryType.BASE) final Path path) {
+            @Directory(DirectoryType.BASE) final Path path,
+            @Named("nickcolours") final ExecutorService executorService) {
         this.colourManager = colourManager;
         this.iconManager = iconManager;
         this.mainWindowProvider = mainWindowProvider;
@@ -95,49 +106,54 @@ public class NickColourManager {
         this.eventBus = eventBus;
         this.nickColourYamlStore = nickColourYamlStore;
         this.path = path;
+        this.executorService = executorService;
+        colourCache.setPalette(parseColours(DEFAULT_RANDOM_COLOURS));
         configBinder = globalConfig.getBinder().withDefaultDomain(domain);
     }
 
     @Handler
     public void handleChannelNames(final ChannelGotNamesEvent event) {
         final String network = event.getChannel().getConnection().get().getNetwork();
-        event.getChannel().getUsers().forEach(client -> colourClient(network, client));
+        final Collection<GroupChatUser> users = new ArrayList<>(event.getChannel().getUsers());
+        executorService.submit(() -> {
+            colourClients(network, users);
+            // The nicklist was built before the batch was coloured, so it needs redrawing.
+            event.getChannel().refreshClients();
+        });
     }
 
     @Handler
     public void handleChannelJoin(final ChannelJoinEvent event) {
         final String network = event.getChannel().getConnection().get().getNetwork();
-        colourClient(network, event.getClient());
+        colourClients(network, Collections.singletonList(event.getClient()));
     }
 
     /**
-     * Colours the specified client according to the user's config.
+     * Colours the specified clients according to the user's config. All clients must be on the
+     * same connection.
      *
      * @param network The network to use for the colouring
-     * @param client  The client to be coloured
+     * @param clients The clients to be coloured
      */
-    private void colourClient(final String network, final GroupChatUser client) {
-        final StringConverter sc = client.getUser().getConnection().getParser().get()
-                .getStringConverter();
-        final User myself = client.getUser().getConnection().getLocalUser().orElse(null);
-        final String nickOption1 = sc.toLowerCase(network + ':' + client.getNickname());
-        final String nickOption2 = sc.toLowerCase("*:" + client.getNickname());
-
-        if (useowncolour && client.getUser().equals(myself)) {
-            final Colour color = colourManager.getColourFromString(owncolour, null);
-            putColour(client, color);
-        } else if (userandomcolour) {
-            putColour(client, getColour(client.getNickname()));
+    private void colourClients(final String network, final Collection<GroupChatUser> clients) {
+        if (clients.isEmpty()) {
+            return;
         }
 
-        Color color = null;
-        if (nickColours.containsKey(nickOption1)) {
-            color = nickColours.get(nickOption1);
-        } else if (nickColours.containsKey(nickOption2)) {
-            color = nickColours.get(nickOption2);
-        }
-        if (color != null) {
-            putColour(client, NickColourUtils.getColourfromColor(color));
+        final Connection connection = clients.iterator().next().getUser().getConnection();
+        final StringConverter sc = connection.getParser().get().getStringConverter();
+        final User myself = connection.getLocalUser().orElse(null);
+        final String networkName = sc.toLowerCase(network);
+
+        for (GroupChatUser client : clients) {
+            if (useowncolour && client.getUser().equals(myself)) {
+                putColour(client, owncolour);
+                colourCache.getTableColour(sc, networkName, client.getNickname())
+                        .ifPresent(colour -> putColour(client, colour));
+            } else {
+                colourCache.getColour(sc, networkName, client.getNickname())
+                        .ifPresent(colour -> putColour(client, colour));
+            }
         }
     }
 
@@ -152,22 +168,18 @@ public class NickColourManager {
     }
 
     /**
-     * Retrieves a pseudo-random colour for the specified nickname.
+     * Parses the specified colour strings.
      *
-     * @param nick The nickname of the client whose colour we're determining
+     * @param colours The colours to be parsed
      *
-     * @return Colour of the specified nickname
+     * @return An array of parsed colours, in the same order
      */
-    private Colour getColour(final CharSequence nick) {
-        int count = 0;
-
-        for (int i = 0; i < nick.length(); i++) {
-            count += nick.charAt(i);
+    private Colour[] parseColours(final String... colours) {
+        final Colour[] parsed = new Colour[colours.length];
+        for (int i = 0; i < colours.length; i++) {
+            parsed[i] = colourManager.getColourFromString(colours[i], null);
         }
-
-        count %= randColours.length;
-
-        return colourManager.getColourFromString(randColours[count], null);
+        return parsed;
     }
 
     /**
@@ -177,6 +189,7 @@ public class NickColourManager {
         eventBus.subscribe(this);
         configBinder.bind(this, NickColourManager.class);
         nickColours = nickColourYamlStore.readNickColourEntries(path.resolve("nickcolours.yml"));
+        colourCache.setTable(NickColourTable.compile(nickColours));
     }
 
     /**
@@ -185,11 +198,14 @@ public class NickColourManager {
     public void onUnload() {
         eventBus.unsubscribe(this);
         configBinder.unbind(this);
+        executorService.shutdown();
         saveNickColourStore(nickColours);
     }
 
     public void saveNickColourStore(final Map<String, Color> savingNickColours) {
         nickColourYamlStore.writeNickColourEntries(path.resolve("nickcolours.yml"), savingNickColours);
+        nickColours = savingNickColours;
+        colourCache.setTable(NickColourTable.compile(savingNickColours));
     }
 
     @ConfigBinding(key = "useowncolour", invocation = EDTInvocation.class)
@@ -199,17 +215,18 @@ public class NickColourManager {
 
     @ConfigBinding(key = "userandomcolour", invocation = EDTInvocation.class)
     public void handleUseRandomColour(final boolean value) {
-        userandomcolour = value;
+        colourCache.setUseRandomColour(value);
     }
 
     @ConfigBinding(key = "owncolour", invocation = EDTInvocation.class)
     public void handleOwnColour(final String value) {
-        owncolour = value;
+        owncolour = colourManager.getColourFromString(value, null);
     }
 
     @ConfigBinding(key = "randomcolours", invocation = EDTInvocation.class)
     public void handleRandomColours(final List<String> value) {
-        randColours = value.isEmpty() ? DEFAULT_RANDOM_COLOURS : value.toArray(new String[value.size()]);
+        colourCache.setPalette(parseColours(value.isEmpty() ? DEFAULT_RANDOM_COLOURS
+                : value.toArray(new String[value.size()])));
     }
 
     @Handler
@@ -20,6 +20,11 @@ package com.dmdirc.addons.nickcolours;
 import com.dmdirc.addons.ui_swing.injection.SwingModule;
 import com.dmdirc.plugins.PluginDomain;
 import com.dmdirc.plugins.PluginInfo;
+import com.dmdirc.util.LoggingScheduledExecutorService;
+
+import java.util.concurrent.ExecutorService;
+
+import javax.inject.Named;
 
 import dagger.Module;
 import dagger.Provides;
@@ -57,4 +62,10 @@ public class NickColourModule {
         return pluginInfo;
     }
 
+    @Provides
+    @Named("nickcolours")
+    public ExecutorService getExecutorService() {
+        return new LoggingScheduledExecutorService(1, "nickcolours");
+    }
+
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.nickcolours;
+
+import com.dmdirc.parser.interfaces.StringConverter;
+import com.dmdirc.util.colours.Colour;
+
+import java.awt.Color;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A compiled form of the user's nick colour entries.
+ *
+ * <p>Entries are grouped by network and their colours are converted up front, so looking up a nickname needs no
+ * string concatenation or colour parsing.
+ */
+public class NickColourTable {
+
+    /** The network name used for entries that apply to all networks. */
+    private static final String ALL_NETWORKS = "*";
+    /** Map of network names to nicknames to colours. */
+    private final Map<String, Map<String, Colour>> networks;
+
+    private NickColourTable(final Map<String, Map<String, Colour>> networks) {
+        this.networks = networks;
+    }
+
+    /**
+     * Compiles a table from the given entries.
+     *
+     * @param nickColours Map of "network:nickname" descriptions to colours.
+     *
+     * @return A new table containing the given entries.
+     */
+    public static NickColourTable compile(final Map<String, Color> nickColours) {
+        final Map<String, Map<String, Colour>> networks = new HashMap<>();
+        nickColours.forEach((description, colour) -> {
+            final int index = description.indexOf(':');
+            if (index > -1 && colour != null) {
+                networks.computeIfAbsent(description.substring(0, index), k -> new HashMap<>())
+                        .put(description.substring(index + 1),
+                                NickColourUtils.getColourfromColor(colour));
+            }
+        });
+        return new NickColourTable(networks);
+    }
+
+    /**
+     * Creates a table with no entries.
+     *
+     * @return A new, empty, table.
+     */
+    public static NickColourTable empty() {
+        return new NickColourTable(Collections.emptyMap());
+    }
+
+    /**
+     * Looks up the colour for a nickname. Entries for the given network take precedence over those that apply to all
+     * networks.
+     *
+     * @param converter The string converter to use to compare names.
+     * @param network   The lower case name of the network the user is on.
+     * @param nickname  The nickname of the user.
+     *
+     * @return The colour for the user, if one has been set.
+     */
+    public Optional<Colour> getColour(final StringConverter converter, final String network,
+            final String nickname) {
+        if (networks.isEmpty()) {
+            return Optional.empty();
+        }
+
+        final String nick = converter.toLowerCase(nickname);
+        final Map<String, Colour> networkColours = networks.get(network);
+        if (networkColours != null && networkColours.containsKey(nick)) {
+            return Optional.of(networkColours.get(nick));
+        }
+
+        final Map<String, Colour> globalColours = networks.get(ALL_NETWORKS);
+        return globalColours == null ? Optional.empty() : Optional.ofNullable(globalColours.get(nick));
+    }
+
+}
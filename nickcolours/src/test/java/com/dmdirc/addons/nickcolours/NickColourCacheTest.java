@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.dmdirc.addons.nickcolours;
+
+import com.dmdirc.parser.interfaces.StringConverter;
+import com.dmdirc.util.colours.Colour;
+
+import java.awt.Color;
+import java.util.Collections;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class NickColourCacheTest {
+
+    @Mock private StringConverter converter;
+    private Colour red;
+    private Colour green;
+    private Colour blue;
+    private NickColourCache cache;
+
+    @Before
+    public void setUp() {
+        when(converter.toLowerCase(anyString())).thenAnswer(i -> ((String) i.getArguments()[0])
+                .toLowerCase());
+        red = new Colour(255, 0, 0);
+        green = new Colour(0, 255, 0);
+        blue = new Colour(0, 0, 255);
+        cache = new NickColourCache(100);
+        cache.setPalette(red, green, blue);
+        cache.setUseRandomColour(true);
+    }
+
+    @Test
+    public void testHashIsSumOfCharacters() {
+        assertEquals(0, NickColourCache.getHash(""));
+        assertEquals('a' + 'b' + 'c', NickColourCache.getHash("abc"));
+    }
+
+    @Test
+    public void testRandomColourIsPickedByHash() {
+        // 'a' is 97, 97 % 3 == 1
+        assertSame(green, cache.getRandomColour("a"));
+        // 'b' is 98, 98 % 3 == 2
+        assertSame(blue, cache.getRandomColour("b"));
+        // 'a' + 'b' is 195, 195 % 3 == 0
+        assertSame(red, cache.getRandomColour("ab"));
+    }
+
+    @Test
+    public void testSameNickGetsSameColour() {
+        assertSame(cache.getColour(converter, "network", "nick").get(),
+                cache.getColour(converter, "othernetwork", "nick").get());
+    }
+
+    @Test
+    public void testTableColourTakesPrecedence() {
+        cache.setTable(NickColourTable.compile(Collections.singletonMap("network:nick",
+                new Color(1, 2, 3))));
+
+        final Colour colour = cache.getColour(converter, "network", "NICK").get();
+
+        assertEquals(1, colour.getRed());
+        assertEquals(2, colour.getGreen());
+        assertEquals(3, colour.getBlue());
+        assertSame(cache.getRandomColour("nick"), cache.getColour(converter, "other", "nick").get());
+    }
+
+    @Test
+    public void testNoColourWithoutRandomColours() {
+        cache.setUseRandomColour(false);
+
+        assertFalse(cache.getColour(converter, "network", "nick").isPresent());
+    }
+
+    @Test
+    public void testResultsAreCached() {
+        cache.setTable(NickColourTable.compile(Collections.singletonMap("network:nick",
+                new Color(1, 2, 3))));
+
+        final Optional<Colour> first = cache.getColour(converter, "network", "nick");
+        final Optional<Colour> second = cache.getColour(converter, "network", "nick");
+
+        assertSame(first, second);
+        assertEquals(1, cache.size());
+        verify(converter, times(1)).toLowerCase("nick");
+    }
+
+    @Test
+    public void testChangingSettingsInvalidatesCache() {
+        assertTrue(cache.getColour(converter, "network", "nick").isPresent());
+        assertEquals(1, cache.size());
+
+        cache.setUseRandomColour(false);
+        assertEquals(0, cache.size());
+        assertFalse(cache.getColour(converter, "network", "nick").isPresent());
+
+        cache.setUseRandomColour(true);
+        cache.setPalette(blue);
+        assertEquals(0, cache.size());
+        assertSame(blue, cache.getColour(converter, "network", "nick").get());
+
+        cache.setTable(NickColourTable.compile(Collections.singletonMap("*:nick",
+                new Color(1, 2, 3))));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getColour(converter, "network", "nick").get().getRed());
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        cache = new NickColourCache(2);
+        cache.setPalette(red);
+        for (int i = 0; i < 10; i++) {
+            cache.getColour(converter, "network", "nick" + i);
+        }
+
+        assertTrue(cache.size() <= 2);
+    }
+
+}
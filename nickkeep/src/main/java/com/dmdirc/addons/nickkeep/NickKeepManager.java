@@ -17,63 +17,108 @@
 
 package com.dmdirc.addons.nickkeep;
 
-import com.dmdirc.config.profiles.Profile;
 import com.dmdirc.events.ChannelNickChangeEvent;
+import com.dmdirc.events.ChannelQuitEvent;
+import com.dmdirc.events.ServerConnectedEvent;
+import com.dmdirc.events.ServerConnectingEvent;
+import com.dmdirc.events.ServerDisconnectedEvent;
+import com.dmdirc.events.ServerNumericEvent;
 import com.dmdirc.interfaces.Connection;
+import com.dmdirc.interfaces.ConnectionManager;
 import com.dmdirc.events.eventbus.EventBus;
 
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 
 import net.engio.mbassy.listener.Handler;
 
 /**
  * Provides Nick Keep support in DMDirc.
+ *
+ * <p>Each connection has a {@link NickReclaimer}, which this manager passes the relevant events
+ * to.
  */
 public class NickKeepManager {
 
     private final EventBus eventBus;
+    private final ConnectionManager connectionManager;
+    private final ScheduledExecutorService executorService;
+    private final Map<Connection, NickReclaimer> reclaimers = new ConcurrentHashMap<>();
 
     @Inject
-    public NickKeepManager(final EventBus eventBus) {
+    public NickKeepManager(final EventBus eventBus, final ConnectionManager connectionManager,
+            @Named("nickkeep") final ScheduledExecutorService executorService) {
         this.eventBus = eventBus;
+        this.connectionManager = connectionManager;
+        this.executorService = executorService;
     }
 
     public void load() {
         eventBus.subscribe(this);
+        connectionManager.getConnections().forEach(c -> getReclaimer(c).start());
     }
 
     public void unload() {
         eventBus.unsubscribe(this);
+        reclaimers.values().forEach(NickReclaimer::stop);
+        reclaimers.clear();
+        executorService.shutdown();
+    }
+
+    public Optional<NickReclaimer> getNickReclaimer(final Connection connection) {
+        return Optional.ofNullable(reclaimers.get(connection));
     }
 
+    private NickReclaimer getReclaimer(final Connection connection) {
+        return reclaimers.computeIfAbsent(connection,
+                c -> new NickReclaimer(c, executorService, System::currentTimeMillis));
+    }
+
+    @VisibleForTesting
     @Handler
-    public void handleNickChange(final ChannelNickChangeEvent event) {
-        final Optional<Connection> connection = event.getChannel().getConnection();
-        if (!connection.isPresent()) {
-            //No point carrying on without a connection
-            return;
-        }
-        final Optional<String> currentNickname = connection.map(Connection::getNickname)
-                .orElse(Optional.empty());
-        if (!currentNickname.isPresent()) {
-            //No point carrying on if we don't know our own nickname
-            return;
-        }
-        final Optional<String> desiredNickname = connection.map(Connection::getProfile)
-                .map(Profile::getNicknames).map(c -> c.stream().findFirst())
-                .orElse(Optional.empty());
-        if (!desiredNickname.isPresent()) {
-            //No point carrying on without a desired nickname
-            return;
-        }
-        if (!event.getOldNick().equals(desiredNickname.get())) {
-            //This isnt the nickname we're looking for, move along
-            return;
-        }
-        if (!currentNickname.equals(desiredNickname)) {
-            connection.ifPresent(c -> c.setNickname(desiredNickname.get()));
+    void handleServerConnecting(final ServerConnectingEvent event) {
+        getReclaimer(event.getConnection());
+    }
+
+    @VisibleForTesting
+    @Handler
+    void handleServerConnected(final ServerConnectedEvent event) {
+        getReclaimer(event.getConnection()).start();
+    }
+
+    @VisibleForTesting
+    @Handler
+    void handleServerDisconnected(final ServerDisconnectedEvent event) {
+        final NickReclaimer reclaimer = reclaimers.remove(event.getConnection());
+        if (reclaimer != null) {
+            reclaimer.stop();
         }
     }
+
+    @VisibleForTesting
+    @Handler
+    void handleServerNumeric(final ServerNumericEvent event) {
+        getNickReclaimer(event.getConnection())
+                .ifPresent(r -> r.handleNumeric(event.getNumeric(), event.getArgs()));
+    }
+
+    @Handler
+    public void handleNickChange(final ChannelNickChangeEvent event) {
+        event.getChannel().getConnection().flatMap(this::getNickReclaimer)
+                .ifPresent(r -> r.nicknameFreed(event.getOldNick()));
+    }
+
+    @VisibleForTesting
+    @Handler
+    void handleQuit(final ChannelQuitEvent event) {
+        event.getChannel().getConnection().flatMap(this::getNickReclaimer)
+                .ifPresent(r -> r.nicknameFreed(event.getClient().getNickname()));
+    }
 }
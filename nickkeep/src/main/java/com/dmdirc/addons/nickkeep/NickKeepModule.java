@@ -18,11 +18,25 @@
 package com.dmdirc.addons.nickkeep;
 
 import com.dmdirc.ClientModule;
+import com.dmdirc.util.LoggingScheduledExecutorService;
+
+import java.util.concurrent.ScheduledExecutorService;
+
+import javax.inject.Named;
 
 import dagger.Module;
+import dagger.Provides;
 
 /**
  * Dagger injection module for the Nick Keep plugin
  */
 @Module(injects = NickKeepManager.class, addsTo = ClientModule.class)
-public class NickKeepModule {}
+public class NickKeepModule {
+
+    @Provides
+    @Named("nickkeep")
+    public ScheduledExecutorService getExecutorService() {
+        return new LoggingScheduledExecutorService(1, "nickkeep");
+    }
+
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.nickkeep;
+
+import com.dmdirc.config.profiles.Profile;
+import com.dmdirc.interfaces.Connection;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Watches for nicknames we would rather be using on a single {@link Connection}, and tries to
+ * reclaim them when they become free.
+ *
+ * <p>The nicknames watched are the profile nicknames that are preferred over the one we currently
+ * have. If the server supports {@code MONITOR} they are added to the monitor list, and the server
+ * tells us when they go offline; otherwise they are checked periodically with a single
+ * {@code ISON}. Nick changes and quits seen in channels are also treated as hints, but as they
+ * arrive once per shared channel, attempts are de-duplicated and back off if they fail.
+ */
+public class NickReclaimer {
+
+    /** The time between ISON checks when MONITOR isn't available, in milliseconds. */
+    static final long POLL_INTERVAL = 60000;
+    /** The minimum time between attempts to change nickname, in milliseconds. */
+    static final long MIN_BACKOFF = 2000;
+    /** The maximum time between attempts to change nickname, in milliseconds. */
+    static final long MAX_BACKOFF = 300000;
+    /** The connection to reclaim nicknames on. */
+    private final Connection connection;
+    /** Executor to schedule checks on. */
+    private final ScheduledExecutorService executorService;
+    /** Supplier of the current time, in milliseconds. */
+    private final LongSupplier clock;
+    /** Whether the server supports MONITOR. */
+    private boolean monitorSupported;
+    /** The nicknames currently on the server's monitor list. */
+    private List<String> monitored = Collections.emptyList();
+    /** The nickname we had when we last looked, used to notice our own nick changes. */
+    private Optional<String> lastNickname = Optional.empty();
+    /** The nicknames included in the last ISON we sent, if we're waiting for a reply. */
+    private List<String> pendingIson = Collections.emptyList();
+    /** The earliest time we may try to change nickname again. */
+    private long nextAttempt;
+    /** The time to wait after the next attempt. */
+    private long backoff = MIN_BACKOFF;
+    /** The number of attempts made to change nickname. */
+    private int attempts;
+    /** Periodic ISON check, if one is scheduled. */
+    private ScheduledFuture<?> pollFuture;
+    /** Deferred check after a hint arrived while backing off, if one is scheduled. */
+    private ScheduledFuture<?> retryFuture;
+
+    public NickReclaimer(final Connection connection,
+            final ScheduledExecutorService executorService, final LongSupplier clock) {
+        this.connection = connection;
+        this.executorService = executorService;
+        this.clock = clock;
+    }
+
+    /**
+     * Starts watching for nicknames, using whichever method the server supports.
+     */
+    public synchronized void start() {
+        checkOwnNickname();
+        if (pollFuture == null) {
+            pollFuture = executorService.scheduleWithFixedDelay(this::poll, POLL_INTERVAL,
+                    POLL_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+        updateMonitor();
+    }
+
+    /**
+     * Stops watching for nicknames.
+     */
+    public synchronized void stop() {
+        if (pollFuture != null) {
+            pollFuture.cancel(false);
+            pollFuture = null;
+        }
+        if (retryFuture != null) {
+            retryFuture.cancel(false);
+            retryFuture = null;
+        }
+    }
+
+    /**
+     * Records that the server supports MONITOR, and switches to using it.
+     */
+    public synchronized void monitorSupported() {
+        if (!monitorSupported) {
+            monitorSupported = true;
+            updateMonitor();
+        }
+    }
+
+    /**
+     * Handles a hint that the given nickname may now be free, such as a user quitting or
+     * changing nickname.
+     *
+     * @param nickname The nickname that may be free.
+     */
+    public synchronized void nicknameFreed(final String nickname) {
+        checkOwnNickname();
+        final List<String> wanted = getWantedNicknames();
+        if (!containsIgnoreCase(wanted, nickname)) {
+            return;
+        }
+        final long now = clock.getAsLong();
+        if (now < nextAttempt) {
+            // Another attempt was made recently; check again once the backoff has expired
+            // rather than trying once per shared channel.
+            scheduleRetry(nextAttempt - now);
+            return;
+        }
+        attempt(wanted.get(indexOfIgnoreCase(wanted, nickname)), now);
+    }
+
+    /**
+     * Handles a numeric from the server.
+     *
+     * @param numeric The numeric that was received.
+     * @param args    The arguments of the numeric, including the prefix and numeric.
+     */
+    public synchronized void handleNumeric(final int numeric, final String... args) {
+        checkOwnNickname();
+        switch (numeric) {
+            case 5:
+                if (Arrays.stream(args).anyMatch(a -> a.equals("MONITOR")
+                        || a.startsWith("MONITOR="))) {
+                    monitorSupported();
+                }
+                break;
+            case 303:
+                handleIsonReply(args.length > 3 ? args[3] : "");
+                break;
+            case 731:
+                if (args.length > 3) {
+                    final List<String> offline = Arrays.asList(args[3].split(","));
+                    getWantedNicknames().stream()
+                            .filter(n -> containsIgnoreCase(offline, n))
+                            .findFirst()
+                            .ifPresent(this::nicknameFreed);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Gets the number of attempts made to change nickname.
+     *
+     * @return The number of attempts made.
+     */
+    public synchronized int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Periodic check for wanted nicknames. With MONITOR the server tells us when they become free,
+     * so this only keeps the monitor list up to date; otherwise the nicknames are checked with
+     * ISON.
+     */
+    @VisibleForTesting
+    synchronized void poll() {
+        checkOwnNickname();
+        if (monitorSupported) {
+            updateMonitor();
+        } else {
+            check();
+        }
+    }
+
+    /**
+     * Deferred check after a hint arrived while backing off.
+     */
+    @VisibleForTesting
+    synchronized void retry() {
+        retryFuture = null;
+        checkOwnNickname();
+        check();
+    }
+
+    /**
+     * Sends a single ISON for all wanted nicknames.
+     */
+    private void check() {
+        final List<String> wanted = getWantedNicknames();
+        if (wanted.isEmpty()) {
+            return;
+        }
+        pendingIson = wanted;
+        sendRaw("ISON " + String.join(" ", wanted));
+    }
+
+    private void handleIsonReply(final String reply) {
+        if (pendingIson.isEmpty()) {
+            return;
+        }
+        final List<String> online = Arrays.asList(reply.trim().split(" "));
+        final List<String> checked = pendingIson;
+        pendingIson = Collections.emptyList();
+        checked.stream()
+                .filter(n -> !containsIgnoreCase(online, n))
+                .findFirst()
+                .ifPresent(this::nicknameFreed);
+    }
+
+    private void attempt(final String nickname, final long now) {
+        attempts++;
+        nextAttempt = now + backoff;
+        backoff = Math.min(backoff * 2, MAX_BACKOFF);
+        connection.setNickname(nickname);
+    }
+
+    /**
+     * Checks whether our nickname has changed since we last looked. If it has, any attempt we
+     * made has either succeeded or been overtaken, so the backoff starts afresh, and the monitor
+     * list is updated to match the new set of wanted nicknames. The backoff is also reset if there
+     * are no longer any nicknames we want.
+     */
+    private void checkOwnNickname() {
+        final Optional<String> current = connection.getNickname();
+        final boolean changed = !current.map(n -> n.equalsIgnoreCase(lastNickname.orElse(null)))
+                .orElse(!lastNickname.isPresent());
+        lastNickname = current;
+        if (changed || getWantedNicknames().isEmpty()) {
+            resetBackoff();
+        }
+        if (changed) {
+            updateMonitor();
+        }
+    }
+
+    private void resetBackoff() {
+        backoff = MIN_BACKOFF;
+        nextAttempt = 0;
+        if (retryFuture != null) {
+            retryFuture.cancel(false);
+            retryFuture = null;
+        }
+    }
+
+    private void scheduleRetry(final long delay) {
+        if (retryFuture == null) {
+            retryFuture = executorService.schedule(this::retry, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Updates the server's monitor list to contain the wanted nicknames, if MONITOR is supported.
+     */
+    private void updateMonitor() {
+        if (!monitorSupported) {
+            return;
+        }
+        final List<String> wanted = getWantedNicknames();
+        if (wanted.equals(monitored)) {
+            return;
+        }
+        if (!monitored.isEmpty()) {
+            sendRaw("MONITOR - " + String.join(",", monitored));
+        }
+        if (!wanted.isEmpty()) {
+            sendRaw("MONITOR + " + String.join(",", wanted));
+        }
+        monitored = wanted;
+    }
+
+    /**
+     * Gets the nicknames that we would prefer to the one we have, in order of preference.
+     *
+     * @return The nicknames to watch for.
+     */
+    private List<String> getWantedNicknames() {
+        final List<String> nicknames = Optional.ofNullable(connection.getProfile())
+                .map(Profile::getNicknames).orElse(Collections.emptyList());
+        final Optional<String> current = connection.getNickname();
+        if (!current.isPresent()) {
+            return Collections.emptyList();
+        }
+        final int index = indexOfIgnoreCase(nicknames, current.get());
+        return nicknames.stream()
+                .limit(index < 0 ? nicknames.size() : index)
+                .collect(Collectors.toList());
+    }
+
+    private void sendRaw(final String line) {
+        connection.getParser().ifPresent(p -> p.sendRawMessage(line));
+    }
+
+    private static boolean containsIgnoreCase(final List<String> list, final String value) {
+        return indexOfIgnoreCase(list, value) >= 0;
+    }
+
+    private static int indexOfIgnoreCase(final List<String> list, final String value) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i).equalsIgnoreCase(value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+}
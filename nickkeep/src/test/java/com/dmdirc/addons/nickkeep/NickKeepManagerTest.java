@@ -20,12 +20,18 @@ package com.dmdirc.addons.nickkeep;
 import com.dmdirc.Channel;
 import com.dmdirc.config.profiles.Profile;
 import com.dmdirc.events.ChannelNickChangeEvent;
+import com.dmdirc.events.ChannelQuitEvent;
+import com.dmdirc.events.ServerConnectingEvent;
+import com.dmdirc.events.ServerDisconnectedEvent;
 import com.dmdirc.interfaces.Connection;
+import com.dmdirc.interfaces.ConnectionManager;
 import com.dmdirc.events.eventbus.EventBus;
+import com.dmdirc.interfaces.GroupChatUser;
 
 import com.google.common.collect.Lists;
 
 import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -33,6 +39,8 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -42,7 +50,12 @@ import static org.mockito.Mockito.when;
 public class NickKeepManagerTest {
 
     @Mock private EventBus eventBus;
+    @Mock private ConnectionManager connectionManager;
+    @Mock private ScheduledExecutorService executorService;
     @Mock private ChannelNickChangeEvent event;
+    @Mock private ChannelQuitEvent quitEvent;
+    @Mock private ServerConnectingEvent connectingEvent;
+    @Mock private GroupChatUser client;
     @Mock private Channel channel;
     @Mock private Connection connection;
     @Mock private Profile profile;
@@ -50,10 +63,15 @@ public class NickKeepManagerTest {
 
     @Before
     public void setUp() throws Exception {
-        instance = new NickKeepManager(eventBus);
+        instance = new NickKeepManager(eventBus, connectionManager, executorService);
+        when(connectionManager.getConnections()).thenReturn(Lists.newArrayList(connection));
         when(event.getChannel()).thenReturn(channel);
+        when(quitEvent.getChannel()).thenReturn(channel);
+        when(quitEvent.getClient()).thenReturn(client);
+        when(connectingEvent.getConnection()).thenReturn(connection);
         when(channel.getConnection()).thenReturn(Optional.of(connection));
         when(connection.getProfile()).thenReturn(profile);
+        when(connection.getNickname()).thenReturn(Optional.of("RAR"));
         when(profile.getNicknames()).thenReturn(Lists.newArrayList("one", "two", "three"));
     }
 
@@ -61,48 +79,54 @@ public class NickKeepManagerTest {
     public void testLoad() throws Exception {
         instance.load();
         verify(eventBus).subscribe(instance);
+        assertTrue(instance.getNickReclaimer(connection).isPresent());
     }
 
     @Test
     public void testUnload() throws Exception {
+        instance.load();
         instance.unload();
         verify(eventBus).unsubscribe(instance);
+        verify(executorService).shutdown();
+        assertFalse(instance.getNickReclaimer(connection).isPresent());
     }
 
     @Test
-    public void testHandleNickChange_NoConnection() throws Exception {
-        when(channel.getConnection()).thenReturn(Optional.empty());
-        instance.handleNickChange(event);
-        verify(connection, never()).setNickname("one");
+    public void testDisconnectRemovesReclaimer() throws Exception {
+        instance.handleServerConnecting(connectingEvent);
+        instance.handleServerDisconnected(new ServerDisconnectedEvent(connection));
+        assertFalse(instance.getNickReclaimer(connection).isPresent());
     }
 
     @Test
-    public void testHandleNickChange_NoCurrentNickname() throws Exception {
-        when(connection.getNickname()).thenReturn(Optional.empty());
+    public void testHandleNickChange_NoConnection() throws Exception {
+        instance.handleServerConnecting(connectingEvent);
+        when(channel.getConnection()).thenReturn(Optional.empty());
+        when(event.getOldNick()).thenReturn("one");
         instance.handleNickChange(event);
-        verify(connection, never()).setNickname("one");
+        verify(connection, never()).setNickname(anyString());
     }
 
     @Test
-    public void testHandleNickChange_NoNicknames() throws Exception {
-        when(profile.getNicknames()).thenReturn(Lists.newArrayList());
+    public void testHandleNickChange_UnknownConnection() throws Exception {
+        when(event.getOldNick()).thenReturn("one");
         instance.handleNickChange(event);
         verify(connection, never()).setNickname(anyString());
     }
 
     @Test
-    public void testHandleNickChange_NotDesired() throws Exception {
-        when(event.getOldNick()).thenReturn("RAR");
-        when(connection.getNickname()).thenReturn(Optional.of("one"));
+    public void testHandleNickChange_Desired() throws Exception {
+        instance.handleServerConnecting(connectingEvent);
+        when(event.getOldNick()).thenReturn("one");
         instance.handleNickChange(event);
-        verify(connection, never()).setNickname("one");
+        verify(connection).setNickname("one");
     }
 
     @Test
-    public void testHandleNickChange_Desired() throws Exception {
-        when(event.getOldNick()).thenReturn("one");
-        when(connection.getNickname()).thenReturn(Optional.of("RAR"));
-        instance.handleNickChange(event);
+    public void testHandleQuit_Desired() throws Exception {
+        instance.handleServerConnecting(connectingEvent);
+        when(client.getNickname()).thenReturn("one");
+        instance.handleQuit(quitEvent);
         verify(connection).setNickname("one");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.nickkeep;
+
+import com.dmdirc.config.profiles.Profile;
+import com.dmdirc.interfaces.Connection;
+import com.dmdirc.parser.interfaces.Parser;
+
+import com.google.common.collect.Lists;
+
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class NickReclaimerTest {
+
+    @Mock private Connection connection;
+    @Mock private Profile profile;
+    @Mock private Parser parser;
+    @Mock private ScheduledExecutorService executorService;
+    @Mock private ScheduledFuture<?> future;
+    private long time;
+    private NickReclaimer instance;
+
+    @Before
+    public void setUp() {
+        when(connection.getProfile()).thenReturn(profile);
+        when(connection.getParser()).thenReturn(Optional.of(parser));
+        when(connection.getNickname()).thenReturn(Optional.of("three"));
+        when(profile.getNicknames()).thenReturn(Lists.newArrayList("one", "two", "three"));
+        doReturn(future).when(executorService).schedule(any(Runnable.class), anyLong(),
+                any(TimeUnit.class));
+        instance = new NickReclaimer(connection, executorService, () -> time);
+    }
+
+    @Test
+    public void testReclaimsPreferredNickname() {
+        instance.nicknameFreed("ONE");
+        verify(connection).setNickname("one");
+    }
+
+    @Test
+    public void testIgnoresLessPreferredNickname() {
+        when(connection.getNickname()).thenReturn(Optional.of("two"));
+        instance.nicknameFreed("three");
+        verify(connection, never()).setNickname(anyString());
+    }
+
+    @Test
+    public void testIgnoresWhenAlreadyPreferred() {
+        when(connection.getNickname()).thenReturn(Optional.of("one"));
+        instance.nicknameFreed("one");
+        verify(connection, never()).setNickname(anyString());
+    }
+
+    @Test
+    public void testIgnoresWithoutNicknames() {
+        when(profile.getNicknames()).thenReturn(Lists.newArrayList());
+        instance.nicknameFreed("one");
+        verify(connection, never()).setNickname(anyString());
+    }
+
+    @Test
+    public void testDeduplicatesAttempts() {
+        for (int i = 0; i < 40; i++) {
+            instance.nicknameFreed("one");
+        }
+        verify(connection, times(1)).setNickname("one");
+        verify(executorService, times(1)).schedule(any(Runnable.class),
+                anyLong(), any(TimeUnit.class));
+        assertEquals(1, instance.getAttempts());
+    }
+
+    @Test
+    public void testBacksOff() {
+        instance.nicknameFreed("one");
+        time += NickReclaimer.MIN_BACKOFF;
+        instance.nicknameFreed("one");
+        assertEquals(2, instance.getAttempts());
+        time += NickReclaimer.MIN_BACKOFF;
+        instance.nicknameFreed("one");
+        assertEquals(2, instance.getAttempts());
+        time += NickReclaimer.MIN_BACKOFF;
+        instance.nicknameFreed("one");
+        assertEquals(3, instance.getAttempts());
+    }
+
+    @Test
+    public void testRetryChecksWithIson() {
+        instance.nicknameFreed("one");
+        instance.nicknameFreed("one");
+        time += NickReclaimer.MIN_BACKOFF;
+        instance.retry();
+        verify(parser).sendRawMessage("ISON one two");
+    }
+
+    @Test
+    public void testIsonPoll() {
+        instance.poll();
+        verify(parser).sendRawMessage("ISON one two");
+        instance.handleNumeric(303, ":server", "303", "three", "two ");
+        verify(connection).setNickname("one");
+    }
+
+    @Test
+    public void testIsonReplyWithAllOnline() {
+        instance.poll();
+        instance.handleNumeric(303, ":server", "303", "three", "one two");
+        verify(connection, never()).setNickname(anyString());
+    }
+
+    @Test
+    public void testUnsolicitedIsonReplyIgnored() {
+        instance.handleNumeric(303, ":server", "303", "three", "");
+        verify(connection, never()).setNickname(anyString());
+    }
+
+    @Test
+    public void testUsesMonitorWhenSupported() {
+        instance.handleNumeric(5, ":server", "005", "three", "MONITOR=100", "are supported");
+        verify(parser).sendRawMessage("MONITOR + one,two");
+        instance.poll();
+        verify(parser, never()).sendRawMessage(startsWith("ISON"));
+        instance.handleNumeric(731, ":server", "731", "three", "two,one");
+        verify(connection).setNickname("one");
+    }
+
+    @Test
+    public void testResetsBackoffAfterOwnNickChange() {
+        instance.nicknameFreed("one");
+        time += NickReclaimer.MIN_BACKOFF;
+        instance.nicknameFreed("one");
+        assertEquals(2, instance.getAttempts());
+
+        // We got our second choice, so "one" may be tried again straight away.
+        when(connection.getNickname()).thenReturn(Optional.of("two"));
+        time += 10;
+        instance.nicknameFreed("one");
+        assertEquals(3, instance.getAttempts());
+        time += NickReclaimer.MIN_BACKOFF;
+        instance.nicknameFreed("one");
+        assertEquals(4, instance.getAttempts());
+    }
+
+    @Test
+    public void testResetsBackoffWithMonitorOnceNicknameReclaimed() {
+        instance.handleNumeric(5, ":server", "005", "three", "MONITOR=100", "are supported");
+        instance.handleNumeric(731, ":server", "731", "three", "one");
+        assertEquals(1, instance.getAttempts());
+
+        when(connection.getNickname()).thenReturn(Optional.of("one"));
+        instance.poll();
+        verify(parser).sendRawMessage("MONITOR - one,two");
+
+        // The nickname is lost again shortly afterwards, and then becomes free.
+        when(connection.getNickname()).thenReturn(Optional.of("three"));
+        time += 10;
+        instance.handleNumeric(731, ":server", "731", "three", "one");
+        verify(parser, times(2)).sendRawMessage("MONITOR + one,two");
+        verify(connection, times(2)).setNickname("one");
+        assertEquals(2, instance.getAttempts());
+    }
+
+    @Test
+    public void testStopCancelsChecks() {
+        doReturn(future).when(executorService).scheduleWithFixedDelay(any(Runnable.class),
+                anyLong(), anyLong(), any(TimeUnit.class));
+        instance.start();
+        instance.stop();
+        verify(future).cancel(false);
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.notifications;
+
+/**
+ * A notification handler that queues notifications on a {@link NotificationDispatcher} instead of
+ * showing them straight away.
+ */
+public class DispatchingNotificationHandler implements NotificationHandler {
+
+    /** The name of the wrapped handler. */
+    private final String name;
+    /** The handler to show notifications with. */
+    private final NotificationHandler handler;
+    /** The dispatcher to queue notifications on. */
+    private final NotificationDispatcher dispatcher;
+
+    public DispatchingNotificationHandler(final String name, final NotificationHandler handler,
+            final NotificationDispatcher dispatcher) {
+        this.name = name;
+        this.handler = handler;
+        this.dispatcher = dispatcher;
+    }
+
+    @Override
+    public void showNotification(final String title, final String message) {
+        showNotification(title, title, message);
+    }
+
+    @Override
+    public void showNotification(final String source, final String title, final String message) {
+        dispatcher.dispatch(name, handler, source, title, message);
+    }
+
+}
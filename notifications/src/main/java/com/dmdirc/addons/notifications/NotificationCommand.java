@@ -29,6 +29,7 @@ import com.dmdirc.interfaces.WindowModel;
 import com.dmdirc.ui.input.AdditionalTabTargets;
 
 import javax.annotation.Nonnull;
+import javax.inject.Inject;
 import java.util.Collection;
 
 /**
@@ -52,6 +53,7 @@ public class NotificationCommand extends BaseCommand implements IntelligentComma
      * @param controller The controller to use for command information.
      * @param manager    The notifications manager to get notification plugins from
      */
+    @Inject
     public NotificationCommand(final CommandController controller,
             final NotificationsManager manager) {
         super(controller);
@@ -74,14 +76,16 @@ public class NotificationCommand extends BaseCommand implements IntelligentComma
                 if (handler == null) {
                     showError(origin, args.isSilent(), "Method not found.");
                 } else {
-                    handler.showNotification("DMDirc", args.getArgumentsAsString(2));
+                    handler.showNotification(origin.getName(), "DMDirc",
+                            args.getArgumentsAsString(2));
                 }
             } else {
                 showError(origin, args.isSilent(),
                         "You must specify a method when using --method.");
             }
         } else if (manager.hasActiveHandler()) {
-            manager.getPreferredHandler().showNotification("DMDirc", args.getArgumentsAsString(0));
+            manager.getPreferredHandler().showNotification(origin.getName(), "DMDirc",
+                    args.getArgumentsAsString(0));
         } else {
             showError(origin, args.isSilent(), "No active notification methods available.");
         }
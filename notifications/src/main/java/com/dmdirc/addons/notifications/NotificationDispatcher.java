@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.notifications;
+
+import com.dmdirc.config.GlobalConfig;
+import com.dmdirc.config.binding.ConfigBinder;
+import com.dmdirc.config.binding.ConfigBinding;
+import com.dmdirc.config.provider.AggregateConfigProvider;
+import com.dmdirc.plugins.PluginDomain;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Delivers notifications to their handlers on a dedicated thread.
+ *
+ * <p>Notifications for each handler are grouped by their source. The first notification from a
+ * source is delivered straight away, and any more that arrive in the following coalescing window
+ * are combined into a single summary. Identical notifications from the same source are dropped,
+ * and each handler is limited to a configurable rate.
+ */
+@Singleton
+public class NotificationDispatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NotificationDispatcher.class);
+    /** The number of recent messages from each source remembered to detect duplicates. */
+    private static final int RECENT_MESSAGES = 16;
+    /** The executor that state is accessed, and handlers are called, on. */
+    private final ScheduledExecutorService executorService;
+    /** Binder to bind our settings with. */
+    private final ConfigBinder configBinder;
+    /** The clock to read the current time from, in milliseconds. */
+    private final LongSupplier clock;
+    /** The state of each handler, keyed on name. Only accessed on the executor. */
+    private final Map<String, HandlerState> handlers = new HashMap<>();
+    /** The number of notifications received. */
+    private final AtomicLong received = new AtomicLong();
+    /** The number of notifications dropped because they were duplicates. */
+    private final AtomicLong duplicates = new AtomicLong();
+    /** The number of notifications combined into summaries. */
+    private final AtomicLong coalesced = new AtomicLong();
+    /** The number of notifications (including summaries) delivered to handlers. */
+    private final AtomicLong delivered = new AtomicLong();
+    /** The length of the coalescing window, in milliseconds. */
+    private volatile int coalesceWindow = 5000;
+    /** The number of notifications each handler may show per minute. */
+    private volatile int rateLimit = 10;
+    /** The number of notifications each handler may show in a burst. */
+    private volatile int rateBurst = 3;
+
+    @Inject
+    public NotificationDispatcher(
+            @Named("notifications") final ScheduledExecutorService executorService,
+            @GlobalConfig final AggregateConfigProvider config,
+            @PluginDomain(NotificationsPlugin.class) final String domain) {
+        this(executorService, config, domain, System::currentTimeMillis);
+    }
+
+    @VisibleForTesting
+    NotificationDispatcher(
+            final ScheduledExecutorService executorService,
+            final AggregateConfigProvider config,
+            final String domain,
+            final LongSupplier clock) {
+        this.executorService = executorService;
+        this.clock = clock;
+        configBinder = config.getBinder().withDefaultDomain(domain);
+    }
+
+    public void load() {
+        configBinder.bind(this, NotificationDispatcher.class);
+    }
+
+    public void unload() {
+        configBinder.unbind(this);
+        executorService.shutdownNow();
+    }
+
+    /**
+     * Queues a notification to be shown by the given handler.
+     *
+     * @param name    The name of the handler
+     * @param handler The handler to show the notification
+     * @param source  The source of the notification, used to group related notifications
+     * @param title   The title of the notification
+     * @param message The notification content
+     */
+    public void dispatch(final String name, final NotificationHandler handler,
+            final String source, final String title, final String message) {
+        received.incrementAndGet();
+        executorService.execute(() -> getState(name, handler).getSource(source)
+                .add(title, message));
+    }
+
+    public long getReceived() {
+        return received.get();
+    }
+
+    public long getDuplicates() {
+        return duplicates.get();
+    }
+
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    @ConfigBinding(key = "coalescewindow")
+    void handleCoalesceWindow(final int value) {
+        coalesceWindow = value;
+    }
+
+    @ConfigBinding(key = "ratelimit")
+    void handleRateLimit(final int value) {
+        rateLimit = value;
+        executorService.execute(() -> handlers.values().forEach(HandlerState::updateLimits));
+    }
+
+    @ConfigBinding(key = "rateburst")
+    void handleRateBurst(final int value) {
+        rateBurst = value;
+        executorService.execute(() -> handlers.values().forEach(HandlerState::updateLimits));
+    }
+
+    private HandlerState getState(final String name, final NotificationHandler handler) {
+        final HandlerState state = handlers.get(name);
+        if (state == null || state.handler != handler) {
+            final HandlerState newState = new HandlerState(handler);
+            handlers.put(name, newState);
+            return newState;
+        }
+        return state;
+    }
+
+    /**
+     * The rate limit and pending notifications for a single handler.
+     */
+    private class HandlerState {
+
+        private final NotificationHandler handler;
+        private final TokenBucket bucket;
+        private final Map<String, SourceState> sources = new HashMap<>();
+
+        HandlerState(final NotificationHandler handler) {
+            this.handler = handler;
+            bucket = new TokenBucket(clock, rateLimit, rateBurst);
+        }
+
+        void updateLimits() {
+            bucket.setLimits(rateLimit, rateBurst);
+        }
+
+        SourceState getSource(final String source) {
+            return sources.computeIfAbsent(source, SourceState::new);
+        }
+
+        /**
+         * Notifications from a single source.
+         */
+        private class SourceState {
+
+            private final String source;
+            /** Messages pending or last delivered, oldest first, to detect duplicates. */
+            private final Set<String> recent = new LinkedHashSet<>();
+            /** The number of notifications waiting to be delivered. */
+            private int pending;
+            private String latestTitle;
+            private String latestMessage;
+            private boolean scheduled;
+
+            SourceState(final String source) {
+                this.source = source;
+            }
+
+            void add(final String title, final String message) {
+                if (!recent.add(message)) {
+                    duplicates.incrementAndGet();
+                    return;
+                }
+                if (recent.size() > RECENT_MESSAGES) {
+                    final Iterator<String> iterator = recent.iterator();
+                    iterator.next();
+                    iterator.remove();
+                }
+                pending++;
+                latestTitle = title;
+                latestMessage = message;
+                if (!scheduled) {
+                    flush();
+                }
+            }
+
+            /**
+             * Delivers any pending notifications if the rate limit allows, and schedules the
+             * next flush.
+             */
+            void flush() {
+                scheduled = false;
+                if (pending == 0) {
+                    sources.remove(source);
+                    return;
+                }
+
+                if (bucket.tryAcquire()) {
+                    if (pending == 1) {
+                        show(latestTitle, latestMessage);
+                    } else {
+                        coalesced.addAndGet(pending);
+                        show(latestTitle, pending + " new messages in " + source
+                                + " (latest: " + latestMessage + ')');
+                    }
+                    // Only the delivered message is still a duplicate in the next window.
+                    recent.clear();
+                    recent.add(latestMessage);
+                    pending = 0;
+                    latestTitle = null;
+                    schedule(coalesceWindow);
+                } else {
+                    schedule(Math.max(1, bucket.getDelay()));
+                }
+            }
+
+            private void schedule(final long delay) {
+                scheduled = true;
+                executorService.schedule(this::flush, delay, TimeUnit.MILLISECONDS);
+            }
+
+            private void show(final String title, final String message) {
+                delivered.incrementAndGet();
+                try {
+                    handler.showNotification(title, message);
+                } catch (RuntimeException ex) {
+                    LOG.warn("Notification handler failed", ex);
+                }
+            }
+
+        }
+
+    }
+
+}
@@ -30,4 +30,16 @@ public interface NotificationHandler {
      */
     void showNotification(String title, String message);
 
+    /**
+     * Displays a notification to the user. Notifications from the same source, such as a window,
+     * may be grouped together.
+     *
+     * @param source The source of the notification.
+     * @param title The title of the notification.
+     * @param message The notification content.
+     */
+    default void showNotification(String source, String title, String message) {
+        showNotification(title, message);
+    }
+
 }
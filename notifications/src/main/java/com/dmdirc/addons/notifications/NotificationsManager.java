@@ -32,16 +32,18 @@ import com.dmdirc.plugins.PluginInfo;
 import com.dmdirc.plugins.PluginManager;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.inject.Inject;
+import javax.inject.Singleton;
 import net.engio.mbassy.listener.Handler;
 
+@Singleton
 public class NotificationsManager {
 
     /** The notification handlers that we know of. */
-    private final Map<String, NotificationHandler> handlers = new HashMap<>();
+    private final Map<String, NotificationHandler> handlers = new ConcurrentHashMap<>();
     /** The user's preferred order for method usage. */
     private List<String> order;
     /** This plugin's settings domain. */
@@ -53,22 +55,26 @@ public class NotificationsManager {
     private final PluginManager pluginManager;
     /** Event bus to listen for events on. */
     private final EventBus eventBus;
+    /** Dispatcher to queue notifications on. */
+    private final NotificationDispatcher dispatcher;
 
     @Inject
     public NotificationsManager(@PluginDomain(NotificationsPlugin.class) final String domain,
             @PluginDomain(NotificationsPlugin.class) final PluginInfo pluginInfo,
             @GlobalConfig final AggregateConfigProvider globalConfig, final EventBus eventBus,
-            final PluginManager pluginManager) {
+            final PluginManager pluginManager, final NotificationDispatcher dispatcher) {
         this.domain = domain;
         this.pluginInfo = pluginInfo;
         this.globalConfig = globalConfig;
         this.pluginManager = pluginManager;
         this.eventBus = eventBus;
+        this.dispatcher = dispatcher;
     }
 
     public void onLoad() {
         handlers.clear();
         loadSettings();
+        dispatcher.load();
         eventBus.subscribe(this);
         pluginManager.getPluginInfos().stream()
                 .filter(PluginInfo::isLoaded)
@@ -78,6 +84,7 @@ public class NotificationsManager {
     public void onUnload() {
         handlers.clear();
         eventBus.unsubscribe(this);
+        dispatcher.unload();
     }
 
     @Handler
@@ -107,7 +114,9 @@ public class NotificationsManager {
      */
     private void addPlugin(final PluginInfo target) {
         if (target.hasExportedService("showNotification")) {
-            handlers.put(target.getMetaData().getName(), new LegacyNotificationHandler(pluginInfo));
+            final String name = target.getMetaData().getName();
+            handlers.put(name, new DispatchingNotificationHandler(name,
+                    new LegacyNotificationHandler(target), dispatcher));
             addHandlerToOrder(target);
         }
     }
@@ -20,6 +20,11 @@ package com.dmdirc.addons.notifications;
 import com.dmdirc.ClientModule;
 import com.dmdirc.plugins.PluginDomain;
 import com.dmdirc.plugins.PluginInfo;
+import com.dmdirc.util.LoggingScheduledExecutorService;
+
+import java.util.concurrent.ScheduledExecutorService;
+
+import javax.inject.Named;
 
 import dagger.Module;
 import dagger.Provides;
@@ -46,4 +51,10 @@ public class NotificationsModule {
         return pluginInfo;
     }
 
+    @Provides
+    @Named("notifications")
+    public ScheduledExecutorService getExecutorService() {
+        return new LoggingScheduledExecutorService(1, "notifications");
+    }
+
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.notifications;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A token bucket used to limit the rate at which notifications are sent to a backend.
+ */
+public class TokenBucket {
+
+    /** The clock to read the current time from, in milliseconds. */
+    private final LongSupplier clock;
+    /** The maximum number of tokens the bucket can hold. */
+    private int capacity;
+    /** The number of milliseconds it takes to gain one token. */
+    private long refillInterval;
+    /** The number of tokens currently in the bucket. */
+    private double tokens;
+    /** The last time the bucket was refilled. */
+    private long lastRefill;
+
+    /**
+     * Creates a new, full, token bucket.
+     *
+     * @param clock         The clock to read the current time from, in milliseconds
+     * @param ratePerMinute The number of tokens gained each minute
+     * @param burst         The maximum number of tokens the bucket can hold
+     */
+    public TokenBucket(final LongSupplier clock, final int ratePerMinute, final int burst) {
+        this.clock = clock;
+        lastRefill = clock.getAsLong();
+        capacity = Math.max(1, burst);
+        refillInterval = 60000L / Math.max(1, ratePerMinute);
+        tokens = capacity;
+    }
+
+    /**
+     * Changes the limits of this bucket. Tokens gained so far are added at the old rate, and any
+     * tokens above the new capacity are discarded.
+     *
+     * @param ratePerMinute The number of tokens gained each minute
+     * @param burst         The maximum number of tokens the bucket can hold
+     */
+    public synchronized void setLimits(final int ratePerMinute, final int burst) {
+        refill();
+        this.capacity = Math.max(1, burst);
+        refillInterval = 60000L / Math.max(1, ratePerMinute);
+        tokens = Math.min(tokens, this.capacity);
+    }
+
+    /**
+     * Takes a token from the bucket, if one is available.
+     *
+     * @return True if a token was taken, false if the bucket is empty
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens--;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the time until a token will next be available.
+     *
+     * @return The delay until a token is available, in milliseconds
+     */
+    public synchronized long getDelay() {
+        refill();
+        return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) * refillInterval);
+    }
+
+    private void refill() {
+        final long now = clock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) / (double) refillInterval);
+        lastRefill = now;
+    }
+
+}
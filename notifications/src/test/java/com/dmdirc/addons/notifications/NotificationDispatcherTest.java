@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.notifications;
+
+import com.dmdirc.config.binding.ConfigBinder;
+import com.dmdirc.config.provider.AggregateConfigProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class NotificationDispatcherTest {
+
+    @Mock private ScheduledExecutorService executorService;
+    @Mock private AggregateConfigProvider config;
+    @Mock private ConfigBinder configBinder;
+    @Mock private NotificationHandler handler;
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private long time;
+    private NotificationDispatcher instance;
+
+    @Before
+    public void setUp() {
+        when(config.getBinder()).thenReturn(configBinder);
+        when(configBinder.withDefaultDomain(anyString())).thenReturn(configBinder);
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArguments()[0]).run();
+            return null;
+        }).when(executorService).execute(any(Runnable.class));
+        when(executorService.schedule(any(Runnable.class), anyLong(), any(TimeUnit.class)))
+                .then(invocation -> {
+                    scheduled.add((Runnable) invocation.getArguments()[0]);
+                    return null;
+                });
+        time = 100000;
+        instance = new NotificationDispatcher(executorService, config, "domain", () -> time);
+    }
+
+    private void runScheduled() {
+        final List<Runnable> tasks = new ArrayList<>(scheduled);
+        scheduled.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    @Test
+    public void testFirstNotificationShownImmediately() {
+        instance.dispatch("test", handler, "#foo", "DMDirc", "hello");
+        verify(handler).showNotification("DMDirc", "hello");
+    }
+
+    @Test
+    public void testCoalescesWithinWindow() {
+        instance.dispatch("test", handler, "#foo", "DMDirc", "one");
+        instance.dispatch("test", handler, "#foo", "DMDirc", "two");
+        instance.dispatch("test", handler, "#foo", "DMDirc", "three");
+        verify(handler, never()).showNotification("DMDirc", "two");
+        time += 5000;
+        runScheduled();
+        verify(handler).showNotification("DMDirc", "2 new messages in #foo (latest: three)");
+        assertEquals(2, instance.getCoalesced());
+        assertEquals(2, instance.getDelivered());
+    }
+
+    @Test
+    public void testCoalescesManyMessagesWithinWindow() {
+        instance.dispatch("test", handler, "#foo", "DMDirc", "first");
+        for (int i = 0; i < 1000; i++) {
+            instance.dispatch("test", handler, "#foo", "DMDirc", "message " + i);
+        }
+        instance.dispatch("test", handler, "#foo", "DMDirc", "message 999");
+        assertEquals(1, instance.getDuplicates());
+        time += 5000;
+        runScheduled();
+        verify(handler).showNotification("DMDirc",
+                "1000 new messages in #foo (latest: message 999)");
+        assertEquals(1000, instance.getCoalesced());
+    }
+
+    @Test
+    public void testSourcesAreIndependent() {
+        instance.dispatch("test", handler, "#foo", "DMDirc", "one");
+        instance.dispatch("test", handler, "#bar", "DMDirc", "two");
+        verify(handler).showNotification("DMDirc", "one");
+        verify(handler).showNotification("DMDirc", "two");
+    }
+
+    @Test
+    public void testDropsDuplicates() {
+        instance.dispatch("test", handler, "#foo", "DMDirc", "one");
+        instance.dispatch("test", handler, "#foo", "DMDirc", "one");
+        instance.dispatch("test", handler, "#foo", "DMDirc", "two");
+        instance.dispatch("test", handler, "#foo", "DMDirc", "two");
+        assertEquals(2, instance.getDuplicates());
+        time += 5000;
+        runScheduled();
+        verify(handler).showNotification("DMDirc", "two");
+    }
+
+    @Test
+    public void testRateLimited() {
+        instance.dispatch("test", handler, "#one", "DMDirc", "one");
+        instance.dispatch("test", handler, "#two", "DMDirc", "two");
+        instance.dispatch("test", handler, "#three", "DMDirc", "three");
+        instance.dispatch("test", handler, "#four", "DMDirc", "four");
+        verify(handler, never()).showNotification("DMDirc", "four");
+        time += 6000;
+        runScheduled();
+        verify(handler).showNotification("DMDirc", "four");
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.notifications;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TokenBucketTest {
+
+    private long time;
+    private TokenBucket instance;
+
+    @Before
+    public void setUp() {
+        time = 100000;
+        instance = new TokenBucket(() -> time, 6, 2);
+    }
+
+    @Test
+    public void testAllowsBurst() {
+        assertTrue(instance.tryAcquire());
+        assertTrue(instance.tryAcquire());
+        assertFalse(instance.tryAcquire());
+    }
+
+    @Test
+    public void testRefills() {
+        instance.tryAcquire();
+        instance.tryAcquire();
+        assertEquals(10000, instance.getDelay());
+        time += 5000;
+        assertEquals(5000, instance.getDelay());
+        assertFalse(instance.tryAcquire());
+        time += 5000;
+        assertEquals(0, instance.getDelay());
+        assertTrue(instance.tryAcquire());
+    }
+
+    @Test
+    public void testDoesNotExceedCapacity() {
+        time += 600000;
+        assertTrue(instance.tryAcquire());
+        assertTrue(instance.tryAcquire());
+        assertFalse(instance.tryAcquire());
+    }
+
+    @Test
+    public void testSetLimitsDiscardsExcessTokens() {
+        instance.setLimits(6, 1);
+        assertTrue(instance.tryAcquire());
+        assertFalse(instance.tryAcquire());
+    }
+
+    @Test
+    public void testSetLimitsCreditsElapsedTimeAtOldRate() {
+        instance.tryAcquire();
+        instance.tryAcquire();
+        time += 5000;
+        instance.setLimits(60, 2);
+        // Half a token was gained at the old rate; the other half takes 500ms at the new one.
+        assertEquals(500, instance.getDelay());
+    }
+
+}
@@ -19,6 +19,8 @@ package com.dmdirc.addons.osd;
 
 import com.dmdirc.addons.ui_swing.UIUtilities;
 import com.dmdirc.addons.ui_swing.injection.MainWindow;
+import com.dmdirc.config.binding.ConfigBinder;
+import com.dmdirc.config.binding.ConfigBinding;
 import com.dmdirc.config.prefs.CategoryChangeListener;
 import com.dmdirc.config.prefs.PluginPreferencesCategory;
 import com.dmdirc.config.prefs.PreferencesCategory;
@@ -27,6 +29,7 @@ import com.dmdirc.config.prefs.PreferencesInterface;
 import com.dmdirc.config.prefs.PreferencesSetting;
 import com.dmdirc.config.prefs.PreferencesType;
 import com.dmdirc.config.prefs.SettingChangeListener;
+import com.dmdirc.config.provider.AggregateConfigProvider;
 import com.dmdirc.events.ClientPrefsOpenedEvent;
 import com.dmdirc.events.eventbus.EventBus;
 import com.dmdirc.interfaces.config.IdentityController;
@@ -37,32 +40,54 @@ import com.dmdirc.ui.messages.ColourManagerFactory;
 import com.dmdirc.util.validators.NumericalValidator;
 import com.dmdirc.util.validators.OptionalValidator;
 
+import java.awt.Color;
 import java.awt.Window;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.swing.SwingUtilities;
 
 import net.engio.mbassy.listener.Handler;
 
 /**
  * Class to manage OSD Windows.
+ * <p>
+ * Messages may be shown from any thread: they are added to a bounded {@link OsdQueue} and the
+ * windows are created and positioned in a single pass on the EDT. Closed windows are kept in a
+ * small pool and reused for later messages. The window list and pool are only accessed on the EDT.
  */
+@Singleton
 public class OsdManager implements CategoryChangeListener, PreferencesInterface,
         SettingChangeListener {
 
+    /** The maximum number of messages to queue while waiting for a window. */
+    private static final int QUEUE_CAPACITY = 50;
+    /** The maximum number of closed windows to keep for reuse. */
+    private static final int POOL_SIZE = 5;
     /** The frame the OSD will be associated with. */
     private final Window mainFrame;
     /** List of OSD Windows. */
     private final List<OsdWindow> windowList = new ArrayList<>();
-    /** List of messages to be queued. */
-    private final Queue<QueuedMessage> windowQueue = new LinkedList<>();
+    /** Closed windows available for reuse. */
+    private final Deque<OsdWindow> windowPool = new ArrayDeque<>();
+    /** Messages waiting to be displayed. */
+    private final OsdQueue windowQueue = new OsdQueue(QUEUE_CAPACITY);
+    /** Whether a layout pass has been scheduled on the EDT. */
+    private final AtomicBoolean layoutPending = new AtomicBoolean();
     /** This plugin's settings domain. */
     private final String domain;
+    /** Global configuration. */
+    private final AggregateConfigProvider globalConfig;
+    /** Binder used to cache settings. */
+    private final ConfigBinder configBinder;
     /** Config OSD Window. */
     private OsdWindow osdWindow;
     /** X-axis position of OSD. */
@@ -83,6 +108,28 @@ public class OsdManager implements CategoryChangeListener, PreferencesInterface,
     private final IdentityController identityController;
     /** The manager to use to parse colours. */
     private final ColourManager colourManager;
+    /** Cached X-axis position for new windows. */
+    @ConfigBinding(key = "locationX")
+    private volatile int locationX;
+    /** Cached Y-axis position for new windows. */
+    @ConfigBinding(key = "locationY")
+    private volatile int locationY;
+    /** Cached font size. */
+    @ConfigBinding(key = "fontSize")
+    private volatile int fontSize;
+    /** Cached window width. */
+    @ConfigBinding(key = "width")
+    private volatile int windowWidth;
+    /** Cached policy for placing new windows. */
+    private volatile OsdPolicy policy = OsdPolicy.DOWN;
+    /** Cached default timeout, or null if windows don't time out. */
+    private volatile Integer timeout;
+    /** Cached maximum number of windows, or null if unlimited. */
+    private volatile Integer maxWindows;
+    /** Cached background colour. */
+    private volatile Color background;
+    /** Cached foreground colour. */
+    private volatile Color foreground;
 
     @Inject
     public OsdManager(
@@ -94,100 +141,117 @@ public class OsdManager implements CategoryChangeListener, PreferencesInterface,
         this.mainFrame = mainFrame;
         this.eventBus = eventBus;
         this.identityController = identityController;
-        this.colourManager = colourManagerFactory.getColourManager(identityController.getGlobalConfiguration());
+        this.globalConfig = identityController.getGlobalConfiguration();
+        this.colourManager = colourManagerFactory.getColourManager(globalConfig);
         this.pluginInfo = pluginInfo;
         this.domain = pluginInfo.getDomain();
+        this.configBinder = globalConfig.getBinder().withDefaultDomain(domain);
     }
 
     /**
-     * Add messages to the queue and call displayWindows.
+     * Add messages to the queue and schedule them to be displayed. This method does not block.
      *
      * @param timeout Time message will be displayed
      * @param message Message to be displayed.
      */
     public void showWindow(final int timeout, final String message) {
-        windowQueue.add(new QueuedMessage(timeout, message));
-        displayWindows();
+        windowQueue.offer(new QueuedMessage(timeout, message));
+        scheduleLayout();
     }
 
     /**
-     * Displays as many windows as appropriate.
+     * Schedules a layout pass on the EDT, unless one is already pending.
      */
-    private synchronized void displayWindows() {
-        final Integer maxWindows = identityController.getGlobalConfiguration()
-                .getOptionInt(domain, "maxWindows", false);
-
-        QueuedMessage nextItem;
+    private void scheduleLayout() {
+        if (layoutPending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::displayWindows);
+        }
+    }
 
-        while ((maxWindows == null || getWindowCount() < maxWindows)
-                && (nextItem = windowQueue.poll()) != null) {
-            displayWindow(nextItem.getTimeout(), nextItem.getMessage());
+    /**
+     * Displays as many queued messages as appropriate. Must be called on the EDT.
+     */
+    private void displayWindows() {
+        layoutPending.set(false);
+        final Integer max = maxWindows;
+        while (max == null || getWindowCount() < max) {
+            final Optional<QueuedMessage> next = windowQueue.poll();
+            if (!next.isPresent()) {
+                break;
+            }
+            displayWindow(next.get());
         }
     }
 
     /**
-     * Create a new OSD window with "message".
-     * <p>
-     * This method needs to be synchronised to ensure that the window list is not modified in
-     * between the invocation of
-     * {@link OsdPolicy#getYPosition(OsdManager, int)} and the point at which
-     * the {@link OsdWindow} is added to the windowList.
+     * Shows the given message in a new or pooled window. Must be called on the EDT.
      *
      * @see OsdPolicy#getYPosition(OsdManager, int)
-     * @param message Text to display in the OSD window.
+     * @param message Message to display in the OSD window.
      */
-    private synchronized void displayWindow(final int timeout, final String message) {
-        final OsdPolicy policy = OsdPolicy.valueOf(
-                identityController.getGlobalConfiguration().getOption(domain, "newbehaviour")
-                        .toUpperCase());
-        final int startY = identityController.getGlobalConfiguration()
-                .getOptionInt(domain, "locationY");
-
-        windowList.add(UIUtilities.invokeAndWait(() -> new OsdWindow(
-                mainFrame,
-                identityController, this, colourManager,
-                timeout, message, false,
-                identityController.getGlobalConfiguration().getOptionInt(
-                        domain, "locationX"), policy.getYPosition(this, startY), domain)));
+    private void displayWindow(final QueuedMessage message) {
+        final int windowY = policy.getYPosition(this, locationY);
+        final OsdWindow window = windowPool.isEmpty()
+                ? new OsdWindow(mainFrame, this, colourManager, false)
+                : windowPool.pop();
+        window.setStyle(background, foreground, fontSize, windowWidth);
+        window.display(message.getDisplayText(),
+                message.getTimeout() < 0 ? timeout : Integer.valueOf(message.getTimeout()),
+                locationX, windowY);
+        windowList.add(window);
     }
 
     /**
-     * Destroy the given OSD Window and check if the Queue has items, if so Display them.
+     * Close the given OSD Window and display any queued messages in the space it leaves.
      *
-     * @param window The window that we are destroying.
+     * @param window The window that we are closing.
      */
-    public synchronized void closeWindow(final OsdWindow window) {
-        final OsdPolicy policy = OsdPolicy.valueOf(
-                identityController.getGlobalConfiguration()
-                .getOption(domain, "newbehaviour").toUpperCase());
+    public void closeWindow(final OsdWindow window) {
+        UIUtilities.invokeLater(() -> {
+            if (releaseWindow(window)) {
+                scheduleLayout();
+            }
+        });
+    }
 
-        int oldY = window.getDesiredY();
+    /**
+     * Hides the given window, returns it to the pool and moves the windows after it into its
+     * space. Must be called on the EDT.
+     *
+     * @param window The window to release
+     *
+     * @return True if the window was open, false otherwise
+     */
+    private boolean releaseWindow(final OsdWindow window) {
         final int closedIndex = windowList.indexOf(window);
-
         if (closedIndex == -1) {
-            return;
+            return false;
         }
 
-        windowList.remove(window);
-
-        UIUtilities.invokeLater(window::dispose);
+        int oldY = window.getDesiredY();
+        windowList.remove(closedIndex);
+        window.recycle();
+        if (windowPool.size() < POOL_SIZE) {
+            windowPool.push(window);
+        } else {
+            window.dispose();
+        }
 
-        final List<OsdWindow> newList = getWindowList();
-        for (OsdWindow otherWindow : newList.subList(closedIndex, newList.size())) {
-            final int currentY = otherWindow.getDesiredY();
-            if (policy.changesPosition()) {
+        if (policy.changesPosition()) {
+            for (OsdWindow otherWindow : windowList.subList(closedIndex, windowList.size())) {
+                final int currentY = otherWindow.getDesiredY();
                 otherWindow.setDesiredLocation(otherWindow.getDesiredX(), oldY);
                 oldY = currentY;
             }
         }
-        displayWindows();
+        return true;
     }
 
     /**
-     * Destroy all OSD Windows.
+     * Close all OSD Windows.
      */
     public void closeAll() {
-        getWindowList().forEach(this::closeWindow);
+        UIUtilities.invokeLater(() -> getWindowList().forEach(this::releaseWindow));
     }
 
     /**
@@ -208,13 +272,51 @@ public class OsdManager implements CategoryChangeListener, PreferencesInterface,
         return windowList.size();
     }
 
+    /**
+     * Gets the queue of messages waiting to be displayed.
+     *
+     * @return The message queue
+     */
+    public OsdQueue getQueue() {
+        return windowQueue;
+    }
+
+    @ConfigBinding(key = "newbehaviour")
+    public void handleNewBehaviour(final String value) {
+        try {
+            policy = OsdPolicy.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            policy = OsdPolicy.DOWN;
+        }
+    }
+
+    @ConfigBinding(key = "timeout")
+    public void handleTimeout(final String value) {
+        // Optional settings are stored as "enabled:value", let the config provider parse them.
+        timeout = globalConfig.getOptionInt(domain, "timeout", false);
+    }
+
+    @ConfigBinding(key = "maxWindows")
+    public void handleMaxWindows(final String value) {
+        maxWindows = globalConfig.getOptionInt(domain, "maxWindows", false);
+        scheduleLayout();
+    }
+
+    @ConfigBinding(key = "bgcolour")
+    public void handleBackground(final String value) {
+        background = UIUtilities.convertColour(colourManager.getColourFromString(value, null));
+    }
+
+    @ConfigBinding(key = "fgcolour")
+    public void handleForeground(final String value) {
+        foreground = UIUtilities.convertColour(colourManager.getColourFromString(value, null));
+    }
+
     @Handler
     public void showConfig(final ClientPrefsOpenedEvent event) {
         final PreferencesDialogModel manager = event.getModel();
-        x = identityController.getGlobalConfiguration()
-                .getOptionInt(domain, "locationX");
-        y = identityController.getGlobalConfiguration()
-                .getOptionInt(domain, "locationY");
+        x = locationX;
+        y = locationY;
 
         final PreferencesCategory category = new PluginPreferencesCategory(
                 pluginInfo, "OSD",
@@ -273,8 +375,9 @@ public class OsdManager implements CategoryChangeListener, PreferencesInterface,
 
     @Override
     public void categorySelected(final PreferencesCategory category) {
-        osdWindow = new OsdWindow(mainFrame, identityController, this, colourManager,
-                -1, "Please drag this OSD to position", true, x, y, domain);
+        osdWindow = new OsdWindow(mainFrame, this, colourManager, true);
+        osdWindow.setStyle(background, foreground, fontSize, windowWidth);
+        osdWindow.display("Please drag this OSD to position", null, x, y);
         osdWindow.setBackgroundColour(backgroundSetting.getValue());
         osdWindow.setForegroundColour(foregroundSetting.getValue());
         osdWindow.setFontSize(Integer.parseInt(fontSizeSetting.getValue()));
@@ -321,10 +424,19 @@ public class OsdManager implements CategoryChangeListener, PreferencesInterface,
     }
 
     public void onLoad() {
+        configBinder.bind(this, OsdManager.class);
         eventBus.subscribe(this);
     }
 
     public void onUnload() {
         eventBus.unsubscribe(this);
+        configBinder.unbind(this);
+        windowQueue.clear();
+        UIUtilities.invokeLater(() -> {
+            windowList.forEach(OsdWindow::dispose);
+            windowList.clear();
+            windowPool.forEach(OsdWindow::dispose);
+            windowPool.clear();
+        });
     }
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.osd;
+
+import java.util.LinkedList;
+import java.util.ListIterator;
+import java.util.Optional;
+
+/**
+ * A bounded queue of messages waiting for an OSD window. Producers never block: a message that is
+ * the same as one already waiting is merged into it, and if the queue is full the oldest waiting
+ * message is dropped.
+ */
+public class OsdQueue {
+
+    /** The maximum number of messages to hold. */
+    private final int capacity;
+    /** The waiting messages, oldest first. */
+    private final LinkedList<QueuedMessage> messages = new LinkedList<>();
+    /** The number of messages merged into a waiting message. */
+    private long merged;
+    /** The number of messages dropped because the queue was full. */
+    private long dropped;
+
+    /**
+     * Creates a new queue.
+     *
+     * @param capacity The maximum number of messages to hold
+     */
+    public OsdQueue(final int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Adds a message to the queue.
+     *
+     * @param message The message to add
+     */
+    public synchronized void offer(final QueuedMessage message) {
+        final ListIterator<QueuedMessage> iterator = messages.listIterator();
+        while (iterator.hasNext()) {
+            final QueuedMessage waiting = iterator.next();
+            if (waiting.canMerge(message)) {
+                iterator.set(waiting.merge());
+                merged++;
+                return;
+            }
+        }
+
+        if (messages.size() >= capacity) {
+            messages.removeFirst();
+            dropped++;
+        }
+        messages.addLast(message);
+    }
+
+    /**
+     * Removes the oldest message from the queue.
+     *
+     * @return The oldest message, or empty if the queue is empty
+     */
+    public synchronized Optional<QueuedMessage> poll() {
+        return Optional.ofNullable(messages.pollFirst());
+    }
+
+    /**
+     * Removes all messages from the queue.
+     */
+    public synchronized void clear() {
+        messages.clear();
+    }
+
+    public synchronized int size() {
+        return messages.size();
+    }
+
+    public synchronized long getMerged() {
+        return merged;
+    }
+
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+}
@@ -18,7 +18,6 @@
 package com.dmdirc.addons.osd;
 
 import com.dmdirc.addons.ui_swing.UIUtilities;
-import com.dmdirc.interfaces.config.IdentityController;
 import com.dmdirc.util.colours.Colour;
 import com.dmdirc.ui.messages.ColourManager;
 
@@ -28,13 +27,12 @@ import java.awt.Window;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
-import java.util.Timer;
-import java.util.TimerTask;
 
 import javax.swing.JDialog;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.SwingConstants;
+import javax.swing.Timer;
 import javax.swing.WindowConstants;
 import javax.swing.border.LineBorder;
 
@@ -43,11 +41,15 @@ import net.miginfocom.swing.MigLayout;
 /**
  * The OSD Window is an always-on-top window designed to convey information about events to the
  * user.
+ * <p>
+ * Windows are reused: once a window has been closed it may be {@link #display displayed} again
+ * with a new message. All methods other than {@link #setDesiredLocation(int, int)} must be called
+ * on the EDT.
  */
 public class OsdWindow extends JDialog implements MouseListener, MouseMotionListener {
 
     /** A version number for this class. */
-    private static final long serialVersionUID = 2;
+    private static final long serialVersionUID = 3;
     /** The OSD Manager that owns this window. */
     private final OsdManager osdManager;
     /** The manager to use to parse colours. */
@@ -56,6 +58,8 @@ public class OsdWindow extends JDialog implements MouseListener, MouseMotionList
     private final JLabel label;
     /** OSD Panel. */
     private final JPanel panel;
+    /** Timer used to close the window. */
+    private final Timer closeTimer;
     /** Starting positions of the mouse. */
     private int startX;
     private int startY;
@@ -64,43 +68,30 @@ public class OsdWindow extends JDialog implements MouseListener, MouseMotionList
     private volatile int desiredY;
     /** Is this a config instance? */
     private final boolean config;
-    /** Timeout before the windows are automatically closed */
-    private final Integer timeout;
+    /** The width the window is laid out for. */
+    private int width = -1;
 
     /**
-     * Creates a new instance of OsdWindow.
+     * Creates a new instance of OsdWindow. The window isn't shown until
+     * {@link #display(String, Integer, int, int)} is called.
      *
-     * @param mainWindow         The frame that parents this window.
-     * @param identityController The controller to read/write settings with.
-     * @param colourManager      The manager to use to parse colours.
-     * @param timeout            Timeout period for the window. Set to -1 to use value from config
-     * @param text               The text to be displayed in the OSD window
-     * @param config             Is the window being configured (should it timeout and allow itself
-     *                           to be moved)
-     * @param x                  The x-axis position for the OSD Window
-     * @param y                  The y-axis position for the OSD window
-     * @param osdManager         The manager that owns this OSD Window
-     * @param domain             This plugin's settings domain
+     * @param mainWindow    The frame that parents this window.
+     * @param osdManager    The manager that owns this OSD Window
+     * @param colourManager The manager to use to parse colours.
+     * @param config        Is the window being configured (should it timeout and allow itself
+     *                      to be moved)
      */
     public OsdWindow(
             final Window mainWindow,
-            final IdentityController identityController,
-            final OsdManager osdManager, final ColourManager colourManager,
-            final int timeout, final String text, final boolean config, final int x,
-            final int y, final String domain) {
+            final OsdManager osdManager,
+            final ColourManager colourManager,
+            final boolean config) {
         super(mainWindow, ModalityType.MODELESS);
 
         this.colourManager = colourManager;
         this.config = config;
         this.osdManager = osdManager;
 
-        if (timeout < 0) {
-            this.timeout = identityController.getGlobalConfiguration().getOptionInt(domain,
-                    "timeout", false);
-        } else {
-            this.timeout = timeout;
-        }
-
         setFocusableWindowState(false);
         setAlwaysOnTop(true);
         setResizable(false);
@@ -108,50 +99,80 @@ public class OsdWindow extends JDialog implements MouseListener, MouseMotionList
 
         setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
 
-        desiredX = x;
-        desiredY = y;
-
-        setLocation(x, y);
-
         panel = new JPanel();
         panel.setBorder(new LineBorder(Color.BLACK));
-        panel.setBackground(UIUtilities.convertColour(
-                colourManager.getColourFromString(identityController.getGlobalConfiguration()
-                        .getOptionString(domain, "bgcolour"), null)));
-
-        final int width = identityController.getGlobalConfiguration().getOptionInt(domain, "width");
         setContentPane(panel);
-        setLayout(new MigLayout("wmin " + width + ", wmax " + width + ", ins rel, fill"));
-
-        label = new JLabel(text);
-        label.setForeground(UIUtilities.convertColour(
-                colourManager.getColourFromString(identityController.getGlobalConfiguration()
-                        .getOptionString(domain, "fgcolour"), null)));
-        label.setFont(label.getFont().deriveFont((float) identityController
-                .getGlobalConfiguration().getOptionInt(domain, "fontSize")));
+
+        label = new JLabel();
         label.setHorizontalAlignment(SwingConstants.CENTER);
-        add(label, "alignx center, hmin " + label.getFont().getSize());
 
-        setVisible(true);
-        pack();
+        closeTimer = new Timer(0, e -> osdManager.closeWindow(this));
+        closeTimer.setRepeats(false);
 
+        addMouseListener(this);
         if (config) {
             addMouseMotionListener(this);
-            addMouseListener(this);
-        } else {
-            addMouseListener(this);
-            if (this.timeout != null && this.timeout > 0) {
-                new Timer("OSD Display Timer").schedule(new TimerTask() {
-
-                    @Override
-                    public void run() {
-                        osdManager.closeWindow(OsdWindow.this);
-                    }
-                }, this.timeout * 1000);
-            }
         }
     }
 
+    /**
+     * Sets the appearance of this window.
+     *
+     * @param background The background colour to use
+     * @param foreground The foreground colour to use
+     * @param fontSize   The size of the font to use
+     * @param newWidth   The width of the window
+     */
+    public void setStyle(final Color background, final Color foreground, final int fontSize,
+            final int newWidth) {
+        panel.setBackground(background);
+        label.setForeground(foreground);
+        if (newWidth != width || label.getFont().getSize() != fontSize) {
+            width = newWidth;
+            label.setFont(label.getFont().deriveFont((float) fontSize));
+            panel.removeAll();
+            setLayout(new MigLayout("wmin " + width + ", wmax " + width + ", ins rel, fill"));
+            add(label, "alignx center, hmin " + fontSize);
+        }
+    }
+
+    /**
+     * Shows this window with the given text, closing it after the given timeout.
+     *
+     * @param text    The text to be displayed in the OSD window
+     * @param timeout The time to show the window for in seconds, or null to show it until it's
+     *                clicked
+     * @param x       The x-axis position for the OSD Window
+     * @param y       The y-axis position for the OSD window
+     */
+    public void display(final String text, final Integer timeout, final int x, final int y) {
+        label.setText(text);
+        desiredX = x;
+        desiredY = y;
+        setLocation(x, y);
+        pack();
+        setVisible(true);
+
+        if (!config && timeout != null && timeout > 0) {
+            closeTimer.setInitialDelay(timeout * 1000);
+            closeTimer.restart();
+        }
+    }
+
+    /**
+     * Hides this window so it can be displayed again later.
+     */
+    public void recycle() {
+        closeTimer.stop();
+        setVisible(false);
+    }
+
+    @Override
+    public void dispose() {
+        closeTimer.stop();
+        super.dispose();
+    }
+
     @Override
     public void mouseClicked(final MouseEvent e) {
         if (!config) {
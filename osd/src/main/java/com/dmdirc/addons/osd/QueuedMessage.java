@@ -28,6 +28,8 @@ public class QueuedMessage {
     private final int timeout;
     /** Message to display on the OSD. */
     private final String message;
+    /** The number of times the message was queued. */
+    private final int count;
 
     /**
      * Creates a new instance of QueuedMessage.
@@ -36,8 +38,33 @@ public class QueuedMessage {
      * @param message Message to display in the OSD
      */
     public QueuedMessage(final int timeout, final String message) {
+        this(timeout, message, 1);
+    }
+
+    private QueuedMessage(final int timeout, final String message, final int count) {
         this.timeout = timeout;
         this.message = message;
+        this.count = count;
+    }
+
+    /**
+     * Determines if the given message can be merged into this one.
+     *
+     * @param other The message to check
+     *
+     * @return True if the messages are the same, false otherwise
+     */
+    public boolean canMerge(final QueuedMessage other) {
+        return timeout == other.timeout && message.equals(other.message);
+    }
+
+    /**
+     * Creates a new message representing this message being queued one more time.
+     *
+     * @return A copy of this message with the count incremented
+     */
+    public QueuedMessage merge() {
+        return new QueuedMessage(timeout, message, count + 1);
     }
 
     /**
@@ -58,4 +85,22 @@ public class QueuedMessage {
         return message;
     }
 
+    /**
+     * Returns the number of times this message was queued.
+     *
+     * @return The number of merged messages
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the text to display in the OSD window, including the number of merged messages.
+     *
+     * @return Text for the OSD window
+     */
+    public String getDisplayText() {
+        return count > 1 ? message + " (x" + count + ')' : message;
+    }
+
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.osd;
+
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class OsdQueueTest {
+
+    private OsdQueue queue;
+
+    @Before
+    public void setup() {
+        queue = new OsdQueue(3);
+    }
+
+    @Test
+    public void testPollsInOrder() {
+        queue.offer(new QueuedMessage(1, "one"));
+        queue.offer(new QueuedMessage(1, "two"));
+        assertEquals("one", queue.poll().get().getMessage());
+        assertEquals("two", queue.poll().get().getMessage());
+        assertFalse(queue.poll().isPresent());
+    }
+
+    @Test
+    public void testMergesIdenticalMessages() {
+        queue.offer(new QueuedMessage(1, "one"));
+        queue.offer(new QueuedMessage(1, "two"));
+        queue.offer(new QueuedMessage(1, "one"));
+        assertEquals(2, queue.size());
+        assertEquals(1, queue.getMerged());
+
+        final QueuedMessage merged = queue.poll().get();
+        assertEquals(2, merged.getCount());
+        assertEquals("one (x2)", merged.getDisplayText());
+        assertEquals("two", queue.poll().get().getDisplayText());
+    }
+
+    @Test
+    public void testDoesNotMergeDifferentTimeouts() {
+        queue.offer(new QueuedMessage(1, "one"));
+        queue.offer(new QueuedMessage(2, "one"));
+        assertEquals(2, queue.size());
+        assertEquals(0, queue.getMerged());
+    }
+
+    @Test
+    public void testDropsOldestWhenFull() {
+        queue.offer(new QueuedMessage(1, "one"));
+        queue.offer(new QueuedMessage(1, "two"));
+        queue.offer(new QueuedMessage(1, "three"));
+        queue.offer(new QueuedMessage(1, "four"));
+        assertEquals(3, queue.size());
+        assertEquals(1, queue.getDropped());
+        assertEquals(Optional.of("two"), queue.poll().map(QueuedMessage::getMessage));
+    }
+
+}
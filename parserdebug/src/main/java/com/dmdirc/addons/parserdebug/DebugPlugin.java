@@ -29,6 +29,8 @@ public final class DebugPlugin extends BaseCommandPlugin {
 
     /** The action controller to use. */
     private ParserDebugManager manager;
+    /** The traffic recording manager. */
+    private TrafficManager trafficManager;
 
     @Override
     public void load(final PluginInfo pluginInfo, final ObjectGraph graph) {
@@ -36,17 +38,20 @@ public final class DebugPlugin extends BaseCommandPlugin {
         setObjectGraph(graph.plus(new ParserDebugModule()));
         registerCommand(ParserDebugCommand.class, ParserDebugCommand.INFO);
         manager = getObjectGraph().get(ParserDebugManager.class);
+        trafficManager = getObjectGraph().get(TrafficManager.class);
     }
 
     @Override
     public void onLoad() {
         manager.addActionListener();
+        trafficManager.load();
         super.onLoad();
     }
 
     @Override
     public void onUnload() {
         manager.removeActionListener();
+        trafficManager.unload();
         super.onUnload();
     }
 
@@ -29,6 +29,11 @@ import com.dmdirc.interfaces.Connection;
 import com.dmdirc.interfaces.WindowModel;
 import com.dmdirc.parser.interfaces.Parser;
 
+import java.io.IOException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.nio.file.Path;
+
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
 import java.util.Optional;
@@ -41,24 +46,30 @@ public final class ParserDebugCommand extends BaseCommand {
 
     /** A command info object for this command. */
     public static final BaseCommandInfo INFO = new BaseCommandInfo(
-            "parserdebug", "parserdebug - Enables/Disables hooks for "
-            + "onDebugInfo for the parser that owns this window",
+            "parserdebug", "parserdebug [record | replay <file> [speed|max]] - Enables/Disables "
+            + "hooks for onDebugInfo for the parser that owns this window, records its raw "
+            + "traffic, or replays a recording through a local server",
             CommandType.TYPE_SERVER);
     /** Parser debug manager. */
     private final ParserDebugManager parserDebugManager;
+    /** Traffic manager. */
+    private final TrafficManager trafficManager;
 
     /**
      * Creates a new instance of ParserDebugCommand.
      *
      * @param controller         The controller to use for command information.
      * @param parserDebugManager Parser debug manager
+     * @param trafficManager     Traffic manager
      */
     @Inject
     public ParserDebugCommand(
             final CommandController controller,
-            final ParserDebugManager parserDebugManager) {
+            final ParserDebugManager parserDebugManager,
+            final TrafficManager trafficManager) {
         super(controller);
         this.parserDebugManager = parserDebugManager;
+        this.trafficManager = trafficManager;
     }
 
     /**
@@ -71,6 +82,12 @@ public final class ParserDebugCommand extends BaseCommand {
     public void execute(@Nonnull final WindowModel origin, final CommandArguments commandArgs,
             final CommandContext context) {
         final boolean isSilent = commandArgs.isSilent();
+        final String[] args = commandArgs.getArguments();
+
+        if (args.length > 0 && "replay".equalsIgnoreCase(args[0])) {
+            replay(origin, isSilent, args);
+            return;
+        }
 
         final Connection connection = ((ServerCommandContext) context).getConnection();
         final Optional<Parser> parser = connection.getParser();
@@ -79,7 +96,11 @@ public final class ParserDebugCommand extends BaseCommand {
             showError(origin, isSilent, "Unable to get a parser for this window.");
             return;
         }
-        if (parserDebugManager.containsParser(parser.get())) {
+        if (args.length > 0 && "record".equalsIgnoreCase(args[0])) {
+            record(origin, isSilent, parser.get(), connection);
+        } else if (args.length > 0) {
+            showUsage(origin, isSilent, INFO.getName(), "[record | replay <file> [speed|max]]");
+        } else if (parserDebugManager.containsParser(parser.get())) {
             parserDebugManager.removeParser(parser.get(), false);
             showOutput(origin, isSilent, "Removed callback");
         } else {
@@ -88,4 +109,50 @@ public final class ParserDebugCommand extends BaseCommand {
         }
     }
 
+    private void record(final WindowModel origin, final boolean isSilent, final Parser parser,
+            final Connection connection) {
+        if (trafficManager.isRecording(parser)) {
+            final Path file = trafficManager.stopRecording(parser);
+            showOutput(origin, isSilent, "Stopped recording to " + file);
+            return;
+        }
+        try {
+            final Path file = trafficManager.startRecording(parser, connection);
+            showOutput(origin, isSilent, "Recording raw traffic to " + file);
+        } catch (IOException ex) {
+            showError(origin, isSilent, "Unable to start recording: " + ex.getMessage());
+        }
+    }
+
+    private void replay(final WindowModel origin, final boolean isSilent, final String... args) {
+        if (args.length < 2 || args.length > 3) {
+            showUsage(origin, isSilent, INFO.getName(), "replay <file> [speed|max]");
+            return;
+        }
+        final boolean maximum = args.length == 3 && "max".equalsIgnoreCase(args[2]);
+        double speed = 1;
+        if (args.length == 3 && !maximum) {
+            try {
+                speed = Double.parseDouble(args[2]);
+            } catch (NumberFormatException ex) {
+                speed = -1;
+            }
+            if (!(speed > 0) || Double.isInfinite(speed)) {
+                showError(origin, isSilent, "Speed must be a number greater than zero, or 'max'.");
+                return;
+            }
+        }
+        try {
+            final TrafficReplayer replayer = trafficManager.startReplay(args[1],
+                    maximum ? 0 : speed);
+            final InetAddress address = replayer.getAddress();
+            final String host = address instanceof Inet6Address
+                    ? '[' + address.getHostAddress() + ']' : address.getHostAddress();
+            showOutput(origin, isSilent, "Replaying " + args[1] + " on " + host + ':'
+                    + replayer.getPort() + " to the first client that connects");
+        } catch (IOException ex) {
+            showError(origin, isSilent, "Unable to start replay: " + ex.getMessage());
+        }
+    }
+
 }
@@ -18,10 +18,23 @@
 package com.dmdirc.addons.parserdebug;
 
 import com.dmdirc.ClientModule;
+import com.dmdirc.util.LoggingScheduledExecutorService;
+
+import java.util.concurrent.ScheduledExecutorService;
+
+import javax.inject.Named;
 
 import dagger.Module;
+import dagger.Provides;
 
-@Module(injects = {ParserDebugCommand.class, ParserDebugManager.class}, addsTo = ClientModule.class)
+@Module(injects = {ParserDebugCommand.class, ParserDebugManager.class,
+        TrafficManager.class}, addsTo = ClientModule.class)
 public class ParserDebugModule {
 
+    @Provides
+    @Named("trafficrecording")
+    public ScheduledExecutorService getExecutorService() {
+        return new LoggingScheduledExecutorService(1, "trafficrecording");
+    }
+
 }
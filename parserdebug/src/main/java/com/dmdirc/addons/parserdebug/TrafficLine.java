@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.parserdebug;
+
+/**
+ * A single line of raw protocol traffic in a recording.
+ */
+public class TrafficLine {
+
+    /** The time the line was sent or received, in nanoseconds since the recording started. */
+    private final long offset;
+    /** Whether the line was received from the server. */
+    private final boolean inbound;
+    /** The line, without its terminator. */
+    private final String line;
+
+    public TrafficLine(final long offset, final boolean inbound, final String line) {
+        this.offset = offset;
+        this.inbound = inbound;
+        this.line = line;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public boolean isInbound() {
+        return inbound;
+    }
+
+    public String getLine() {
+        return line;
+    }
+
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.parserdebug;
+
+import com.dmdirc.commandline.CommandLineOptionsModule.Directory;
+import com.dmdirc.commandline.CommandLineOptionsModule.DirectoryType;
+import com.dmdirc.events.ServerDisconnectedEvent;
+import com.dmdirc.events.eventbus.EventBus;
+import com.dmdirc.interfaces.Connection;
+import com.dmdirc.parser.events.DataInEvent;
+import com.dmdirc.parser.events.DataOutEvent;
+import com.dmdirc.parser.interfaces.Parser;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import net.engio.mbassy.listener.Handler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records raw traffic for connections, and replays recordings through local stand-in servers.
+ */
+@Singleton
+public class TrafficManager {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TrafficManager.class);
+    /** Format used for the timestamp in recording file names. */
+    private static final DateTimeFormatter FILE_DATE = DateTimeFormatter.ofPattern(
+            "yyyyMMdd-HHmmss");
+    /** The interval to write buffered traffic to disk at, in milliseconds. */
+    private static final long FLUSH_INTERVAL = 1000;
+    /** The maximum number of suffixes to try when a recording file already exists. */
+    private static final int MAX_SUFFIX = 100;
+    /** Event bus to subscribe to events on. */
+    private final EventBus eventBus;
+    /** Directory to store recordings in. */
+    private final Path directory;
+    /** Map of parsers being recorded to their recordings. */
+    private final Map<Parser, Recording> recordings = new ConcurrentHashMap<>();
+    /** Replays that have been started. */
+    private final List<TrafficReplayer> replays = new ArrayList<>();
+    /** Executor to flush recordings on. */
+    private final ScheduledExecutorService executorService;
+
+    @Inject
+    public TrafficManager(final EventBus eventBus,
+            @Directory(DirectoryType.BASE) final String baseDirectory,
+            @Named("trafficrecording") final ScheduledExecutorService executorService) {
+        this.eventBus = eventBus;
+        this.directory = Paths.get(baseDirectory, "recordings");
+        this.executorService = executorService;
+    }
+
+    /**
+     * Starts listening for disconnections, and starts flushing recordings to disk.
+     */
+    public void load() {
+        eventBus.subscribe(this);
+        executorService.scheduleWithFixedDelay(this::flushRecordings,
+                FLUSH_INTERVAL, FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops all recordings and replays, and stops flushing recordings.
+     */
+    public void unload() {
+        eventBus.unsubscribe(this);
+        recordings.keySet().forEach(this::stopRecording);
+        synchronized (replays) {
+            replays.forEach(TrafficReplayer::close);
+            replays.clear();
+        }
+        executorService.shutdown();
+    }
+
+    /**
+     * Determines if the given parser is being recorded.
+     *
+     * @param parser The parser to check.
+     *
+     * @return True if the parser's traffic is being recorded.
+     */
+    public boolean isRecording(final Parser parser) {
+        return recordings.containsKey(parser);
+    }
+
+    /**
+     * Starts recording all traffic sent and received by the given parser.
+     *
+     * @param parser     The parser to record.
+     * @param connection The connection the parser belongs to.
+     *
+     * @return The file the traffic is being recorded to.
+     *
+     * @throws IOException If the recording could not be created.
+     */
+    public Path startRecording(final Parser parser, final Connection connection)
+            throws IOException {
+        Files.createDirectories(directory);
+        final Recording recording = createRecording(
+                sanitise(connection.getNetwork().isEmpty() ? connection.getAddress()
+                        : connection.getNetwork())
+                + '-' + FILE_DATE.format(LocalDateTime.now()));
+        if (recordings.putIfAbsent(parser, recording) != null) {
+            recording.close();
+            throw new IllegalStateException("Already recording " + parser);
+        }
+        parser.getCallbackManager().subscribe(this);
+        return recording.file;
+    }
+
+    /**
+     * Stops recording the given parser.
+     *
+     * @param parser The parser to stop recording.
+     *
+     * @return The file the traffic was recorded to, or {@code null} if it wasn't being recorded.
+     */
+    public Path stopRecording(final Parser parser) {
+        final Recording recording = recordings.remove(parser);
+        if (recording == null) {
+            return null;
+        }
+        parser.getCallbackManager().unsubscribe(this);
+        recording.close();
+        return recording.file;
+    }
+
+    /**
+     * Starts a stand-in server that will replay the given recording to the first client that
+     * connects to it.
+     *
+     * @param file  The recording to replay. Relative paths are resolved against the recordings
+     *              directory.
+     * @param speed The replay speed, or 0 to replay as fast as possible.
+     *
+     * @return The replayer that was started.
+     *
+     * @throws IOException If the recording could not be read, or the server could not be started.
+     */
+    public TrafficReplayer startReplay(final String file, final double speed)
+            throws IOException {
+        final TrafficReplayer replayer = new TrafficReplayer(
+                new TrafficReader(directory.resolve(file)), speed);
+        synchronized (replays) {
+            replays.removeIf(TrafficReplayer::isFinished);
+            replays.add(replayer);
+        }
+        return replayer;
+    }
+
+    @Handler
+    public void handleServerDisconnected(final ServerDisconnectedEvent event) {
+        event.getConnection().getParser().ifPresent(this::stopRecording);
+    }
+
+    @Handler
+    public void handleDataIn(final DataInEvent event) {
+        record(event.getParser(), true, event.getData());
+    }
+
+    @Handler
+    public void handleDataOut(final DataOutEvent event) {
+        record(event.getParser(), false, event.getData());
+    }
+
+    private void record(final Parser parser, final boolean inbound, final String line) {
+        final Recording recording = recordings.get(parser);
+        if (recording != null) {
+            try {
+                recording.writer.append(inbound, line);
+            } catch (IOException ex) {
+                LOG.warn("Unable to record traffic to {}, stopping recording", recording.file, ex);
+                stopRecording(parser);
+            }
+        }
+    }
+
+    /**
+     * Creates a new recording file with the given base name. If a file with that name already
+     * exists, a numeric suffix is added to make it unique.
+     *
+     * @param name The base name of the file, without an extension.
+     *
+     * @return The new recording.
+     *
+     * @throws IOException If the file could not be created.
+     */
+    private Recording createRecording(final String name) throws IOException {
+        for (int suffix = 0; ; suffix++) {
+            final Path file = directory.resolve(
+                    (suffix == 0 ? name : name + '-' + suffix) + ".dmtr");
+            try {
+                return new Recording(file, new TrafficWriter(file));
+            } catch (FileAlreadyExistsException ex) {
+                if (suffix >= MAX_SUFFIX) {
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    private void flushRecordings() {
+        recordings.forEach((parser, recording) -> {
+            try {
+                recording.writer.flush();
+            } catch (IOException ex) {
+                if (recordings.get(parser) == recording) {
+                    LOG.warn("Unable to record traffic to {}, stopping recording", recording.file,
+                            ex);
+                    stopRecording(parser);
+                }
+            }
+        });
+    }
+
+    private static String sanitise(final String name) {
+        return name.replaceAll("[^A-Za-z0-9.-]", "_");
+    }
+
+    /**
+     * A recording in progress.
+     */
+    private static class Recording {
+
+        /** The file being recorded to. */
+        private final Path file;
+        /** The writer for the file. */
+        private final TrafficWriter writer;
+
+        Recording(final Path file, final TrafficWriter writer) {
+            this.file = file;
+            this.writer = writer;
+        }
+
+        void close() {
+            try {
+                writer.close();
+            } catch (IOException ex) {
+                LOG.warn("Unable to close recording {}", file, ex);
+            }
+        }
+
+    }
+
+}
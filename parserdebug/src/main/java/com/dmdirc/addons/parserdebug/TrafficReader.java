@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.parserdebug;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads a recording written by {@link TrafficWriter} by mapping it into memory.
+ */
+public class TrafficReader implements Iterable<TrafficLine> {
+
+    /** The mapped contents of the recording. */
+    private final ByteBuffer contents;
+    /** The time the recording started, in milliseconds since the epoch. */
+    private final long startTime;
+
+    /**
+     * Maps the given recording into memory.
+     *
+     * @param file The recording to read.
+     *
+     * @throws IOException If the file could not be read or is not a recording.
+     */
+    public TrafficReader(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Recording is too large to map: " + file);
+            }
+            final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+            if (mapped.remaining() < TrafficWriter.HEADER_SIZE
+                    || mapped.getInt() != TrafficWriter.MAGIC) {
+                throw new IOException("Not a traffic recording: " + file);
+            }
+            final short version = mapped.getShort();
+            if (version != TrafficWriter.VERSION) {
+                throw new IOException("Unsupported recording version " + version + ": " + file);
+            }
+            startTime = mapped.getLong();
+            contents = mapped.slice();
+        }
+    }
+
+    /**
+     * Gets the time the recording started.
+     *
+     * @return The start time, in milliseconds since the epoch.
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    @Override
+    public Iterator<TrafficLine> iterator() {
+        final ByteBuffer records = contents.duplicate();
+        return new Iterator<TrafficLine>() {
+
+            private TrafficLine next = read(records);
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public TrafficLine next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                final TrafficLine line = next;
+                next = read(records);
+                return line;
+            }
+        };
+    }
+
+    /**
+     * Reads the next record from the buffer.
+     *
+     * @param records The buffer to read from.
+     *
+     * @return The next line, or {@code null} if there are no more complete records.
+     */
+    private static TrafficLine read(final ByteBuffer records) {
+        if (records.remaining() < TrafficWriter.RECORD_HEADER_SIZE) {
+            return null;
+        }
+        final int start = records.position();
+        final long offset = records.getLong();
+        final boolean inbound = records.get() == 0;
+        final int length = records.getInt();
+        if (length < 0 || records.remaining() < length) {
+            // The recording was cut off part way through a record.
+            records.position(start);
+            return null;
+        }
+        final byte[] data = new byte[length];
+        records.get(data);
+        return new TrafficLine(offset, inbound, new String(data, StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.parserdebug;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Replays the inbound half of a recording through a local stand-in server.
+ *
+ * <p>The replayer listens on the loopback interface and waits for a single client to connect. It
+ * then sends every line the recorded server sent, in order, spaced out by the recorded delays
+ * divided by the replay speed. Anything the client sends is read and discarded. Once every line
+ * has been sent the connection is closed.
+ */
+public class TrafficReplayer implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TrafficReplayer.class);
+    /** Line terminator to send after each line. */
+    private static final byte[] TERMINATOR = {'\r', '\n'};
+    /** The recording to replay. */
+    private final TrafficReader recording;
+    /** The replay speed, or 0 to replay as fast as possible. */
+    private final double speed;
+    /** Socket to accept the client on. */
+    private final ServerSocket serverSocket;
+    /** Latch released once the replay has finished. */
+    private final CountDownLatch finished = new CountDownLatch(1);
+    /** The number of lines sent to the client. */
+    private final AtomicLong linesSent = new AtomicLong();
+    /** The time taken to send all lines, in nanoseconds. */
+    private volatile long elapsed;
+    /** The connected client, if any. */
+    private volatile Socket client;
+
+    /**
+     * Creates a new replayer, and starts listening for a client on a free local port.
+     *
+     * @param recording The recording to replay.
+     * @param speed     The replay speed (e.g. 1 for real time, 10 for ten times faster), or 0 to
+     *                  replay as fast as possible.
+     *
+     * @throws IOException If the server socket could not be opened.
+     */
+    public TrafficReplayer(final TrafficReader recording, final double speed)
+            throws IOException {
+        if (speed < 0 || Double.isNaN(speed) || Double.isInfinite(speed)) {
+            throw new IllegalArgumentException("Invalid replay speed: " + speed);
+        }
+        this.recording = recording;
+        this.speed = speed;
+        serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        final Thread thread = new Thread(this::run, "Traffic replay on port " + getPort());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Gets the port the stand-in server is listening on.
+     *
+     * @return The local port number.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Gets the address the stand-in server is listening on.
+     *
+     * @return The local address.
+     */
+    public InetAddress getAddress() {
+        return serverSocket.getInetAddress();
+    }
+
+    public long getLinesSent() {
+        return linesSent.get();
+    }
+
+    /**
+     * Gets the time taken to send the recording to the client.
+     *
+     * @param unit The unit to return the time in.
+     *
+     * @return The time taken, or 0 if the replay hasn't finished.
+     */
+    public long getElapsed(final TimeUnit unit) {
+        return unit.convert(elapsed, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Waits for the replay to finish.
+     *
+     * @param timeout The maximum time to wait.
+     * @param unit    The unit of the timeout.
+     *
+     * @return True if the replay finished, false if the timeout elapsed first.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public boolean awaitCompletion(final long timeout, final TimeUnit unit)
+            throws InterruptedException {
+        return finished.await(timeout, unit);
+    }
+
+    public boolean isFinished() {
+        return finished.getCount() == 0;
+    }
+
+    @Override
+    public void close() {
+        closeQuietly(serverSocket);
+        final Socket socket = client;
+        if (socket != null) {
+            closeQuietly(socket);
+        }
+    }
+
+    private void run() {
+        try (Socket socket = serverSocket.accept()) {
+            client = socket;
+            closeQuietly(serverSocket);
+            startDraining(socket.getInputStream());
+            replay(new BufferedOutputStream(socket.getOutputStream(), 64 * 1024));
+        } catch (IOException ex) {
+            if (!serverSocket.isClosed() || client != null) {
+                LOG.info("Traffic replay ended early: {}", ex.getMessage());
+            }
+        } finally {
+            closeQuietly(serverSocket);
+            finished.countDown();
+        }
+    }
+
+    private void replay(final OutputStream out) throws IOException {
+        final long start = System.nanoTime();
+        long first = -1;
+        for (TrafficLine line : recording) {
+            if (!line.isInbound()) {
+                continue;
+            }
+            if (first < 0) {
+                first = line.getOffset();
+            }
+            if (speed > 0) {
+                final long due = start + (long) ((line.getOffset() - first) / speed);
+                if (due - System.nanoTime() > 0) {
+                    // Nothing else is due yet, so let the client see what's been sent so far.
+                    out.flush();
+                    waitUntil(due);
+                }
+            }
+            out.write(line.getLine().getBytes(StandardCharsets.UTF_8));
+            out.write(TERMINATOR);
+            linesSent.incrementAndGet();
+        }
+        out.flush();
+        elapsed = System.nanoTime() - start;
+    }
+
+    private void waitUntil(final long due) throws IOException {
+        long remaining;
+        while ((remaining = due - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()) {
+                throw new IOException("Interrupted");
+            }
+        }
+    }
+
+    private void startDraining(final InputStream in) {
+        final Thread thread = new Thread(() -> {
+            final byte[] buffer = new byte[4096];
+            try {
+                while (in.read(buffer) >= 0) {
+                    // Discard whatever the client sends.
+                }
+            } catch (IOException ex) {
+                // The connection has been closed.
+            }
+        }, "Traffic replay drain on port " + getPort());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void closeQuietly(final Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ex) {
+            LOG.debug("Unable to close socket", ex);
+        }
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.parserdebug;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends raw protocol traffic to a recording file.
+ *
+ * <p>A recording starts with a header of a four byte magic number, a two byte format version and
+ * the eight byte time the recording started in milliseconds since the epoch. It is followed by
+ * one record per line: the eight byte offset in nanoseconds since the recording started, a one
+ * byte direction (0 for inbound, 1 for outbound), a four byte length and that many bytes of UTF-8
+ * text. All values are big-endian. Records are only ever appended, so a recording can be read
+ * while it is being written, and a truncated final record is simply ignored.
+ */
+public class TrafficWriter implements Closeable {
+
+    /** Magic number at the start of every recording ("DMTR"). */
+    static final int MAGIC = 0x444D5452;
+    /** The version of the format written. */
+    static final short VERSION = 1;
+    /** The size of the file header, in bytes. */
+    static final int HEADER_SIZE = 4 + 2 + 8;
+    /** The size of each record's header, in bytes. */
+    static final int RECORD_HEADER_SIZE = 8 + 1 + 4;
+    /** The size of the write buffer, in bytes. */
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /** The channel to write to. */
+    private final FileChannel channel;
+    /** Buffer of records waiting to be written. */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    /** The value of {@link System#nanoTime()} when the recording started. */
+    private final long startTime;
+    /** The number of lines written. */
+    private long lines;
+
+    /**
+     * Creates a new recording file. Existing files are never overwritten.
+     *
+     * @param file The file to record to.
+     *
+     * @throws FileAlreadyExistsException If a file already exists at the given path.
+     * @throws IOException If the file could not be created.
+     */
+    public TrafficWriter(final Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        startTime = System.nanoTime();
+        buffer.putInt(MAGIC).putShort(VERSION).putLong(System.currentTimeMillis());
+        flush();
+    }
+
+    /**
+     * Appends a line to the recording, timestamped with the current time.
+     *
+     * @param inbound True if the line was received from the server, false if it was sent.
+     * @param line    The line, without its terminator.
+     *
+     * @throws IOException If the line could not be written.
+     */
+    public synchronized void append(final boolean inbound, final String line) throws IOException {
+        final byte[] data = line.getBytes(StandardCharsets.UTF_8);
+        if (buffer.remaining() < RECORD_HEADER_SIZE + data.length) {
+            flush();
+        }
+        if (buffer.remaining() < RECORD_HEADER_SIZE + data.length) {
+            // Too big to ever fit in the buffer, write it directly.
+            final ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + data.length);
+            putRecord(record, inbound, data);
+            record.flip();
+            writeFully(record);
+        } else {
+            putRecord(buffer, inbound, data);
+        }
+        lines++;
+    }
+
+    /**
+     * Writes any buffered lines to the file. Lines are otherwise only written when the buffer is
+     * full, so callers should flush regularly to keep the file up to date.
+     *
+     * @throws IOException If the lines could not be written.
+     */
+    public synchronized void flush() throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    public synchronized long getLines() {
+        return lines;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void putRecord(final ByteBuffer target, final boolean inbound, final byte[] data) {
+        target.putLong(System.nanoTime() - startTime)
+                .put((byte) (inbound ? 0 : 1))
+                .putInt(data.length)
+                .put(data);
+    }
+
+    private void writeFully(final ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.parserdebug;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.Socket;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TrafficRecordingTest {
+
+    @Rule public final TemporaryFolder folder = new TemporaryFolder();
+    private Path file;
+
+    @Before
+    public void setUp() {
+        file = folder.getRoot().toPath().resolve("traffic.dmtr");
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        try (TrafficWriter writer = new TrafficWriter(file)) {
+            writer.append(false, "NICK test");
+            writer.append(true, ":server 001 test :Welcome é");
+            writer.append(true, "");
+            assertEquals(3, writer.getLines());
+        }
+
+        final List<TrafficLine> lines = read(new TrafficReader(file));
+        assertEquals(3, lines.size());
+        assertFalse(lines.get(0).isInbound());
+        assertEquals("NICK test", lines.get(0).getLine());
+        assertTrue(lines.get(1).isInbound());
+        assertEquals(":server 001 test :Welcome é", lines.get(1).getLine());
+        assertEquals("", lines.get(2).getLine());
+        assertTrue(lines.get(1).getOffset() >= lines.get(0).getOffset());
+    }
+
+    @Test
+    public void testFlushWritesBufferedLines() throws IOException {
+        try (TrafficWriter writer = new TrafficWriter(file)) {
+            writer.append(true, "first");
+            writer.flush();
+            final List<TrafficLine> lines = read(new TrafficReader(file));
+            assertEquals(1, lines.size());
+            assertEquals("first", lines.get(0).getLine());
+        }
+    }
+
+    @Test
+    public void testDoesNotReplaceExistingFile() throws IOException {
+        Files.write(file, "existing".getBytes(StandardCharsets.UTF_8));
+        try {
+            new TrafficWriter(file).close();
+            fail("Expected FileAlreadyExistsException");
+        } catch (FileAlreadyExistsException ex) {
+            assertEquals("existing", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testLinesLargerThanBuffer() throws IOException {
+        final char[] chars = new char[100000];
+        Arrays.fill(chars, 'x');
+        final String big = new String(chars);
+        try (TrafficWriter writer = new TrafficWriter(file)) {
+            writer.append(true, "before");
+            writer.append(true, big);
+            writer.append(true, "after");
+        }
+
+        final List<TrafficLine> lines = read(new TrafficReader(file));
+        assertEquals(3, lines.size());
+        assertEquals("before", lines.get(0).getLine());
+        assertEquals(big, lines.get(1).getLine());
+        assertEquals("after", lines.get(2).getLine());
+    }
+
+    @Test
+    public void testTruncatedRecordIsIgnored() throws IOException {
+        try (TrafficWriter writer = new TrafficWriter(file)) {
+            writer.append(true, "first");
+            writer.append(true, "second");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 2);
+        }
+
+        final List<TrafficLine> lines = read(new TrafficReader(file));
+        assertEquals(1, lines.size());
+        assertEquals("first", lines.get(0).getLine());
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsOtherFiles() throws IOException {
+        Files.write(file, "not a recording at all".getBytes(StandardCharsets.UTF_8));
+        new TrafficReader(file);
+    }
+
+    @Test
+    public void testReplaySendsInboundLines() throws Exception {
+        try (TrafficWriter writer = new TrafficWriter(file)) {
+            writer.append(true, ":server NOTICE AUTH :hello");
+            writer.append(false, "NICK test");
+            writer.append(true, ":server 001 test :Welcome");
+        }
+
+        try (TrafficReplayer replayer = new TrafficReplayer(new TrafficReader(file), 0);
+                Socket socket = new Socket(replayer.getAddress(), replayer.getPort())) {
+            assertTrue(replayer.getAddress().isLoopbackAddress());
+            socket.getOutputStream().write("NICK other\r\n".getBytes(StandardCharsets.UTF_8));
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    socket.getInputStream(), StandardCharsets.UTF_8));
+            assertEquals(":server NOTICE AUTH :hello", reader.readLine());
+            assertEquals(":server 001 test :Welcome", reader.readLine());
+            assertEquals(null, reader.readLine());
+            assertTrue(replayer.awaitCompletion(5, TimeUnit.SECONDS));
+            assertEquals(2, replayer.getLinesSent());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNegativeSpeed() throws IOException {
+        try (TrafficWriter writer = new TrafficWriter(file)) {
+            writer.append(true, "line");
+        }
+        new TrafficReplayer(new TrafficReader(file), -1);
+    }
+
+    private static List<TrafficLine> read(final TrafficReader reader) {
+        final List<TrafficLine> lines = new ArrayList<>();
+        reader.forEach(lines::add);
+        return lines;
+    }
+
+}
@@ -25,7 +25,6 @@ import com.dmdirc.ui.input.tabstyles.TabCompletionStyle;
 
 import java.awt.Toolkit;
 import java.util.List;
-import java.util.Locale;
 
 public class BashStyle implements TabCompletionStyle {
 
@@ -39,16 +38,21 @@ public class BashStyle implements TabCompletionStyle {
     protected final TabCompleter tabCompleter;
     /** The input window that we use. */
     protected final WindowModel window;
+    /** The index of candidates in the window. */
+    protected final CandidateIndex index;
 
     /**
      * Creates a new Bash-style tab completer.
      *
      * @param completer The tab completer this style is for
      * @param window    The window this tab style is for
+     * @param index     The index of candidates in the window
      */
-    public BashStyle(final TabCompleter completer, final WindowModel window) {
+    public BashStyle(final TabCompleter completer, final WindowModel window,
+            final CandidateIndex index) {
         this.tabCompleter = completer;
         this.window = window;
+        this.index = index;
     }
 
     @Override
@@ -56,7 +60,8 @@ public class BashStyle implements TabCompletionStyle {
             final int end, final boolean shiftPressed,
             final AdditionalTabTargets additional) {
         final String word = original.substring(start, end);
-        final List<String> res = tabCompleter.complete(word, additional);
+        final Completions completions = index.complete(word, additional);
+        final List<String> res = completions.getMatches();
 
         if (start == lastPosition && word.equals(lastWord)) {
             tabCount++;
@@ -81,7 +86,7 @@ public class BashStyle implements TabCompletionStyle {
         } else {
             // Multiple results
 
-            final String sub = getBestSubstring(res);
+            final String sub = completions.getCommonPrefix();
             if (sub.equalsIgnoreCase(word) && tabCount >= 2) {
                 window.getEventBus().publishAsync(
                         new BashDisambiguationEvent(window, res.toString()));
@@ -94,34 +99,4 @@ public class BashStyle implements TabCompletionStyle {
         }
     }
 
-    /**
-     * Returns the longest substring that matches all results.
-     *
-     * @return longest possible substring matching all results
-     */
-    private String getBestSubstring(final List<String> res) {
-        if (res.isEmpty()) {
-            return "";
-        }
-
-        final boolean caseSensitive = window.getConfigManager()
-                .getOptionBool("tabcompletion", "casesensitive");
-
-        String substring = res.get(0);
-        for (String entry : res) {
-            if (caseSensitive) {
-                while (!entry.startsWith(substring)) {
-                    substring = substring.substring(0, substring.length() - 1);
-                }
-            } else {
-                while (!entry.toLowerCase(Locale.getDefault()).startsWith(
-                        substring.toLowerCase(Locale.getDefault()))) {
-                    substring = substring.substring(0, substring.length() - 1);
-                }
-            }
-        }
-
-        return substring;
-    }
-
 }
@@ -28,6 +28,9 @@ import com.dmdirc.ui.input.tabstyles.TabCompletionStyle;
  */
 public class BashStylePlugin extends BasePlugin {
 
+    /** The candidate indexes created for windows. */
+    private final CandidateIndexes indexes = new CandidateIndexes();
+
     /**
      * Retrieves a new instance of the Bash tab completion style.
      *
@@ -39,7 +42,13 @@ public class BashStylePlugin extends BasePlugin {
     @Exported
     public TabCompletionStyle getCompletionStyle(final TabCompleter completer,
             final WindowModel window) {
-        return new BashStyle(completer, window);
+        return new BashStyle(completer, window, indexes.create(completer, window));
+    }
+
+    @Override
+    public void onUnload() {
+        super.onUnload();
+        indexes.unloadAll();
     }
 
 }
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.tabcompletion_bash;
+
+import com.dmdirc.events.ChannelGotNamesEvent;
+import com.dmdirc.events.ChannelJoinEvent;
+import com.dmdirc.events.ChannelKickEvent;
+import com.dmdirc.events.ChannelNickChangeEvent;
+import com.dmdirc.events.ChannelPartEvent;
+import com.dmdirc.events.ChannelQuitEvent;
+import com.dmdirc.events.FrameClosingEvent;
+import com.dmdirc.interfaces.GroupChat;
+import com.dmdirc.interfaces.WindowModel;
+import com.dmdirc.ui.input.AdditionalTabTargets;
+import com.dmdirc.ui.input.TabCompleter;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import javax.annotation.Nullable;
+
+import net.engio.mbassy.listener.Handler;
+
+/**
+ * Maintains an index of the nicknames in a single channel window, for tab completion.
+ *
+ * <p>The index is seeded from the channel's users the first time it is used, and is then kept up to date as users
+ * join, leave and change nickname, so that completing a nickname never needs to scan or sort every candidate. Words
+ * that can't be nicknames (such as channels and commands), completions with additional targets, and completions in
+ * windows that aren't channels are handed to the window's {@link TabCompleter}, so they are never stale.
+ */
+public class CandidateIndex {
+
+    /** Characters other than letters that a nickname may start with. */
+    private static final String NICKNAME_START = "[]\\`_^{|}";
+    /** The tab completer to delegate other completions to. */
+    private final TabCompleter tabCompleter;
+    /** The window this index is for. */
+    private final WindowModel window;
+    /** The indexed nicknames. */
+    private final CompletionTrie trie = new CompletionTrie();
+    /** Listener to notify when the index is unloaded. */
+    private final Consumer<CandidateIndex> unloadListener;
+    /** Whether the index needs to be reseeded from the channel's users. */
+    private volatile boolean stale = true;
+
+    public CandidateIndex(final TabCompleter tabCompleter, final WindowModel window,
+            final Consumer<CandidateIndex> unloadListener) {
+        this.tabCompleter = tabCompleter;
+        this.window = window;
+        this.unloadListener = unloadListener;
+    }
+
+    /**
+     * Starts listening for events that change the candidates in the window.
+     */
+    public void load() {
+        window.getEventBus().subscribe(this);
+    }
+
+    /**
+     * Stops listening for events.
+     */
+    public void unload() {
+        window.getEventBus().unsubscribe(this);
+        unloadListener.accept(this);
+    }
+
+    /**
+     * Finds the candidates matching the given word.
+     *
+     * @param word       The word being completed.
+     * @param additional Additional targets to complete, or {@code null} for a plain completion.
+     *
+     * @return The matching candidates.
+     */
+    public Completions complete(final String word, @Nullable final AdditionalTabTargets additional) {
+        final boolean caseSensitive = window.getConfigManager()
+                .getOptionBool("tabcompletion", "casesensitive");
+
+        if (additional != null || !(window instanceof GroupChat) || !isNicknameStart(word)) {
+            final CompletionTrie results = CompletionTrie.of(tabCompleter.complete(word, additional));
+            return getCompletions(results, word, caseSensitive);
+        }
+
+        if (stale) {
+            reseed();
+        }
+        return getCompletions(trie, word, caseSensitive);
+    }
+
+    /**
+     * Gets the current version of the index. This changes whenever candidates are added or removed.
+     *
+     * @return The version of the index.
+     */
+    public long getVersion() {
+        return trie.getVersion();
+    }
+
+    @VisibleForTesting
+    void reseed() {
+        stale = false;
+        synchronized (trie) {
+            trie.clear();
+            ((GroupChat) window).getUsers().forEach(user -> trie.add(user.getNickname()));
+        }
+    }
+
+    @Handler
+    void handleFrameClosing(final FrameClosingEvent event) {
+        if (window.equals(event.getSource())) {
+            unload();
+        }
+    }
+
+    @Handler
+    void handleGotNames(final ChannelGotNamesEvent event) {
+        if (isForWindow(event.getChannel())) {
+            stale = true;
+        }
+    }
+
+    @Handler
+    void handleJoin(final ChannelJoinEvent event) {
+        if (isForWindow(event.getChannel())) {
+            trie.add(event.getClient().getNickname());
+        }
+    }
+
+    @Handler
+    void handlePart(final ChannelPartEvent event) {
+        if (isForWindow(event.getChannel())) {
+            trie.remove(event.getClient().getNickname());
+        }
+    }
+
+    @Handler
+    void handleQuit(final ChannelQuitEvent event) {
+        if (isForWindow(event.getChannel())) {
+            trie.remove(event.getClient().getNickname());
+        }
+    }
+
+    @Handler
+    void handleKick(final ChannelKickEvent event) {
+        if (isForWindow(event.getChannel())) {
+            trie.remove(event.getVictim().getNickname());
+        }
+    }
+
+    @Handler
+    void handleNickChange(final ChannelNickChangeEvent event) {
+        if (isForWindow(event.getChannel())) {
+            trie.rename(event.getOldNick(), event.getClient().getNickname());
+        }
+    }
+
+    /**
+     * Determines whether a word could be the start of a nickname. Empty words could be anything, so aren't treated as
+     * nicknames.
+     *
+     * @param word The word being completed.
+     *
+     * @return True if the word could only be completed to a nickname.
+     */
+    private static boolean isNicknameStart(final String word) {
+        if (word.isEmpty()) {
+            return false;
+        }
+        final char first = word.charAt(0);
+        return Character.isLetter(first) || NICKNAME_START.indexOf(first) != -1;
+    }
+
+    private boolean isForWindow(final GroupChat channel) {
+        return channel.getWindowModel().equals(window);
+    }
+
+    private static Completions getCompletions(final CompletionTrie trie, final String word,
+            final boolean caseSensitive) {
+        final List<String> matches;
+        final int foldedLength;
+        final long version;
+        synchronized (trie) {
+            matches = trie.getMatches(word);
+            foldedLength = trie.getCommonPrefixLength(word);
+            version = trie.getVersion();
+        }
+
+        if (matches.isEmpty()) {
+            return new Completions(matches, "", version);
+        }
+
+        if (!caseSensitive) {
+            return new Completions(matches, matches.get(0).substring(0, foldedLength), version);
+        }
+
+        final List<String> exact = new ArrayList<>(matches.size());
+        matches.stream().filter(m -> m.startsWith(word)).forEach(exact::add);
+        if (exact.isEmpty()) {
+            return new Completions(exact, "", version);
+        }
+        // The case sensitive prefix can be longer than the folded one, as candidates that only matched when folded
+        // have been removed.
+        final String first = exact.get(0);
+        int length = first.length();
+        for (String match : exact) {
+            final int limit = Math.min(length, match.length());
+            int i = word.length();
+            while (i < limit && match.charAt(i) == first.charAt(i)) {
+                i++;
+            }
+            length = i;
+        }
+        return new Completions(exact, first.substring(0, length), version);
+    }
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.dmdirc.addons.tabcompletion_bash;
+
+import com.dmdirc.interfaces.WindowModel;
+import com.dmdirc.ui.input.TabCompleter;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of the candidate indexes a plugin has created, so that they can all be unloaded when the plugin is.
+ * Each index removes itself when its window closes.
+ */
+public class CandidateIndexes {
+
+    /** The indexes that are currently loaded. */
+    private final Set<CandidateIndex> indexes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates and loads a new index for a window.
+     *
+     * @param tabCompleter The tab completer to delegate other completions to.
+     * @param window       The window the index is for.
+     *
+     * @return The new index.
+     */
+    public CandidateIndex create(final TabCompleter tabCompleter, final WindowModel window) {
+        final CandidateIndex index = new CandidateIndex(tabCompleter, window, indexes::remove);
+        indexes.add(index);
+        index.load();
+        return index;
+    }
+
+    /**
+     * Unloads all indexes that are still loaded.
+     */
+    public void unloadAll() {
+        indexes.forEach(CandidateIndex::unload);
+    }
+
+    /**
+     * Returns the number of indexes that are currently loaded.
+     *
+     * @return The number of loaded indexes.
+     */
+    public int size() {
+        return indexes.size();
+    }
+
+}
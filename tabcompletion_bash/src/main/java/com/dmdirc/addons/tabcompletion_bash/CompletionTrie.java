@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.tabcompletion_bash;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A case-folded prefix trie of tab completion candidates.
+ *
+ * <p>Candidates are stored under their case-folded form, so looking up a prefix costs time proportional to the length
+ * of the prefix rather than the number of candidates. Children are kept sorted, so matches are always returned in a
+ * stable case-insensitive order without needing to be sorted.
+ */
+public class CompletionTrie {
+
+    /** The root node of the trie. */
+    private final Node root = new Node();
+    /** Incremented every time the contents of the trie change. */
+    private long version;
+
+    /**
+     * Creates a new trie containing the given candidates.
+     *
+     * @param candidates The candidates to add.
+     *
+     * @return A new trie.
+     */
+    public static CompletionTrie of(final Collection<String> candidates) {
+        final CompletionTrie trie = new CompletionTrie();
+        candidates.forEach(trie::add);
+        return trie;
+    }
+
+    /**
+     * Adds a candidate to the trie. Adding a candidate that already exists has no effect.
+     *
+     * @param candidate The candidate to add.
+     */
+    public synchronized void add(final String candidate) {
+        Node node = root;
+        for (int i = 0; i < candidate.length(); i++) {
+            node = node.getOrCreateChild(fold(candidate.charAt(i)));
+        }
+        if (node.addValue(candidate)) {
+            node = root;
+            root.count++;
+            for (int i = 0; i < candidate.length(); i++) {
+                node = node.getChild(fold(candidate.charAt(i)));
+                node.count++;
+            }
+            version++;
+        }
+    }
+
+    /**
+     * Removes a candidate from the trie, if it is present.
+     *
+     * @param candidate The candidate to remove.
+     */
+    public synchronized void remove(final String candidate) {
+        final Node node = find(candidate);
+        if (node == null || !node.removeValue(candidate)) {
+            return;
+        }
+        Node parent = root;
+        root.count--;
+        for (int i = 0; i < candidate.length(); i++) {
+            final char c = fold(candidate.charAt(i));
+            final Node child = parent.getChild(c);
+            child.count--;
+            if (child.count == 0) {
+                parent.removeChild(c);
+                break;
+            }
+            parent = child;
+        }
+        version++;
+    }
+
+    /**
+     * Replaces one candidate with another, for example when a user changes nickname.
+     *
+     * @param oldCandidate The candidate to remove.
+     * @param newCandidate The candidate to add.
+     */
+    public synchronized void rename(final String oldCandidate, final String newCandidate) {
+        remove(oldCandidate);
+        add(newCandidate);
+    }
+
+    /**
+     * Removes all candidates from the trie.
+     */
+    public synchronized void clear() {
+        root.clear();
+        version++;
+    }
+
+    /**
+     * Retrieves all candidates starting with the given prefix, ignoring case. Candidates are returned in
+     * case-insensitive order; candidates that differ only by case are returned in case-sensitive order.
+     *
+     * @param prefix The prefix to look up.
+     *
+     * @return A list of matching candidates, which may be empty.
+     */
+    public synchronized List<String> getMatches(final String prefix) {
+        final Node node = find(prefix);
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        final List<String> matches = new ArrayList<>(node.count);
+        node.collect(matches);
+        return matches;
+    }
+
+    /**
+     * Calculates the length of the longest prefix shared by all candidates that start with the given prefix, ignoring
+     * case. This is found by following the trie down from the prefix until it branches, without examining the
+     * candidates themselves.
+     *
+     * @param prefix The prefix to look up.
+     *
+     * @return The length of the common prefix, or -1 if no candidates match.
+     */
+    public synchronized int getCommonPrefixLength(final String prefix) {
+        Node node = find(prefix);
+        if (node == null) {
+            return -1;
+        }
+        int length = prefix.length();
+        while (node.size == 1 && node.values.isEmpty()) {
+            node = node.children[0];
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Gets the number of candidates in this trie.
+     *
+     * @return The number of candidates.
+     */
+    public synchronized int size() {
+        return root.count;
+    }
+
+    /**
+     * Gets a number that changes each time the contents of the trie are modified. Callers holding results from an
+     * earlier lookup can use this to tell if they are still valid.
+     *
+     * @return The current version of the trie.
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    private Node find(final String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.getChild(fold(prefix.charAt(i)));
+        }
+        return node;
+    }
+
+    private static char fold(final char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /** A single node in the trie. */
+    private static class Node {
+        /** Empty array shared by all leaf nodes. */
+        private static final char[] NO_KEYS = new char[0];
+        /** Empty array shared by all leaf nodes. */
+        private static final Node[] NO_CHILDREN = new Node[0];
+        /** The folded characters leading to each child, in ascending order. */
+        private char[] keys = NO_KEYS;
+        /** The children of this node, in the same order as {@link #keys}. */
+        private Node[] children = NO_CHILDREN;
+        /** The number of children in use. */
+        private int size;
+        /** The candidates that end at this node, in case-sensitive order. */
+        private List<String> values = Collections.emptyList();
+        /** The number of candidates that end at or below this node. */
+        private int count;
+
+        Node getChild(final char key) {
+            final int index = Arrays.binarySearch(keys, 0, size, key);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node getOrCreateChild(final char key) {
+            final int index = Arrays.binarySearch(keys, 0, size, key);
+            if (index >= 0) {
+                return children[index];
+            }
+            final int insert = -index - 1;
+            if (size == keys.length) {
+                final int capacity = Math.max(2, size * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(keys, insert, keys, insert + 1, size - insert);
+            System.arraycopy(children, insert, children, insert + 1, size - insert);
+            final Node child = new Node();
+            keys[insert] = key;
+            children[insert] = child;
+            size++;
+            return child;
+        }
+
+        void removeChild(final char key) {
+            final int index = Arrays.binarySearch(keys, 0, size, key);
+            if (index >= 0) {
+                System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+                System.arraycopy(children, index + 1, children, index, size - index - 1);
+                children[--size] = null;
+            }
+        }
+
+        boolean addValue(final String value) {
+            final int index = Collections.binarySearch(values, value);
+            if (index >= 0) {
+                return false;
+            }
+            if (values.isEmpty()) {
+                values = new ArrayList<>(1);
+            }
+            values.add(-index - 1, value);
+            return true;
+        }
+
+        boolean removeValue(final String value) {
+            return values.remove(value);
+        }
+
+        void collect(final List<String> target) {
+            target.addAll(values);
+            for (int i = 0; i < size; i++) {
+                children[i].collect(target);
+            }
+        }
+
+        void clear() {
+            keys = NO_KEYS;
+            children = NO_CHILDREN;
+            size = 0;
+            values = Collections.emptyList();
+            count = 0;
+        }
+    }
+
+}
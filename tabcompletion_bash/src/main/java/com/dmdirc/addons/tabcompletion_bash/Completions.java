@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.tabcompletion_bash;
+
+import java.util.List;
+
+/**
+ * The candidates matching a single tab completion attempt.
+ */
+public class Completions {
+
+    /** The matching candidates, in case-insensitive order. */
+    private final List<String> matches;
+    /** The longest prefix shared by all matching candidates. */
+    private final String commonPrefix;
+    /** The version of the index the matches were taken from. */
+    private final long version;
+
+    public Completions(final List<String> matches, final String commonPrefix, final long version) {
+        this.matches = matches;
+        this.commonPrefix = commonPrefix;
+        this.version = version;
+    }
+
+    public List<String> getMatches() {
+        return matches;
+    }
+
+    public String getCommonPrefix() {
+        return commonPrefix;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isEmpty() {
+        return matches.isEmpty();
+    }
+
+}
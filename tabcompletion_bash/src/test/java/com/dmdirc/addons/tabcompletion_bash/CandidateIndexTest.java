@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.dmdirc.addons.tabcompletion_bash;
+
+import com.dmdirc.config.provider.AggregateConfigProvider;
+import com.dmdirc.events.FrameClosingEvent;
+import com.dmdirc.events.eventbus.EventBus;
+import com.dmdirc.interfaces.GroupChat;
+import com.dmdirc.interfaces.GroupChatUser;
+import com.dmdirc.interfaces.WindowModel;
+import com.dmdirc.ui.input.AdditionalTabTargets;
+import com.dmdirc.ui.input.TabCompleter;
+
+import com.google.common.collect.Lists;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CandidateIndexTest {
+
+    @Mock private TabCompleter tabCompleter;
+    @Mock private WindowModel window;
+    @Mock private WindowModel otherWindow;
+    @Mock private EventBus eventBus;
+    @Mock private AggregateConfigProvider config;
+    @Mock private GroupChatUser user1;
+    @Mock private GroupChatUser user2;
+    private List<String> candidates;
+    private CandidateIndexes indexes;
+
+    @Before
+    public void setUp() {
+        when(window.getEventBus()).thenReturn(eventBus);
+        when(window.getConfigManager()).thenReturn(config);
+        candidates = Lists.newArrayList("abc", "ABD", "#dmdirc");
+        when(tabCompleter.complete(anyString(), isNull(AdditionalTabTargets.class))).thenAnswer(
+                invocation -> {
+                    final String word = ((String) invocation.getArguments()[0]).toLowerCase();
+                    return candidates.stream()
+                            .filter(c -> c.toLowerCase().startsWith(word))
+                            .collect(Collectors.toList());
+                });
+        indexes = new CandidateIndexes();
+    }
+
+    @Test
+    public void testCaseSensitivePrefixIsNotLimitedByFoldedMatches() {
+        when(config.getOptionBool("tabcompletion", "casesensitive")).thenReturn(true);
+
+        final Completions completions = indexes.create(tabCompleter, window).complete("a", null);
+
+        assertEquals(Lists.newArrayList("abc"), completions.getMatches());
+        assertEquals("abc", completions.getCommonPrefix());
+    }
+
+    @Test
+    public void testCaseInsensitivePrefixUsesFoldedMatches() {
+        when(config.getOptionBool("tabcompletion", "casesensitive")).thenReturn(false);
+
+        final Completions completions = indexes.create(tabCompleter, window).complete("a", null);
+
+        assertEquals(2, completions.getMatches().size());
+        assertEquals("ab", completions.getCommonPrefix());
+    }
+
+    @Test
+    public void testCompletesNicknamesFromChannelUsers() {
+        final WindowModel channel = mockChannel();
+
+        final Completions completions = indexes.create(tabCompleter, channel).complete("a", null);
+
+        assertEquals(Lists.newArrayList("alice"), completions.getMatches());
+        verify(tabCompleter, never()).complete(anyString(), isNull(AdditionalTabTargets.class));
+    }
+
+    @Test
+    public void testDelegatesOtherWordsToTabCompleter() {
+        final CandidateIndex index = indexes.create(tabCompleter, mockChannel());
+        assertEquals(Lists.newArrayList("#dmdirc"), index.complete("#d", null).getMatches());
+
+        candidates.add("#dmdirc-dev");
+
+        assertEquals(Lists.newArrayList("#dmdirc", "#dmdirc-dev"),
+                index.complete("#d", null).getMatches());
+    }
+
+    @Test
+    public void testUnloadsWhenWindowCloses() {
+        final CandidateIndex index = indexes.create(tabCompleter, window);
+        verify(eventBus).subscribe(index);
+
+        index.handleFrameClosing(new FrameClosingEvent(otherWindow));
+        verify(eventBus, never()).unsubscribe(index);
+        assertEquals(1, indexes.size());
+
+        index.handleFrameClosing(new FrameClosingEvent(window));
+        verify(eventBus).unsubscribe(index);
+        assertEquals(0, indexes.size());
+    }
+
+    @Test
+    public void testUnloadAll() {
+        final CandidateIndex index1 = indexes.create(tabCompleter, window);
+        final CandidateIndex index2 = indexes.create(tabCompleter, window);
+
+        indexes.unloadAll();
+
+        verify(eventBus).unsubscribe(index1);
+        verify(eventBus).unsubscribe(index2);
+        assertEquals(0, indexes.size());
+    }
+
+    private WindowModel mockChannel() {
+        final GroupChat groupChat = mock(GroupChat.class,
+                withSettings().extraInterfaces(WindowModel.class));
+        final WindowModel channel = (WindowModel) groupChat;
+        when(channel.getEventBus()).thenReturn(eventBus);
+        when(channel.getConfigManager()).thenReturn(config);
+        when(user1.getNickname()).thenReturn("alice");
+        when(user2.getNickname()).thenReturn("Bob");
+        when(groupChat.getUsers()).thenReturn(Lists.newArrayList(user1, user2));
+        return channel;
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.tabcompletion_bash;
+
+import com.google.common.collect.Lists;
+
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class CompletionTrieTest {
+
+    private CompletionTrie trie;
+
+    @Before
+    public void setUp() {
+        trie = CompletionTrie.of(Lists.newArrayList("bob", "Alice", "alan", "Bobby", "#dmdirc"));
+    }
+
+    @Test
+    public void testMatchesAreCaseInsensitiveAndSorted() {
+        assertEquals(Lists.newArrayList("alan", "Alice"), trie.getMatches("AL"));
+        assertEquals(Lists.newArrayList("bob", "Bobby"), trie.getMatches("b"));
+        assertEquals(Lists.newArrayList("#dmdirc", "alan", "Alice", "bob", "Bobby"), trie.getMatches(""));
+    }
+
+    @Test
+    public void testNoMatches() {
+        assertEquals(Collections.emptyList(), trie.getMatches("carol"));
+        assertEquals(-1, trie.getCommonPrefixLength("carol"));
+    }
+
+    @Test
+    public void testCommonPrefixLength() {
+        assertEquals(3, trie.getCommonPrefixLength("b"));
+        assertEquals(2, trie.getCommonPrefixLength("a"));
+        assertEquals(5, trie.getCommonPrefixLength("bobb"));
+        assertEquals(0, trie.getCommonPrefixLength(""));
+    }
+
+    @Test
+    public void testRemovePrunesBranches() {
+        trie.remove("Bobby");
+        assertEquals(Lists.newArrayList("bob"), trie.getMatches("bo"));
+        assertEquals(3, trie.getCommonPrefixLength("b"));
+        trie.remove("bob");
+        assertEquals(-1, trie.getCommonPrefixLength("b"));
+        assertEquals(3, trie.size());
+    }
+
+    @Test
+    public void testCandidatesDifferingByCase() {
+        trie.add("BOB");
+        assertEquals(Lists.newArrayList("BOB", "bob", "Bobby"), trie.getMatches("bob"));
+        trie.remove("bob");
+        assertEquals(Lists.newArrayList("BOB", "Bobby"), trie.getMatches("bob"));
+    }
+
+    @Test
+    public void testRename() {
+        final long version = trie.getVersion();
+        trie.rename("alan", "carol");
+        assertEquals(Lists.newArrayList("Alice"), trie.getMatches("a"));
+        assertEquals(Lists.newArrayList("carol"), trie.getMatches("C"));
+        assertNotEquals(version, trie.getVersion());
+    }
+
+    @Test
+    public void testDuplicateAddIgnored() {
+        final long version = trie.getVersion();
+        trie.add("bob");
+        assertEquals(5, trie.size());
+        assertEquals(version, trie.getVersion());
+    }
+
+}
@@ -17,6 +17,8 @@
 
 package com.dmdirc.addons.tabcompletion_mirc;
 
+import com.dmdirc.addons.tabcompletion_bash.CandidateIndex;
+import com.dmdirc.addons.tabcompletion_bash.Completions;
 import com.dmdirc.interfaces.GroupChat;
 import com.dmdirc.interfaces.WindowModel;
 import com.dmdirc.ui.input.AdditionalTabTargets;
@@ -25,7 +27,6 @@ import com.dmdirc.ui.input.tabstyles.TabCompletionResult;
 import com.dmdirc.ui.input.tabstyles.TabCompletionStyle;
 
 import java.awt.Toolkit;
-import java.util.ArrayList;
 import java.util.List;
 
 public class MircStyle implements TabCompletionStyle {
@@ -34,20 +35,29 @@ public class MircStyle implements TabCompletionStyle {
     private String lastWord;
     /** The last string we tried to tab complete. */
     private String tabString;
+    /** The candidates matching the last string we tried to tab complete. */
+    private Completions results;
+    /** The position of the last word within {@link #results}. */
+    private int position;
     /** The tab completer that we use. */
     protected final TabCompleter tabCompleter;
     /** The input window that we use. */
     protected final WindowModel window;
+    /** The index of candidates in the window. */
+    protected final CandidateIndex index;
 
     /**
      * Creates a new mIRC-style tab completer.
      *
      * @param completer The tab completer this style is for
      * @param window    The window this tab style is for
+     * @param index     The index of candidates in the window
      */
-    public MircStyle(final TabCompleter completer, final WindowModel window) {
+    public MircStyle(final TabCompleter completer, final WindowModel window,
+            final CandidateIndex index) {
         this.tabCompleter = completer;
         this.window = window;
+        this.index = index;
     }
 
     @Override
@@ -59,25 +69,34 @@ public class MircStyle implements TabCompletionStyle {
         final String target;
         if (word.equals(lastWord)) {
             // We're continuing to tab through
-            final List<String> results = new ArrayList<>(tabCompleter.complete(tabString, additional));
-            results.sort(String.CASE_INSENSITIVE_ORDER);
-            target = results.get((results.indexOf(lastWord) + (shiftPressed ? -1: 1) + results.size()) % results.size());
+            if (results == null || results.getVersion() != index.getVersion()) {
+                results = index.complete(tabString, additional);
+            }
+            final List<String> matches = results.getMatches();
+            if (matches.isEmpty()) {
+                return null;
+            }
+            final int current = position < matches.size() && matches.get(position).equals(lastWord)
+                    ? position : matches.indexOf(lastWord);
+            position = (current + (shiftPressed ? -1 : 1) + matches.size()) % matches.size();
+            target = matches.get(position);
         } else {
             // New tab target
-            final List<String> results = new ArrayList<>(tabCompleter.complete(word, additional));
+            results = index.complete(word, additional);
+            final List<String> matches = results.getMatches();
 
-            if (results.isEmpty()) {
+            if (matches.isEmpty()) {
                 Toolkit.getDefaultToolkit().beep();
                 return null;
             } else {
-                results.sort(String.CASE_INSENSITIVE_ORDER);
-
                 if (!word.isEmpty()
                         && window instanceof GroupChat
                         && window.getName().startsWith(word)) {
                     target = window.getName();
+                    position = Math.max(0, matches.indexOf(target));
                 } else {
-                    target = results.get(0);
+                    target = matches.get(0);
+                    position = 0;
                 }
                 tabString = word;
             }
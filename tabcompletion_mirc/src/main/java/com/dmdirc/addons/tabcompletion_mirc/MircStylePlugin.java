@@ -17,6 +17,7 @@
 
 package com.dmdirc.addons.tabcompletion_mirc;
 
+import com.dmdirc.addons.tabcompletion_bash.CandidateIndexes;
 import com.dmdirc.interfaces.WindowModel;
 import com.dmdirc.plugins.Exported;
 import com.dmdirc.plugins.implementations.BasePlugin;
@@ -28,6 +29,9 @@ import com.dmdirc.ui.input.tabstyles.TabCompletionStyle;
  */
 public class MircStylePlugin extends BasePlugin {
 
+    /** The candidate indexes created for windows. */
+    private final CandidateIndexes indexes = new CandidateIndexes();
+
     /**
      * Retrieves a new instance of the mIRC tab completion style.
      *
@@ -39,7 +43,13 @@ public class MircStylePlugin extends BasePlugin {
     @Exported
     public TabCompletionStyle getCompletionStyle(final TabCompleter completer,
             final WindowModel window) {
-        return new MircStyle(completer, window);
+        return new MircStyle(completer, window, indexes.create(completer, window));
+    }
+
+    @Override
+    public void onUnload() {
+        super.onUnload();
+        indexes.unloadAll();
     }
 
 }
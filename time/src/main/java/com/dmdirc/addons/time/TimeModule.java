@@ -18,10 +18,37 @@
 package com.dmdirc.addons.time;
 
 import com.dmdirc.ClientModule;
+import com.dmdirc.plugins.PluginDomain;
+
+import javax.inject.Singleton;
 
 import dagger.Module;
+import dagger.Provides;
 
 @Module(injects = {TimerCommand.class, TimerManager.class}, addsTo = ClientModule.class)
 public class TimeModule {
 
+    /** The length of each tick of the timer wheel, in milliseconds. */
+    private static final long TICK_DURATION = 100;
+    /** The number of ticks in each revolution of the timer wheel. */
+    private static final int TICKS_PER_WHEEL = 512;
+    /** The domain for plugin settings. */
+    private final String domain;
+
+    public TimeModule(final String domain) {
+        this.domain = domain;
+    }
+
+    @Provides
+    @PluginDomain(TimePlugin.class)
+    public String getSettingsDomain() {
+        return domain;
+    }
+
+    @Provides
+    @Singleton
+    public TimerWheel getTimerWheel() {
+        return new TimerWheel("Timed Command Timer", TICK_DURATION, TICKS_PER_WHEEL);
+    }
+
 }
@@ -33,13 +33,20 @@ public class TimePlugin extends BaseCommandPlugin {
     @Override
     public void load(final PluginInfo pluginInfo, final ObjectGraph graph) {
         super.load(pluginInfo, graph);
-        setObjectGraph(graph.plus(new TimeModule()));
+        setObjectGraph(graph.plus(new TimeModule(pluginInfo.getDomain())));
         registerCommand(TimerCommand.class, TimerCommand.INFO);
         manager = getObjectGraph().get(TimerManager.class);
     }
 
+    @Override
+    public void onLoad() {
+        manager.load();
+        super.onLoad();
+    }
+
     @Override
     public void onUnload() {
+        manager.unload();
         super.onUnload();
         manager = null;
     }
@@ -19,28 +19,34 @@ package com.dmdirc.addons.time;
 
 import com.dmdirc.interfaces.WindowModel;
 
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 /**
  * Timed command represents a command that has been scheduled by the user.
  */
-public class TimedCommand extends TimerTask {
+public class TimedCommand implements Runnable {
 
     /** The number of repetitions remaining. */
     private int repetitions;
     /** The command to execute. */
     private final String command;
-    /** The container to use for executing commands. */
-    private final WindowModel origin;
+    /** Supplies the container to use for executing commands, if it currently exists. */
+    private final Supplier<Optional<WindowModel>> origin;
+    /** Supplies a description of the container that can be saved. */
+    private final Supplier<TimerTarget> target;
     /** The number of seconds between each execution. */
     private final int delay;
     /** The key for this timer in the Timer Manager. */
     private final int timerKey;
     /** The manager for this timer. */
     private final TimerManager manager;
-    /** The timer we're using for scheduling this command. */
-    private Timer timer;
+    /** The wheel we're using for scheduling this command. */
+    private TimerWheel timerWheel;
+    /** The timeout for the next execution of this command. */
+    private TimerWheel.Timeout timeout;
+    /** Whether this command has been cancelled. */
+    private boolean cancelled;
 
     /**
      * Creates a new instance of TimedCommand.
@@ -59,17 +65,47 @@ public class TimedCommand extends TimerTask {
             final int delay,
             final String command,
             final WindowModel origin) {
+        this(manager, timerKey, repetitions, delay, command, () -> Optional.of(origin),
+                () -> TimerTarget.of(origin));
+    }
+
+    /**
+     * Creates a new instance of TimedCommand whose container may not always exist, such as one
+     * restored from a previous session.
+     *
+     * @param manager           The manager that is controlling this command.
+     * @param timerKey          The key for this timer in the Timer Manager.
+     * @param repetitions       The number of times this command will be executed
+     * @param delay             The number of seconds between each execution
+     * @param command           The command to be executed
+     * @param origin            Supplier of the frame container to use for the execution
+     * @param target            Supplier of a description of the frame container
+     */
+    public TimedCommand(
+            final TimerManager manager,
+            final int timerKey,
+            final int repetitions,
+            final int delay,
+            final String command,
+            final Supplier<Optional<WindowModel>> origin,
+            final Supplier<TimerTarget> target) {
         this.timerKey = timerKey;
         this.repetitions = repetitions;
         this.command = command;
         this.origin = origin;
+        this.target = target;
         this.manager = manager;
         this.delay = delay;
     }
 
-    public void schedule(final TimerFactory timerFactory) {
-        timer = timerFactory.getTimer("Timed Command Timer");
-        timer.schedule(this, delay * 1000L, delay * 1000L);
+    /**
+     * Schedules this command on the given wheel.
+     *
+     * @param timerWheel The wheel to schedule the command on
+     */
+    public synchronized void schedule(final TimerWheel timerWheel) {
+        this.timerWheel = timerWheel;
+        timeout = timerWheel.schedule(this, delay * 1000L);
     }
 
     /**
@@ -81,26 +117,48 @@ public class TimedCommand extends TimerTask {
         return command;
     }
 
+    /**
+     * Returns a description of this timer that can be saved and later restored.
+     *
+     * @return An entry describing this timer
+     */
+    public synchronized TimerEntry getEntry() {
+        return new TimerEntry(repetitions, delay, command, target.get());
+    }
+
     /**
      * Cancels this timer and removes it from the Timer Manager
      */
     public void cancelTimer() {
         manager.removeTimer(timerKey);
-        if (timer != null) {
-            timer.cancel();
+        synchronized (this) {
+            cancelled = true;
+            if (timeout != null) {
+                timeout.cancel();
+            }
         }
     }
 
     @Override
     public void run() {
-        if (timer == null) {
-            return;
+        final TimerWheel.Timeout current;
+        synchronized (this) {
+            if (timerWheel == null || cancelled) {
+                return;
+            }
+            current = timeout;
         }
-        origin.getInputModel().get().getCommandParser().parseCommand(origin, command);
 
-        if (--repetitions <= 0) {
-            manager.removeTimer(timerKey);
-            timer.cancel();
+        origin.get().ifPresent(window -> window.getInputModel().get().getCommandParser()
+                .parseCommand(window, command));
+
+        synchronized (this) {
+            if (--repetitions <= 0) {
+                manager.removeTimer(timerKey);
+            } else if (!cancelled) {
+                // Schedule from the previous deadline so that lag doesn't accumulate.
+                timeout = timerWheel.scheduleAt(this, current.getDeadline() + delay * 1000L);
+            }
         }
     }
 
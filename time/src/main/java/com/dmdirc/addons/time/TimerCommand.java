@@ -42,10 +42,10 @@ public class TimerCommand extends BaseCommand implements IntelligentCommand {
 
     /** A command info object for this command. */
     public static final CommandInfo INFO = new BaseCommandInfo("timer",
-            "timer [--list|--cancel <timer id> | <repetitions> <interval> "
-            + "<command>] - lists all active timers / cancels an active timer "
-            + "of given ID / schedules a command to be executed after a certain "
-            + "time",
+            "timer [--list|--stats|--cancel <timer id> | <repetitions> <interval> "
+            + "<command>] - lists all active timers / shows scheduling statistics / "
+            + "cancels an active timer of given ID / schedules a command to be executed "
+            + "after a certain time",
             CommandType.TYPE_GLOBAL);
     /** The TimerManager for this TimerCommand. */
     private final TimerManager manager;
@@ -75,6 +75,9 @@ public class TimerCommand extends BaseCommand implements IntelligentCommand {
                 case "--list":
                     doList(origin, args.isSilent());
                     break;
+                case "--stats":
+                    doStats(origin, args.isSilent());
+                    break;
                 default:
                     if (args.getArguments().length < 3) {
                         doUsage(origin, args.isSilent());
@@ -139,6 +142,16 @@ public class TimerCommand extends BaseCommand implements IntelligentCommand {
         }
     }
 
+    private void doStats(final WindowModel origin, final boolean isSilent) {
+        final TimerWheel wheel = manager.getTimerWheel();
+        showOutput(origin, isSilent, "Active timers: " + manager.getTimerIDs().size()
+                + ", pending executions: " + wheel.getPending()
+                + ", executed: " + wheel.getExpired()
+                + ", average lag: " + wheel.getAverageLag() + "ms"
+                + ", maximum lag: " + wheel.getMaximumLag() + "ms"
+                + " (tick: " + wheel.getTickDuration() + "ms)");
+    }
+
     /**
      * Displays usage information for this command.
      *
@@ -157,6 +170,7 @@ public class TimerCommand extends BaseCommand implements IntelligentCommand {
         targets.excludeAll();
         if (arg == 0) {
             targets.add("--list");
+            targets.add("--stats");
             targets.add("--cancel");
         } else if (arg == 1 && "--cancel".equals(context.getPreviousArgs().get(0))) {
             targets.addAll(manager.getTimerIDs().stream()
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.time;
+
+/**
+ * Describes a saved timer.
+ */
+public class TimerEntry {
+
+    /** The number of repetitions remaining. */
+    private final int repetitions;
+    /** The number of seconds between each execution. */
+    private final int interval;
+    /** The command to execute. */
+    private final String command;
+    /** The window to execute the command in. */
+    private final TimerTarget target;
+
+    public TimerEntry(final int repetitions, final int interval, final String command,
+            final TimerTarget target) {
+        this.repetitions = repetitions;
+        this.interval = interval;
+        this.command = command;
+        this.target = target;
+    }
+
+    public int getRepetitions() {
+        return repetitions;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public TimerTarget getTarget() {
+        return target;
+    }
+
+}
@@ -17,28 +17,89 @@
 
 package com.dmdirc.addons.time;
 
+import com.dmdirc.commandline.CommandLineOptionsModule.Directory;
+import com.dmdirc.commandline.CommandLineOptionsModule.DirectoryType;
+import com.dmdirc.config.GlobalConfig;
+import com.dmdirc.config.provider.AggregateConfigProvider;
 import com.dmdirc.interfaces.WindowModel;
+import com.dmdirc.plugins.PluginDomain;
+import com.dmdirc.ui.WindowManager;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.file.Path;
 import java.util.Map.Entry;
+import java.util.NavigableSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
+import javax.inject.Singleton;
 
 /**
  * Class to manage Timers.
  */
+@Singleton
 public class TimerManager {
 
     /** Map of all the timers that are running. */
-    private final Map<Integer, TimedCommand> timerList = new HashMap<>();
-    /** The timer factory to create timers with. */
-    private final TimerFactory timerFactory;
+    private final ConcurrentNavigableMap<Integer, TimedCommand> timerList =
+            new ConcurrentSkipListMap<>();
+    /** Keys below {@link #nextKey} that have been released and can be reused. */
+    private final NavigableSet<Integer> freeKeys = new ConcurrentSkipListSet<>();
+    /** The next key that has never been used. */
+    private final AtomicInteger nextKey = new AtomicInteger();
+    /** The wheel to schedule timers on. */
+    private final TimerWheel timerWheel;
+    /** The window manager to find the windows of restored timers with. */
+    private final WindowManager windowManager;
+    /** The store to save timers in. */
+    private final TimerYamlStore store;
+    /** The config to read settings from. */
+    private final AggregateConfigProvider config;
+    /** The domain to read settings from. */
+    private final String domain;
+    /** The file to save timers in. */
+    private final Path path;
 
     @Inject
-    public TimerManager(final TimerFactory timerFactory) {
-        this.timerFactory = timerFactory;
+    public TimerManager(
+            final TimerWheel timerWheel,
+            final WindowManager windowManager,
+            final TimerYamlStore store,
+            @GlobalConfig final AggregateConfigProvider config,
+            @PluginDomain(TimePlugin.class) final String domain,
+            @Directory(DirectoryType.BASE) final Path path) {
+        this.timerWheel = timerWheel;
+        this.windowManager = windowManager;
+        this.store = store;
+        this.config = config;
+        this.domain = domain;
+        this.path = path.resolve("timers.yml");
+    }
+
+    /**
+     * Restores any saved timers, if timers are being persisted.
+     */
+    public void load() {
+        if (config.getOptionBool(domain, "persist")) {
+            store.read(path).forEach(this::restoreTimer);
+        }
+    }
+
+    /**
+     * Saves any active timers if timers are being persisted, then stops all timers.
+     */
+    public void unload() {
+        if (config.getOptionBool(domain, "persist")) {
+            store.write(path, timerList.values().stream()
+                    .map(TimedCommand::getEntry)
+                    .collect(Collectors.toList()));
+        }
+        timerList.values().forEach(TimedCommand::cancelTimer);
+        timerWheel.stop();
     }
 
     /**
@@ -51,14 +112,21 @@ public class TimerManager {
      */
     public void addTimer(final int repetitions, final int interval,
             final String command, final WindowModel origin) {
+        final int timerKey = findFreeKey();
+        final TimedCommand timedCommand = new TimedCommand(this, timerKey,
+                repetitions, interval, command, origin);
+        timerList.put(timerKey, timedCommand);
+        timedCommand.schedule(timerWheel);
+    }
 
-        synchronized (this) {
-            final int timerKey = findFreeKey();
-            final TimedCommand timedCommand = new TimedCommand(this, timerKey,
-                    repetitions, interval, command, origin);
-            timerList.put(timerKey, timedCommand);
-            timedCommand.schedule(timerFactory);
-        }
+    private void restoreTimer(final TimerEntry entry) {
+        final int timerKey = findFreeKey();
+        final TimerTarget target = entry.getTarget();
+        final TimedCommand timedCommand = new TimedCommand(this, timerKey,
+                entry.getRepetitions(), entry.getInterval(), entry.getCommand(),
+                () -> target.find(windowManager), () -> target);
+        timerList.put(timerKey, timedCommand);
+        timedCommand.schedule(timerWheel);
     }
 
     /**
@@ -68,7 +136,9 @@ public class TimerManager {
      * @param timerKey Key of the timer to remove
      */
     public void removeTimer(final int timerKey) {
-        timerList.remove(timerKey);
+        if (timerList.remove(timerKey) != null) {
+            freeKeys.add(timerKey);
+        }
     }
 
     /**
@@ -90,16 +160,23 @@ public class TimerManager {
     }
 
     /**
-     * Locates a key in our list that is currently not being used by a timer.
+     * Returns the wheel that timers are scheduled on.
+     *
+     * @return The wheel used for scheduling
+     */
+    public TimerWheel getTimerWheel() {
+        return timerWheel;
+    }
+
+    /**
+     * Allocates a key that is currently not being used by a timer. Released keys are reused
+     * lowest first, so IDs stay small.
      *
      * @return Returns a key that can be used for creating a new timer
      */
     private int findFreeKey() {
-        int i = 0;
-        while (timerList.containsKey(i)) {
-            i++;
-        }
-        return i;
+        final Integer key = freeKeys.pollFirst();
+        return key == null ? nextKey.getAndIncrement() : key;
     }
 
     /**
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.time;
+
+import com.dmdirc.interfaces.Connection;
+import com.dmdirc.interfaces.WindowModel;
+import com.dmdirc.ui.WindowManager;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Identifies the window a timed command runs in, in a way that can be saved and restored across
+ * restarts.
+ */
+public class TimerTarget {
+
+    /** The network the window belongs to, or an empty string if it has no connection. */
+    private final String network;
+    /** The name of the window. */
+    private final String window;
+
+    public TimerTarget(final String network, final String window) {
+        this.network = network;
+        this.window = window;
+    }
+
+    /**
+     * Creates a target describing the given window.
+     *
+     * @param origin The window to describe
+     *
+     * @return A target for the window
+     */
+    public static TimerTarget of(final WindowModel origin) {
+        return new TimerTarget(origin.getConnection().map(Connection::getNetwork).orElse(""),
+                origin.getName());
+    }
+
+    public String getNetwork() {
+        return network;
+    }
+
+    public String getWindow() {
+        return window;
+    }
+
+    /**
+     * Finds the window described by this target, if it currently exists.
+     *
+     * @param windowManager The window manager to search
+     *
+     * @return The window, if it could be found
+     */
+    public Optional<WindowModel> find(final WindowManager windowManager) {
+        for (WindowModel root : windowManager.getRootWindows()) {
+            final String rootNetwork = root.getConnection().map(Connection::getNetwork).orElse("");
+            if (!network.equals(rootNetwork)) {
+                continue;
+            }
+            if (window.equals(root.getName())) {
+                return Optional.of(root);
+            }
+            final Optional<WindowModel> child = windowManager.getChildren(root).stream()
+                    .filter(w -> window.equals(w.getName()))
+                    .findFirst();
+            if (child.isPresent()) {
+                return child;
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (!(obj instanceof TimerTarget)) {
+            return false;
+        }
+        final TimerTarget other = (TimerTarget) obj;
+        return network.equals(other.network) && window.equals(other.window);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(network, window);
+    }
+
+}
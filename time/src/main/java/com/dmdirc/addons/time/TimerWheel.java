@@ -0,0 +1,386 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.time;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Schedules tasks on a single thread using a hashed timing wheel.
+ *
+ * <p>Scheduling and cancelling are constant time operations: new and cancelled timeouts are
+ * queued, and moved into (or out of) the wheel by the worker thread on its next tick. Tasks are
+ * run on the worker thread, so should not block for long periods.
+ */
+public class TimerWheel {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TimerWheel.class);
+    /** Timeout state: waiting to be run. */
+    private static final int STATE_WAITING = 0;
+    /** Timeout state: cancelled before it was run. */
+    private static final int STATE_CANCELLED = 1;
+    /** Timeout state: run, or in the process of being run. */
+    private static final int STATE_EXPIRED = 2;
+    /** The name to give the worker thread. */
+    private final String name;
+    /** The clock to read the current time from, in milliseconds. */
+    private final LongSupplier clock;
+    /** The length of each tick, in milliseconds. */
+    private final long tickDuration;
+    /** The buckets making up the wheel. */
+    private final Bucket[] wheel;
+    /** Mask to convert tick numbers into bucket indices. */
+    private final int mask;
+    /** Timeouts that have been scheduled but not yet added to the wheel. */
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    /** Timeouts that have been cancelled but not yet removed from the wheel. */
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    /** The number of timeouts that are waiting to be run. */
+    private final AtomicInteger pending = new AtomicInteger();
+    /** The number of timeouts that have been run. */
+    private final AtomicLong expired = new AtomicLong();
+    /** The total lag of all timeouts that have been run, in milliseconds. */
+    private final AtomicLong totalLag = new AtomicLong();
+    /** The largest lag of any timeout that has been run, in milliseconds. */
+    private final AtomicLong maximumLag = new AtomicLong();
+    /** The time the wheel started at. */
+    private final long startTime;
+    /** The next tick to be processed. Only accessed by the worker. */
+    private long tick;
+    /** Whether to start the worker thread when a task is scheduled. */
+    private final boolean autoStart;
+    /** The worker thread, if it has been started. */
+    private Thread worker;
+    /** Whether the wheel has been stopped. */
+    private volatile boolean stopped;
+
+    /**
+     * Creates a new timer wheel using the system clock.
+     *
+     * @param name         The name to give the worker thread
+     * @param tickDuration The length of each tick, in milliseconds
+     * @param ticksPerWheel The number of ticks in each revolution of the wheel
+     */
+    public TimerWheel(final String name, final long tickDuration, final int ticksPerWheel) {
+        this(name, () -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime()), tickDuration,
+                ticksPerWheel, true);
+    }
+
+    /**
+     * Creates a new timer wheel.
+     *
+     * @param name          The name to give the worker thread
+     * @param clock         The clock to read the current time from, in milliseconds
+     * @param tickDuration  The length of each tick, in milliseconds
+     * @param ticksPerWheel The number of ticks in each revolution of the wheel
+     * @param autoStart     Whether to start a worker thread when a task is scheduled. If false,
+     *                      the wheel only moves when {@link #advance(long)} is called.
+     */
+    @VisibleForTesting
+    TimerWheel(final String name, final LongSupplier clock, final long tickDuration,
+            final int ticksPerWheel, final boolean autoStart) {
+        if (tickDuration <= 0 || ticksPerWheel <= 0) {
+            throw new IllegalArgumentException("Tick duration and wheel size must be positive");
+        }
+        this.name = name;
+        this.clock = clock;
+        this.tickDuration = tickDuration;
+        this.autoStart = autoStart;
+        int size = 1;
+        while (size < ticksPerWheel) {
+            size <<= 1;
+        }
+        wheel = new Bucket[size];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new Bucket();
+        }
+        mask = wheel.length - 1;
+        startTime = clock.getAsLong();
+    }
+
+    /**
+     * Schedules a task to be run after the given delay.
+     *
+     * @param task  The task to run
+     * @param delay The delay before running the task, in milliseconds
+     *
+     * @return A timeout that can be used to cancel the task
+     */
+    public Timeout schedule(final Runnable task, final long delay) {
+        return scheduleAt(task, clock.getAsLong() + Math.max(0, delay));
+    }
+
+    /**
+     * Schedules a task to be run at the given time. Times in the past will be run on the next
+     * tick.
+     *
+     * @param task     The task to run
+     * @param deadline The time to run the task at, as read from this wheel's clock
+     *
+     * @return A timeout that can be used to cancel the task
+     */
+    public Timeout scheduleAt(final Runnable task, final long deadline) {
+        final Timeout timeout = new Timeout(this, task, deadline);
+        pending.incrementAndGet();
+        added.add(timeout);
+        start();
+        return timeout;
+    }
+
+    /**
+     * Stops the worker thread. Any tasks that have not yet been run are discarded, and no new
+     * tasks will be run.
+     */
+    public synchronized void stop() {
+        stopped = true;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Gets the number of timeouts that are waiting to be run.
+     *
+     * @return The number of pending timeouts
+     */
+    public int getPending() {
+        return pending.get();
+    }
+
+    /**
+     * Gets the number of timeouts that have been run.
+     *
+     * @return The number of expired timeouts
+     */
+    public long getExpired() {
+        return expired.get();
+    }
+
+    /**
+     * Gets the average time between a timeout's deadline and it being run.
+     *
+     * @return The average lag, in milliseconds
+     */
+    public long getAverageLag() {
+        final long count = expired.get();
+        return count == 0 ? 0 : totalLag.get() / count;
+    }
+
+    /**
+     * Gets the largest time between a timeout's deadline and it being run.
+     *
+     * @return The maximum lag, in milliseconds
+     */
+    public long getMaximumLag() {
+        return maximumLag.get();
+    }
+
+    public long getTickDuration() {
+        return tickDuration;
+    }
+
+    private synchronized void start() {
+        if (autoStart && worker == null && !stopped) {
+            worker = new Thread(this::runWorker, name);
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    private void runWorker() {
+        while (!stopped) {
+            final long sleep = startTime + (tick + 1) * tickDuration - clock.getAsLong();
+            if (sleep > 0) {
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException ex) {
+                    continue;
+                }
+            }
+            advance(clock.getAsLong());
+        }
+    }
+
+    /**
+     * Processes every tick that has elapsed by the given time.
+     *
+     * @param now The current time, as read from this wheel's clock
+     */
+    @VisibleForTesting
+    void advance(final long now) {
+        while (startTime + (tick + 1) * tickDuration <= now) {
+            removeCancelled();
+            transferAdded();
+            expire(wheel[(int) (tick & mask)], startTime + (tick + 1) * tickDuration, now);
+            tick++;
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferAdded() {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.state.get() != STATE_WAITING) {
+                continue;
+            }
+            final long due = Math.max(0, timeout.deadline - startTime) / tickDuration;
+            timeout.remainingRounds = (due - tick) / wheel.length;
+            wheel[(int) (Math.max(due, tick) & mask)].add(timeout);
+        }
+    }
+
+    private void expire(final Bucket bucket, final long tickTime, final long now) {
+        Timeout timeout = bucket.head;
+        while (timeout != null) {
+            final Timeout next = timeout.next;
+            if (timeout.remainingRounds <= 0 && timeout.deadline < tickTime) {
+                bucket.remove(timeout);
+                run(timeout, now);
+            } else {
+                timeout.remainingRounds--;
+            }
+            timeout = next;
+        }
+    }
+
+    private void run(final Timeout timeout, final long now) {
+        if (!timeout.state.compareAndSet(STATE_WAITING, STATE_EXPIRED)) {
+            return;
+        }
+        pending.decrementAndGet();
+        final long lag = Math.max(0, now - timeout.deadline);
+        expired.incrementAndGet();
+        totalLag.addAndGet(lag);
+        maximumLag.accumulateAndGet(lag, Math::max);
+        try {
+            timeout.task.run();
+        } catch (RuntimeException ex) {
+            LOG.warn("Timed task threw an exception", ex);
+        }
+    }
+
+    /**
+     * A handle to a task that has been scheduled on a {@link TimerWheel}.
+     */
+    public static class Timeout {
+
+        private final TimerWheel timerWheel;
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(STATE_WAITING);
+        /** The number of full revolutions of the wheel before this timeout is due. */
+        private long remainingRounds;
+        /** The bucket this timeout is in, if any. */
+        private Bucket bucket;
+        private Timeout next;
+        private Timeout prev;
+
+        Timeout(final TimerWheel timerWheel, final Runnable task, final long deadline) {
+            this.timerWheel = timerWheel;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Gets the time this timeout is due to run at.
+         *
+         * @return The deadline, as read from the wheel's clock
+         */
+        public long getDeadline() {
+            return deadline;
+        }
+
+        /**
+         * Cancels this timeout, if it has not already been run.
+         *
+         * @return True if the timeout was cancelled, false if it had already run or been cancelled
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(STATE_WAITING, STATE_CANCELLED)) {
+                return false;
+            }
+            timerWheel.pending.decrementAndGet();
+            timerWheel.cancelled.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == STATE_CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == STATE_EXPIRED;
+        }
+
+    }
+
+    /**
+     * A doubly linked list of the timeouts in one slot of the wheel.
+     */
+    private static class Bucket {
+
+        private Timeout head;
+        private Timeout tail;
+
+        void add(final Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void remove(final Timeout timeout) {
+            if (timeout.prev == null) {
+                head = timeout.next;
+            } else {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.prev;
+            } else {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+    }
+
+}
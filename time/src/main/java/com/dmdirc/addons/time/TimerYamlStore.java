@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.time;
+
+import com.dmdirc.util.io.yaml.BaseYamlStore;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.dmdirc.util.io.yaml.YamlReaderUtils.asMap;
+import static com.dmdirc.util.io.yaml.YamlReaderUtils.requiredString;
+
+/**
+ * Reads and writes saved timers.
+ */
+@Singleton
+public class TimerYamlStore extends BaseYamlStore<TimerEntry> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TimerYamlStore.class);
+
+    @Inject
+    public TimerYamlStore() {
+    }
+
+    @Override
+    protected Optional<TimerEntry> convertFromYaml(final Object object) {
+        try {
+            final Map<Object, Object> map = asMap(object);
+            final int repetitions = Integer.parseInt(requiredString(map, "repetitions"));
+            final int interval = Integer.parseInt(requiredString(map, "interval"));
+            final String command = requiredString(map, "command");
+            final String network = map.containsKey("network")
+                    ? String.valueOf(map.get("network")) : "";
+            final String window = requiredString(map, "window");
+            return Optional.of(new TimerEntry(repetitions, interval, command,
+                    new TimerTarget(network, window)));
+        } catch (IllegalArgumentException ex) {
+            LOG.info("Unable to read timer", ex);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    protected Object convertToYaml(final TimerEntry object) {
+        final Map<Object, Object> map = new HashMap<>();
+        map.put("repetitions", String.valueOf(object.getRepetitions()));
+        map.put("interval", String.valueOf(object.getInterval()));
+        map.put("command", object.getCommand());
+        map.put("network", object.getTarget().getNetwork());
+        map.put("window", object.getTarget().getWindow());
+        return map;
+    }
+
+}
@@ -22,7 +22,6 @@ import com.dmdirc.interfaces.InputModel;
 import com.dmdirc.interfaces.WindowModel;
 
 import java.util.Optional;
-import java.util.Timer;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -31,7 +30,8 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import static junit.framework.TestCase.assertEquals;
-import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -44,14 +44,16 @@ public class TimedCommandTest {
     @Mock private WindowModel origin;
     @Mock private InputModel inputModel;
     @Mock private CommandParser commandParser;
-    @Mock private TimerFactory timerFactory;
-    @Mock private Timer timer;
+    @Mock private TimerWheel timerWheel;
+    @Mock private TimerWheel.Timeout timeout;
 
     private TimedCommand instance;
 
     @Before
     public void setUp() throws Exception {
-        when(timerFactory.getTimer(anyString())).thenReturn(timer);
+        when(timerWheel.schedule(any(Runnable.class), anyLong())).thenReturn(timeout);
+        when(timerWheel.scheduleAt(any(Runnable.class), anyLong())).thenReturn(timeout);
+        when(timeout.getDeadline()).thenReturn(10000L);
         when(origin.getInputModel()).thenReturn(Optional.of(inputModel));
         when(inputModel.getCommandParser()).thenReturn(commandParser);
         instance = new TimedCommand(timerManager, 1, 2, 3, "command", origin);
@@ -59,8 +61,8 @@ public class TimedCommandTest {
 
     @Test
     public void testSchedule() throws Exception {
-        instance.schedule(timerFactory);
-        verify(timer).schedule(instance, 3000, 3000);
+        instance.schedule(timerWheel);
+        verify(timerWheel).schedule(instance, 3000);
     }
 
     @Test
@@ -76,10 +78,10 @@ public class TimedCommandTest {
 
     @Test
     public void testCancelTimer() throws Exception {
-        instance.schedule(timerFactory);
+        instance.schedule(timerWheel);
         instance.cancelTimer();
         verify(timerManager).removeTimer(1);
-        verify(timer).cancel();
+        verify(timeout).cancel();
     }
 
     @Test
@@ -87,25 +89,32 @@ public class TimedCommandTest {
         instance.run();
         verify(commandParser, never()).parseCommand(origin, "command");
         verify(timerManager, never()).removeTimer(1);
-        verify(timer, never()).cancel();
     }
 
     @Test
     public void testRun_LessThanRepetitions() throws Exception {
-        instance.schedule(timerFactory);
+        instance.schedule(timerWheel);
         instance.run();
         verify(commandParser, times(1)).parseCommand(origin, "command");
         verify(timerManager, never()).removeTimer(1);
-        verify(timer, never()).cancel();
+        verify(timerWheel).scheduleAt(instance, 13000);
     }
 
     @Test
     public void testRun_AllRepetitions() throws Exception {
-        instance.schedule(timerFactory);
+        instance.schedule(timerWheel);
         instance.run();
         instance.run();
         verify(commandParser, times(2)).parseCommand(origin, "command");
         verify(timerManager, times(1)).removeTimer(1);
-        verify(timer, times(1)).cancel();
+        verify(timerWheel, times(1)).scheduleAt(instance, 13000);
+    }
+
+    @Test
+    public void testRun_AfterCancel() throws Exception {
+        instance.schedule(timerWheel);
+        instance.cancelTimer();
+        instance.run();
+        verify(commandParser, never()).parseCommand(origin, "command");
     }
 }
\ No newline at end of file
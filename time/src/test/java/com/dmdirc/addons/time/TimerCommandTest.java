@@ -57,6 +57,7 @@ public class TimerCommandTest {
     @Mock private IntelligentCommandContext intelligentCommandContext;
     @Mock private CommandArguments commandArguments;
     @Mock private TimedCommand timer;
+    @Mock private TimerWheel timerWheel;
     @Captor private ArgumentCaptor<CommandOutputEvent> outputEventCaptor;
     @Captor private ArgumentCaptor<CommandErrorEvent> errorEventCaptor;
 
@@ -146,6 +147,22 @@ public class TimerCommandTest {
         assertEquals("Timer ID: 1 - null", outputEventCaptor.getValue().getMessage());
     }
 
+    @Test
+    public void testExecute_stats() throws Exception {
+        when(timerManager.getTimerWheel()).thenReturn(timerWheel);
+        when(timerManager.getTimerIDs()).thenReturn(Sets.newHashSet(1, 2));
+        when(timerWheel.getPending()).thenReturn(2);
+        when(timerWheel.getExpired()).thenReturn(5L);
+        when(timerWheel.getAverageLag()).thenReturn(12L);
+        when(timerWheel.getMaximumLag()).thenReturn(40L);
+        when(timerWheel.getTickDuration()).thenReturn(100L);
+        mockCommandArguments("--stats", "", "");
+        instance.execute(frameContainer, commandArguments, commandContext);
+        verify(eventbus).publishAsync(outputEventCaptor.capture());
+        assertEquals("Active timers: 2, pending executions: 2, executed: 5, average lag: 12ms, "
+                + "maximum lag: 40ms (tick: 100ms)", outputEventCaptor.getValue().getMessage());
+    }
+
     @Test
     public void testExecute_incorrect() throws Exception {
         mockCommandArguments("woop", "woop");
@@ -201,7 +218,7 @@ public class TimerCommandTest {
     @Test
     public void testGetSuggestions_first() throws Exception {
         final AdditionalTabTargets targets = instance.getSuggestions(0, intelligentCommandContext);
-        assertEquals(Lists.newArrayList("--list", "--cancel"), targets);
+        assertEquals(Lists.newArrayList("--list", "--stats", "--cancel"), targets);
     }
 
     @Test
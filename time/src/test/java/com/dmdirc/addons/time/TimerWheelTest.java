@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.time;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TimerWheelTest {
+
+    @Mock private Runnable task1;
+    @Mock private Runnable task2;
+    private long time;
+    private TimerWheel instance;
+
+    @Before
+    public void setUp() {
+        time = 1000;
+        instance = new TimerWheel("test", () -> time, 100, 8, false);
+    }
+
+    @After
+    public void tearDown() {
+        instance.stop();
+    }
+
+    private void advanceTo(final long newTime) {
+        time = newTime;
+        instance.advance(time);
+    }
+
+    @Test
+    public void testRunsTaskAfterDelay() {
+        instance.scheduleAt(task1, 1250);
+        advanceTo(1200);
+        verify(task1, never()).run();
+        advanceTo(1300);
+        verify(task1).run();
+        assertEquals(1, instance.getExpired());
+        assertEquals(50, instance.getMaximumLag());
+        assertEquals(0, instance.getPending());
+    }
+
+    @Test
+    public void testRunsTasksBeyondOneRevolution() {
+        instance.scheduleAt(task1, 3050);
+        instance.scheduleAt(task2, 1150);
+        advanceTo(1800);
+        verify(task2).run();
+        verify(task1, never()).run();
+        advanceTo(3100);
+        verify(task1).run();
+    }
+
+    @Test
+    public void testRunsTasksInDeadlineOrder() {
+        instance.scheduleAt(task1, 1550);
+        instance.scheduleAt(task2, 1350);
+        advanceTo(2000);
+        final InOrder inOrder = inOrder(task2, task1);
+        inOrder.verify(task2).run();
+        inOrder.verify(task1).run();
+    }
+
+    @Test
+    public void testCancelledTaskNotRun() {
+        final TimerWheel.Timeout timeout = instance.scheduleAt(task1, 1250);
+        advanceTo(1100);
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        advanceTo(2000);
+        verify(task1, never()).run();
+        assertTrue(timeout.isCancelled());
+        assertEquals(0, instance.getPending());
+    }
+
+    @Test
+    public void testPastDeadlineRunsOnNextTick() {
+        advanceTo(1500);
+        final TimerWheel.Timeout timeout = instance.scheduleAt(task1, 1200);
+        advanceTo(1600);
+        verify(task1).run();
+        assertTrue(timeout.isExpired());
+        assertEquals(400, instance.getAverageLag());
+    }
+
+    @Test
+    public void testTaskCanRescheduleItself() {
+        final int[] runs = {0};
+        final Runnable repeating = new Runnable() {
+            @Override
+            public void run() {
+                if (++runs[0] < 3) {
+                    instance.scheduleAt(this, time + 100);
+                }
+            }
+        };
+        instance.scheduleAt(repeating, 1150);
+        advanceTo(1200);
+        advanceTo(1400);
+        advanceTo(1600);
+        advanceTo(2000);
+        assertEquals(3, runs[0]);
+    }
+
+}
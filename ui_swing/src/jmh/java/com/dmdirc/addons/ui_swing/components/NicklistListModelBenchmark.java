@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.ui_swing.components;
+
+import com.dmdirc.config.provider.AggregateConfigProvider;
+import com.dmdirc.interfaces.GroupChatUser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Measures adding, removing and re-sorting users in a {@link NicklistListModel} of various sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NicklistListModelBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int users;
+
+    private List<GroupChatUser> nicknames;
+    private GroupChatUser extra;
+    private NicklistListModel model;
+
+    @Setup(Level.Trial)
+    public void createUsers() {
+        // Fixed seed so every run sorts the same list.
+        final Random random = new Random(users);
+        nicknames = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            nicknames.add(createUser("user" + Integer.toString(random.nextInt(), 36)));
+        }
+        extra = createUser("Newcomer");
+    }
+
+    @Setup(Level.Iteration)
+    public void createModel() {
+        final AggregateConfigProvider config = mock(AggregateConfigProvider.class,
+                withSettings().stubOnly());
+        model = new NicklistListModel(config);
+        model.replace(nicknames);
+    }
+
+    @Benchmark
+    public boolean addAndRemove() {
+        model.add(extra);
+        return model.remove(extra);
+    }
+
+    @Benchmark
+    public boolean replace() {
+        return model.replace(nicknames);
+    }
+
+    @Benchmark
+    public NicklistListModel sort() {
+        model.sort();
+        return model;
+    }
+
+    private static GroupChatUser createUser(final String nickname) {
+        final GroupChatUser user = mock(GroupChatUser.class, withSettings().stubOnly());
+        when(user.getNickname()).thenReturn(nickname);
+        return user;
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.ui_swing.events;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import net.engio.mbassy.bus.MBassador;
+import net.engio.mbassy.bus.config.BusConfiguration;
+import net.engio.mbassy.bus.config.Feature;
+import net.engio.mbassy.listener.Handler;
+
+/**
+ * Compares delivering a per-window event to every window's listener on a shared bus, which
+ * ignores events for other windows, with delivering it through a {@link WindowEventRouter}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WindowEventRouterBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int channels;
+
+    private Object[] targets;
+    private MBassador<Object> filteredBus;
+    private MBassador<Object> routedBus;
+    private WindowEventRouter router;
+    private int counter;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void createBuses() {
+        targets = new Object[channels];
+        filteredBus = createBus();
+        routedBus = createBus();
+        router = new WindowEventRouter();
+        router.addRoute(TargetedEvent.class, TargetedEvent::getTarget);
+        for (int i = 0; i < channels; i++) {
+            final Object target = new Object();
+            targets[i] = target;
+            filteredBus.subscribe(new FilteringListener(target, this));
+            router.subscribe(TargetedEvent.class, target, e -> counter++);
+        }
+        routedBus.subscribe(new RoutingListener(router));
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdownBuses() {
+        filteredBus.shutdown();
+        routedBus.shutdown();
+    }
+
+    @Benchmark
+    public int filtered() {
+        filteredBus.publish(nextEvent());
+        return counter;
+    }
+
+    @Benchmark
+    public int routed() {
+        routedBus.publish(nextEvent());
+        return counter;
+    }
+
+    private TargetedEvent nextEvent() {
+        next = (next + 1) % channels;
+        return new TargetedEvent(targets[next]);
+    }
+
+    private static MBassador<Object> createBus() {
+        // Same configuration as the client's global bus.
+        return new MBassador<>(new BusConfiguration()
+                .addFeature(Feature.SyncPubSub.Default())
+                .addFeature(Feature.AsynchronousHandlerInvocation.Default())
+                .addFeature(Feature.AsynchronousMessageDispatch.Default()));
+    }
+
+    /**
+     * An event for a single window.
+     */
+    public static class TargetedEvent {
+
+        private final Object target;
+
+        public TargetedEvent(final Object target) {
+            this.target = target;
+        }
+
+        public Object getTarget() {
+            return target;
+        }
+
+    }
+
+    /**
+     * A window's listener on the shared bus, in the style windows used before the router.
+     */
+    public static class FilteringListener {
+
+        private final Object target;
+        private final WindowEventRouterBenchmark benchmark;
+
+        public FilteringListener(final Object target, final WindowEventRouterBenchmark benchmark) {
+            this.target = target;
+            this.benchmark = benchmark;
+        }
+
+        @Handler
+        public void handle(final TargetedEvent event) {
+            if (event.getTarget().equals(target)) {
+                benchmark.counter++;
+            }
+        }
+
+    }
+
+    /**
+     * Forwards events from a bus to a router, as the router's own handler does for the client's
+     * events.
+     */
+    public static class RoutingListener {
+
+        private final WindowEventRouter router;
+
+        public RoutingListener(final WindowEventRouter router) {
+            this.router = router;
+        }
+
+        @Handler
+        public void handle(final TargetedEvent event) {
+            router.dispatch(event);
+        }
+
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.ui_swing.textpane;
+
+import com.dmdirc.addons.ui_swing.components.ImageCache;
+import com.dmdirc.config.binding.ConfigBinder;
+import com.dmdirc.config.provider.AggregateConfigProvider;
+import com.dmdirc.interfaces.WindowModel;
+import com.dmdirc.ui.messages.BackBuffer;
+import com.dmdirc.ui.messages.CachingDocument;
+import com.dmdirc.ui.messages.Document;
+import com.dmdirc.util.URLBuilder;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.awt.Color;
+import java.awt.datatransfer.Clipboard;
+import java.text.AttributedString;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * A small document of pre-styled lines for benchmarks, so that rendering is measured without going through the
+ * client's document or any mocks.
+ */
+public class BenchmarkDocument extends CachingDocument<AttributedString> {
+
+    /** The lines in the document. */
+    private final List<AttributedString> lines;
+
+    /**
+     * Creates a new document containing the given lines.
+     *
+     * @param lines The styled lines in the document.
+     */
+    BenchmarkDocument(final List<AttributedString> lines) {
+        super(mock(Document.class, withSettings().stubOnly()), new StreamingAttributedStringMaker());
+        this.lines = lines;
+    }
+
+    @Override
+    public int getNumLines() {
+        return lines.size();
+    }
+
+    @Override
+    public AttributedString getStyledLine(final int line) {
+        return lines.get(line);
+    }
+
+    /**
+     * Creates a real text pane to act as the parent of benchmarked components. The pane's own window has no lines,
+     * and its collaborators are only used while it is being constructed.
+     *
+     * @return A new text pane.
+     */
+    static TextPane createTextPane() {
+        final AggregateConfigProvider config = mock(AggregateConfigProvider.class, withSettings().stubOnly());
+        final ConfigBinder binder = mock(ConfigBinder.class, withSettings().stubOnly());
+        when(config.getBinder()).thenReturn(binder);
+        final BackBuffer backBuffer = mock(BackBuffer.class, withSettings().stubOnly());
+        when(backBuffer.getDocument()).thenReturn(mock(Document.class, withSettings().stubOnly()));
+        final WindowModel window = mock(WindowModel.class, withSettings().stubOnly());
+        when(window.getConfigManager()).thenReturn(config);
+        when(window.getBackBuffer()).thenReturn(backBuffer);
+
+        final TextPane textPane = new TextPane("ui", mock(URLBuilder.class, withSettings().stubOnly()),
+                new ImageCache(MoreExecutors.newDirectExecutorService()), new Clipboard("benchmark"), window);
+        textPane.setForeground(Color.BLACK);
+        return textPane;
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.ui_swing.textpane;
+
+import com.dmdirc.ui.messages.StyledMessageMaker;
+import com.dmdirc.util.colours.Colour;
+
+import java.text.AttributedString;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates representative lines of styled text for benchmarks. Lines are built from a fixed sequence so that results
+ * are comparable between runs.
+ */
+public final class BenchmarkLines {
+
+    private static final Colour GREY = new Colour(128, 128, 128);
+    private static final Colour RED = new Colour(200, 0, 0);
+    private static final Colour BLUE = new Colour(0, 0, 200);
+    private static final String WORDS = "the quick brown fox jumps over the lazy dog while "
+            + "someone pastes a rather long message into the channel that will need wrapping ";
+
+    private BenchmarkLines() {
+        // Utility class
+    }
+
+    /** The kinds of line that can be generated. */
+    public enum LineType {
+        /** A short line of unformatted text. */
+        SHORT,
+        /** A long line of unformatted text, which will wrap at most widths. */
+        LONG,
+        /** A line with a timestamp, nickname, formatting, colours and a hyperlink. */
+        STYLED,
+        /** An even mix of the other line types. */
+        MIXED
+    }
+
+    /**
+     * Creates a list of styled lines.
+     *
+     * @param type  The type of line to create.
+     * @param count The number of lines to create.
+     *
+     * @return A list of attributed strings.
+     */
+    static List<AttributedString> create(final LineType type, final int count) {
+        final StreamingAttributedStringMaker maker = new StreamingAttributedStringMaker();
+        final List<AttributedString> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final LineType lineType = type == LineType.MIXED ? LineType.values()[i % 3] : type;
+            maker.clear();
+            maker.setDefaultFont("Dialog", 12);
+            render(maker, lineType, i);
+            lines.add(maker.getStyledMessage());
+        }
+        return lines;
+    }
+
+    /**
+     * Sends a line of the given type to a message maker.
+     *
+     * @param maker The maker to render the line with.
+     * @param type  The type of line to render. Must not be {@link LineType#MIXED}.
+     * @param index The index of the line, used to vary its content.
+     */
+    static void render(final StyledMessageMaker<?> maker, final LineType type, final int index) {
+        switch (type) {
+            case SHORT:
+                maker.appendString("[12:34:56] <user" + index % 50 + "> hello there");
+                break;
+            case LONG:
+                maker.appendString("[12:34:56] <user" + index % 50 + "> ");
+                for (int i = 0; i < 6; i++) {
+                    maker.appendString(WORDS);
+                }
+                break;
+            case STYLED:
+                maker.setForeground(GREY);
+                maker.appendString("[12:34:56] ");
+                maker.resetColours();
+                maker.appendString("<");
+                maker.startNicknameLink("user" + index % 50);
+                maker.appendString("user" + index % 50);
+                maker.endNicknameLink();
+                maker.appendString("> have a look at ");
+                maker.toggleBold();
+                maker.appendString("this");
+                maker.toggleBold();
+                maker.appendString(" ");
+                maker.toggleHyperlinkStyle(BLUE);
+                maker.startHyperlink("https://www.dmdirc.com/");
+                maker.appendString("https://www.dmdirc.com/");
+                maker.toggleHyperlinkStyle(BLUE);
+                maker.endHyperlink();
+                maker.appendString(", it's ");
+                maker.setForeground(RED);
+                maker.appendString("really");
+                maker.resetColours();
+                maker.appendString(" good.");
+                break;
+            default:
+                throw new IllegalArgumentException("Can't render line type " + type);
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.ui_swing.textpane;
+
+import com.dmdirc.addons.ui_swing.textpane.BenchmarkLines.LineType;
+import com.dmdirc.ui.messages.StyledMessageMaker;
+
+import java.text.AttributedString;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.text.StyledDocument;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares the cost of styling a line with the document-based and streaming message makers, and measures the
+ * conversion step of the document-based maker on its own.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MessageMakerBenchmark {
+
+    @Param({"SHORT", "LONG", "STYLED"})
+    private LineType lineType;
+
+    private AttributedStringMessageMaker documentMaker;
+    private StreamingAttributedStringMaker streamingMaker;
+    private StyledDocument styledDocument;
+
+    @Setup
+    public void setUp() {
+        documentMaker = new AttributedStringMessageMaker();
+        streamingMaker = new StreamingAttributedStringMaker();
+
+        final StyledDocumentMaker maker = new StyledDocumentMaker();
+        BenchmarkLines.render(maker, lineType, 0);
+        styledDocument = maker.getStyledMessage();
+        documentMaker.setDefaultFont("Dialog", 12);
+    }
+
+    @Benchmark
+    public AttributedString documentMaker() {
+        return render(documentMaker);
+    }
+
+    @Benchmark
+    public AttributedString documentMakerConvert() {
+        return documentMaker.convert(styledDocument);
+    }
+
+    @Benchmark
+    public AttributedString streamingMaker() {
+        return render(streamingMaker);
+    }
+
+    private AttributedString render(final StyledMessageMaker<AttributedString> maker) {
+        maker.clear();
+        maker.setDefaultFont("Dialog", 12);
+        BenchmarkLines.render(maker, lineType, 0);
+        return maker.getStyledMessage();
+    }
+
+}
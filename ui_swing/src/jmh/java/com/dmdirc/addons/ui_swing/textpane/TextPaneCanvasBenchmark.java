@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.ui_swing.textpane;
+
+import com.dmdirc.addons.ui_swing.textpane.BenchmarkLines.LineType;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.event.AdjustmentEvent;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JScrollBar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures a full paint of a {@link TextPaneCanvas} onto an offscreen image, at a range of widths and with different
+ * kinds of line.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TextPaneCanvasBenchmark {
+
+    /** The number of lines in the document. Only those that fit in the canvas are painted. */
+    private static final int LINES = 500;
+    /** The height of the canvas. */
+    private static final int HEIGHT = 800;
+
+    @Param({"400", "800", "1600"})
+    private int width;
+
+    @Param({"SHORT", "LONG", "STYLED", "MIXED"})
+    private LineType lineType;
+
+    private BufferedImage image;
+    private Graphics2D graphics;
+    private TextPaneCanvas canvas;
+
+    @Setup
+    public void setUp() {
+        canvas = new TextPaneCanvas(BenchmarkDocument.createTextPane(),
+                new BenchmarkDocument(BenchmarkLines.create(lineType, LINES)));
+        canvas.setSize(width, HEIGHT);
+        canvas.adjustmentValueChanged(new AdjustmentEvent(new JScrollBar(),
+                AdjustmentEvent.ADJUSTMENT_VALUE_CHANGED, AdjustmentEvent.TRACK, LINES - 1));
+
+        image = new BufferedImage(width, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        graphics = image.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+    }
+
+    @TearDown
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public int paint() {
+        canvas.paintComponent(graphics);
+        return canvas.getFirstVisibleLine();
+    }
+
+}
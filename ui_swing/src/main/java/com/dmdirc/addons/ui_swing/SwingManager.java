@@ -17,11 +17,14 @@
 
 package com.dmdirc.addons.ui_swing;
 
+import com.dmdirc.addons.ui_swing.components.ImageCache;
 import com.dmdirc.addons.ui_swing.components.menubar.MenuBar;
 import com.dmdirc.addons.ui_swing.components.statusbar.FeedbackNag;
 import com.dmdirc.addons.ui_swing.components.statusbar.SwingStatusBar;
+import com.dmdirc.addons.ui_swing.dialogs.paste.PasteDialogFactory;
 import com.dmdirc.addons.ui_swing.dialogs.url.URLDialogFactory;
 import com.dmdirc.addons.ui_swing.events.SwingEventBus;
+import com.dmdirc.addons.ui_swing.events.WindowEventRouter;
 import com.dmdirc.addons.ui_swing.framemanager.ctrltab.CtrlTabWindowManager;
 import com.dmdirc.addons.ui_swing.framemanager.tree.TreeFrameManagerProvider;
 import com.dmdirc.addons.ui_swing.wizard.firstrun.FirstRunWizardExecutor;
@@ -83,6 +86,12 @@ public class SwingManager {
     private MainFrame mainFrame;
     /** Swing UI initialiser. */
     private final SwingUIInitialiser uiInitialiser;
+    /** The cache of loaded images. */
+    private final ImageCache imageCache;
+    /** Router for per-window events. */
+    private final WindowEventRouter windowEventRouter;
+    /** Factory of paste dialogs, which sends pastes in the background. */
+    private final PasteDialogFactory pasteDialogFactory;
     private final PluginInfo pluginInfo;
     private final String domain;
 
@@ -104,6 +113,9 @@ public class SwingManager {
      * @param treeProvider            Provider to use for tree-based frame managers.
      * @param swingWindowManager      Swing window manager
      * @param uiInitialiser           Initialiser to set system/swing settings.
+     * @param imageCache              The cache of loaded images.
+     * @param windowEventRouter       Router for per-window events.
+     * @param pasteDialogFactory      Factory of paste dialogs.
      */
     @Inject
     public SwingManager(
@@ -122,6 +134,9 @@ public class SwingManager {
             final TreeFrameManagerProvider treeProvider,
             final Provider<SwingWindowManager> swingWindowManager,
             final SwingUIInitialiser uiInitialiser,
+            final ImageCache imageCache,
+            final WindowEventRouter windowEventRouter,
+            final PasteDialogFactory pasteDialogFactory,
             @PluginDomain(SwingController.class) final PluginInfo pluginInfo,
             @PluginDomain(SwingController.class) final String domain) {
         this.windowFactory = windowFactory;
@@ -139,6 +154,9 @@ public class SwingManager {
         this.treeProvider = treeProvider;
         this.swingWindowManager = swingWindowManager;
         this.uiInitialiser = uiInitialiser;
+        this.imageCache = imageCache;
+        this.windowEventRouter = windowEventRouter;
+        this.pasteDialogFactory = pasteDialogFactory;
         this.pluginInfo = pluginInfo;
         this.domain = domain;
     }
@@ -156,6 +174,7 @@ public class SwingManager {
             mainFrame.initComponents();
             swingEventBus.subscribe(mainFrame);
             swingEventBus.subscribe(ctrlTabManager);
+            eventBus.subscribe(windowEventRouter);
 
             windowManager.addListenerAndSync(windowFactory.get());
             eventBus.subscribe(statusBar.get());
@@ -182,7 +201,10 @@ public class SwingManager {
             eventBus.unsubscribe(this);
             eventBus.unsubscribe(mainFrame);
             eventBus.unsubscribe(linkHandler);
+            eventBus.unsubscribe(windowEventRouter);
             uiInitialiser.unload();
+            imageCache.shutdown();
+            pasteDialogFactory.shutdown();
         });
     }
 
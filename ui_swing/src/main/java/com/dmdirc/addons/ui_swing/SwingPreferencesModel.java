@@ -188,6 +188,30 @@ public class SwingPreferencesModel {
                 "New line notification", "Do you want to be notified about new "
                 + "lines whilst scrolled up?",
                 globalConfig, globalIdentity));
+        advanced.addSetting(new PreferencesSetting(PreferencesType.INTEGER,
+                new NumericalValidator(1, 100), domain, "pasteLinesPerSecond",
+                "Paste lines per second", "Maximum number of lines per second to send "
+                + "when pasting multiple lines",
+                globalConfig, globalIdentity));
+        advanced.addSetting(new PreferencesSetting(PreferencesType.INTEGER,
+                new NumericalValidator(64, -1), domain, "pasteBytesPerSecond",
+                "Paste bytes per second", "Maximum number of bytes per second to send "
+                + "when pasting multiple lines",
+                globalConfig, globalIdentity));
+        advanced.addSetting(new PreferencesSetting(PreferencesType.INTEGER,
+                new NumericalValidator(1, 100), domain, "pasteBurst",
+                "Paste burst size", "Number of lines of a paste that may be sent "
+                + "at once before slowing down",
+                globalConfig, globalIdentity));
+        advanced.addSetting(new PreferencesSetting(PreferencesType.BOOLEAN,
+                domain, "pasteWrap", "Wrap long pasted lines?",
+                "Should long lines in multi-line pastes be wrapped by default?",
+                globalConfig, globalIdentity));
+        advanced.addSetting(new PreferencesSetting(PreferencesType.INTEGER,
+                new NumericalValidator(16, 510), domain, "pasteWrapLength",
+                "Pasted line wrap length", "Maximum length in bytes of wrapped "
+                + "pasted lines",
+                globalConfig, globalIdentity));
 
         return advanced;
     }
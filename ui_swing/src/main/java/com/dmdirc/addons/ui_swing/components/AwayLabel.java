@@ -20,7 +20,6 @@ package com.dmdirc.addons.ui_swing.components;
 import com.dmdirc.addons.ui_swing.EDTInvocation;
 import com.dmdirc.addons.ui_swing.EdtHandlerInvocation;
 import com.dmdirc.config.binding.ConfigBinding;
-import com.dmdirc.events.FrameClosingEvent;
 import com.dmdirc.events.ServerAwayEvent;
 import com.dmdirc.events.ServerBackEvent;
 import com.dmdirc.events.ServerConnectedEvent;
@@ -89,12 +88,12 @@ public class AwayLabel extends JLabel {
         setVisible(useAwayIndicator && away);
     }
 
-    @Handler(invocation = EdtHandlerInvocation.class)
-    public void windowClosing(final FrameClosingEvent event) {
-        if (event.getSource().equals(container)) {
-            container.getConfigManager().getBinder().unbind(this);
-            container.getEventBus().unsubscribe(this);
-        }
+    /**
+     * Removes the listeners added by this label. Called when its window is closing.
+     */
+    public void close() {
+        container.getConfigManager().getBinder().unbind(this);
+        container.getEventBus().unsubscribe(this);
     }
 
 }
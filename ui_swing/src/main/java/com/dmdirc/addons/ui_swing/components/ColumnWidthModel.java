@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.ui_swing.components;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.Arrays;
+
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.TableModel;
+
+/**
+ * Caches the preferred width of each column in a table model, measuring rows as they are inserted
+ * or updated rather than every time the table is painted.
+ *
+ * <p>Every row is measured for small tables. Beyond {@link #FULL_ROWS} rows an increasingly sparse
+ * sample is measured instead, so a table with tens of thousands of rows costs only a few thousand
+ * measurements in total. Widths only ever grow as rows are measured; they are recalculated from
+ * scratch when the whole model changes, when all of its rows are removed, or when
+ * {@link #invalidate()} is called (for example, after a font change).
+ */
+public class ColumnWidthModel implements TableModelListener {
+
+    /** The number of rows that are always measured. */
+    @VisibleForTesting
+    static final int FULL_ROWS = 2000;
+    /** Measures the width of a cell. */
+    private final Measurer measurer;
+    /** Called on the EDT whenever the cached widths change. */
+    private final Runnable listener;
+    /** The model being measured. */
+    private TableModel model;
+    /** The cached width of each column, in model order. */
+    private int[] widths = new int[0];
+    /** The number of cells measured since the widths were last reset. */
+    private long measured;
+
+    /**
+     * Creates a new column width model.
+     *
+     * @param measurer Measures the width of cells.
+     * @param listener Called whenever the cached widths change.
+     */
+    public ColumnWidthModel(final Measurer measurer, final Runnable listener) {
+        this.measurer = measurer;
+        this.listener = listener;
+    }
+
+    /**
+     * Sets the model to measure, and measures its current contents. Events from the model must be
+     * passed to {@link #tableChanged(TableModelEvent)} by the caller, after any table displaying it
+     * has handled them.
+     *
+     * @param model The new model, or {@code null} to stop measuring.
+     */
+    public void setModel(final TableModel model) {
+        this.model = model;
+        invalidate();
+    }
+
+    /**
+     * Discards all cached widths and measures the model again.
+     */
+    public void invalidate() {
+        final int columns = model == null ? 0 : model.getColumnCount();
+        widths = new int[columns];
+        measured = 0;
+        for (int column = 0; column < columns; column++) {
+            widths[column] = measurer.measure(-1, column);
+        }
+        if (model != null) {
+            measureRows(0, model.getRowCount() - 1);
+        }
+        listener.run();
+    }
+
+    /**
+     * Gets the cached width of a column.
+     *
+     * @param column The model index of the column.
+     *
+     * @return The width of the widest measured cell in the column, including its header.
+     */
+    public int getWidth(final int column) {
+        return column >= 0 && column < widths.length ? widths[column] : 0;
+    }
+
+    /**
+     * Gets the cached widths of all columns.
+     *
+     * @return A copy of the widths of each column, in model order.
+     */
+    public int[] getWidths() {
+        return Arrays.copyOf(widths, widths.length);
+    }
+
+    @VisibleForTesting
+    long getMeasuredCount() {
+        return measured;
+    }
+
+    @Override
+    public void tableChanged(final TableModelEvent e) {
+        if (model == null || e.getSource() != model) {
+            return;
+        }
+        if (e.getFirstRow() == TableModelEvent.HEADER_ROW
+                || e.getType() == TableModelEvent.UPDATE && e.getLastRow() == Integer.MAX_VALUE
+                || widths.length != model.getColumnCount()) {
+            invalidate();
+        } else if (e.getType() == TableModelEvent.DELETE) {
+            if (model.getRowCount() == 0) {
+                invalidate();
+            }
+        } else if (measureRows(e.getFirstRow(), e.getLastRow())) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Measures the sampled rows in the given range.
+     *
+     * @param first The first row to measure.
+     * @param last  The last row to measure, inclusive.
+     *
+     * @return True if any column's width changed.
+     */
+    private boolean measureRows(final int first, final int last) {
+        final int end = Math.min(last, model.getRowCount() - 1);
+        boolean changed = false;
+        for (int row = Math.max(0, first); row <= end; row++) {
+            if (!isSampled(row)) {
+                continue;
+            }
+            for (int column = 0; column < widths.length; column++) {
+                final int width = measurer.measure(row, column);
+                measured++;
+                if (width > widths[column]) {
+                    widths[column] = width;
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Determines whether a row should be measured. The first {@link #FULL_ROWS} rows are all
+     * measured; after that, each doubling of the row count measures another
+     * {@code FULL_ROWS / 2} rows spread evenly through it.
+     *
+     * @param row The index of the row.
+     *
+     * @return True if the row should be measured.
+     */
+    @VisibleForTesting
+    static boolean isSampled(final int row) {
+        if (row < FULL_ROWS) {
+            return true;
+        }
+        final int stride = Integer.highestOneBit(row / FULL_ROWS) << 1;
+        return row % stride == 0;
+    }
+
+    /**
+     * Measures the preferred width of cells.
+     */
+    @FunctionalInterface
+    public interface Measurer {
+
+        /**
+         * Measures the preferred width of a cell.
+         *
+         * @param row    The model index of the row, or -1 for the column's header.
+         * @param column The model index of the column.
+         *
+         * @return The preferred width of the cell.
+         */
+        int measure(int row, int column);
+
+    }
+
+}
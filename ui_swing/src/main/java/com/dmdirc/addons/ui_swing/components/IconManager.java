@@ -22,14 +22,14 @@ import com.dmdirc.config.provider.AggregateConfigProvider;
 import com.dmdirc.config.provider.ConfigChangeListener;
 import com.dmdirc.util.URLBuilder;
 import java.awt.Image;
-import java.awt.Toolkit;
+import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.net.URL;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import javax.swing.Icon;
@@ -44,28 +44,33 @@ public class IconManager implements ConfigChangeListener {
 
     /** A map of existing icons. */
     private final Map<String, Icon> icons;
-    /** A map of existing images. */
-    private final Map<String, Image> images;
+    /** A map of resolved icon URLs. */
+    private final Map<String, URL> urls;
     /** Config manager to retrieve settings from. */
     private final AggregateConfigProvider configManager;
     /** URL builder to use for icons. */
     private final URLBuilder urlBuilder;
+    /** Cache to load images from. */
+    private final ImageCache imageCache;
 
     /**
      * Creates a new instance of IconManager.
      *
      * @param configManager Config manager to retrieve settings from
      * @param urlBuilder    URL builder to use for icons.
+     * @param imageCache    Cache to load images from.
      */
     @Inject
     public IconManager(
             @GlobalConfig final AggregateConfigProvider configManager,
-            final URLBuilder urlBuilder) {
+            final URLBuilder urlBuilder,
+            final ImageCache imageCache) {
         this.configManager = configManager;
         this.urlBuilder = urlBuilder;
+        this.imageCache = imageCache;
 
-        icons = new HashMap<>();
-        images = new HashMap<>();
+        icons = new ConcurrentHashMap<>();
+        urls = new ConcurrentHashMap<>();
 
         configManager.addChangeListener("icon", this);
     }
@@ -78,16 +83,7 @@ public class IconManager implements ConfigChangeListener {
      * @return The icon that should be used for the specified type
      */
     public Icon getIcon(final String type) {
-        if (icons.containsKey(type)) {
-            return icons.get(type);
-        }
-        if (!icons.containsKey(type)) {
-            final URL iconURL = getIconURL(type);
-            final Image iconImage = Toolkit.getDefaultToolkit().getImage(iconURL);
-            final Image scaledIconImage = getScaledImage(iconImage, 16, 16);
-            icons.put(type, new ImageIcon(scaledIconImage));
-        }
-        return icons.get(type);
+        return icons.computeIfAbsent(type, t -> getScaledIcon(t, 16, 16));
     }
 
     /**
@@ -102,8 +98,8 @@ public class IconManager implements ConfigChangeListener {
      * @since 0.6.3m1
      */
     public Icon getScaledIcon(final String type, final int width, final int height) {
-        return new ImageIcon(getScaledImage(new ImageIcon(getIconURL(type)).
-                getImage(), width, height));
+        final Image image = imageCache.getImage(getIconURL(type), width, height);
+        return new ImageIcon(image == null ? getFallbackImage(width, height) : image);
     }
 
     /**
@@ -114,24 +110,21 @@ public class IconManager implements ConfigChangeListener {
      * @return The image that should be used for the specified type
      */
     public Image getImage(final String type) {
-        if (!images.containsKey(type)) {
-            images.put(type, Toolkit.getDefaultToolkit().createImage(getIconURL(type)));
-        }
-        return images.get(type);
+        final Image image = imageCache.getImage(getIconURL(type));
+        return image == null ? getFallbackImage(16, 16) : image;
     }
 
     /**
-     * Returns a scaled image.
+     * Creates a blank image to use in place of one that couldn't be loaded.
      *
-     * @param image  Image to scale
-     * @param width  Width of resulting image
-     * @param height Height of resulting image
+     * @param width  width of the image
+     * @param height height of the image
      *
-     * @return Scaled Image
+     * @return A transparent image of the specified size
      */
-    private Image getScaledImage(final Image image,
-            final int width, final int height) {
-        return image.getScaledInstance(width, height, Image.SCALE_SMOOTH);
+    private static Image getFallbackImage(final int width, final int height) {
+        return new BufferedImage(Math.max(1, width), Math.max(1, height),
+                BufferedImage.TYPE_INT_ARGB);
     }
 
     /**
@@ -142,7 +135,18 @@ public class IconManager implements ConfigChangeListener {
      * @return The URL that should be used to retrieve the specified icon
      */
     private URL getIconURL(final String type) {
-        final String iconType = getSpecialIcons(type);
+        return urls.computeIfAbsent(getSpecialIcons(type), this::resolveIconURL);
+    }
+
+    /**
+     * Resolves the URL of a specified icon type, falling back to the default icon if the
+     * configured location can't be used.
+     *
+     * @param iconType The name of the icon type to resolve
+     *
+     * @return The URL that should be used to retrieve the specified icon
+     */
+    private URL resolveIconURL(final String iconType) {
         final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
         final ClassLoader classLoader = contextClassLoader == null
                 ? getClass().getClassLoader() : contextClassLoader;
@@ -194,12 +198,8 @@ public class IconManager implements ConfigChangeListener {
     @Override
     public void configChanged(final String domain, final String key) {
         if ("icon".equals(domain)) {
-            if (images.containsKey(key)) {
-                images.remove(key);
-            }
-            if (icons.containsKey(key)) {
-                icons.remove(key);
-            }
+            urls.remove(key);
+            icons.remove(key);
         }
     }
 
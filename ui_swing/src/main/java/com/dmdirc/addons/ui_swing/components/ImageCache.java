@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.ui_swing.components;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import javax.imageio.ImageIO;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.swing.ImageIcon;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shared cache of decoded and scaled images, keyed on the URL they were loaded from and the size
+ * they were scaled to.
+ *
+ * <p>The cache is bounded by the approximate number of bytes used by the cached images, and holds
+ * them softly so the garbage collector can reclaim them under memory pressure. Concurrent requests
+ * for the same image share a single load.
+ */
+@Singleton
+public class ImageCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ImageCache.class);
+    /** The maximum approximate size of all cached images, in bytes. */
+    private static final long MAXIMUM_WEIGHT = 32L * 1024 * 1024;
+    /** Cache of loaded images. */
+    private final Cache<Key, Image> cache;
+    /** Loads that are currently in progress. */
+    private final ConcurrentMap<Key, CompletableFuture<Image>> loading;
+    /** Executor to load images on. */
+    private final ExecutorService executorService;
+
+    @Inject
+    public ImageCache(@Named("imagecache") final ExecutorService executorService) {
+        this.executorService = executorService;
+        cache = CacheBuilder.newBuilder()
+                .maximumWeight(MAXIMUM_WEIGHT)
+                .weigher((Key key, Image image) -> getWeight(image))
+                .softValues()
+                .recordStats()
+                .build();
+        loading = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Retrieves the image at the specified URL, loading it in the background if it is not already
+     * cached.
+     *
+     * @param url The URL of the image to load
+     *
+     * @return A future that completes with the image, or {@code null} if it couldn't be loaded
+     */
+    public CompletableFuture<Image> getImageAsync(final URL url) {
+        return getImageAsync(url, 0, 0);
+    }
+
+    /**
+     * Retrieves the image at the specified URL scaled to the given size, loading it in the
+     * background if it is not already cached.
+     *
+     * @param url    The URL of the image to load
+     * @param width  The width to scale the image to, or 0 to leave it unscaled
+     * @param height The height to scale the image to, or 0 to leave it unscaled
+     *
+     * @return A future that completes with the image, or {@code null} if it couldn't be loaded
+     */
+    public CompletableFuture<Image> getImageAsync(final URL url, final int width,
+            final int height) {
+        return get(new Key(url, width, height), executorService);
+    }
+
+    /**
+     * Retrieves the image at the specified URL, loading it on the calling thread if it is not
+     * already cached.
+     *
+     * @param url The URL of the image to load
+     *
+     * @return The image, or {@code null} if it couldn't be loaded
+     */
+    public Image getImage(final URL url) {
+        return getImage(url, 0, 0);
+    }
+
+    /**
+     * Retrieves the image at the specified URL scaled to the given size, loading it on the
+     * calling thread if it is not already cached. If another thread is already loading the same
+     * image, this waits for that load to finish instead of starting another.
+     *
+     * @param url    The URL of the image to load
+     * @param width  The width to scale the image to, or 0 to leave it unscaled
+     * @param height The height to scale the image to, or 0 to leave it unscaled
+     *
+     * @return The image, or {@code null} if it couldn't be loaded
+     */
+    public Image getImage(final URL url, final int width, final int height) {
+        return get(new Key(url, width, height), this::executeInline)
+                .exceptionally(ex -> null)
+                .join();
+    }
+
+    /**
+     * Retrieves statistics about the cache's performance.
+     *
+     * @return The cache's statistics
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Removes all images from the cache.
+     */
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Removes all images from the cache, and stops loading any new ones.
+     */
+    public void shutdown() {
+        executorService.shutdown();
+        clear();
+    }
+
+    private CompletableFuture<Image> get(final Key key, final Executor executor) {
+        final Image cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        final CompletableFuture<Image> future = new CompletableFuture<>();
+        final CompletableFuture<Image> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            return existing;
+        }
+
+        if (key.isScaled()) {
+            // Share the load of the original image with anyone else who wants it, and scale it
+            // once it's available rather than waiting for it on a loading thread.
+            get(new Key(key.url, 0, 0), executor).whenComplete((source, ex) -> {
+                if (ex == null) {
+                    load(key, future, executor,
+                            () -> source == null ? null : scale(source, key.width, key.height));
+                } else {
+                    loading.remove(key, future);
+                    future.completeExceptionally(ex);
+                }
+            });
+        } else {
+            load(key, future, executor, () -> decode(key.url));
+        }
+        return future;
+    }
+
+    /**
+     * Loads an image using the given executor, adds it to the cache, and completes the future
+     * that's waiting for it.
+     *
+     * @param key      The key of the image being loaded
+     * @param future   The future to complete with the image
+     * @param executor The executor to load the image on
+     * @param loader   Function that loads the image, returning {@code null} if it can't be
+     */
+    private void load(final Key key, final CompletableFuture<Image> future,
+            final Executor executor, final Supplier<Image> loader) {
+        try {
+            executor.execute(() -> {
+                Image image = null;
+                try {
+                    image = loader.get();
+                    if (image != null) {
+                        cache.put(key, image);
+                    }
+                } catch (RuntimeException ex) {
+                    LOG.debug("Unable to load image: {}", key.url, ex);
+                } finally {
+                    loading.remove(key, future);
+                    future.complete(image);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // The cache has been shut down; don't leave later callers waiting on this load.
+            loading.remove(key, future);
+            future.completeExceptionally(ex);
+        }
+    }
+
+    /**
+     * Runs loads on the calling thread, unless the cache has been shut down.
+     *
+     * @param command The load to run
+     */
+    private void executeInline(final Runnable command) {
+        if (executorService.isShutdown()) {
+            throw new RejectedExecutionException("Image cache has been shut down");
+        }
+        command.run();
+    }
+
+    private Image decode(final URL url) {
+        if (url == null) {
+            return null;
+        }
+        LOG.trace("Loading image: {}", url);
+        try {
+            final BufferedImage image = ImageIO.read(url);
+            if (image != null) {
+                return image;
+            }
+        } catch (IOException ex) {
+            LOG.trace("Unable to read image {}: {}", url, ex.getMessage());
+        }
+        // Fall back to the toolkit for formats ImageIO doesn't understand.
+        final Image image = new ImageIcon(url).getImage();
+        return image.getWidth(null) > 0 ? image : null;
+    }
+
+    private Image scale(final Image image, final int width, final int height) {
+        final Image scaled = new ImageIcon(image.getScaledInstance(width, height,
+                Image.SCALE_SMOOTH)).getImage();
+        final BufferedImage result = new BufferedImage(width, height,
+                BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D g = result.createGraphics();
+        try {
+            g.drawImage(scaled, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return result;
+    }
+
+    private static int getWeight(final Image image) {
+        return Math.max(1, image.getWidth(null)) * Math.max(1, image.getHeight(null)) * 4;
+    }
+
+    /**
+     * Identifies a cached image.
+     */
+    private static class Key {
+
+        private final URL url;
+        private final String spec;
+        private final int width;
+        private final int height;
+
+        Key(final URL url, final int width, final int height) {
+            this.url = url;
+            // URL.equals resolves host names, so compare the external form instead.
+            this.spec = url == null ? "" : url.toExternalForm();
+            this.width = Math.max(0, width);
+            this.height = Math.max(0, height);
+        }
+
+        boolean isScaled() {
+            return width > 0 && height > 0;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return width == other.width && height == other.height && spec.equals(other.spec);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(spec, width, height);
+        }
+
+    }
+
+}
@@ -17,11 +17,14 @@
 
 package com.dmdirc.addons.ui_swing.components;
 
-import java.awt.Graphics;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
+import javax.swing.event.TableModelEvent;
 import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableCellRenderer;
 import javax.swing.table.TableColumn;
 import javax.swing.table.TableColumnModel;
 import javax.swing.table.TableModel;
@@ -30,6 +33,9 @@ import net.miginfocom.layout.PlatformDefaults;
 
 /**
  * Creates a new table that automatically sizes its columns to the size of its data.
+ *
+ * <p>Column widths are measured as rows are added or changed and cached in a
+ * {@link ColumnWidthModel}, rather than being recalculated each time the table is painted.
  */
 public class PackingTable extends JTable {
 
@@ -42,6 +48,8 @@ public class PackingTable extends JTable {
     /** Border padding. */
     private final int padding = (int) PlatformDefaults.getUnitValueX("related").
             getValue();
+    /** Cached widths of each column. */
+    private final ColumnWidthModel widthModel;
 
     /**
      * Creates a new packing table.
@@ -98,6 +106,16 @@ public class PackingTable extends JTable {
         getTableHeader().setResizingAllowed(false);
         getTableHeader().setReorderingAllowed(false);
         setDragEnabled(false);
+
+        widthModel = new ColumnWidthModel(this::measure, this::packColumns);
+        widthModel.setModel(getModel());
+        scrollPane.getViewport().addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(final ComponentEvent e) {
+                packColumns();
+            }
+        });
+        addPropertyChangeListener("font", e -> widthModel.invalidate());
     }
 
     @Override
@@ -111,17 +129,34 @@ public class PackingTable extends JTable {
     }
 
     @Override
-    public final void paint(final Graphics g) {
-        packColumns();
-        super.paint(g);
+    public void setModel(final TableModel dataModel) {
+        super.setModel(dataModel);
+        if (widthModel != null) {
+            widthModel.setModel(dataModel);
+        }
     }
 
-    /** Packs the columns to their width. */
-    public final void packColumns() {
-        if (!isShowing()) {
-            return;
+    @Override
+    public void tableChanged(final TableModelEvent e) {
+        super.tableChanged(e);
+        if (widthModel != null) {
+            widthModel.tableChanged(e);
+        }
+    }
+
+    @Override
+    public void updateUI() {
+        super.updateUI();
+        if (widthModel != null) {
+            widthModel.invalidate();
         }
+    }
 
+    /**
+     * Packs the columns to their cached widths. Widths are measured as the model changes, so this
+     * is cheap enough to call whenever the table is resized.
+     */
+    public final void packColumns() {
         if (getColumnCount() == 0) {
             return;
         }
@@ -139,7 +174,8 @@ public class PackingTable extends JTable {
         }
 
         for (int i = 0; i < checkNumCols; i++) { //NOPMD I'm not copying
-            widths[i] = getWidth(i);
+            widths[i] = widthModel.getWidth(myColumnModel.getColumn(i).getModelIndex())
+                    + padding;
             widthsTotal += widths[i];
         }
 
@@ -156,39 +192,34 @@ public class PackingTable extends JTable {
     }
 
     /**
-     * Returns the width of a column.
+     * Measures the preferred width of a cell.
      *
-     * @param col Column to retrieve width for
+     * @param row    Model index of the row, or -1 for the header
+     * @param column Model index of the column
      *
-     * @return Width of the specified column
+     * @return Preferred width of the cell
      */
-    private int getWidth(final int col) {
-        if (getColumnCount() == 0) {
-            return 0;
+    private int measure(final int row, final int column) {
+        final int viewColumn = convertColumnIndexToView(column);
+        if (row < 0) {
+            final Object header = viewColumn < 0 ? getModel().getColumnName(column)
+                    : getColumnModel().getColumn(viewColumn).getIdentifier();
+            return (int) getTableHeader().getDefaultRenderer().
+                    getTableCellRendererComponent(this, header, false, false, -1,
+                            Math.max(0, viewColumn)).getPreferredSize().getWidth();
         }
-        if (getColumnCount() <= col) {
+        if (viewColumn < 0) {
             return 0;
         }
 
-        final TableColumn column = getColumnModel().getColumn(col);
-        int width = (int) getTableHeader().getDefaultRenderer().
-                getTableCellRendererComponent(this, column.getIdentifier(),
-                        false, false, -1, col).getPreferredSize().getWidth();
-
-        if (getRowCount() == 0) {
-            return width + padding;
-        }
-
-        for (int row = 0; row < getRowCount(); row++) {
-            if (getCellRenderer(row, col) != null) {
-                width = Math.max(width, (int) getCellRenderer(row, col).
-                        getTableCellRendererComponent(this, getValueAt(row,
-                                        col), false, false, row, col).getPreferredSize().
-                        getWidth());
-            }
+        final int viewRow = Math.max(0, convertRowIndexToView(row));
+        final TableCellRenderer renderer = getCellRenderer(viewRow, viewColumn);
+        if (renderer == null) {
+            return 0;
         }
-
-        return width + padding;
+        return (int) renderer.getTableCellRendererComponent(this,
+                getModel().getValueAt(row, column), false, false, viewRow, viewColumn)
+                .getPreferredSize().getWidth();
     }
 
 }
@@ -20,7 +20,6 @@ package com.dmdirc.addons.ui_swing.components;
 import com.dmdirc.addons.ui_swing.EdtHandlerInvocation;
 import com.dmdirc.addons.ui_swing.UIUtilities;
 import com.dmdirc.config.binding.ConfigBinding;
-import com.dmdirc.events.FrameClosingEvent;
 import com.dmdirc.events.FrameComponentAddedEvent;
 import com.dmdirc.events.FrameComponentRemovedEvent;
 import com.dmdirc.interfaces.WindowModel;
@@ -84,12 +83,12 @@ public class TypingLabel extends JLabel {
         }
     }
 
-    @Handler(invocation = EdtHandlerInvocation.class)
-    public void windowClosing(final FrameClosingEvent event) {
-        if (event.getSource().equals(container)) {
-            container.getConfigManager().getBinder().unbind(this);
-            container.getEventBus().unsubscribe(this);
-        }
+    /**
+     * Removes the listeners added by this label. Called when its window is closing.
+     */
+    public void close() {
+        container.getConfigManager().getBinder().unbind(this);
+        container.getEventBus().unsubscribe(this);
     }
 
 }
@@ -217,14 +217,11 @@ public final class ChannelFrame extends InputTextFrame {
     }
 
     @Override
-    @Handler(invocation = EdtHandlerInvocation.class)
     public void windowClosing(final FrameClosingEvent event) {
-        if (event.getSource().equals(getContainer())) {
-            saveSplitPanePosition();
-            topicBar.close();
-            dialogProvider.dispose(groupChat);
-            super.windowClosing(event);
-        }
+        saveSplitPanePosition();
+        topicBar.close();
+        dialogProvider.dispose(groupChat);
+        super.windowClosing(event);
     }
 
     @Override
@@ -23,7 +23,6 @@ import com.dmdirc.addons.ui_swing.components.TopicBarFactory;
 import com.dmdirc.addons.ui_swing.components.inputfields.SwingInputField;
 import com.dmdirc.addons.ui_swing.dialogs.channelsetting.ChannelSettingsDialog;
 import com.dmdirc.addons.ui_swing.injection.KeyedDialogProvider;
-import com.dmdirc.events.eventbus.EventBus;
 import com.dmdirc.interfaces.GroupChat;
 import com.dmdirc.interfaces.WindowModel;
 import com.dmdirc.interfaces.config.IdentityFactory;
@@ -53,11 +52,9 @@ public class ChannelFrameFactory implements SwingWindowFactory.WindowProvider {
     private final InputTextFramePasteActionFactory inputTextFramePasteActionFactory;
     private final Provider<KeyedDialogProvider<GroupChat, ChannelSettingsDialog>> dialogProvider;
     private final TopicBarFactory topicBarFactory;
-    private final EventBus eventBus;
 
     @Inject
     public ChannelFrameFactory(
-            final EventBus eventBus,
             @PluginDomain(SwingController.class) final String domain,
             final Provider<TextFrameDependencies> dependencies,
             final Provider<SwingInputField> inputFieldProvider,
@@ -65,7 +62,6 @@ public class ChannelFrameFactory implements SwingWindowFactory.WindowProvider {
             final IdentityFactory identityFactory,
             final Provider<KeyedDialogProvider<GroupChat, ChannelSettingsDialog>> dialogProvider,
             final TopicBarFactory topicBarFactory) {
-        this.eventBus = eventBus;
         this.domain = domain;
         this.dependencies = dependencies;
         this.inputFieldProvider = inputFieldProvider;
@@ -81,7 +77,6 @@ public class ChannelFrameFactory implements SwingWindowFactory.WindowProvider {
                 identityFactory, dialogProvider.get(), inputTextFramePasteActionFactory,
                 topicBarFactory, (GroupChat) container);
                 // TODO: Can't assume containers are GroupChats...
-        eventBus.subscribe(frame);
         return frame;
     }
 
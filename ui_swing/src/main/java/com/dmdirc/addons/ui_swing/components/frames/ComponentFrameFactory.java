@@ -18,7 +18,6 @@
 package com.dmdirc.addons.ui_swing.components.frames;
 
 import com.dmdirc.commandparser.parsers.CommandParser;
-import com.dmdirc.events.eventbus.EventBus;
 import com.dmdirc.interfaces.WindowModel;
 
 import java.util.function.Supplier;
@@ -35,14 +34,11 @@ import static com.dmdirc.addons.ui_swing.components.frames.TextFrame.TextFrameDe
 @Singleton
 public class ComponentFrameFactory {
 
-    private final EventBus eventBus;
     private final TextFrameDependencies dependencies;
 
     @Inject
     public ComponentFrameFactory(
-            final EventBus eventBus,
             final TextFrameDependencies dependencies) {
-        this.eventBus = eventBus;
         this.dependencies = dependencies;
     }
 
@@ -52,7 +48,6 @@ public class ComponentFrameFactory {
             final Iterable<Supplier<? extends JComponent>> componentSupplier) {
         final ComponentFrame frame = new ComponentFrame(dependencies, owner, commandParser,
                 componentSupplier);
-        eventBus.subscribe(frame);
         return frame;
     }
 
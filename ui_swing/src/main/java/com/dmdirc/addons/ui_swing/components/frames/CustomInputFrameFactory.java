@@ -19,7 +19,6 @@ package com.dmdirc.addons.ui_swing.components.frames;
 
 import com.dmdirc.addons.ui_swing.SwingWindowFactory;
 import com.dmdirc.addons.ui_swing.components.inputfields.SwingInputField;
-import com.dmdirc.events.eventbus.EventBus;
 import com.dmdirc.interfaces.WindowModel;
 import com.dmdirc.ui.core.components.WindowComponent;
 
@@ -41,16 +40,13 @@ public class CustomInputFrameFactory implements SwingWindowFactory.WindowProvide
 
     private final Provider<TextFrameDependencies> dependencies;
     private final Provider<SwingInputField> inputFieldProvider;
-    private final EventBus eventBus;
     private final InputTextFramePasteActionFactory inputTextFramePasteActionFactory;
 
     @Inject
     public CustomInputFrameFactory(
-            final EventBus eventBus,
             final InputTextFramePasteActionFactory inputTextFramePasteActionFactory,
             final Provider<TextFrameDependencies> dependencies,
             final Provider<SwingInputField> inputFieldProvider) {
-        this.eventBus = eventBus;
         this.dependencies = dependencies;
         this.inputFieldProvider = inputFieldProvider;
         this.inputTextFramePasteActionFactory = inputTextFramePasteActionFactory;
@@ -60,7 +56,6 @@ public class CustomInputFrameFactory implements SwingWindowFactory.WindowProvide
     public TextFrame getWindow(final WindowModel container) {
         final CustomInputFrame frame = new CustomInputFrame(dependencies.get(), inputFieldProvider,
                 inputTextFramePasteActionFactory, container);
-        eventBus.subscribe(frame);
         return frame;
     }
 
@@ -28,6 +28,7 @@ import com.dmdirc.addons.ui_swing.components.inputfields.SwingInputField;
 import com.dmdirc.addons.ui_swing.components.inputfields.SwingInputHandler;
 import com.dmdirc.config.binding.ConfigBinding;
 import com.dmdirc.interfaces.CommandController;
+import com.dmdirc.events.FrameClosingEvent;
 import com.dmdirc.events.eventbus.EventBus;
 import com.dmdirc.interfaces.WindowModel;
 import com.dmdirc.plugins.ServiceManager;
@@ -263,6 +264,13 @@ public abstract class InputTextFrame extends TextFrame implements MouseListener
         inputField.requestFocusInWindow();
     }
 
+    @Override
+    public void windowClosing(final FrameClosingEvent event) {
+        awayLabel.close();
+        typingLabel.close();
+        super.windowClosing(event);
+    }
+
     @Override
     public void dispose() {
         getInputField().removeMouseListener(this);
@@ -157,13 +157,10 @@ public final class ServerFrame extends InputTextFrame {
     }
 
     @Override
-    @Handler(invocation = EdtHandlerInvocation.class)
     public void windowClosing(final FrameClosingEvent event) {
-        if (event.getSource().equals(frameParent)) {
-            connection.getWindowModel().getEventBus().unsubscribe(this);
-            dialogProvider.dispose(connection);
-            super.windowClosing(event);
-        }
+        connection.getWindowModel().getEventBus().unsubscribe(this);
+        dialogProvider.dispose(connection);
+        super.windowClosing(event);
     }
 
     @Override
@@ -17,7 +17,6 @@
 
 package com.dmdirc.addons.ui_swing.components.frames;
 
-import com.dmdirc.addons.ui_swing.EdtHandlerInvocation;
 import com.dmdirc.addons.ui_swing.SwingController;
 import com.dmdirc.addons.ui_swing.UIUtilities;
 import com.dmdirc.addons.ui_swing.actions.InputFieldCopyAction;
@@ -28,6 +27,7 @@ import com.dmdirc.addons.ui_swing.components.SwingSearchBarFactory;
 import com.dmdirc.addons.ui_swing.dialogs.paste.PasteDialogFactory;
 import com.dmdirc.addons.ui_swing.events.SwingActiveWindowChangeRequestEvent;
 import com.dmdirc.addons.ui_swing.events.SwingEventBus;
+import com.dmdirc.addons.ui_swing.events.WindowEventRouter;
 import com.dmdirc.addons.ui_swing.interfaces.ActiveFrameManager;
 import com.dmdirc.addons.ui_swing.textpane.ClickTypeValue;
 import com.dmdirc.addons.ui_swing.textpane.MouseEventType;
@@ -75,7 +75,6 @@ import javax.swing.JPopupMenu;
 import javax.swing.JSeparator;
 import javax.swing.KeyStroke;
 import javax.swing.SwingUtilities;
-import net.engio.mbassy.listener.Handler;
 import net.miginfocom.swing.MigLayout;
 
 /**
@@ -104,6 +103,10 @@ public abstract class TextFrame extends JPanel implements TextPaneListener {
     /** Clipboard to copy and paste from. */
     private final Clipboard clipboard;
     private final IconManager iconManager;
+    /** Router to receive events for this frame's window from. */
+    private final WindowEventRouter windowEventRouter;
+    /** Subscription for this frame's closing event. */
+    private WindowEventRouter.Subscription closingSubscription;
     /** Boolean to determine if this frame should be popped out of main client. */
     private boolean popout;
     /** DesktopWindowFrame to use for this TextFrame if it is to be popped out of the client. */
@@ -130,6 +133,7 @@ public abstract class TextFrame extends JPanel implements TextPaneListener {
         this.clipboard = deps.clipboard;
         this.colourManager = deps.colourManagerFactory.getColourManager(owner.getConfigManager());
         this.iconManager = deps.iconManager;
+        this.windowEventRouter = deps.windowEventRouter;
 
         initComponents(deps.textPaneFactory, deps.searchBarFactory);
         setFocusable(true);
@@ -142,6 +146,8 @@ public abstract class TextFrame extends JPanel implements TextPaneListener {
     public void init() {
         getContainer().getConfigManager().getBinder().bind(this, TextFrame.class);
         getTextPane().addTextPaneListener(this);
+        closingSubscription = windowEventRouter.subscribeOnEdt(FrameClosingEvent.class,
+                getContainer(), this::windowClosing);
     }
 
     /**
@@ -478,15 +484,18 @@ public abstract class TextFrame extends JPanel implements TextPaneListener {
                 colourManager.getColourFromString(value, null)));
     }
 
-    @Handler(invocation = EdtHandlerInvocation.class)
+    /**
+     * Called on the EDT when this frame's window is closing.
+     *
+     * @param event The closing event.
+     */
     public void windowClosing(final FrameClosingEvent event) {
-        if (event.getSource().equals(getContainer())) {
-            if (popout) {
-                setPopout(false);
-            }
-            setVisible(false);
-            getTextPane().close();
+        closingSubscription.unsubscribe();
+        if (popout) {
+            setPopout(false);
         }
+        setVisible(false);
+        getTextPane().close();
     }
 
     /** Disposes of this window, removing any listeners. */
@@ -518,6 +527,7 @@ public abstract class TextFrame extends JPanel implements TextPaneListener {
         final TabCompleterUtils tabCompleterUtils;
         final SwingSearchBarFactory searchBarFactory;
         final IconManager iconManager;
+        final WindowEventRouter windowEventRouter;
 
         @Inject
         public TextFrameDependencies(
@@ -535,7 +545,8 @@ public abstract class TextFrame extends JPanel implements TextPaneListener {
                 final SwingEventBus swingEventBus,
                 final TabCompleterUtils tabCompleterUtils,
                 final SwingSearchBarFactory searchBarFactory,
-                final IconManager iconManager) {
+                final IconManager iconManager,
+                final WindowEventRouter windowEventRouter) {
             this.textPaneFactory = textPaneFactory;
             this.controller = controller;
             this.popupManager = popupManager;
@@ -551,6 +562,7 @@ public abstract class TextFrame extends JPanel implements TextPaneListener {
             this.tabCompleterUtils = tabCompleterUtils;
             this.searchBarFactory = searchBarFactory;
             this.iconManager = iconManager;
+            this.windowEventRouter = windowEventRouter;
         }
 
     }
@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.ui_swing.dialogs.channellist;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+
+/**
+ * Sorts and filters the rows of a {@link ChannelListTableModel}.
+ *
+ * <p>Unlike {@link javax.swing.table.TableRowSorter}, this keeps every row of the model in sorted
+ * order at all times, so inserted batches are sorted on their own and merged in, and changing the
+ * filter only needs a single pass over the store's prebuilt search index. When a filter is
+ * narrowed, only the rows that matched the previous filter are checked.
+ */
+public class ChannelListSorter extends RowSorter<ChannelListTableModel> {
+
+    /** The model being sorted. */
+    private final ChannelListTableModel model;
+    /** The model's backing store. */
+    private final ChannelListStore store;
+    /** Every row in the model, in sorted order. */
+    private int[] sorted = new int[0];
+    /** The rows that match the filter, in sorted order. */
+    private int[] viewToModel = new int[0];
+    /** The number of rows that match the filter. */
+    private int viewCount;
+    /** The view index of each model row, or -1 if it's filtered out. Built on demand. */
+    private int[] modelToView;
+    /** The current sort key, if any. */
+    private SortKey sortKey;
+    /** The current lower-case filter, or an empty string to show all rows. */
+    private String filter = "";
+
+    /**
+     * Creates a new sorter for the given model.
+     *
+     * @param model The model to sort.
+     */
+    public ChannelListSorter(final ChannelListTableModel model) {
+        this.model = model;
+        this.store = model.getStore();
+        rebuild();
+    }
+
+    @Override
+    public ChannelListTableModel getModel() {
+        return model;
+    }
+
+    /**
+     * Sets the text that rows must contain in their name or topic to be shown.
+     *
+     * @param text The text to filter by, or an empty string to show all rows.
+     */
+    public void setFilter(final String text) {
+        final String newFilter = text.toLowerCase(Locale.ROOT);
+        if (newFilter.equals(filter)) {
+            return;
+        }
+        final int[] oldViewToModel = getViewToModel();
+        final boolean narrowed = newFilter.contains(filter);
+        filter = newFilter;
+        if (narrowed) {
+            viewCount = filter(viewToModel, viewCount, viewToModel);
+        } else {
+            viewToModel = new int[sorted.length];
+            viewCount = filter(sorted, sorted.length, viewToModel);
+        }
+        modelToView = null;
+        fireRowSorterChanged(oldViewToModel);
+    }
+
+    public String getFilter() {
+        return filter;
+    }
+
+    @Override
+    public void toggleSortOrder(final int column) {
+        final SortOrder order = sortKey != null && sortKey.getColumn() == column
+                && sortKey.getSortOrder() == SortOrder.ASCENDING
+                ? SortOrder.DESCENDING : SortOrder.ASCENDING;
+        setSortKeys(Collections.singletonList(new SortKey(column, order)));
+    }
+
+    @Override
+    public void setSortKeys(final List<? extends SortKey> keys) {
+        final SortKey newKey = keys == null || keys.isEmpty() ? null : keys.get(0);
+        if (newKey != null && newKey.getSortOrder() == SortOrder.UNSORTED) {
+            setSortKeys(null);
+            return;
+        }
+        if (newKey == null ? sortKey == null : newKey.equals(sortKey)) {
+            return;
+        }
+        final int[] oldViewToModel = getViewToModel();
+        sortKey = newKey;
+        fireSortOrderChanged();
+        rebuild();
+        fireRowSorterChanged(oldViewToModel);
+    }
+
+    @Override
+    public List<? extends SortKey> getSortKeys() {
+        return sortKey == null ? Collections.<SortKey>emptyList()
+                : Collections.singletonList(sortKey);
+    }
+
+    @Override
+    public int convertRowIndexToModel(final int index) {
+        if (index < 0 || index >= viewCount) {
+            throw new IndexOutOfBoundsException("Invalid view index: " + index);
+        }
+        return viewToModel[index];
+    }
+
+    @Override
+    public int convertRowIndexToView(final int index) {
+        if (index < 0 || index >= sorted.length) {
+            throw new IndexOutOfBoundsException("Invalid model index: " + index);
+        }
+        if (modelToView == null) {
+            modelToView = new int[sorted.length];
+            Arrays.fill(modelToView, -1);
+            for (int i = 0; i < viewCount; i++) {
+                modelToView[viewToModel[i]] = i;
+            }
+        }
+        return modelToView[index];
+    }
+
+    @Override
+    public int getViewRowCount() {
+        return viewCount;
+    }
+
+    @Override
+    public int getModelRowCount() {
+        return store.size();
+    }
+
+    @Override
+    public void modelStructureChanged() {
+        allRowsChanged();
+    }
+
+    @Override
+    public void allRowsChanged() {
+        final int[] oldViewToModel = getViewToModel();
+        rebuild();
+        fireRowSorterChanged(oldViewToModel);
+    }
+
+    @Override
+    public void rowsInserted(final int firstRow, final int endRow) {
+        if (firstRow != sorted.length || endRow != store.size() - 1) {
+            // Rows are only ever appended to the store, so anything else needs a full rebuild.
+            allRowsChanged();
+            return;
+        }
+        final int[] oldViewToModel = getViewToModel();
+        final int[] added = new int[endRow - firstRow + 1];
+        for (int i = 0; i < added.length; i++) {
+            added[i] = firstRow + i;
+        }
+        sort(added);
+        sorted = merge(sorted, sorted.length, added, added.length);
+        final int[] matching = new int[added.length];
+        final int matched = filter(added, added.length, matching);
+        viewToModel = merge(viewToModel, viewCount, matching, matched);
+        viewCount += matched;
+        modelToView = null;
+        fireRowSorterChanged(oldViewToModel);
+    }
+
+    @Override
+    public void rowsDeleted(final int firstRow, final int endRow) {
+        allRowsChanged();
+    }
+
+    @Override
+    public void rowsUpdated(final int firstRow, final int endRow) {
+        allRowsChanged();
+    }
+
+    @Override
+    public void rowsUpdated(final int firstRow, final int endRow, final int column) {
+        allRowsChanged();
+    }
+
+    /**
+     * Re-sorts and re-filters every row in the model.
+     */
+    private void rebuild() {
+        sorted = new int[store.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = i;
+        }
+        sort(sorted);
+        viewToModel = new int[sorted.length];
+        viewCount = filter(sorted, sorted.length, viewToModel);
+        modelToView = null;
+    }
+
+    /**
+     * Copies the rows that match the current filter.
+     *
+     * @param rows   The rows to filter.
+     * @param length The number of rows to filter.
+     * @param target The array to copy matching rows into. May be the same as {@code rows}.
+     *
+     * @return The number of matching rows.
+     */
+    private int filter(final int[] rows, final int length, final int[] target) {
+        if (filter.isEmpty()) {
+            System.arraycopy(rows, 0, target, 0, length);
+            return length;
+        }
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            if (store.matches(rows[i], filter)) {
+                target[count++] = rows[i];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Sorts rows in place using the current sort key.
+     *
+     * @param rows The rows to sort.
+     */
+    private void sort(final int[] rows) {
+        if (sortKey == null) {
+            return;
+        }
+        final Integer[] boxed = new Integer[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            boxed[i] = rows[i];
+        }
+        Arrays.sort(boxed, this::compare);
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = boxed[i];
+        }
+    }
+
+    /**
+     * Merges two sorted runs of rows.
+     *
+     * @param first        The first run.
+     * @param firstLength  The number of rows in the first run.
+     * @param second       The second run.
+     * @param secondLength The number of rows in the second run.
+     *
+     * @return A new array containing both runs, in sorted order.
+     */
+    private int[] merge(final int[] first, final int firstLength, final int[] second,
+            final int secondLength) {
+        final int[] result = new int[Math.max(first.length, firstLength + secondLength)];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < firstLength && j < secondLength) {
+            result[k++] = compare(first[i], second[j]) <= 0 ? first[i++] : second[j++];
+        }
+        while (i < firstLength) {
+            result[k++] = first[i++];
+        }
+        while (j < secondLength) {
+            result[k++] = second[j++];
+        }
+        return result;
+    }
+
+    /**
+     * Compares two model rows using the current sort key, falling back to their position in the
+     * model so the order is always stable.
+     *
+     * @param row1 The first row.
+     * @param row2 The second row.
+     *
+     * @return The result of the comparison.
+     */
+    private int compare(final int row1, final int row2) {
+        if (sortKey != null) {
+            final int result = store.compare(sortKey.getColumn(), row1, row2);
+            if (result != 0) {
+                return sortKey.getSortOrder() == SortOrder.DESCENDING ? -result : result;
+            }
+        }
+        return Integer.compare(row1, row2);
+    }
+
+    private int[] getViewToModel() {
+        return Arrays.copyOf(viewToModel, viewCount);
+    }
+
+}
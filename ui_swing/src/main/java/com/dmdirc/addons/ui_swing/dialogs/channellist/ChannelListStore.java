@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.ui_swing.dialogs.channellist;
+
+import com.dmdirc.lists.GroupListEntry;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Column-oriented store of channel list results.
+ *
+ * <p>Names, user counts and topics are each held in their own array, alongside a prebuilt
+ * lower-case search string for every row, so filtering and sorting tens of thousands of rows never
+ * has to touch the original entries or re-process their topics. Rows are only ever appended, or
+ * all removed at once. The store is not thread safe, and is expected to be confined to the EDT.
+ */
+public class ChannelListStore {
+
+    /** The initial capacity of the store. */
+    private static final int INITIAL_CAPACITY = 1024;
+    /** The entries each row was created from. */
+    private GroupListEntry[] entries = new GroupListEntry[INITIAL_CAPACITY];
+    /** The name of each row. */
+    private String[] names = new String[INITIAL_CAPACITY];
+    /** The user count of each row. */
+    private int[] users = new int[INITIAL_CAPACITY];
+    /** The topic of each row. */
+    private String[] topics = new String[INITIAL_CAPACITY];
+    /** The lower-case search string of each row. */
+    private String[] index = new String[INITIAL_CAPACITY];
+    /** The number of rows in the store. */
+    private int size;
+
+    /**
+     * Builds the search string for an entry. This may be called on any thread.
+     *
+     * @param entry The entry to index.
+     *
+     * @return The string to search when filtering for the entry.
+     */
+    public static String index(final GroupListEntry entry) {
+        return (nullToEmpty(entry.getName()) + '\n' + nullToEmpty(entry.getTopic()))
+                .toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Appends rows to the store.
+     *
+     * @param newEntries The entries to add.
+     * @param newIndex   The search string for each entry, as built by {@link #index}.
+     */
+    public void addAll(final List<GroupListEntry> newEntries, final List<String> newIndex) {
+        ensureCapacity(size + newEntries.size());
+        for (int i = 0; i < newEntries.size(); i++) {
+            final GroupListEntry entry = newEntries.get(i);
+            entries[size] = entry;
+            names[size] = nullToEmpty(entry.getName());
+            users[size] = entry.getUsers();
+            topics[size] = nullToEmpty(entry.getTopic());
+            index[size] = newIndex.get(i);
+            size++;
+        }
+    }
+
+    /**
+     * Removes all rows from the store.
+     */
+    public void clear() {
+        Arrays.fill(entries, 0, size, null);
+        Arrays.fill(names, 0, size, null);
+        Arrays.fill(topics, 0, size, null);
+        Arrays.fill(index, 0, size, null);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public GroupListEntry getEntry(final int row) {
+        return entries[row];
+    }
+
+    public String getName(final int row) {
+        return names[row];
+    }
+
+    public int getUsers(final int row) {
+        return users[row];
+    }
+
+    public String getTopic(final int row) {
+        return topics[row];
+    }
+
+    /**
+     * Determines if a row matches a filter.
+     *
+     * @param row    The row to check.
+     * @param filter The lower-case text to look for in the row's name or topic.
+     *
+     * @return True if the row's name or topic contains the filter.
+     */
+    public boolean matches(final int row, final String filter) {
+        return index[row].contains(filter);
+    }
+
+    /**
+     * Compares two rows by the value in the given column.
+     *
+     * @param column The column to compare.
+     * @param row1   The first row.
+     * @param row2   The second row.
+     *
+     * @return A negative number, zero, or a positive number if the first row is less than, equal
+     * to, or greater than the second.
+     */
+    public int compare(final int column, final int row1, final int row2) {
+        switch (column) {
+            case 0:
+                return String.CASE_INSENSITIVE_ORDER.compare(names[row1], names[row2]);
+            case 1:
+                return Integer.compare(users[row1], users[row2]);
+            case 2:
+                return String.CASE_INSENSITIVE_ORDER.compare(topics[row1], topics[row2]);
+            default:
+                return 0;
+        }
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity > entries.length) {
+            final int newCapacity = Math.max(capacity, entries.length * 2);
+            entries = Arrays.copyOf(entries, newCapacity);
+            names = Arrays.copyOf(names, newCapacity);
+            users = Arrays.copyOf(users, newCapacity);
+            topics = Arrays.copyOf(topics, newCapacity);
+            index = Arrays.copyOf(index, newCapacity);
+        }
+    }
+
+    private static String nullToEmpty(final String value) {
+        return value == null ? "" : value;
+    }
+
+}
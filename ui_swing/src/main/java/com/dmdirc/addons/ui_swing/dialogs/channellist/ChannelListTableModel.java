@@ -17,17 +17,34 @@
 
 package com.dmdirc.addons.ui_swing.dialogs.channellist;
 
-import com.dmdirc.addons.ui_swing.adapters.ObservableListTableModelAdapter;
+import com.dmdirc.addons.ui_swing.UIUtilities;
 import com.dmdirc.lists.GroupListEntry;
 import com.dmdirc.lists.GroupListManager;
+import com.dmdirc.util.collections.ListObserver;
+import com.dmdirc.util.collections.ObservableList;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.Timer;
+import javax.swing.table.AbstractTableModel;
 
 /**
  * Table model for channel list results.
+ *
+ * <p>Results arrive one at a time from the server. Rather than firing a table event for each one,
+ * they are indexed and buffered on the thread that receives them, and appended to a
+ * {@link ChannelListStore} on the EDT in batches at most every {@link #BATCH_INTERVAL}
+ * milliseconds.
  */
-public class ChannelListTableModel extends ObservableListTableModelAdapter<GroupListEntry> {
+public class ChannelListTableModel extends AbstractTableModel {
 
     /** Serial version UID. */
     private static final long serialVersionUID = 1L;
+    /** The time to wait between publishing batches of results, in milliseconds. */
+    private static final int BATCH_INTERVAL = 100;
     /** The names to use for the model's columns. */
     private static final String[] COLUMN_NAMES = new String[]{
         "Name", "Users", "Topic"
@@ -37,6 +54,22 @@ public class ChannelListTableModel extends ObservableListTableModelAdapter<Group
     private static final Class[] COLUMN_TYPES = new Class[]{
         String.class, Integer.class, String.class
     };
+    /** The results shown in the table. */
+    private final ChannelListStore store = new ChannelListStore();
+    /** The list of results being monitored. */
+    private final ObservableList<GroupListEntry> list;
+    /** Timer used to publish pending results. */
+    private final Timer timer;
+    /** Lock guarding the pending results. */
+    private final Object pendingLock = new Object();
+    /** Results waiting to be published. */
+    private List<GroupListEntry> pendingEntries = new ArrayList<>();
+    /** Search strings for the results waiting to be published. */
+    private List<String> pendingIndex = new ArrayList<>();
+    /** Whether the published results need to be discarded before the pending ones are added. */
+    private boolean pendingReset;
+    /** Whether a publish has been scheduled. */
+    private boolean scheduled;
 
     /**
      * Creates a new table model backed by the given manager.
@@ -44,7 +77,17 @@ public class ChannelListTableModel extends ObservableListTableModelAdapter<Group
      * @param manager The manager to use to retrieve group list entries.
      */
     public ChannelListTableModel(final GroupListManager manager) {
-        super(manager.getGroups());
+        list = manager.getGroups();
+        timer = new Timer(BATCH_INTERVAL, e -> publish());
+        timer.setRepeats(false);
+        list.addListListener(new Listener());
+        reload();
+        publish();
+    }
+
+    @Override
+    public int getRowCount() {
+        return store.size();
     }
 
     @Override
@@ -54,15 +97,13 @@ public class ChannelListTableModel extends ObservableListTableModelAdapter<Group
 
     @Override
     public Object getValueAt(final int rowIndex, final int columnIndex) {
-        final GroupListEntry entry = list.get(rowIndex);
-
         switch (columnIndex) {
             case 0:
-                return entry.getName();
+                return store.getName(rowIndex);
             case 1:
-                return entry.getUsers();
+                return store.getUsers(rowIndex);
             case 2:
-                return entry.getTopic();
+                return store.getTopic(rowIndex);
         }
 
         return null;
@@ -86,7 +127,108 @@ public class ChannelListTableModel extends ObservableListTableModelAdapter<Group
      * @return Group list entry
      */
     public GroupListEntry getGroupListEntry(final int row) {
-        return list.get(row);
+        return store.getEntry(row);
+    }
+
+    /**
+     * Returns the store holding the model's results.
+     *
+     * @return The model's backing store.
+     */
+    public ChannelListStore getStore() {
+        return store;
+    }
+
+    /**
+     * Queues results to be published.
+     *
+     * @param start The index of the first new result in the list.
+     * @param end   The index of the last new result in the list, inclusive.
+     */
+    private void add(final int start, final int end) {
+        final int last = Math.min(end, list.size() - 1);
+        synchronized (pendingLock) {
+            for (int i = start; i <= last; i++) {
+                final GroupListEntry entry = list.get(i);
+                pendingEntries.add(entry);
+                pendingIndex.add(ChannelListStore.index(entry));
+            }
+            schedule();
+        }
+    }
+
+    /**
+     * Discards all results, published or pending, and queues the list's current contents.
+     */
+    private void reload() {
+        synchronized (pendingLock) {
+            pendingReset = true;
+            pendingEntries.clear();
+            pendingIndex.clear();
+            scheduled = false;
+            add(0, list.size() - 1);
+        }
+    }
+
+    private void schedule() {
+        if (!scheduled) {
+            scheduled = true;
+            UIUtilities.invokeLater(timer::restart);
+        }
+    }
+
+    /**
+     * Moves all pending results into the store, and notifies listeners. Must be called on the EDT.
+     */
+    @VisibleForTesting
+    void publish() {
+        final List<GroupListEntry> entries;
+        final List<String> index;
+        final boolean reset;
+        synchronized (pendingLock) {
+            entries = pendingEntries;
+            index = pendingIndex;
+            reset = pendingReset;
+            pendingEntries = new ArrayList<>();
+            pendingIndex = new ArrayList<>();
+            pendingReset = false;
+            scheduled = false;
+        }
+
+        if (reset) {
+            store.clear();
+            store.addAll(entries, index);
+            fireTableDataChanged();
+        } else if (!entries.isEmpty()) {
+            final int first = store.size();
+            store.addAll(entries, index);
+            fireTableRowsInserted(first, store.size() - 1);
+        }
+    }
+
+    /**
+     * Buffers changes to the list of results.
+     */
+    private class Listener implements ListObserver {
+
+        @Override
+        public void onItemsAdded(final Object source, final int startIndex,
+                final int endIndex) {
+            add(startIndex, endIndex);
+        }
+
+        @Override
+        public void onItemsRemoved(final Object source, final int startIndex,
+                final int endIndex) {
+            reload();
+        }
+
+        @Override
+        public void onItemsChanged(final Object source, final int startIndex,
+                final int endIndex) {
+            reload();
+        }
+
     }
 
 }
@@ -17,6 +17,7 @@
 
 package com.dmdirc.addons.ui_swing.dialogs.channellist;
 
+import com.dmdirc.addons.ui_swing.components.ConsumerDocumentListener;
 import com.dmdirc.addons.ui_swing.components.PackingTable;
 import com.dmdirc.lists.GroupListManager;
 
@@ -26,9 +27,11 @@ import java.awt.event.MouseListener;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.event.RowSorterEvent;
+import javax.swing.event.RowSorterListener;
 import javax.swing.event.TableModelEvent;
 import javax.swing.event.TableModelListener;
-import javax.swing.table.TableModel;
 
 import net.miginfocom.swing.MigLayout;
 
@@ -36,7 +39,7 @@ import net.miginfocom.swing.MigLayout;
  * Displays the results of a group list search in a table.
  */
 public class ResultsPanel extends JPanel implements TableModelListener,
-        MouseListener {
+        RowSorterListener, MouseListener {
 
     /** Serial version UID. */
     private static final long serialVersionUID = 1L;
@@ -48,6 +51,8 @@ public class ResultsPanel extends JPanel implements TableModelListener,
     private PackingTable table;
     /** Results table model. */
     private ChannelListTableModel model;
+    /** Results table sorter and filter. */
+    private ChannelListSorter sorter;
 
     /**
      * Creates a new panel to show group list results.
@@ -67,24 +72,45 @@ public class ResultsPanel extends JPanel implements TableModelListener,
         final JScrollPane sp = new JScrollPane();
         table = new PackingTable(model, sp);
         table.addMouseListener(this);
-        table.setAutoCreateRowSorter(true);
+        sorter = new ChannelListSorter(model);
+        sorter.addRowSorterListener(this);
+        table.setRowSorter(sorter);
         model.addTableModelListener(this);
         sp.setViewportView(table);
+        final JTextField filter = new JTextField();
+        filter.getDocument().addDocumentListener(
+                new ConsumerDocumentListener(sorter::setFilter));
         setLayout(new MigLayout("fill, hidemode 3, ins 0"));
+        add(new JLabel("Filter: "), "split 2, align label");
+        add(filter, "growx, pushx, wrap");
         add(sp, "grow, push");
     }
 
     @Override
     public void tableChanged(final TableModelEvent e) {
-        total.setText("Total: " + ((TableModel) e.getSource()).getRowCount());
+        updateTotal();
+    }
+
+    @Override
+    public void sorterChanged(final RowSorterEvent e) {
+        updateTotal();
+    }
+
+    /** Updates the total label with the number of results shown. */
+    private void updateTotal() {
+        if (sorter.getFilter().isEmpty()) {
+            total.setText("Total: " + model.getRowCount());
+        } else {
+            total.setText("Showing: " + sorter.getViewRowCount() + " of " + model.getRowCount());
+        }
     }
 
     @Override
     public void mouseClicked(final MouseEvent e) {
         if (e.getClickCount() == 2) {
-            final int index = table.getRowSorter().convertRowIndexToModel(
-                    table.getSelectedRow());
-            if (index != -1) {
+            final int selected = table.getSelectedRow();
+            if (selected != -1) {
+                final int index = sorter.convertRowIndexToModel(selected);
                 manager.joinGroupListEntry(model.getGroupListEntry(index));
             }
         }
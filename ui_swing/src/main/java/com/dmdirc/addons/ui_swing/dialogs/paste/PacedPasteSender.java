@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.ui_swing.dialogs.paste;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Sends the lines of a multi-line paste in the background, pacing them so the server doesn't
+ * disconnect us for flooding.
+ *
+ * <p>Lines are limited by two token buckets: one counting lines and one counting bytes. Both allow
+ * a short burst before settling to their sustained rate. Rather than sleeping, the sender
+ * schedules itself to run again when the next line is allowed, so it can be cancelled at any
+ * point.
+ */
+public class PacedPasteSender {
+
+    /** Executor to send lines on. */
+    private final ScheduledExecutorService executorService;
+    /** The lines to send. */
+    private final List<String> lines;
+    /** Consumer that actually sends each line. */
+    private final Consumer<String> sender;
+    /** Listener to inform of progress. */
+    private final Listener listener;
+    /** Rate limit for the number of lines sent. */
+    private final Bucket lineBucket;
+    /** Rate limit for the number of bytes sent. */
+    private final Bucket byteBucket;
+    /** The index of the next line to send. */
+    private int next;
+    /** Whether the paste has been cancelled. */
+    private boolean cancelled;
+    /** The next scheduled send, if any. */
+    private ScheduledFuture<?> future;
+
+    /**
+     * Creates a new sender.
+     *
+     * @param executorService Executor to send lines on.
+     * @param clock           Supplier of the current time, in milliseconds.
+     * @param lines           The lines to send.
+     * @param sender          Consumer that actually sends each line.
+     * @param listener        Listener to inform of progress.
+     * @param linesPerSecond  The sustained number of lines to send each second.
+     * @param bytesPerSecond  The sustained number of bytes to send each second.
+     * @param burst           The number of lines that may be sent in a burst.
+     */
+    public PacedPasteSender(final ScheduledExecutorService executorService,
+            final LongSupplier clock, final List<String> lines, final Consumer<String> sender,
+            final Listener listener, final int linesPerSecond, final int bytesPerSecond,
+            final int burst) {
+        this.executorService = executorService;
+        this.lines = new ArrayList<>(lines);
+        this.sender = sender;
+        this.listener = listener;
+        lineBucket = new Bucket(clock, linesPerSecond, burst);
+        byteBucket = new Bucket(clock, bytesPerSecond,
+                (double) bytesPerSecond * Math.max(1, burst) / Math.max(1, linesPerSecond));
+    }
+
+    /**
+     * Starts sending lines in the background.
+     */
+    public synchronized void start() {
+        future = executorService.schedule(this::send, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops sending lines. Any lines already sent are not affected.
+     */
+    public void cancel() {
+        synchronized (this) {
+            if (cancelled || next >= lines.size()) {
+                return;
+            }
+            cancelled = true;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+        listener.finished(true);
+    }
+
+    /**
+     * Gets the number of lines that will be sent.
+     *
+     * @return The total number of lines in the paste.
+     */
+    public int getTotal() {
+        return lines.size();
+    }
+
+    /**
+     * Gets the number of lines that have been sent so far.
+     *
+     * @return The number of lines sent.
+     */
+    public synchronized int getSent() {
+        return next;
+    }
+
+    /**
+     * Sends as many lines as the rate limits allow, then schedules itself to send the rest.
+     */
+    void send() {
+        while (true) {
+            final String line;
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                if (next >= lines.size()) {
+                    break;
+                }
+                line = lines.get(next);
+                final double bytes = getByteLength(line);
+                final long delay = Math.max(lineBucket.getDelay(1), byteBucket.getDelay(bytes));
+                if (delay > 0) {
+                    future = executorService.schedule(this::send, delay, TimeUnit.MILLISECONDS);
+                    return;
+                }
+                lineBucket.take(1);
+                byteBucket.take(bytes);
+                next++;
+            }
+            sender.accept(line);
+            listener.progress(getSent(), lines.size());
+        }
+        listener.finished(false);
+    }
+
+    /**
+     * Splits pasted text into the lines to be sent, discarding empty lines.
+     *
+     * @param text       The text that was pasted.
+     * @param wrapLength The maximum number of bytes in each line, or 0 to leave long lines as
+     *                   they are.
+     *
+     * @return The lines to send.
+     */
+    public static List<String> split(final String text, final int wrapLength) {
+        final List<String> result = new ArrayList<>();
+        for (String line : text.split("(\n|\r\n|\r)", Integer.MAX_VALUE)) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (wrapLength > 0) {
+                wrap(line, wrapLength, result);
+            } else {
+                result.add(line);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Wraps a line so that each part is at most the given number of bytes when encoded as UTF-8,
+     * breaking at the last space where possible.
+     *
+     * @param line       The line to wrap.
+     * @param wrapLength The maximum number of bytes in each part.
+     * @param result     The list to add the parts to.
+     */
+    private static void wrap(final String line, final int wrapLength, final List<String> result) {
+        int start = 0;
+        int lastSpace = -1;
+        int bytes = 0;
+        int i = 0;
+        while (i < line.length()) {
+            final int codePoint = line.codePointAt(i);
+            final int width = getByteLength(codePoint);
+            if (bytes + width > wrapLength && i > start) {
+                final int end = lastSpace > start ? lastSpace : i;
+                result.add(line.substring(start, end));
+                start = lastSpace > start ? lastSpace + 1 : end;
+                lastSpace = -1;
+                bytes = getByteLength(line.substring(start, i));
+                continue;
+            }
+            if (codePoint == ' ') {
+                lastSpace = i;
+            }
+            bytes += width;
+            i += Character.charCount(codePoint);
+        }
+        if (start < line.length()) {
+            result.add(line.substring(start));
+        }
+    }
+
+    private static int getByteLength(final String text) {
+        return text.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static int getByteLength(final int codePoint) {
+        if (codePoint < 0x80) {
+            return 1;
+        } else if (codePoint < 0x800) {
+            return 2;
+        } else if (codePoint < 0x10000) {
+            return 3;
+        } else {
+            return 4;
+        }
+    }
+
+    /**
+     * Receives progress updates from a {@link PacedPasteSender}. Methods are called on the
+     * sender's thread.
+     */
+    public interface Listener {
+
+        /**
+         * Called after each line is sent.
+         *
+         * @param sent  The number of lines sent so far.
+         * @param total The total number of lines in the paste.
+         */
+        void progress(int sent, int total);
+
+        /**
+         * Called once the paste has finished, either because all lines were sent or because it
+         * was cancelled.
+         *
+         * @param cancelled True if the paste was cancelled, false otherwise.
+         */
+        void finished(boolean cancelled);
+
+    }
+
+    /**
+     * A token bucket that allows a burst and then refills at a fixed rate.
+     */
+    private static class Bucket {
+
+        /** Supplier of the current time, in milliseconds. */
+        private final LongSupplier clock;
+        /** The maximum number of tokens that can be held. */
+        private final double capacity;
+        /** The number of milliseconds it takes to gain a token. */
+        private final double millisPerToken;
+        /** The number of tokens currently available. */
+        private double tokens;
+        /** The time tokens were last added. */
+        private long lastRefill;
+
+        Bucket(final LongSupplier clock, final int perSecond, final double burst) {
+            this.clock = clock;
+            capacity = Math.max(1, burst);
+            millisPerToken = 1000.0 / Math.max(1, perSecond);
+            tokens = capacity;
+            lastRefill = clock.getAsLong();
+        }
+
+        /**
+         * Calculates how long it will be until the given number of tokens are available. Costs
+         * larger than the bucket only have to wait for it to fill.
+         */
+        long getDelay(final double cost) {
+            refill();
+            final double needed = Math.min(cost, capacity);
+            return tokens >= needed ? 0 : (long) Math.ceil((needed - tokens) * millisPerToken);
+        }
+
+        void take(final double cost) {
+            tokens -= Math.min(cost, capacity);
+        }
+
+        private void refill() {
+            final long now = clock.getAsLong();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) / millisPerToken);
+            lastRefill = now;
+        }
+
+    }
+
+}
@@ -36,10 +36,14 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
 
 import javax.swing.AbstractAction;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JComponent;
+import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
 import javax.swing.KeyStroke;
 import javax.swing.SwingUtilities;
@@ -75,6 +79,16 @@ public final class PasteDialog extends StandardDialog implements ActionListener,
     private final AggregateConfigProvider config;
     /** The controller to use to retrieve command information. */
     private final CommandController commandController;
+    /** Executor to send pasted lines on. */
+    private final ScheduledExecutorService executorService;
+    /** The domain to read paste settings from. */
+    private final String domain;
+    /** Whether to wrap long lines. */
+    private JCheckBox wrapCheckBox;
+    /** Progress of the paste while it's being sent. */
+    private JProgressBar progressBar;
+    /** The sender for the paste, once it has been started. */
+    private PacedPasteSender sender;
 
     /**
      * Creates a new instance of PreferencesDialog.
@@ -87,6 +101,8 @@ public final class PasteDialog extends StandardDialog implements ActionListener,
      * @param newParent         The frame that owns this dialog
      * @param text              text to show in the paste dialog
      * @param parentWindow      Parent window
+     * @param executorService   Executor to send pasted lines on
+     * @param domain            The domain to read paste settings from
      */
     public PasteDialog(
             final IconManager iconManager,
@@ -98,7 +114,9 @@ public final class PasteDialog extends StandardDialog implements ActionListener,
             final String text,
             final Window parentWindow,
             final ColourManagerFactory colourManagerFactory,
-            final TabCompleterUtils tabCompleterUtils) {
+            final TabCompleterUtils tabCompleterUtils,
+            final ScheduledExecutorService executorService,
+            final String domain) {
         super(parentWindow, ModalityType.MODELESS);
 
         parent = newParent;
@@ -107,6 +125,8 @@ public final class PasteDialog extends StandardDialog implements ActionListener,
         this.config = config;
         this.serviceManager = serviceManager;
         this.commandController = commandController;
+        this.executorService = executorService;
+        this.domain = domain;
 
         initComponents(eventBus, text, colourManagerFactory, tabCompleterUtils);
         initListeners();
@@ -131,6 +151,11 @@ public final class PasteDialog extends StandardDialog implements ActionListener,
         textField = new TextAreaInputField(iconManager, colourManagerFactory, config, text);
         editButton = new JButton("Edit");
         infoLabel = new TextLabel();
+        wrapCheckBox = new JCheckBox("Wrap long lines", parent.getContainer().getConfigManager()
+                .getOptionBool(domain, "pasteWrap"));
+        progressBar = new JProgressBar();
+        progressBar.setStringPainted(true);
+        progressBar.setVisible(false);
 
         UIUtilities.addUndoManager(textField);
 
@@ -159,6 +184,8 @@ public final class PasteDialog extends StandardDialog implements ActionListener,
         getContentPane().setLayout(new MigLayout("fill, hidemode 3"));
         getContentPane().add(infoLabel, "wrap, growx, pushx, span 3");
         getContentPane().add(scrollPane, "wrap, grow, push, span 3");
+        getContentPane().add(wrapCheckBox, "wrap, span 3");
+        getContentPane().add(progressBar, "wrap, growx, span 3");
         getContentPane().add(getLeftButton(), "right, sg button");
         getContentPane().add(editButton, "right, sg button");
         getContentPane().add(getRightButton(), "right, sg button");
@@ -208,17 +235,11 @@ public final class PasteDialog extends StandardDialog implements ActionListener,
     @Override
     public void actionPerformed(final ActionEvent actionEvent) {
         if (getOkButton().equals(actionEvent.getSource())) {
-            if (!textField.getText().isEmpty()) {
-                final String[] lines = textField.getText().split("(\n|\r\n|\r)",
-                        Integer.MAX_VALUE);
-                for (final String line : lines) {
-                    if (!line.isEmpty()) {
-                        parent.getContainer().getInputModel().ifPresent(im -> im.sendLine(line));
-                        parent.getInputHandler().addToBuffer(line);
-                    }
-                }
+            if (textField.getText().isEmpty()) {
+                dispose();
+            } else {
+                startSending();
             }
-            dispose();
         } else if (editButton.equals(actionEvent.getSource())) {
             editButton.setEnabled(false);
             setResizable(true);
@@ -234,6 +255,65 @@ public final class PasteDialog extends StandardDialog implements ActionListener,
         }
     }
 
+    /**
+     * Starts sending the paste in the background, and switches the dialog to show its progress.
+     */
+    private void startSending() {
+        final AggregateConfigProvider windowConfig = parent.getContainer().getConfigManager();
+        final List<String> lines = PacedPasteSender.split(textField.getText(),
+                wrapCheckBox.isSelected() ? windowConfig.getOptionInt(domain, "pasteWrapLength")
+                        : 0);
+        lines.forEach(parent.getInputHandler()::addToBuffer);
+
+        sender = new PacedPasteSender(executorService, System::currentTimeMillis, lines,
+                line -> parent.getContainer().getInputModel()
+                        .ifPresent(im -> im.sendLine(line)),
+                new PacedPasteSender.Listener() {
+                    @Override
+                    public void progress(final int sent, final int total) {
+                        UIUtilities.invokeLater(() -> showProgress(sent, total));
+                    }
+
+                    @Override
+                    public void finished(final boolean cancelled) {
+                        UIUtilities.invokeLater(PasteDialog.this::dispose);
+                    }
+                },
+                windowConfig.getOptionInt(domain, "pasteLinesPerSecond"),
+                windowConfig.getOptionInt(domain, "pasteBytesPerSecond"),
+                windowConfig.getOptionInt(domain, "pasteBurst"));
+
+        textField.setEditable(false);
+        editButton.setEnabled(false);
+        getOkButton().setEnabled(false);
+        wrapCheckBox.setEnabled(false);
+        progressBar.setMaximum(sender.getTotal());
+        progressBar.setVisible(true);
+        showProgress(0, sender.getTotal());
+        pack();
+        sender.start();
+    }
+
+    /**
+     * Updates the dialog to show the progress of the paste.
+     *
+     * @param sent  The number of lines sent so far.
+     * @param total The total number of lines in the paste.
+     */
+    private void showProgress(final int sent, final int total) {
+        infoLabel.setText("Sent " + sent + " of " + total + " lines.");
+        progressBar.setValue(sent);
+        progressBar.setString(sent + " / " + total);
+    }
+
+    @Override
+    public void dispose() {
+        if (sender != null) {
+            sender.cancel();
+        }
+        super.dispose();
+    }
+
     @Override
     public void keyTyped(final KeyEvent e) {
         infoLabel.setText("This will be sent as "
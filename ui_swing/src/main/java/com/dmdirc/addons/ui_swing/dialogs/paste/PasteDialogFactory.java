@@ -17,17 +17,21 @@
 
 package com.dmdirc.addons.ui_swing.dialogs.paste;
 
+import com.dmdirc.addons.ui_swing.SwingController;
 import com.dmdirc.addons.ui_swing.components.IconManager;
 import com.dmdirc.addons.ui_swing.components.frames.InputTextFrame;
 import com.dmdirc.config.GlobalConfig;
 import com.dmdirc.interfaces.CommandController;
 import com.dmdirc.events.eventbus.EventBus;
 import com.dmdirc.config.provider.AggregateConfigProvider;
+import com.dmdirc.plugins.PluginDomain;
 import com.dmdirc.plugins.ServiceManager;
 import com.dmdirc.ui.input.TabCompleterUtils;
 import com.dmdirc.ui.messages.ColourManagerFactory;
 import java.awt.Window;
+import java.util.concurrent.ScheduledExecutorService;
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 
 /**
@@ -43,6 +47,8 @@ public class PasteDialogFactory {
     private final EventBus eventBus;
     private final ColourManagerFactory colourManagerFactory;
     private final TabCompleterUtils tabCompleterUtils;
+    private final ScheduledExecutorService executorService;
+    private final String domain;
 
     @Inject
     public PasteDialogFactory(
@@ -52,7 +58,9 @@ public class PasteDialogFactory {
             final CommandController commandController,
             final EventBus eventBus,
             final ColourManagerFactory colourManagerFactory,
-            final TabCompleterUtils tabCompleterUtils) {
+            final TabCompleterUtils tabCompleterUtils,
+            @Named("paste") final ScheduledExecutorService executorService,
+            @PluginDomain(SwingController.class) final String domain) {
         this.iconManager = iconManager;
         this.config = config;
         this.serviceManager = serviceManager;
@@ -60,12 +68,22 @@ public class PasteDialogFactory {
         this.eventBus = eventBus;
         this.colourManagerFactory = colourManagerFactory;
         this.tabCompleterUtils = tabCompleterUtils;
+        this.executorService = executorService;
+        this.domain = domain;
     }
 
     public PasteDialog getPasteDialog(final InputTextFrame newParent, final String text,
             final Window parentWindow) {
         return new PasteDialog(iconManager, config, serviceManager, commandController, eventBus,
-                newParent, text, parentWindow, colourManagerFactory, tabCompleterUtils);
+                newParent, text, parentWindow, colourManagerFactory, tabCompleterUtils,
+                executorService, domain);
+    }
+
+    /**
+     * Stops sending any pastes that are in progress.
+     */
+    public void shutdown() {
+        executorService.shutdownNow();
     }
 
 }
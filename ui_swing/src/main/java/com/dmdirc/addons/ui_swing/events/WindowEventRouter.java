@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.ui_swing.events;
+
+import com.dmdirc.addons.ui_swing.UIUtilities;
+import com.dmdirc.events.FrameClosingEvent;
+import com.dmdirc.events.eventbus.BaseEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import net.engio.mbassy.listener.Handler;
+
+/**
+ * Routes events from the global event bus to handlers registered for a specific window or
+ * channel.
+ *
+ * <p>Rather than every open window subscribing to the global bus and ignoring events for other
+ * windows, the router is subscribed once. Each event type that can be routed has a function that
+ * extracts its target (for example, the window that's closing); the event is then delivered only
+ * to the handlers registered for that target, using a single map lookup.
+ */
+@Singleton
+public class WindowEventRouter {
+
+    /** Placeholder for event types that have no route. */
+    private static final Route<Object> NO_ROUTE = new Route<>(Object.class, e -> null);
+    /**
+     * Functions to extract targets from events, keyed on the event type they were added for. Each
+     * list is replaced rather than modified, and the last route in it is the one used.
+     */
+    private final Map<Class<?>, List<Route<?>>> routes = new ConcurrentHashMap<>();
+    /** Cache of the route to use for each concrete event class. */
+    private final Map<Class<?>, Route<?>> resolvedRoutes = new ConcurrentHashMap<>();
+    /** Registered handlers, keyed on event type and target. */
+    private final Map<Key, List<Subscription>> subscriptions = new ConcurrentHashMap<>();
+
+    @Inject
+    public WindowEventRouter() {
+        addRoute(FrameClosingEvent.class, FrameClosingEvent::getSource);
+    }
+
+    /**
+     * Allows events of the given type to be routed. If several routes are added for the same type,
+     * the most recently added one is used until it is removed.
+     *
+     * @param <T>    The type of event.
+     * @param type   The type of event, including any subclasses.
+     * @param target Function to extract the target window or channel from an event.
+     *
+     * @return A registration that can be used to remove the route.
+     */
+    public <T> RouteRegistration addRoute(final Class<T> type,
+            final Function<? super T, ?> target) {
+        final Route<T> route = new Route<>(type, target);
+        routes.compute(type, (k, list) -> {
+            final List<Route<?>> updated = list == null ? new ArrayList<>() : new ArrayList<>(list);
+            updated.add(route);
+            return updated;
+        });
+        resolvedRoutes.clear();
+        return new RouteRegistration(route);
+    }
+
+    /**
+     * Registers a handler for events of the given type with the given target. The handler is
+     * called on the thread the event was published on.
+     *
+     * @param <T>     The type of event.
+     * @param type    The type of event, which must have been passed to {@link #addRoute}.
+     * @param target  The window or channel to receive events for.
+     * @param handler The handler to call.
+     *
+     * @return A subscription that can be used to remove the handler.
+     */
+    public <T> Subscription subscribe(final Class<T> type, final Object target,
+            final Consumer<? super T> handler) {
+        if (!routes.containsKey(type)) {
+            throw new IllegalArgumentException("No route for " + type.getName());
+        }
+        final Key key = new Key(type, target);
+        final Subscription subscription = new Subscription(key, handler);
+        subscriptions.compute(key, (k, list) -> {
+            final List<Subscription> handlers = list == null ? new CopyOnWriteArrayList<>() : list;
+            handlers.add(subscription);
+            return handlers;
+        });
+        return subscription;
+    }
+
+    /**
+     * Registers a handler for events of the given type with the given target. The handler is
+     * called on the EDT, and the publishing thread waits for it to complete.
+     *
+     * @param <T>     The type of event.
+     * @param type    The type of event, which must have been passed to {@link #addRoute}.
+     * @param target  The window or channel to receive events for.
+     * @param handler The handler to call.
+     *
+     * @return A subscription that can be used to remove the handler.
+     */
+    public <T> Subscription subscribeOnEdt(final Class<T> type, final Object target,
+            final Consumer<? super T> handler) {
+        return subscribe(type, target,
+                (T event) -> UIUtilities.invokeAndWait(() -> handler.accept(event)));
+    }
+
+    /**
+     * Gets the number of handlers currently registered.
+     *
+     * @return The total number of registered handlers.
+     */
+    public int getSubscriptionCount() {
+        return subscriptions.values().stream().mapToInt(List::size).sum();
+    }
+
+    @Handler
+    public void handleEvent(final BaseEvent event) {
+        dispatch(event);
+    }
+
+    /**
+     * Delivers an event to the handlers registered for its target, if it has a route.
+     *
+     * @param event The event to deliver.
+     */
+    public void dispatch(final Object event) {
+        final Route<?> route = resolvedRoutes.computeIfAbsent(event.getClass(), this::resolve);
+        if (route == NO_ROUTE) {
+            return;
+        }
+        final Object target = route.getTarget(event);
+        if (target == null) {
+            return;
+        }
+        final List<Subscription> handlers = subscriptions.get(new Key(route.type, target));
+        if (handlers != null) {
+            handlers.forEach(s -> s.deliver(event));
+        }
+    }
+
+    /**
+     * Finds the route for an event class, by looking for the closest superclass that has one.
+     *
+     * @param eventClass The class of event to find a route for.
+     *
+     * @return The route to use, or {@link #NO_ROUTE}.
+     */
+    private Route<?> resolve(final Class<?> eventClass) {
+        for (Class<?> type = eventClass; type != null; type = type.getSuperclass()) {
+            final List<Route<?>> candidates = routes.get(type);
+            if (candidates != null) {
+                return candidates.get(candidates.size() - 1);
+            }
+        }
+        return NO_ROUTE;
+    }
+
+    /**
+     * A function to extract a target from an event.
+     *
+     * @param <T> The type of event.
+     */
+    private static class Route<T> {
+
+        private final Class<T> type;
+        private final Function<? super T, ?> target;
+
+        Route(final Class<T> type, final Function<? super T, ?> target) {
+            this.type = type;
+            this.target = target;
+        }
+
+        Object getTarget(final Object event) {
+            return target.apply(type.cast(event));
+        }
+
+    }
+
+    /**
+     * Identifies the handlers for a type of event and a target.
+     */
+    private static class Key {
+
+        private final Class<?> type;
+        private final Object target;
+
+        Key(final Class<?> type, final Object target) {
+            this.type = type;
+            this.target = target;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return type == other.type && Objects.equals(target, other.target);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + Objects.hashCode(target);
+        }
+
+    }
+
+    /**
+     * A route added to the router.
+     */
+    public class RouteRegistration {
+
+        private final Route<?> route;
+
+        RouteRegistration(final Route<?> route) {
+            this.route = route;
+        }
+
+        /**
+         * Removes the route from the router. Any other routes for the same type of event, and any
+         * handlers registered for it, are left in place. Has no effect if the route has already
+         * been removed.
+         */
+        public void remove() {
+            routes.computeIfPresent(route.type, (k, list) -> {
+                final List<Route<?>> updated = new ArrayList<>(list);
+                updated.remove(route);
+                return updated.isEmpty() ? null : updated;
+            });
+            resolvedRoutes.clear();
+        }
+
+    }
+
+    /**
+     * A handler registered with the router.
+     */
+    public class Subscription {
+
+        private final Key key;
+        private final Consumer<Object> handler;
+
+        @SuppressWarnings("unchecked")
+        Subscription(final Key key, final Consumer<?> handler) {
+            this.key = key;
+            this.handler = (Consumer<Object>) handler;
+        }
+
+        private void deliver(final Object event) {
+            handler.accept(event);
+        }
+
+        /**
+         * Removes the handler from the router. Has no effect if it has already been removed.
+         */
+        public void unsubscribe() {
+            subscriptions.computeIfPresent(key, (k, list) -> {
+                list.remove(this);
+                return list.isEmpty() ? null : list;
+            });
+        }
+
+    }
+
+}
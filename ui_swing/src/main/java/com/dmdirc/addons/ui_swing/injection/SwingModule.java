@@ -32,6 +32,7 @@ import com.dmdirc.addons.ui_swing.commands.PopInCommand;
 import com.dmdirc.addons.ui_swing.commands.PopOutCommand;
 import com.dmdirc.addons.ui_swing.commands.ServerSettings;
 import com.dmdirc.addons.ui_swing.components.IconManager;
+import com.dmdirc.addons.ui_swing.components.ImageCache;
 import com.dmdirc.addons.ui_swing.components.addonpanel.PluginPanel;
 import com.dmdirc.addons.ui_swing.components.addonpanel.ThemePanel;
 import com.dmdirc.addons.ui_swing.components.statusbar.ErrorPanel;
@@ -59,12 +60,16 @@ import com.dmdirc.plugins.PluginInfo;
 import com.dmdirc.plugins.ServiceLocator;
 import com.dmdirc.plugins.ServiceManager;
 import com.dmdirc.ui.core.util.URLHandler;
+import com.dmdirc.util.LoggingScheduledExecutorService;
 import com.dmdirc.util.URLBuilder;
 import dagger.Module;
 import dagger.Provides;
 import java.awt.Toolkit;
 import java.awt.Window;
 import java.awt.datatransfer.Clipboard;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import javax.inject.Named;
 import javax.inject.Provider;
 import javax.inject.Singleton;
 
@@ -117,6 +122,20 @@ public class SwingModule {
         }
     }
 
+    @Provides
+    @Singleton
+    @Named("imagecache")
+    public ExecutorService getImageCacheExecutor() {
+        return new LoggingScheduledExecutorService(2, "imagecache");
+    }
+
+    @Provides
+    @Singleton
+    @Named("paste")
+    public ScheduledExecutorService getPasteExecutor() {
+        return new LoggingScheduledExecutorService(1, "paste");
+    }
+
     @Provides
     @Singleton
     public MainFrame getMainFrame(
@@ -125,6 +144,7 @@ public class SwingModule {
             @GlobalConfig final AggregateConfigProvider globalConfig,
             final Provider<QuitWorker> quitWorker,
             final URLBuilder urlBuilder,
+            final ImageCache imageCache,
             final Provider<FrameManager> frameManagerProvider,
             final EventBus eventBus,
             final SwingEventBus swingEventBus) {
@@ -133,7 +153,7 @@ public class SwingModule {
                 lifecycleController,
                 globalConfig,
                 quitWorker,
-                new IconManager(globalConfig, urlBuilder),
+                new IconManager(globalConfig, urlBuilder, imageCache),
                 frameManagerProvider,
                 eventBus,
                 swingEventBus));
@@ -19,6 +19,7 @@ package com.dmdirc.addons.ui_swing.textpane;
 
 import com.dmdirc.addons.ui_swing.BackgroundOption;
 import com.dmdirc.addons.ui_swing.UIUtilities;
+import com.dmdirc.addons.ui_swing.components.ImageCache;
 import com.dmdirc.config.binding.ConfigBinding;
 import com.dmdirc.config.provider.AggregateConfigProvider;
 import com.dmdirc.util.URLBuilder;
@@ -26,6 +27,7 @@ import com.dmdirc.util.URLBuilder;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Image;
+import java.net.URL;
 
 import javax.annotation.Nonnull;
 import javax.swing.JComponent;
@@ -63,6 +65,8 @@ public class BackgroundPainter extends LayerUI<JComponent> {
 
     /** The URL builder to use to find icons. */
     private final URLBuilder urlBuilder;
+    /** The cache to load images from. */
+    private final ImageCache imageCache;
     /**
      * Config manager to bind to and retrieve settings from.
      */
@@ -71,6 +75,10 @@ public class BackgroundPainter extends LayerUI<JComponent> {
      * Background image.
      */
     private Image backgroundImage;
+    /**
+     * URL of the background image most recently requested.
+     */
+    private URL backgroundURL;
     /**
      * Background option type.
      */
@@ -85,6 +93,7 @@ public class BackgroundPainter extends LayerUI<JComponent> {
      *
      * @param configManager Config manager to retrieve settings from
      * @param urlBuilder    URL Builder
+     * @param imageCache    Cache to load images from
      * @param domain        Domain to retrieve settings from
      * @param imageKey      Key for background image
      * @param optionKey     Key for background type
@@ -93,10 +102,12 @@ public class BackgroundPainter extends LayerUI<JComponent> {
     public BackgroundPainter(
             final AggregateConfigProvider configManager,
             final URLBuilder urlBuilder,
+            final ImageCache imageCache,
             @Nonnull final String domain, @Nonnull final String imageKey,
             @Nonnull final String optionKey, @Nonnull final String opacityKey) {
         this.configManager = configManager;
         this.urlBuilder = urlBuilder;
+        this.imageCache = imageCache;
         this.domain = domain;
         this.imageKey = imageKey;
         this.optionKey = optionKey;
@@ -136,9 +147,16 @@ public class BackgroundPainter extends LayerUI<JComponent> {
     @ConfigBinding(domain = "plugin-ui_swing", key = "textpanebackground")
     public void updateImage(final String value) {
         if (value == null || value.isEmpty()) {
+            backgroundURL = null;
             backgroundImage = null;
         } else {
-            new ImageLoader(urlBuilder.getUrl(value), this).execute();
+            final URL url = urlBuilder.getUrl(value);
+            backgroundURL = url;
+            imageCache.getImageAsync(url).thenAccept(image -> UIUtilities.invokeLater(() -> {
+                if (url == backgroundURL) {
+                    setBackgroundImage(image);
+                }
+            }));
         }
     }
 
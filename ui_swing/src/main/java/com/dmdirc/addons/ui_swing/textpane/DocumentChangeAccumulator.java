@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.ui_swing.textpane;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.awt.Frame;
+import java.awt.Window;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
+import java.awt.event.WindowEvent;
+import java.awt.event.WindowStateListener;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * Collects document change notifications for a text pane and delivers them to the EDT as a single merged update at
+ * most once per tick.
+ *
+ * <p>While the pane isn't showing, or its window is minimised, updates are held back and merged until it is shown
+ * again, so hidden windows don't do any scrolling or repainting work during a flood.
+ */
+public class DocumentChangeAccumulator implements HierarchyListener, WindowStateListener {
+
+    /** The time to wait between delivering updates, in milliseconds. */
+    private static final int TICK = 16;
+    /** The component the changes are for. */
+    private final JComponent component;
+    /** The consumer to deliver merged updates to, on the EDT. */
+    private final Consumer<Update> consumer;
+    /** Timer used to deliver updates. */
+    private final Timer timer;
+    /** The number of notifications that were merged into an already pending update. */
+    private final AtomicLong coalesced = new AtomicLong();
+    /** The number of updates that were delivered. */
+    private final AtomicLong delivered = new AtomicLong();
+    /** The number of ticks where an update was held back because the component was hidden. */
+    private final AtomicLong deferred = new AtomicLong();
+    /** Whether there is a pending update. */
+    private boolean pending;
+    /** Whether the document has been cleared. */
+    private boolean cleared;
+    /** The total number of lines trimmed from the document. */
+    private int trimmed;
+    /** The latest size of the document. */
+    private int size = -1;
+    /** Whether lines have been added to the document. */
+    private boolean linesAdded;
+    /** Whether a repaint has been requested. */
+    private boolean repaint;
+    /** The window we're listening to for state changes, if any. */
+    private Window watchedWindow;
+
+    /**
+     * Creates a new accumulator.
+     *
+     * @param component The component the changes are for.
+     * @param consumer  The consumer to deliver merged updates to, on the EDT.
+     */
+    public DocumentChangeAccumulator(final JComponent component, final Consumer<Update> consumer) {
+        this.component = component;
+        this.consumer = consumer;
+        timer = new Timer(TICK, e -> deliver());
+        timer.setRepeats(false);
+        component.addHierarchyListener(this);
+    }
+
+    /**
+     * Stops delivering updates and removes any listeners.
+     */
+    public void stop() {
+        timer.stop();
+        component.removeHierarchyListener(this);
+        watchWindow(null);
+    }
+
+    /**
+     * Records that lines have been trimmed from the start of the document.
+     *
+     * @param newSize    The new size of the document.
+     * @param numTrimmed The number of lines trimmed.
+     */
+    public void trimmed(final int newSize, final int numTrimmed) {
+        synchronized (this) {
+            trimmed += numTrimmed;
+            size = newSize;
+        }
+        schedule();
+    }
+
+    /**
+     * Records that the document has been cleared. Any changes made before the document was cleared are discarded.
+     */
+    public void cleared() {
+        synchronized (this) {
+            cleared = true;
+            trimmed = 0;
+            size = 0;
+            linesAdded = false;
+            repaint = true;
+        }
+        schedule();
+    }
+
+    /**
+     * Records that lines have been added to the end of the document.
+     *
+     * @param newSize The new size of the document.
+     */
+    public void linesAdded(final int newSize) {
+        synchronized (this) {
+            linesAdded = true;
+            size = newSize;
+        }
+        schedule();
+    }
+
+    /**
+     * Records that the document needs to be repainted.
+     */
+    public void repaintNeeded() {
+        synchronized (this) {
+            repaint = true;
+        }
+        schedule();
+    }
+
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    public long getDeferred() {
+        return deferred.get();
+    }
+
+    @Override
+    public void hierarchyChanged(final HierarchyEvent e) {
+        if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0 && component.isShowing()) {
+            deliver();
+        }
+    }
+
+    @Override
+    public void windowStateChanged(final WindowEvent e) {
+        if ((e.getNewState() & Frame.ICONIFIED) == 0) {
+            deliver();
+        }
+    }
+
+    /**
+     * Marks an update as pending, and starts the timer if one wasn't already.
+     */
+    private void schedule() {
+        final boolean start;
+        synchronized (this) {
+            start = !pending;
+            pending = true;
+        }
+        if (start) {
+            timer.restart();
+        } else {
+            coalesced.incrementAndGet();
+        }
+    }
+
+    /**
+     * Delivers the pending update, unless the component is hidden.
+     */
+    private void deliver() {
+        if (!isVisibleToUser()) {
+            synchronized (this) {
+                if (pending) {
+                    deferred.incrementAndGet();
+                }
+            }
+            return;
+        }
+
+        final Update update = drain();
+        if (update != null) {
+            delivered.incrementAndGet();
+            consumer.accept(update);
+        }
+    }
+
+    /**
+     * Takes the pending update, resetting the accumulated state.
+     *
+     * @return The pending update, or {@code null} if there isn't one.
+     */
+    @VisibleForTesting
+    synchronized Update drain() {
+        if (!pending) {
+            return null;
+        }
+        final Update update = new Update(cleared, trimmed, size, linesAdded, repaint);
+        pending = false;
+        cleared = false;
+        trimmed = 0;
+        size = -1;
+        linesAdded = false;
+        repaint = false;
+        return update;
+    }
+
+    /**
+     * Determines if the component can currently be seen. If it's in a minimised frame, starts watching the frame so
+     * the pending update can be delivered when it's restored.
+     *
+     * @return True if the component can be seen, false otherwise.
+     */
+    private boolean isVisibleToUser() {
+        if (!component.isShowing()) {
+            return false;
+        }
+        final Window window = SwingUtilities.getWindowAncestor(component);
+        if (window instanceof Frame && (((Frame) window).getExtendedState() & Frame.ICONIFIED) != 0) {
+            watchWindow(window);
+            return false;
+        }
+        return true;
+    }
+
+    private void watchWindow(final Window window) {
+        if (watchedWindow != window) {
+            if (watchedWindow != null) {
+                watchedWindow.removeWindowStateListener(this);
+            }
+            if (window != null) {
+                window.addWindowStateListener(this);
+            }
+            watchedWindow = window;
+        }
+    }
+
+    /**
+     * A merged set of changes to a document.
+     */
+    public static class Update {
+
+        /** Whether the document was cleared before any of the other changes. */
+        private final boolean cleared;
+        /** The number of lines trimmed from the start of the document. */
+        private final int trimmed;
+        /** The size of the document after the changes, or -1 if the size is unchanged. */
+        private final int size;
+        /** Whether lines were added to the end of the document. */
+        private final boolean linesAdded;
+        /** Whether a repaint was requested. */
+        private final boolean repaint;
+
+        public Update(final boolean cleared, final int trimmed, final int size,
+                final boolean linesAdded, final boolean repaint) {
+            this.cleared = cleared;
+            this.trimmed = trimmed;
+            this.size = size;
+            this.linesAdded = linesAdded;
+            this.repaint = repaint;
+        }
+
+        public boolean isCleared() {
+            return cleared;
+        }
+
+        public int getTrimmed() {
+            return trimmed;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public boolean isLinesAdded() {
+            return linesAdded;
+        }
+
+        public boolean isRepaint() {
+            return repaint;
+        }
+
+    }
+
+}
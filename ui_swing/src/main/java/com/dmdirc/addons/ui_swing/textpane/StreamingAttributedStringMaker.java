@@ -0,0 +1,459 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.ui_swing.textpane;
+
+import com.dmdirc.ui.core.util.ExtendedAttributedString;
+import com.dmdirc.ui.messages.IRCTextAttribute;
+import com.dmdirc.ui.messages.StyledMessageMaker;
+import com.dmdirc.util.colours.Colour;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.font.TextAttribute;
+import java.text.AttributedCharacterIterator.Attribute;
+import java.text.AttributedString;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * {@link StyledMessageMaker} that writes attribute runs directly into an {@link AttributedString}.
+ *
+ * <p>This produces the same output as {@link AttributedStringMessageMaker}, but without first building a swing
+ * document for every line. Styles are interned, so each distinct combination of attributes has a single shared
+ * attribute map, and colours and fonts are only converted once.
+ */
+public class StreamingAttributedStringMaker implements StyledMessageMaker<AttributedString> {
+
+    /** The maximum number of distinct styles or colours to cache before starting again. */
+    private static final int MAX_CACHE_SIZE = 1024;
+    /** The style used for text with no attributes. */
+    private static final Style PLAIN = new Style();
+    /** The text of the current message. */
+    private final StringBuilder text = new StringBuilder();
+    /** The styles applied to the current message, one per run of text. */
+    private final List<Style> runStyles = new ArrayList<>();
+    /** The offsets at which each run of text ends. */
+    private final List<Integer> runEnds = new ArrayList<>();
+    /** Cache of interned styles. */
+    private final Map<Style, Style> styles = new HashMap<>();
+    /** Cache of converted colours, keyed on their RGB value. */
+    private final Map<Integer, Color> colours = new HashMap<>();
+    /** The style that will be applied to the next appended text. */
+    private Style style = PLAIN;
+    /** The default foreground colour, if any. */
+    private Color defaultForeground;
+    /** The default background colour, if any. */
+    private Color defaultBackground;
+    /** Whether a link style is active and the text was already underlined when it was applied. */
+    private boolean restoreUnderline;
+    /** The foreground colour to restore when the current link style is removed. */
+    private Color restoreColour;
+    /** The name of the default font. */
+    private String fontName;
+    /** The family of the default font. */
+    private String fontFamily;
+    /** The size of the default font. */
+    private Integer fontSize;
+    /** The maximum line height seen so far. */
+    private int maximumFontSize;
+
+    @Override
+    public AttributedString getStyledMessage() {
+        if (text.length() == 0) {
+            final ExtendedAttributedString attributedString = new ExtendedAttributedString(
+                    new AttributedString("\n"), maximumFontSize);
+            maximumFontSize = attributedString.getMaxLineHeight();
+            return attributedString.getAttributedString();
+        }
+
+        final AttributedString attString = new AttributedString(text.toString());
+        attString.addAttribute(TextAttribute.SIZE, fontSize);
+        attString.addAttribute(TextAttribute.FAMILY, fontFamily);
+
+        int start = 0;
+        for (int i = 0; i < runStyles.size(); i++) {
+            final int end = runEnds.get(i);
+            final Map<Attribute, Object> attributes = runStyles.get(i).getAttributes();
+            if (!attributes.isEmpty()) {
+                attString.addAttributes(attributes, start, end);
+            }
+            start = end;
+        }
+
+        final ExtendedAttributedString attributedString =
+                new ExtendedAttributedString(attString, maximumFontSize);
+        maximumFontSize = attributedString.getMaxLineHeight();
+        return attributedString.getAttributedString();
+    }
+
+    @Override
+    public void resetAllStyles() {
+        final Style next = style.copy();
+        next.bold = false;
+        next.underline = false;
+        next.italic = false;
+        next.fixedWidth = false;
+        setStyle(next);
+        resetColours();
+    }
+
+    @Override
+    public void resetColours() {
+        final Style next = style.copy();
+        next.foreground = defaultForeground;
+        next.background = defaultBackground;
+        setStyle(next);
+    }
+
+    @Override
+    public void appendString(final String string) {
+        if (string.isEmpty()) {
+            return;
+        }
+        text.append(string);
+        final int last = runStyles.size() - 1;
+        if (last >= 0 && runStyles.get(last) == style) {
+            runEnds.set(last, text.length());
+        } else {
+            runStyles.add(style);
+            runEnds.add(text.length());
+        }
+    }
+
+    @Override
+    public void toggleBold() {
+        final Style next = style.copy();
+        next.bold = !next.bold;
+        setStyle(next);
+    }
+
+    @Override
+    public void toggleUnderline() {
+        final Style next = style.copy();
+        next.underline = !next.underline;
+        setStyle(next);
+    }
+
+    @Override
+    public void toggleItalic() {
+        final Style next = style.copy();
+        next.italic = !next.italic;
+        setStyle(next);
+    }
+
+    @Override
+    public void startHyperlink(final String url) {
+        final Style next = style.copy();
+        next.hyperlink = url;
+        setStyle(next);
+    }
+
+    @Override
+    public void endHyperlink() {
+        final Style next = style.copy();
+        next.hyperlink = null;
+        setStyle(next);
+    }
+
+    @Override
+    public void toggleHyperlinkStyle(final Colour colour) {
+        toggleLink(style.hyperlink == null, colour);
+    }
+
+    @Override
+    public void startChannelLink(final String channel) {
+        final Style next = style.copy();
+        next.channel = channel;
+        setStyle(next);
+    }
+
+    @Override
+    public void endChannelLink() {
+        final Style next = style.copy();
+        next.channel = null;
+        setStyle(next);
+    }
+
+    @Override
+    public void toggleChannelLinkStyle(final Colour colour) {
+        toggleLink(style.channel == null, colour);
+    }
+
+    @Override
+    public void startNicknameLink(final String nickname) {
+        final Style next = style.copy();
+        next.nickname = nickname;
+        setStyle(next);
+    }
+
+    @Override
+    public void endNicknameLink() {
+        final Style next = style.copy();
+        next.nickname = null;
+        setStyle(next);
+    }
+
+    @Override
+    public void toggleFixedWidth() {
+        final Style next = style.copy();
+        next.fixedWidth = !next.fixedWidth;
+        setStyle(next);
+    }
+
+    @Override
+    public void setForeground(final Colour colour) {
+        final Style next = style.copy();
+        next.foreground = convertColour(colour);
+        setStyle(next);
+    }
+
+    @Override
+    public void setDefaultForeground(final Colour colour) {
+        defaultForeground = convertColour(colour);
+    }
+
+    @Override
+    public void setBackground(final Colour colour) {
+        final Style next = style.copy();
+        next.background = convertColour(colour);
+        setStyle(next);
+    }
+
+    @Override
+    public void setDefaultBackground(final Colour colour) {
+        defaultBackground = convertColour(colour);
+    }
+
+    @Override
+    public void startSmilie(final String smilie) {
+        // Smilies aren't rendered
+    }
+
+    @Override
+    public void endSmilie() {
+        // Smilies aren't rendered
+    }
+
+    @Override
+    public void startToolTip(final String tooltip) {
+        final Style next = style.copy();
+        next.tooltip = tooltip;
+        setStyle(next);
+    }
+
+    @Override
+    public void endToolTip() {
+        final Style next = style.copy();
+        next.tooltip = null;
+        setStyle(next);
+    }
+
+    @Override
+    public void setDefaultFont(final String fontName, final int fontSize) {
+        if (!Objects.equals(this.fontName, fontName) || !Integer.valueOf(fontSize).equals(this.fontSize)) {
+            final Font font = new Font(fontName, Font.PLAIN, fontSize);
+            this.fontName = fontName;
+            this.fontFamily = font.getFamily();
+            this.fontSize = font.getSize();
+        }
+        maximumFontSize = fontSize;
+    }
+
+    @Override
+    public int getMaximumFontSize() {
+        return maximumFontSize;
+    }
+
+    @Override
+    public void clear() {
+        defaultForeground = null;
+        defaultBackground = null;
+        text.setLength(0);
+        runStyles.clear();
+        runEnds.clear();
+    }
+
+    /**
+     * Toggles the attributes for a link.
+     *
+     * @param start  True if the link is being opened, false if it is being closed
+     * @param colour The colour to colour the link
+     */
+    private void toggleLink(final boolean start, final Colour colour) {
+        final Style next = style.copy();
+
+        if (start) {
+            if (next.underline) {
+                restoreUnderline = true;
+            } else {
+                next.underline = true;
+            }
+
+            if (colour != null) {
+                if (next.foreground != null) {
+                    restoreColour = next.foreground;
+                }
+                next.foreground = convertColour(colour);
+            }
+        } else {
+            if (restoreUnderline) {
+                restoreUnderline = false;
+            } else {
+                next.underline = false;
+            }
+
+            if (colour != null) {
+                next.foreground = restoreColour;
+                restoreColour = null;
+            }
+        }
+
+        setStyle(next);
+    }
+
+    /**
+     * Switches to the interned copy of the given style.
+     *
+     * @param next The style to apply to subsequent text.
+     */
+    private void setStyle(final Style next) {
+        if (next.equals(style)) {
+            return;
+        }
+        if (styles.size() > MAX_CACHE_SIZE) {
+            styles.clear();
+        }
+        style = styles.computeIfAbsent(next, s -> s);
+    }
+
+    /**
+     * Converts a DMDirc {@link Colour} into an AWT-specific {@link Color}, reusing previously converted colours.
+     *
+     * @param colour The colour to be converted
+     *
+     * @return A corresponding AWT colour
+     */
+    private Color convertColour(final Colour colour) {
+        final int rgb = colour.getRed() << 16 | colour.getGreen() << 8 | colour.getBlue();
+        if (colours.size() > MAX_CACHE_SIZE) {
+            colours.clear();
+        }
+        return colours.computeIfAbsent(rgb, Color::new);
+    }
+
+    /**
+     * A combination of text attributes. Styles are treated as immutable once they have been interned.
+     */
+    private static final class Style {
+        private boolean bold;
+        private boolean underline;
+        private boolean italic;
+        private boolean fixedWidth;
+        private Color foreground;
+        private Color background;
+        private String hyperlink;
+        private String channel;
+        private String nickname;
+        private String tooltip;
+        /** The attributes to apply for this style, built on first use. */
+        private Map<Attribute, Object> attributes;
+
+        Style copy() {
+            final Style copy = new Style();
+            copy.bold = bold;
+            copy.underline = underline;
+            copy.italic = italic;
+            copy.fixedWidth = fixedWidth;
+            copy.foreground = foreground;
+            copy.background = background;
+            copy.hyperlink = hyperlink;
+            copy.channel = channel;
+            copy.nickname = nickname;
+            copy.tooltip = tooltip;
+            return copy;
+        }
+
+        Map<Attribute, Object> getAttributes() {
+            if (attributes == null) {
+                final Map<Attribute, Object> map = new HashMap<>();
+                if (hyperlink != null) {
+                    map.put(IRCTextAttribute.HYPERLINK, hyperlink);
+                }
+                if (nickname != null) {
+                    map.put(IRCTextAttribute.NICKNAME, nickname);
+                }
+                if (channel != null) {
+                    map.put(IRCTextAttribute.CHANNEL, channel);
+                }
+                if (tooltip != null) {
+                    map.put(IRCTextAttribute.TOOLTIP, tooltip);
+                }
+                if (foreground != null) {
+                    map.put(TextAttribute.FOREGROUND, foreground);
+                }
+                if (background != null) {
+                    map.put(TextAttribute.BACKGROUND, background);
+                }
+                if (bold) {
+                    map.put(TextAttribute.WEIGHT, TextAttribute.WEIGHT_BOLD);
+                }
+                if (fixedWidth) {
+                    map.put(TextAttribute.FAMILY, "monospaced");
+                }
+                if (italic) {
+                    map.put(TextAttribute.POSTURE, TextAttribute.POSTURE_OBLIQUE);
+                }
+                if (underline) {
+                    map.put(TextAttribute.UNDERLINE, TextAttribute.UNDERLINE_ON);
+                }
+                attributes = Collections.unmodifiableMap(map);
+            }
+            return attributes;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Style)) {
+                return false;
+            }
+            final Style other = (Style) obj;
+            return bold == other.bold && underline == other.underline && italic == other.italic
+                    && fixedWidth == other.fixedWidth
+                    && Objects.equals(foreground, other.foreground)
+                    && Objects.equals(background, other.background)
+                    && Objects.equals(hyperlink, other.hyperlink)
+                    && Objects.equals(channel, other.channel)
+                    && Objects.equals(nickname, other.nickname)
+                    && Objects.equals(tooltip, other.tooltip);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(bold, underline, italic, fixedWidth, foreground, background,
+                    hyperlink, channel, nickname, tooltip);
+        }
+    }
+
+}
@@ -18,6 +18,7 @@
 package com.dmdirc.addons.ui_swing.textpane;
 
 import com.dmdirc.addons.ui_swing.UIUtilities;
+import com.dmdirc.addons.ui_swing.components.ImageCache;
 import com.dmdirc.interfaces.WindowModel;
 import com.dmdirc.config.provider.ConfigChangeListener;
 import com.dmdirc.ui.messages.CachingDocument;
@@ -77,6 +78,8 @@ public final class TextPane extends JComponent implements MouseWheelListener,
     private final Clipboard clipboard;
     /** Style utilities class. */
     private final StyledMessageUtils styleUtils;
+    /** Accumulator used to coalesce document changes. */
+    private final DocumentChangeAccumulator changes;
     /** Last seen line. */
     private int lastSeenLine;
     /** Show new line notifications. */
@@ -87,12 +90,13 @@ public final class TextPane extends JComponent implements MouseWheelListener,
      *
      * @param configDomain The domain to read configuration from.
      * @param urlBuilder   The builder to use to construct URLs for resources.
+     * @param imageCache   The cache to load background images from.
      * @param clipboard    The clipboard to handle copy and paste actions
      * @param window       Parent window
      */
     public TextPane(
             final String configDomain,
-            final URLBuilder urlBuilder, final Clipboard clipboard,
+            final URLBuilder urlBuilder, final ImageCache imageCache, final Clipboard clipboard,
             final WindowModel window) {
         this.window = window;
         this.configDomain = configDomain;
@@ -109,10 +113,10 @@ public final class TextPane extends JComponent implements MouseWheelListener,
 
         setLayout(new MigLayout("fill, hidemode 3"));
         backgroundPainter = new BackgroundPainter(window.getConfigManager(),
-                urlBuilder, configDomain, "textpanebackground",
+                urlBuilder, imageCache, configDomain, "textpanebackground",
                 "textpanebackgroundoption", "textpanebackgroundopacity");
         canvas = new TextPaneCanvas(this,
-                new CachingDocument<>(document, new AttributedStringMessageMaker()));
+                new CachingDocument<>(document, new StreamingAttributedStringMaker()));
         final JLayer<JComponent> layer = new JLayer<>(canvas);
         layer.setUI(backgroundPainter);
         add(layer, "dock center");
@@ -129,6 +133,7 @@ public final class TextPane extends JComponent implements MouseWheelListener,
         configChanged("", "textpanelinenotification");
 
         addMouseWheelListener(this);
+        changes = new DocumentChangeAccumulator(this, this::applyChanges);
         document.addIRCDocumentListener(this);
         setAutoscrolls(true);
 
@@ -429,52 +434,66 @@ public final class TextPane extends JComponent implements MouseWheelListener,
 
     @Override
     public void trimmed(final int newSize, final int numTrimmed) {
-        UIUtilities.invokeLater(() -> {
-            lastSeenLine -= numTrimmed;
-            final LinePosition selectedRange = getSelectedRange();
-            selectedRange.setStartLine(selectedRange.getStartLine() - numTrimmed);
-            selectedRange.setEndLine(selectedRange.getEndLine() - numTrimmed);
-            if (selectedRange.getStartLine() < 0) {
-                selectedRange.setStartLine(0);
-            }
-            if (selectedRange.getEndLine() < 0) {
-                selectedRange.setEndLine(0);
-            }
-            setSelectedText(selectedRange);
-            if (scrollModel.getValue() == scrollModel.getMaximum()) {
-                setRangeProperties(newSize, newSize);
-            } else {
-                setRangeProperties(newSize, scrollModel.getValue() - numTrimmed);
-            }
-        });
+        changes.trimmed(newSize, numTrimmed);
     }
 
     @Override
     public void cleared() {
-        UIUtilities.invokeLater(() -> {
-            scrollModel.setMaximum(0);
-            scrollModel.setValue(0);
-            canvas.recalc();
-        });
+        changes.cleared();
     }
 
     @Override
     public void linesAdded(final int line, final int length, final int size) {
-        UIUtilities.invokeLater(() -> {
-            if (scrollModel.getValue() == scrollModel.getMaximum()) {
+        changes.linesAdded(size);
+    }
+
+    @Override
+    public void repaintNeeded() {
+        changes.repaintNeeded();
+    }
+
+    /**
+     * Applies a merged set of document changes. Called on the EDT.
+     *
+     * @param update The changes to apply
+     */
+    private void applyChanges(final DocumentChangeAccumulator.Update update) {
+        if (update.isCleared()) {
+            scrollModel.setMaximum(0);
+            scrollModel.setValue(0);
+        }
+        final boolean atEnd = scrollModel.getValue() == scrollModel.getMaximum();
+        final int numTrimmed = update.getTrimmed();
+        if (numTrimmed > 0) {
+            lastSeenLine -= numTrimmed;
+            final LinePosition selectedRange = getSelectedRange();
+            selectedRange.setStartLine(Math.max(0, selectedRange.getStartLine() - numTrimmed));
+            selectedRange.setEndLine(Math.max(0, selectedRange.getEndLine() - numTrimmed));
+            setSelectedText(selectedRange);
+        }
+        final int size = update.getSize();
+        if (size >= 0) {
+            if (atEnd) {
                 setRangeProperties(size, size);
             } else {
-                setRangeProperties(size, scrollModel.getValue());
-                if (showNotification) {
+                setRangeProperties(size, scrollModel.getValue() - numTrimmed);
+                if (update.isLinesAdded() && showNotification) {
                     newLineIndicator.setVisible(true);
                 }
             }
-        });
+        }
+        if (update.isRepaint()) {
+            canvas.recalc();
+        }
     }
 
-    @Override
-    public void repaintNeeded() {
-        UIUtilities.invokeLater(canvas::recalc);
+    /**
+     * Retrieves the accumulator used to coalesce document changes for this TextPane.
+     *
+     * @return This TextPane's change accumulator
+     */
+    public DocumentChangeAccumulator getChangeAccumulator() {
+        return changes;
     }
 
     /**
@@ -526,6 +545,7 @@ public final class TextPane extends JComponent implements MouseWheelListener,
      */
     public void close() {
         backgroundPainter.unbind();
+        changes.stop();
     }
 
 }
@@ -328,6 +328,10 @@ class TextPaneCanvas extends JPanel implements MouseInputListener,
 
     /** Checks for a link under the cursor and sets appropriately. */
     private void checkForLink() {
+        if (!isShowing()) {
+            return;
+        }
+
         final AttributedCharacterIterator iterator = getIterator(getMousePosition());
 
         if (iterator != null
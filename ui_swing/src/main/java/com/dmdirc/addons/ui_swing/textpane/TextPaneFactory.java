@@ -18,6 +18,7 @@
 package com.dmdirc.addons.ui_swing.textpane;
 
 import com.dmdirc.addons.ui_swing.SwingController;
+import com.dmdirc.addons.ui_swing.components.ImageCache;
 import com.dmdirc.addons.ui_swing.components.frames.TextFrame;
 import com.dmdirc.plugins.PluginDomain;
 import com.dmdirc.util.URLBuilder;
@@ -35,18 +36,20 @@ public class TextPaneFactory {
 
     private final String configDomain;
     private final URLBuilder urlBuilder;
+    private final ImageCache imageCache;
     private final Clipboard clipboard;
 
     @Inject
     public TextPaneFactory(@PluginDomain(SwingController.class) final String configDomain,
-            final URLBuilder urlBuilder, final Clipboard clipboard) {
+            final URLBuilder urlBuilder, final ImageCache imageCache, final Clipboard clipboard) {
         this.configDomain = configDomain;
         this.urlBuilder = urlBuilder;
+        this.imageCache = imageCache;
         this.clipboard = clipboard;
     }
 
     public TextPane getTextPane(final TextFrame frame) {
-        return new TextPane(configDomain, urlBuilder, clipboard, frame.getContainer());
+        return new TextPane(configDomain, urlBuilder, imageCache, clipboard, frame.getContainer());
     }
 
 }
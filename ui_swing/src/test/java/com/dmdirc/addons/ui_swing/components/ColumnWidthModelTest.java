@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.ui_swing.components;
+
+import javax.swing.table.DefaultTableModel;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ColumnWidthModelTest {
+
+    @Mock private Runnable listener;
+    private DefaultTableModel tableModel;
+    private ColumnWidthModel instance;
+
+    @Before
+    public void setUp() {
+        tableModel = new DefaultTableModel(new Object[][]{{"a", "bb"}}, new Object[]{"H1", "H"});
+        tableModel.addTableModelListener(e -> instance.tableChanged(e));
+        instance = new ColumnWidthModel(this::measure, listener);
+        instance.setModel(tableModel);
+    }
+
+    @Test
+    public void testMeasuresInitialContents() {
+        assertArrayEquals(new int[]{2, 2}, instance.getWidths());
+        verify(listener).run();
+    }
+
+    @Test
+    public void testInsertedRowsGrowWidths() {
+        reset(listener);
+        tableModel.addRow(new Object[]{"abcd", "b"});
+        assertArrayEquals(new int[]{4, 2}, instance.getWidths());
+        verify(listener).run();
+    }
+
+    @Test
+    public void testNarrowRowsDoNotNotify() {
+        reset(listener);
+        tableModel.addRow(new Object[]{"a", "b"});
+        assertArrayEquals(new int[]{2, 2}, instance.getWidths());
+        verify(listener, never()).run();
+    }
+
+    @Test
+    public void testOnlyChangedRowsAreMeasured() {
+        final long before = instance.getMeasuredCount();
+        tableModel.addRow(new Object[]{"a", "b"});
+        tableModel.setValueAt("abcdef", 0, 1);
+        assertEquals(before + 4, instance.getMeasuredCount());
+        assertEquals(6, instance.getWidth(1));
+    }
+
+    @Test
+    public void testRemovingAllRowsResets() {
+        tableModel.addRow(new Object[]{"abcd", "b"});
+        tableModel.setRowCount(0);
+        assertArrayEquals(new int[]{2, 1}, instance.getWidths());
+    }
+
+    @Test
+    public void testStructureChangeRemeasures() {
+        tableModel.setColumnIdentifiers(new Object[]{"Header", "B", "C"});
+        assertArrayEquals(new int[]{6, 2, 1}, instance.getWidths());
+    }
+
+    @Test
+    public void testLargeTablesAreSampled() {
+        for (int row = 0; row < ColumnWidthModel.FULL_ROWS; row++) {
+            assertTrue(ColumnWidthModel.isSampled(row));
+        }
+        int sampled = 0;
+        for (int row = ColumnWidthModel.FULL_ROWS; row < ColumnWidthModel.FULL_ROWS * 32; row++) {
+            if (ColumnWidthModel.isSampled(row)) {
+                sampled++;
+            }
+        }
+        assertEquals(ColumnWidthModel.FULL_ROWS / 2 * 5, sampled);
+        assertFalse(ColumnWidthModel.isSampled(ColumnWidthModel.FULL_ROWS + 1));
+    }
+
+    private int measure(final int row, final int column) {
+        final Object value = row < 0 ? tableModel.getColumnName(column)
+                : tableModel.getValueAt(row, column);
+        return value == null ? 1 : value.toString().length();
+    }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.ui_swing.components;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ImageCacheTest {
+
+    @Rule public final TemporaryFolder folder = new TemporaryFolder();
+    private URL url;
+    private ImageCache instance;
+
+    @Before
+    public void setUp() throws Exception {
+        final File file = folder.newFile("image.png");
+        ImageIO.write(new BufferedImage(32, 24, BufferedImage.TYPE_INT_ARGB), "png", file);
+        url = file.toURI().toURL();
+        instance = new ImageCache(MoreExecutors.newDirectExecutorService());
+    }
+
+    @Test
+    public void testLoadsImage() {
+        final Image image = instance.getImage(url);
+        assertEquals(32, image.getWidth(null));
+        assertEquals(24, image.getHeight(null));
+    }
+
+    @Test
+    public void testReusesLoadedImage() {
+        final Image image = instance.getImage(url);
+        assertSame(image, instance.getImage(url));
+        assertSame(image, instance.getImageAsync(url).join());
+        assertEquals(1, instance.getStats().missCount());
+    }
+
+    @Test
+    public void testScalesImage() {
+        final Image image = instance.getImage(url, 16, 16);
+        assertEquals(16, image.getWidth(null));
+        assertEquals(16, image.getHeight(null));
+        assertSame(image, instance.getImageAsync(url, 16, 16).join());
+    }
+
+    @Test
+    public void testMissingImage() throws Exception {
+        assertNull(instance.getImage(new File(folder.getRoot(), "missing.png").toURI().toURL()));
+    }
+
+    @Test
+    public void testSynchronousLoadDoesNotWaitForExecutor() throws Exception {
+        final QueuedExecutorService executor = new QueuedExecutorService();
+        instance = new ImageCache(executor);
+        instance.getImageAsync(new File(folder.getRoot(), "other.png").toURI().toURL());
+        final Image image = instance.getImage(url, 16, 16);
+        assertEquals(16, image.getWidth(null));
+        assertEquals(1, executor.tasks.size());
+    }
+
+    @Test
+    public void testScaledLoadsShareOriginal() {
+        final QueuedExecutorService executor = new QueuedExecutorService();
+        instance = new ImageCache(executor);
+        final CompletableFuture<Image> first = instance.getImageAsync(url, 16, 16);
+        final CompletableFuture<Image> second = instance.getImageAsync(url, 8, 8);
+        assertEquals(1, executor.tasks.size());
+        executor.runAll();
+        assertEquals(16, first.join().getWidth(null));
+        assertEquals(8, second.join().getWidth(null));
+    }
+
+    @Test(timeout = 5000)
+    public void testLoadAfterShutdown() {
+        instance.shutdown();
+        assertTrue(instance.getImageAsync(url).isCompletedExceptionally());
+        assertNull(instance.getImage(url));
+        assertNull(instance.getImage(url));
+    }
+
+    /**
+     * Executor that queues tasks until they're explicitly run.
+     */
+    private static class QueuedExecutorService extends AbstractExecutorService {
+
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+        private boolean shutdown;
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+
+        @Override
+        public void execute(final Runnable command) {
+            if (shutdown) {
+                throw new RejectedExecutionException();
+            }
+            tasks.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            return new ArrayList<>(tasks);
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown && tasks.isEmpty();
+        }
+
+        @Override
+        public boolean awaitTermination(final long timeout, final TimeUnit unit) {
+            return isTerminated();
+        }
+
+    }
+
+}
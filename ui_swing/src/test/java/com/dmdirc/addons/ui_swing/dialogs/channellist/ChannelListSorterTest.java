@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.ui_swing.dialogs.channellist;
+
+import com.dmdirc.lists.GroupListEntry;
+import com.dmdirc.lists.GroupListManager;
+import com.dmdirc.util.collections.ListObserver;
+import com.dmdirc.util.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ChannelListSorterTest {
+
+    @Mock private GroupListManager manager;
+    @Mock private ObservableList<GroupListEntry> list;
+    @Mock private TableModelListener tableModelListener;
+    @Captor private ArgumentCaptor<ListObserver> listObserver;
+    @Captor private ArgumentCaptor<TableModelEvent> tableModelEvent;
+    private List<GroupListEntry> groups;
+    private ChannelListTableModel model;
+    private ChannelListSorter sorter;
+
+    @Before
+    public void setUp() {
+        groups = new ArrayList<>();
+        when(manager.getGroups()).thenReturn(list);
+        when(list.size()).thenAnswer(i -> groups.size());
+        when(list.get(anyInt())).thenAnswer(i -> groups.get((Integer) i.getArguments()[0]));
+        model = new ChannelListTableModel(manager);
+        verify(list).addListListener(listObserver.capture());
+        model.addTableModelListener(tableModelListener);
+        sorter = new ChannelListSorter(model);
+        // Forward model events the way JTable would.
+        model.addTableModelListener(e -> {
+            if (e.getType() == TableModelEvent.INSERT) {
+                sorter.rowsInserted(e.getFirstRow(), e.getLastRow());
+            } else {
+                sorter.allRowsChanged();
+            }
+        });
+    }
+
+    @Test
+    public void testResultsArePublishedInBatches() {
+        add(entry("#a", 1, "one"), entry("#b", 2, "two"), entry("#c", 3, "three"));
+        verify(tableModelListener, never()).tableChanged(any(TableModelEvent.class));
+        assertEquals(0, model.getRowCount());
+
+        model.publish();
+        verify(tableModelListener).tableChanged(tableModelEvent.capture());
+        assertEquals(TableModelEvent.INSERT, tableModelEvent.getValue().getType());
+        assertEquals(0, tableModelEvent.getValue().getFirstRow());
+        assertEquals(2, tableModelEvent.getValue().getLastRow());
+        assertEquals(3, model.getRowCount());
+        assertEquals("#b", model.getValueAt(1, 0));
+        assertEquals(2, model.getValueAt(1, 1));
+    }
+
+    @Test
+    public void testRemovalResetsResults() {
+        add(entry("#a", 1, "one"), entry("#b", 2, "two"));
+        model.publish();
+        groups.clear();
+        listObserver.getValue().onItemsRemoved(list, 0, 1);
+        add(entry("#c", 3, "three"));
+        model.publish();
+
+        verify(tableModelListener, times(2)).tableChanged(tableModelEvent.capture());
+        assertEquals(TableModelEvent.UPDATE, tableModelEvent.getValue().getType());
+        assertEquals(1, model.getRowCount());
+        assertEquals("#c", model.getValueAt(0, 0));
+    }
+
+    @Test
+    public void testSortedBatchesAreMerged() {
+        sorter.setSortKeys(Collections.singletonList(
+                new RowSorter.SortKey(1, SortOrder.DESCENDING)));
+        add(entry("#a", 5, ""), entry("#b", 1, ""), entry("#c", 9, ""));
+        model.publish();
+        add(entry("#d", 3, ""), entry("#e", 7, ""));
+        model.publish();
+
+        assertArrayEquals(new String[]{"#c", "#e", "#a", "#d", "#b"}, getView());
+    }
+
+    @Test
+    public void testToggleSortOrder() {
+        add(entry("#b", 1, ""), entry("#C", 2, ""), entry("#a", 3, ""));
+        model.publish();
+
+        sorter.toggleSortOrder(0);
+        assertArrayEquals(new String[]{"#a", "#b", "#C"}, getView());
+        sorter.toggleSortOrder(0);
+        assertArrayEquals(new String[]{"#C", "#b", "#a"}, getView());
+    }
+
+    @Test
+    public void testFilterMatchesNamesAndTopics() {
+        add(entry("#java", 1, "Coffee"), entry("#tea", 2, "no COFFEE here"),
+                entry("#dmdirc", 3, "IRC client"));
+        model.publish();
+
+        sorter.setFilter("coffee");
+        assertArrayEquals(new String[]{"#java", "#tea"}, getView());
+        sorter.setFilter("coffee h");
+        assertArrayEquals(new String[]{"#tea"}, getView());
+        sorter.setFilter("irc");
+        assertArrayEquals(new String[]{"#dmdirc"}, getView());
+        sorter.setFilter("");
+        assertEquals(3, sorter.getViewRowCount());
+        assertEquals(2, sorter.convertRowIndexToView(2));
+    }
+
+    @Test
+    public void testFilterAppliesToNewBatches() {
+        sorter.setFilter("x");
+        add(entry("#x1", 1, ""), entry("#y", 1, ""));
+        model.publish();
+        add(entry("#z", 1, "x"));
+        model.publish();
+
+        assertArrayEquals(new String[]{"#x1", "#z"}, getView());
+        assertEquals(-1, sorter.convertRowIndexToView(1));
+    }
+
+    private void add(final GroupListEntry... entries) {
+        final int start = groups.size();
+        Collections.addAll(groups, entries);
+        listObserver.getValue().onItemsAdded(list, start, groups.size() - 1);
+    }
+
+    private String[] getView() {
+        final String[] names = new String[sorter.getViewRowCount()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = (String) model.getValueAt(sorter.convertRowIndexToModel(i), 0);
+        }
+        return names;
+    }
+
+    private static GroupListEntry entry(final String name, final int users, final String topic) {
+        final GroupListEntry entry = mock(GroupListEntry.class);
+        when(entry.getName()).thenReturn(name);
+        when(entry.getUsers()).thenReturn(users);
+        when(entry.getTopic()).thenReturn(topic);
+        return entry;
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.ui_swing.dialogs.paste;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PacedPasteSenderTest {
+
+    @Mock private ScheduledExecutorService executorService;
+    @Mock private ScheduledFuture<?> future;
+    @Mock private PacedPasteSender.Listener listener;
+    private final List<String> sent = new ArrayList<>();
+    private long time;
+
+    @Before
+    public void setUp() {
+        doReturn(future).when(executorService).schedule(any(Runnable.class), anyLong(),
+                any(TimeUnit.class));
+    }
+
+    @Test
+    public void testSendsBurstThenWaits() {
+        final PacedPasteSender sender = createSender(Arrays.asList("a", "b", "c", "d"), 2, 1000, 2);
+        sender.send();
+        assertEquals(Arrays.asList("a", "b"), sent);
+        verify(executorService).schedule(any(Runnable.class), eq(500L), eq(TimeUnit.MILLISECONDS));
+        verify(listener, never()).finished(false);
+    }
+
+    @Test
+    public void testSendsRemainingLinesOverTime() {
+        final PacedPasteSender sender = createSender(Arrays.asList("a", "b", "c", "d"), 2, 1000, 2);
+        sender.send();
+        time += 500;
+        sender.send();
+        assertEquals(Arrays.asList("a", "b", "c"), sent);
+        time += 500;
+        sender.send();
+        assertEquals(Arrays.asList("a", "b", "c", "d"), sent);
+        verify(listener).progress(4, 4);
+        verify(listener).finished(false);
+    }
+
+    @Test
+    public void testLimitsBytes() {
+        final PacedPasteSender sender = createSender(Arrays.asList("aaaa", "bbbb", "cccc"), 10,
+                8, 10);
+        sender.send();
+        assertEquals(Arrays.asList("aaaa", "bbbb"), sent);
+        verify(executorService).schedule(any(Runnable.class), eq(500L), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testCancel() {
+        final PacedPasteSender sender = createSender(Arrays.asList("a", "b", "c", "d"), 2, 1000, 2);
+        sender.send();
+        sender.cancel();
+        verify(future).cancel(false);
+        verify(listener).finished(true);
+        time += 10000;
+        sender.send();
+        assertEquals(2, sender.getSent());
+    }
+
+    @Test
+    public void testSplitDiscardsEmptyLines() {
+        assertEquals(Arrays.asList("one", "two", "three"),
+                PacedPasteSender.split("one\r\n\ntwo\rthree\n", 0));
+    }
+
+    @Test
+    public void testSplitWrapsAtSpaces() {
+        assertEquals(Arrays.asList("the quick", "brown fox"),
+                PacedPasteSender.split("the quick brown fox", 10));
+    }
+
+    @Test
+    public void testSplitWrapsLongWords() {
+        assertEquals(Arrays.asList("abcd", "efgh", "ij"),
+                PacedPasteSender.split("abcdefghij", 4));
+    }
+
+    @Test
+    public void testSplitWrapsByBytes() {
+        assertEquals(Arrays.asList("\u00e9\u00e9", "\u00e9"),
+                PacedPasteSender.split("\u00e9\u00e9\u00e9", 4));
+    }
+
+    private PacedPasteSender createSender(final List<String> lines, final int linesPerSecond,
+            final int bytesPerSecond, final int burst) {
+        return new PacedPasteSender(executorService, () -> time, lines, sent::add, listener,
+                linesPerSecond, bytesPerSecond, burst);
+    }
+
+}
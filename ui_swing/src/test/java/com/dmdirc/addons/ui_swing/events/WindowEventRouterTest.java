@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.ui_swing.events;
+
+import java.util.function.Consumer;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+@RunWith(MockitoJUnitRunner.class)
+public class WindowEventRouterTest {
+
+    @Mock private Consumer<TargetedEvent> handler1;
+    @Mock private Consumer<TargetedEvent> handler2;
+    private final Object target1 = new Object();
+    private final Object target2 = new Object();
+    private WindowEventRouter instance;
+
+    @Before
+    public void setUp() {
+        instance = new WindowEventRouter();
+        instance.addRoute(TargetedEvent.class, TargetedEvent::getTarget);
+    }
+
+    @Test
+    public void testDeliversOnlyToTarget() {
+        instance.subscribe(TargetedEvent.class, target1, handler1);
+        instance.subscribe(TargetedEvent.class, target2, handler2);
+        final TargetedEvent event = new TargetedEvent(target1);
+        instance.dispatch(event);
+        verify(handler1).accept(event);
+        verify(handler2, never()).accept(event);
+    }
+
+    @Test
+    public void testUnsubscribe() {
+        final WindowEventRouter.Subscription subscription =
+                instance.subscribe(TargetedEvent.class, target1, handler1);
+        assertEquals(1, instance.getSubscriptionCount());
+        subscription.unsubscribe();
+        assertEquals(0, instance.getSubscriptionCount());
+        final TargetedEvent event = new TargetedEvent(target1);
+        instance.dispatch(event);
+        verify(handler1, never()).accept(event);
+    }
+
+    @Test
+    public void testRemoveRoute() {
+        final WindowEventRouter.RouteRegistration route =
+                instance.addRoute(OtherEvent.class, OtherEvent::getTarget);
+        instance.subscribe(OtherEvent.class, target1, handler2);
+        route.remove();
+        assertEquals(1, instance.getSubscriptionCount());
+        instance.dispatch(new OtherEvent(target1));
+        verifyZeroInteractions(handler2);
+    }
+
+    @Test
+    public void testRemoveRouteKeepsOtherRoutes() {
+        final WindowEventRouter.RouteRegistration route =
+                instance.addRoute(TargetedEvent.class, TargetedEvent::getTarget);
+        instance.subscribe(TargetedEvent.class, target1, handler1);
+        route.remove();
+        route.remove();
+        final TargetedEvent event = new TargetedEvent(target1);
+        instance.dispatch(event);
+        verify(handler1).accept(event);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSubscribeAfterRemoveRoute() {
+        instance.addRoute(OtherEvent.class, OtherEvent::getTarget).remove();
+        instance.subscribe(OtherEvent.class, target1, handler2);
+    }
+
+    @Test
+    public void testRoutesSubclasses() {
+        instance.subscribe(TargetedEvent.class, target1, handler1);
+        final TargetedEvent event = new SubclassEvent(target1);
+        instance.dispatch(event);
+        verify(handler1).accept(event);
+    }
+
+    @Test
+    public void testIgnoresUnroutedEvents() {
+        instance.subscribe(TargetedEvent.class, target1, handler1);
+        instance.dispatch(target1);
+        verifyZeroInteractions(handler1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSubscribeWithoutRoute() {
+        instance.subscribe(String.class, target1, s -> {});
+    }
+
+    private static class TargetedEvent {
+
+        private final Object target;
+
+        TargetedEvent(final Object target) {
+            this.target = target;
+        }
+
+        Object getTarget() {
+            return target;
+        }
+
+    }
+
+    private static class OtherEvent extends TargetedEvent {
+
+        OtherEvent(final Object target) {
+            super(target);
+        }
+
+    }
+
+    private static class SubclassEvent extends TargetedEvent {
+
+        SubclassEvent(final Object target) {
+            super(target);
+        }
+
+    }
+
+}
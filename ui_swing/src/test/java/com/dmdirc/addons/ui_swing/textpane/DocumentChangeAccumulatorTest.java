@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.ui_swing.textpane;
+
+import javax.swing.JPanel;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DocumentChangeAccumulatorTest {
+
+    private DocumentChangeAccumulator instance;
+
+    @Before
+    public void setUp() {
+        instance = new DocumentChangeAccumulator(new JPanel(), update -> {});
+    }
+
+    @After
+    public void tearDown() {
+        instance.stop();
+    }
+
+    @Test
+    public void testNothingPending() {
+        assertNull(instance.drain());
+    }
+
+    @Test
+    public void testMergesLinesAdded() {
+        instance.linesAdded(10);
+        instance.linesAdded(20);
+        instance.linesAdded(30);
+        final DocumentChangeAccumulator.Update update = instance.drain();
+        assertTrue(update.isLinesAdded());
+        assertEquals(30, update.getSize());
+        assertFalse(update.isRepaint());
+        assertEquals(2, instance.getCoalesced());
+        assertNull(instance.drain());
+    }
+
+    @Test
+    public void testSumsTrimmed() {
+        instance.linesAdded(100);
+        instance.trimmed(90, 10);
+        instance.trimmed(85, 5);
+        final DocumentChangeAccumulator.Update update = instance.drain();
+        assertEquals(15, update.getTrimmed());
+        assertEquals(85, update.getSize());
+    }
+
+    @Test
+    public void testClearDiscardsEarlierChanges() {
+        instance.linesAdded(100);
+        instance.trimmed(90, 10);
+        instance.cleared();
+        instance.linesAdded(2);
+        final DocumentChangeAccumulator.Update update = instance.drain();
+        assertTrue(update.isCleared());
+        assertEquals(0, update.getTrimmed());
+        assertEquals(2, update.getSize());
+        assertTrue(update.isRepaint());
+    }
+
+    @Test
+    public void testRepaintOnly() {
+        instance.repaintNeeded();
+        final DocumentChangeAccumulator.Update update = instance.drain();
+        assertTrue(update.isRepaint());
+        assertEquals(-1, update.getSize());
+    }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.ui_swing.textpane;
+
+import com.dmdirc.ui.messages.StyledMessageMaker;
+import com.dmdirc.util.colours.Colour;
+
+import java.awt.font.TextAttribute;
+import java.text.AttributedCharacterIterator;
+import java.text.AttributedString;
+import java.util.function.Consumer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class StreamingAttributedStringMakerTest {
+
+    private static final Colour BLACK = new Colour(0, 0, 0);
+    private static final Colour WHITE = new Colour(255, 255, 255);
+    private static final Colour RED = new Colour(255, 0, 0);
+    private static final Colour BLUE = new Colour(0, 0, 255);
+
+    @Test
+    public void testPlainText() {
+        assertSameOutput(m -> m.appendString("Hello world"));
+    }
+
+    @Test
+    public void testEmptyMessage() {
+        assertSameOutput(m -> { });
+    }
+
+    @Test
+    public void testFormatting() {
+        assertSameOutput(m -> {
+            m.toggleBold();
+            m.appendString("bold ");
+            m.toggleItalic();
+            m.appendString("bold italic ");
+            m.toggleBold();
+            m.toggleUnderline();
+            m.appendString("italic underline ");
+            m.toggleFixedWidth();
+            m.appendString("fixed ");
+            m.toggleFixedWidth();
+            m.resetAllStyles();
+            m.appendString("plain");
+        });
+    }
+
+    @Test
+    public void testResetClearsFixedWidth() {
+        final AttributedString result = render(new StreamingAttributedStringMaker(), m -> {
+            m.toggleFixedWidth();
+            m.appendString("fixed");
+            m.resetAllStyles();
+            m.appendString("plain");
+        });
+        final AttributedCharacterIterator iterator = result.getIterator();
+        assertEquals("monospaced", iterator.getAttribute(TextAttribute.FAMILY));
+        iterator.setIndex(5);
+        assertEquals("Dialog", iterator.getAttribute(TextAttribute.FAMILY));
+    }
+
+    @Test
+    public void testColours() {
+        assertSameOutput(m -> {
+            m.setDefaultForeground(BLACK);
+            m.setDefaultBackground(WHITE);
+            m.resetColours();
+            m.appendString("default ");
+            m.setForeground(RED);
+            m.setBackground(BLUE);
+            m.appendString("red on blue ");
+            m.resetColours();
+            m.appendString("default");
+        });
+    }
+
+    @Test
+    public void testLinks() {
+        assertSameOutput(m -> {
+            m.setForeground(RED);
+            m.appendString("<");
+            m.startNicknameLink("nick");
+            m.appendString("nick");
+            m.endNicknameLink();
+            m.appendString("> see ");
+            m.toggleHyperlinkStyle(BLUE);
+            m.startHyperlink("http://example.com");
+            m.appendString("http://example.com");
+            m.toggleHyperlinkStyle(BLUE);
+            m.endHyperlink();
+            m.appendString(" in ");
+            m.toggleUnderline();
+            m.toggleChannelLinkStyle(null);
+            m.startChannelLink("#chan");
+            m.appendString("#chan");
+            m.toggleChannelLinkStyle(null);
+            m.endChannelLink();
+            m.startToolTip("tip");
+            m.appendString(" tooltip");
+            m.endToolTip();
+        });
+    }
+
+    @Test
+    public void testReuseAfterClear() {
+        final StreamingAttributedStringMaker maker = new StreamingAttributedStringMaker();
+        render(maker, m -> {
+            m.setDefaultForeground(RED);
+            m.resetColours();
+            m.appendString("first");
+        });
+        final AttributedString second = render(maker, m -> m.appendString("second"));
+        final AttributedCharacterIterator iterator = second.getIterator();
+        assertEquals(iterator.getEndIndex(), iterator.getRunLimit());
+    }
+
+    private static void assertSameOutput(final Consumer<StyledMessageMaker<AttributedString>> line) {
+        final AttributedCharacterIterator expected =
+                render(new AttributedStringMessageMaker(), line).getIterator();
+        final AttributedCharacterIterator actual =
+                render(new StreamingAttributedStringMaker(), line).getIterator();
+
+        assertEquals(expected.getEndIndex(), actual.getEndIndex());
+        for (char c = expected.first(); c != AttributedCharacterIterator.DONE; c = expected.next()) {
+            assertEquals(c, actual.setIndex(expected.getIndex()));
+            assertEquals("Attributes at " + expected.getIndex(),
+                    expected.getAttributes(), actual.getAttributes());
+        }
+    }
+
+    private static AttributedString render(final StyledMessageMaker<AttributedString> maker,
+            final Consumer<StyledMessageMaker<AttributedString>> line) {
+        maker.clear();
+        maker.setDefaultFont("Dialog", 12);
+        line.accept(maker);
+        return maker.getStyledMessage();
+    }
+
+}
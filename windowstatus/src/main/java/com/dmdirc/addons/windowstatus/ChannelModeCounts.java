@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.dmdirc.addons.windowstatus;
+
+import com.dmdirc.interfaces.GroupChatUser;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps count of the number of users in a channel with each important mode, updated incrementally
+ * as users join, leave and change modes.
+ */
+public class ChannelModeCounts {
+
+    /** The last known important mode of each user. */
+    private final Map<GroupChatUser, String> modes = new HashMap<>();
+    /** The number of users with each important mode. */
+    private final Map<String, Integer> counts = new HashMap<>();
+
+    /**
+     * Replaces all users with the given collection.
+     *
+     * @param users The users now in the channel.
+     */
+    public synchronized void reset(final Collection<GroupChatUser> users) {
+        modes.clear();
+        counts.clear();
+        users.forEach(this::add);
+    }
+
+    /**
+     * Adds a user to the counts.
+     *
+     * @param user The user that has joined.
+     *
+     * @return True if the counts have changed, false otherwise.
+     */
+    public synchronized boolean add(final GroupChatUser user) {
+        final String mode = user.getImportantMode();
+        final String previous = modes.put(user, mode);
+        if (previous != null) {
+            decrement(previous);
+        }
+        increment(mode);
+        return !mode.equals(previous);
+    }
+
+    /**
+     * Removes a user from the counts.
+     *
+     * @param user The user that has left.
+     *
+     * @return True if the counts have changed, false otherwise.
+     */
+    public synchronized boolean remove(final GroupChatUser user) {
+        final String previous = modes.remove(user);
+        if (previous == null) {
+            return false;
+        }
+        decrement(previous);
+        return true;
+    }
+
+    /**
+     * Updates the counts after a user's modes have changed.
+     *
+     * @param user The user whose modes have changed.
+     *
+     * @return True if the counts have changed, false otherwise.
+     */
+    public synchronized boolean update(final GroupChatUser user) {
+        return modes.containsKey(user) && add(user);
+    }
+
+    /**
+     * Gets the number of users in the channel.
+     *
+     * @return The number of users.
+     */
+    public synchronized int getSize() {
+        return modes.size();
+    }
+
+    /**
+     * Gets the number of users whose important mode is the given mode.
+     *
+     * @param mode The mode to count, or an empty string for users without a mode.
+     *
+     * @return The number of users with that mode.
+     */
+    public synchronized int getCount(final String mode) {
+        return counts.getOrDefault(mode, 0);
+    }
+
+    private void increment(final String mode) {
+        counts.merge(mode, 1, Integer::sum);
+    }
+
+    private void decrement(final String mode) {
+        counts.computeIfPresent(mode, (k, v) -> v > 1 ? v - 1 : null);
+    }
+
+}
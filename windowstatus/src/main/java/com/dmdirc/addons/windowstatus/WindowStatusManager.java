@@ -32,8 +32,12 @@ import com.dmdirc.config.prefs.PreferencesCategory;
 import com.dmdirc.config.prefs.PreferencesDialogModel;
 import com.dmdirc.config.prefs.PreferencesSetting;
 import com.dmdirc.config.prefs.PreferencesType;
+import com.dmdirc.events.ChannelClosedEvent;
 import com.dmdirc.events.ChannelUserModeChangeEvent;
 import com.dmdirc.events.ClientPrefsOpenedEvent;
+import com.dmdirc.events.NickListClientAddedEvent;
+import com.dmdirc.events.NickListClientRemovedEvent;
+import com.dmdirc.events.NickListClientsChangedEvent;
 import com.dmdirc.events.StatusBarComponentAddedEvent;
 import com.dmdirc.events.StatusBarComponentRemovedEvent;
 import com.dmdirc.interfaces.Connection;
@@ -44,6 +48,10 @@ import com.dmdirc.interfaces.WindowModel;
 import com.dmdirc.config.provider.AggregateConfigProvider;
 import com.dmdirc.plugins.PluginDomain;
 import com.dmdirc.plugins.PluginInfo;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import javax.inject.Inject;
 import net.engio.mbassy.listener.Handler;
 
@@ -61,6 +69,8 @@ public class WindowStatusManager {
     private final EventBus eventBus;
     /** The swing event bus to register for events on. */
     private final SwingEventBus swingEventBus;
+    /** Mode counts for each channel that has been shown. */
+    private final Map<GroupChat, ChannelModeCounts> modeCounts = new ConcurrentHashMap<>();
     /** The panel we use in the status bar. */
     private WindowStatusPanel panel;
     /** Should we show the real name in queries? */
@@ -104,6 +114,7 @@ public class WindowStatusManager {
         eventBus.unsubscribe(this);
         eventBus.publishAsync(new StatusBarComponentRemovedEvent(panel));
         configBinder.unbind(this);
+        modeCounts.clear();
         panel = null;
     }
 
@@ -114,7 +125,52 @@ public class WindowStatusManager {
 
     @Handler
     public void usermodeChange(final ChannelUserModeChangeEvent event) {
-        updateStatus();
+        final ChannelModeCounts counts = modeCounts.get(event.getChannel());
+        if (counts != null && counts.update(event.getVictim())) {
+            countsChanged(event.getChannel());
+        }
+    }
+
+    @Handler
+    public void clientsChanged(final NickListClientsChangedEvent event) {
+        final ChannelModeCounts counts = modeCounts.get(event.getChannel());
+        if (counts != null) {
+            counts.reset(event.getUsers());
+            countsChanged(event.getChannel());
+        }
+    }
+
+    @Handler
+    public void clientAdded(final NickListClientAddedEvent event) {
+        final ChannelModeCounts counts = modeCounts.get(event.getChannel());
+        if (counts != null && counts.add(event.getUser())) {
+            countsChanged(event.getChannel());
+        }
+    }
+
+    @Handler
+    public void clientRemoved(final NickListClientRemovedEvent event) {
+        final ChannelModeCounts counts = modeCounts.get(event.getChannel());
+        if (counts != null && counts.remove(event.getUser())) {
+            countsChanged(event.getChannel());
+        }
+    }
+
+    @Handler
+    public void channelClosed(final ChannelClosedEvent event) {
+        modeCounts.remove(event.getChannel());
+    }
+
+    /**
+     * Updates the status if the given channel's counts have changed and it is the active window.
+     *
+     * @param channel The channel whose counts have changed.
+     */
+    private void countsChanged(final GroupChat channel) {
+        UIUtilities.invokeLater(() -> activeFrameManager.getActiveFrame()
+                .map(TextFrame::getContainer)
+                .filter(channel.getWindowModel()::equals)
+                .ifPresent(this::updateStatus));
     }
 
     /** Update the window status using the current active window. */
@@ -153,30 +209,30 @@ public class WindowStatusManager {
     }
 
     private String updateStatusChannel(final GroupChat frame) {
+        final ChannelModeCounts counts = modeCounts.computeIfAbsent(frame, c -> {
+            final ChannelModeCounts newCounts = new ChannelModeCounts();
+            newCounts.reset(c.getUsers());
+            return newCounts;
+        });
         final StringBuilder textString = new StringBuilder();
 
         textString.append(frame.getName());
         textString.append(" - Nicks: ");
-        textString.append(frame.getUsers().size());
+        textString.append(counts.getSize());
         textString.append(" (");
 
         final String channelUserModes = ' ' + frame.getConnection()
                 .map(Connection::getUserModes).orElse("");
-        final int[] usersWithMode = new int[channelUserModes.length()];
-        frame.getUsers().forEach(user -> {
-            final String mode = user.getImportantMode();
-            final int index = channelUserModes.indexOf(mode);
-            usersWithMode[index]++;
-        });
 
         boolean isFirst = true;
         for (int i = channelUserModes.length() - 1; i >= 0; i--) {
-            final int count = usersWithMode[i];
+            final String mode = i > 0 ? Character.toString(channelUserModes.charAt(i)) : "";
+            final int count = counts.getCount(mode);
             if (count > 0 && (shownone || i > 0)) {
                 if (!isFirst) {
                     textString.append(' ');
                 }
-                final String name = i > 0 ? Character.toString(channelUserModes.charAt(i)) : nonePrefix;
+                final String name = i > 0 ? mode : nonePrefix;
                 textString.append(name).append(count);
                 isFirst = false;
             }
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2006-2017 DMDirc Developers
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.dmdirc.addons.windowstatus;
+
+import com.dmdirc.interfaces.GroupChatUser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ChannelModeCountsTest {
+
+    @Mock private GroupChatUser op;
+    @Mock private GroupChatUser voice;
+    @Mock private GroupChatUser normal;
+    @Mock private GroupChatUser other;
+    private final List<GroupChatUser> users = new ArrayList<>();
+    private ChannelModeCounts counts;
+
+    @Before
+    public void setUp() {
+        when(op.getImportantMode()).thenReturn("o");
+        when(voice.getImportantMode()).thenReturn("v");
+        when(normal.getImportantMode()).thenReturn("");
+        when(other.getImportantMode()).thenReturn("");
+        when(normal.getNickname()).thenReturn("normal");
+        users.addAll(Arrays.asList(op, voice, normal));
+        counts = new ChannelModeCounts();
+        counts.reset(users);
+    }
+
+    @Test
+    public void testReset() {
+        assertMatchesRecount();
+        users.remove(voice);
+        users.add(other);
+        counts.reset(users);
+        assertMatchesRecount();
+    }
+
+    @Test
+    public void testJoin() {
+        assertTrue(counts.add(other));
+        users.add(other);
+        assertMatchesRecount();
+    }
+
+    @Test
+    public void testJoinTwiceCountedOnce() {
+        counts.add(other);
+        assertFalse(counts.add(other));
+        users.add(other);
+        assertMatchesRecount();
+    }
+
+    @Test
+    public void testPart() {
+        assertTrue(counts.remove(voice));
+        users.remove(voice);
+        assertMatchesRecount();
+    }
+
+    @Test
+    public void testPartUnknownUser() {
+        assertFalse(counts.remove(other));
+        assertMatchesRecount();
+    }
+
+    @Test
+    public void testModeAdded() {
+        when(normal.getImportantMode()).thenReturn("v");
+        assertTrue(counts.update(normal));
+        assertMatchesRecount();
+    }
+
+    @Test
+    public void testModeRemoved() {
+        when(op.getImportantMode()).thenReturn("");
+        assertTrue(counts.update(op));
+        assertMatchesRecount();
+        assertEquals(0, counts.getCount("o"));
+    }
+
+    @Test
+    public void testModeChangeWithoutImportantModeChange() {
+        assertFalse(counts.update(voice));
+        assertMatchesRecount();
+    }
+
+    @Test
+    public void testModeChangeForUnknownUser() {
+        when(other.getImportantMode()).thenReturn("o");
+        assertFalse(counts.update(other));
+        assertMatchesRecount();
+    }
+
+    @Test
+    public void testNickChange() {
+        when(normal.getNickname()).thenReturn("renamed");
+        assertFalse(counts.update(normal));
+        assertMatchesRecount();
+    }
+
+    @Test
+    public void testSequenceOfChanges() {
+        counts.add(other);
+        users.add(other);
+        when(other.getImportantMode()).thenReturn("o");
+        counts.update(other);
+        counts.remove(op);
+        users.remove(op);
+        when(voice.getImportantMode()).thenReturn("");
+        counts.update(voice);
+        assertMatchesRecount();
+    }
+
+    private void assertMatchesRecount() {
+        final Map<String, Integer> expected = new HashMap<>();
+        users.forEach(u -> expected.merge(u.getImportantMode(), 1, Integer::sum));
+        assertEquals(users.size(), counts.getSize());
+        for (String mode : Arrays.asList("o", "v", "")) {
+            assertEquals("Count for mode '" + mode + '\'', (int) expected.getOrDefault(mode, 0),
+                    counts.getCount(mode));
+        }
+    }
+
+}